@@ -32,17 +32,21 @@ import org.netbeans.gradle.model.util.BasicFileUtils;
 import org.netbeans.gradle.model.util.BuilderUtils;
 import org.netbeans.gradle.model.util.ClassLoaderUtils;
 import org.netbeans.gradle.model.util.CollectionUtils;
+import org.netbeans.gradle.model.util.ContentAddressedFileStore;
 import org.netbeans.gradle.model.util.SerializationCache;
 import org.netbeans.gradle.model.util.SerializationCaches;
 import org.netbeans.gradle.model.util.SerializationUtils;
-import org.netbeans.gradle.model.util.TemporaryFileManager;
 import org.netbeans.gradle.model.util.TemporaryFileRef;
 
 public final class GenericModelFetcher {
     private static final Charset INIT_SCRIPT_ENCODING = Charset.forName("UTF-8");
     private static final String INIT_SCRIPT_LOCATION = "/org/netbeans/gradle/scripts/dynamic-model-init-script.gradle";
+    private static final String BOOT_CLASSPATH_CACHE_LOCATION = "/org/netbeans/gradle/scripts/nb-boot-classpath-cache.gradle";
 
     private static final AtomicReference<String> INIT_SCRIPT_REF = new AtomicReference<String>(null);
+    private static final AtomicReference<String> BOOT_CLASSPATH_KEY_REF = new AtomicReference<String>(null);
+
+    private static final String INPUT_FILE_PROPERTY = "org.netbeans.gradle.model.inputFile";
 
     private static final String DEFAULT_MODEL_INPUT_PREFIX = "model-input";
     private static final String DEFAULT_INIT_SCRIPT_PREFIX = "dyn-model-gradle-init";
@@ -59,18 +63,77 @@ public final class GenericModelFetcher {
     // TODO: These classes must be key based as well.
     private final Set<Class<?>> modelClasses;
 
+    // null means all projects
+    private final Set<File> requestedProjectDirs;
+    private final boolean parallelBuilders;
+
     public GenericModelFetcher(
             Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests,
             Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfoRequests,
             Collection<Class<?>> modelClasses) {
+        this(buildInfoRequests, projectInfoRequests, modelClasses, null);
+    }
+
+    /**
+     * Creates a new {@code GenericModelFetcher} which only fetches the models
+     * of the specified projects (in addition to the project the connection
+     * was opened for) and the projects they depend on, transitively. Other
+     * projects of the build only appear in the project tree without their
+     * tasks and they are not part of the {@link FetchedModels#getOtherProjectModels() fetched models}.
+     *
+     * @param requestedProjectDirs the project directories of the projects
+     *   whose models are to be fetched. This argument can be {@code null},
+     *   in which case the models of all the projects of the build are fetched.
+     */
+    public GenericModelFetcher(
+            Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests,
+            Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfoRequests,
+            Collection<Class<?>> modelClasses,
+            Collection<File> requestedProjectDirs) {
+        this(buildInfoRequests, projectInfoRequests, modelClasses, requestedProjectDirs, false);
+    }
+
+    /**
+     * Creates a new {@code GenericModelFetcher} which might evaluate the
+     * {@link org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder thread-safe}
+     * project info builders of a project concurrently. The results are the
+     * same regardless of the order the builders complete.
+     *
+     * @param requestedProjectDirs the project directories of the projects
+     *   whose models are to be fetched. This argument can be {@code null},
+     *   in which case the models of all the projects of the build are fetched.
+     * @param parallelBuilders {@code true} if thread-safe builders might be
+     *   evaluated concurrently, {@code false} if builders must be evaluated
+     *   one after the other
+     */
+    public GenericModelFetcher(
+            Map<Object, List<GradleBuildInfoQuery<?>>> buildInfoRequests,
+            Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfoRequests,
+            Collection<Class<?>> modelClasses,
+            Collection<File> requestedProjectDirs,
+            boolean parallelBuilders) {
 
         this.buildInfoBuilders = GradleInfoQueryMap.fromBuildInfos(buildInfoRequests);
         this.projectInfoBuilders = GradleInfoQueryMap.fromProjectInfos(projectInfoRequests);
         this.modelClasses = Collections.unmodifiableSet(new HashSet<Class<?>>(modelClasses));
+        this.requestedProjectDirs = requestedProjectDirs != null
+                ? canonicalDirs(requestedProjectDirs)
+                : null;
+        this.parallelBuilders = parallelBuilders;
 
         CollectionUtils.checkNoNullElements(this.modelClasses, "modelClasses");
     }
 
+    private static Set<File> canonicalDirs(Collection<File> dirs) {
+        CollectionUtils.checkNoNullElements(dirs, "requestedProjectDirs");
+
+        Set<File> result = new HashSet<File>(2 * dirs.size());
+        for (File dir: dirs) {
+            result.add(BasicFileUtils.toCanonicalFile(dir));
+        }
+        return Collections.unmodifiableSet(result);
+    }
+
     public static void setDefaultPrefixes() {
         modelInputPrefix = DEFAULT_MODEL_INPUT_PREFIX;
         initScriptPrefix = DEFAULT_INIT_SCRIPT_PREFIX;
@@ -130,7 +193,7 @@ public final class GenericModelFetcher {
 
     public FetchedModelsOrError getModels(ProjectConnection connection, OperationInitializer init) throws IOException {
         BuildActionExecuter<ActionFetchedModelsOrError> executer = connection.action(
-                new ModelFetcherBuildAction(buildInfoBuilders, modelClasses));
+                new ModelFetcherBuildAction(buildInfoBuilders, modelClasses, requestedProjectDirs));
 
         BuildOperationArgs buildOPArgs = new BuildOperationArgs();
         init.initOperation(buildOPArgs);
@@ -141,25 +204,36 @@ public final class GenericModelFetcher {
             userArgs = new String[0];
         }
 
+        // The init script does not depend on the model input, so that the daemon
+        // may reuse the compiled script along with the class loader it caches.
         String initScript = getInitScript();
 
+        File bootClassPath = ClassLoaderUtils.getLocationOfClassPath();
+        initScript = initScript.replace(
+                "$NB_BOOT_CLASSPATH_KEY",
+                toPastableString(getBootClassPathKey(bootClassPath)));
         initScript = initScript.replace(
                 "$NB_BOOT_CLASSPATH",
-                toPastableString(ClassLoaderUtils.getLocationOfClassPath().getPath()));
+                toPastableString(bootClassPath.getPath()));
+        initScript = initScript.replace(
+                "$INPUT_FILE_PROPERTY",
+                toPastableString(INPUT_FILE_PROPERTY));
 
-        TemporaryFileManager fileManager = TemporaryFileManager.getDefault();
+        ContentAddressedFileStore fileManager = ContentAddressedFileStore.getDefault();
 
-        ModelQueryInput modelInput = new ModelQueryInput(projectInfoBuilders.getSerializableBuilderMap());
+        ModelQueryInput modelInput = new ModelQueryInput(
+                projectInfoBuilders.getSerializableBuilderMap(),
+                requestedProjectDirs != null,
+                parallelBuilders);
         TemporaryFileRef modelInputFile = fileManager.createFileFromSerialized(modelInputPrefix, modelInput);
         try {
-            initScript = initScript.replace("$INPUT_FILE", toPastableString(modelInputFile.getFile()));
-
             TemporaryFileRef initScriptRef = fileManager
                     .createFile(initScriptPrefix, initScript, INIT_SCRIPT_ENCODING);
             try {
-                String[] executerArgs = new String[userArgs.length + 2];
+                String[] executerArgs = new String[userArgs.length + 3];
                 System.arraycopy(userArgs, 0, executerArgs, 0, userArgs.length);
 
+                executerArgs[executerArgs.length - 3] = "-D" + INPUT_FILE_PROPERTY + "=" + modelInputFile.getFile().getPath();
                 executerArgs[executerArgs.length - 2] = "--init-script";
                 executerArgs[executerArgs.length - 1] = initScriptRef.getFile().getPath();
 
@@ -174,8 +248,28 @@ public final class GenericModelFetcher {
         }
     }
 
-    private static String toPastableString(File file) {
-        return toPastableString(file.getAbsolutePath());
+    private static String getBootClassPathKey(File bootClassPath) {
+        String result = BOOT_CLASSPATH_KEY_REF.get();
+        if (result == null) {
+            result = computeBootClassPathKey(bootClassPath);
+            BOOT_CLASSPATH_KEY_REF.compareAndSet(null, result);
+            result = BOOT_CLASSPATH_KEY_REF.get();
+        }
+        return result;
+    }
+
+    private static String computeBootClassPathKey(File bootClassPath) {
+        if (bootClassPath.isFile()) {
+            try {
+                return BasicFileUtils.getMD5(bootClassPath);
+            } catch (IOException ex) {
+                // Fall back to a key which does not depend on the content.
+            }
+        }
+
+        // Class files in a directory (e.g.: while developing) might change
+        // without notice, so they are only trusted within the same session.
+        return bootClassPath.getPath() + "/" + System.nanoTime();
     }
 
     private static String toPastableString(String value) {
@@ -227,7 +321,11 @@ public final class GenericModelFetcher {
         String result = INIT_SCRIPT_REF.get();
         if (result == null) {
             try {
-                result = readResourceText(INIT_SCRIPT_LOCATION, INIT_SCRIPT_ENCODING);
+                // The classes of the cache are kept in a separate file, so that
+                // they can be tested without Gradle.
+                result = readResourceText(INIT_SCRIPT_LOCATION, INIT_SCRIPT_ENCODING)
+                        + "\n"
+                        + readResourceText(BOOT_CLASSPATH_CACHE_LOCATION, INIT_SCRIPT_ENCODING);
             } catch (IOException ex) {
                 throw new IllegalStateException("Missing init-script file from resource.", ex);
             }
@@ -281,12 +379,15 @@ public final class GenericModelFetcher {
         // key -> list of BuildInfoBuilder
         private final CustomSerializedMap.Deserializer serializedBuildInfoRequests;
         private final Set<Class<?>> modelClasses;
+        private final Set<File> requestedProjectDirs;
 
         public ModelFetcherBuildAction(
                 GradleInfoQueryMap buildInfoRequests,
-                Set<Class<?>> modelClasses) {
+                Set<Class<?>> modelClasses,
+                Set<File> requestedProjectDirs) {
             this.serializedBuildInfoRequests = buildInfoRequests.getSerializableBuilderMap();
             this.modelClasses = modelClasses;
+            this.requestedProjectDirs = requestedProjectDirs;
         }
 
         private CustomSerializedMap getBuildInfoResults(BuildController controller) {
@@ -327,7 +428,7 @@ public final class GenericModelFetcher {
         }
 
         public ActionFetchedModels executeUnsafe(EvaluatedBuild evaluatedBuild, BuildController controller) {
-            AllProjectInfoBuilder builder = new AllProjectInfoBuilder(modelClasses, evaluatedBuild);
+            AllProjectInfoBuilder builder = new AllProjectInfoBuilder(modelClasses, requestedProjectDirs, evaluatedBuild);
 
             Map<String, ActionFetchedProjectModels> fetchedModels = builder.buildProjectModels(controller);
             ActionFetchedProjectModels defaultModels = fetchedModels.remove(builder.getDefaultProjectPath());
@@ -373,6 +474,7 @@ public final class GenericModelFetcher {
 
     private static final class AllProjectInfoBuilder {
         private final Set<Class<?>> modelClasses;
+        private final Set<File> requestedProjectDirs;
         private final Map<String, BasicGradleProject> basicInfos;
         private final Map<String, ModelQueryOutput> customInfos;
         private final BasicGradleProject basicRootProject;
@@ -380,17 +482,20 @@ public final class GenericModelFetcher {
 
         private final SerializationCache serializationCache;
 
-        public AllProjectInfoBuilder(Set<Class<?>> modelClasses, EvaluatedBuild evaluatedBuild) {
+        public AllProjectInfoBuilder(
+                Set<Class<?>> modelClasses,
+                Set<File> requestedProjectDirs,
+                EvaluatedBuild evaluatedBuild) {
+
             int projectCount = evaluatedBuild.allProjects.size();
             this.modelClasses = modelClasses;
+            this.requestedProjectDirs = requestedProjectDirs;
             this.basicInfos = CollectionUtils.newHashMap(projectCount);
             this.customInfos = CollectionUtils.newHashMap(projectCount);
             this.basicRootProject = evaluatedBuild.buildModel.getRootProject();
             this.serializationCache = SerializationCaches.getDefault();
             this.defaultProjectPath = addCustomInfo(defaultModelGetter(evaluatedBuild.controller));
 
-            // TODO: If lazy project evaluation is available, review this
-            //   not to force evaluation of unnecessary projects.
             for (BasicGradleProject project: evaluatedBuild.allProjects) {
                 addBasicInfo(project);
             }
@@ -406,6 +511,17 @@ public final class GenericModelFetcher {
             return projectPath;
         }
 
+        private void addCustomInfo(BuildController controller, String projectPath, BasicGradleProject project) {
+            String addedProjectPath = addCustomInfo(projectModelGetter(controller, project));
+
+            if (!projectPath.equals(addedProjectPath)) {
+                throw new IllegalStateException("The path fetched from"
+                        + " the build script is different than provided"
+                        + " by BasicGradleProject. BasicGradleProject.path = " + projectPath
+                        + ". ModelQueryOutput.projectFullName = " + addedProjectPath);
+            }
+        }
+
         private void addBasicInfo(BasicGradleProject projectRef) {
             basicInfos.put(projectRef.getPath(), projectRef);
         }
@@ -416,20 +532,11 @@ public final class GenericModelFetcher {
 
         // Note: We expect the result of this method to be mutable.
         public Map<String, ActionFetchedProjectModels> buildProjectModels(BuildController controller) {
-            for (Map.Entry<String, BasicGradleProject> entry: basicInfos.entrySet()) {
-                String projectPath = entry.getKey();
-
-                if (!customInfos.containsKey(projectPath)) {
-                    String addedProjectPath
-                            = addCustomInfo(projectModelGetter(controller, entry.getValue()));
-
-                    if (!projectPath.equals(addedProjectPath)) {
-                        throw new IllegalStateException("The path fetched from"
-                                + " the build script is different than provided"
-                                + " by BasicGradleProject. BasicGradleProject.path = " + projectPath
-                                + ". ModelQueryOutput.projectFullName = " + addedProjectPath);
-                    }
-                }
+            if (requestedProjectDirs != null) {
+                addRequestedCustomInfos(controller);
+            }
+            else {
+                addAllCustomInfos(controller);
             }
 
             Map<String, GradleProjectTree> projectTrees = CollectionUtils.newHashMap(basicInfos.size());
@@ -441,8 +548,12 @@ public final class GenericModelFetcher {
                 parseTrees(controller, project, projectTrees);
             }
 
-            Map<String, ActionFetchedProjectModels> result = CollectionUtils.newHashMap(basicInfos.size());
+            Map<String, ActionFetchedProjectModels> result = CollectionUtils.newHashMap(customInfos.size());
             for (Map.Entry<String, BasicGradleProject> entry: basicInfos.entrySet()) {
+                if (!customInfos.containsKey(entry.getKey())) {
+                    continue;
+                }
+
                 ActionFetchedProjectModels fetchedModels
                         = getFetchedProjectModels(controller, entry, rootTree, projectTrees);
                 result.put(entry.getKey(), fetchedModels);
@@ -450,6 +561,68 @@ public final class GenericModelFetcher {
             return result;
         }
 
+        private void addAllCustomInfos(BuildController controller) {
+            for (Map.Entry<String, BasicGradleProject> entry: basicInfos.entrySet()) {
+                String projectPath = entry.getKey();
+                if (!customInfos.containsKey(projectPath)) {
+                    addCustomInfo(controller, projectPath, entry.getValue());
+                }
+            }
+        }
+
+        /**
+         * Fetches the custom models of the requested projects and of every
+         * project they (or the default project) depend on. The projects are
+         * only evaluated when their models are fetched, so that builds using
+         * configuration on demand do not have to configure unrelated projects.
+         * If the dependencies of a fetched project could not be determined,
+         * the models of all the projects are fetched.
+         */
+        private void addRequestedCustomInfos(BuildController controller) {
+            List<String> toFetch = new ArrayList<String>();
+            for (BasicGradleProject project: basicInfos.values()) {
+                File projectDir = BasicFileUtils.toCanonicalFile(project.getProjectDirectory());
+                if (requestedProjectDirs.contains(projectDir)) {
+                    toFetch.add(project.getPath());
+                }
+            }
+            for (ModelQueryOutput customInfo: customInfos.values()) {
+                if (!addProjectDependencies(customInfo, toFetch)) {
+                    addAllCustomInfos(controller);
+                    return;
+                }
+            }
+
+            while (!toFetch.isEmpty()) {
+                String projectPath = toFetch.remove(toFetch.size() - 1);
+                if (customInfos.containsKey(projectPath)) {
+                    continue;
+                }
+
+                BasicGradleProject project = basicInfos.get(projectPath);
+                if (project == null) {
+                    // Not a project of this build.
+                    continue;
+                }
+
+                addCustomInfo(controller, projectPath, project);
+                if (!addProjectDependencies(customInfos.get(projectPath), toFetch)) {
+                    addAllCustomInfos(controller);
+                    return;
+                }
+            }
+        }
+
+        private static boolean addProjectDependencies(ModelQueryOutput customInfo, List<String> toFetch) {
+            Set<String> projectDependencies = customInfo.getBasicInfo().getProjectDependencies();
+            if (projectDependencies == null) {
+                return false;
+            }
+
+            toFetch.addAll(projectDependencies);
+            return true;
+        }
+
         private ActionFetchedProjectModels getFetchedProjectModels(
                 BuildController controller,
                 Map.Entry<String, BasicGradleProject> entry,
@@ -511,7 +684,13 @@ public final class GenericModelFetcher {
 
             ModelQueryOutput customInfo = customInfos.get(projectPath);
             if (customInfo == null) {
-                throw new IllegalStateException("Missing ModelQueryOutput for project " + projectPath);
+                if (requestedProjectDirs == null) {
+                    throw new IllegalStateException("Missing ModelQueryOutput for project " + projectPath);
+                }
+
+                GradleProjectTree result = createSkeletonTree(project, children);
+                trees.put(projectPath, result);
+                return result;
             }
 
             ModelQueryOutput.BasicInfo basicInfo = customInfo.getBasicInfo();
@@ -531,6 +710,28 @@ public final class GenericModelFetcher {
             trees.put(projectPath, result);
             return result;
         }
+
+        /**
+         * Creates the tree of a project whose model was not fetched. Such
+         * projects are not evaluated, so their tasks are not known and their
+         * properties are guessed from what the settings file defines.
+         */
+        private static GradleProjectTree createSkeletonTree(
+                BasicGradleProject project,
+                List<GradleProjectTree> children) {
+
+            File projectDir = project.getProjectDirectory();
+            GenericProjectProperties genericProperties = new GenericProjectProperties(
+                    project.getName(),
+                    project.getPath(),
+                    projectDir,
+                    GenericProjectProperties.findBuildFile(projectDir));
+
+            return new GradleProjectTree(
+                    genericProperties,
+                    Collections.<GradleTaskID>emptyList(),
+                    children);
+        }
     }
 
     private interface ModelGetter {
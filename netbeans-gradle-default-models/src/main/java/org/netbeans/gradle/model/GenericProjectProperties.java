@@ -53,7 +53,7 @@ public final class GenericProjectProperties implements Serializable {
         this(defaultProjectId(projectName), projectFullName, projectDir, findBuildFile(projectDir));
     }
 
-    private static File findBuildFile(File projectDir) {
+    static File findBuildFile(File projectDir) {
         File defaultBuildFile = new File(projectDir, "build.gradle");
         if (defaultBuildFile.isFile()) {
             return defaultBuildFile;
@@ -0,0 +1,17 @@
+package org.netbeans.gradle.model.api;
+
+/**
+ * Marks a {@link ProjectInfoBuilder2} whose {@code getProjectInfo} method might
+ * be called concurrently with other builders for the same project.
+ * <P>
+ * Builders may only implement this interface if they just read the already
+ * configured project (e.g.: check the applied plugins or the configured
+ * directories) and do not trigger any kind of lazy evaluation in Gradle, such
+ * as resolving a configuration or creating tasks.
+ * <P>
+ * Builders implementing this interface are only evaluated concurrently if it
+ * was requested when fetching the models (see
+ * {@link org.netbeans.gradle.model.GenericModelFetcher}).
+ */
+public interface ThreadSafeProjectInfoBuilder {
+}
@@ -8,9 +8,10 @@ import java.lang.reflect.Constructor;
 import java.lang.reflect.InvocationTargetException;
 import java.util.concurrent.atomic.AtomicReference;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
+import org.netbeans.gradle.model.util.BuilderUtils;
 import org.netbeans.gradle.model.util.ReflectionUtils;
 
-public final class ConstrProjectInfoBuilderRef<T> implements ProjectInfoBuilder2<T>, BuilderWrapper {
+public final class ConstrProjectInfoBuilderRef<T> implements ProjectInfoBuilder2<T>, BuilderWrapper, ThreadSafetyAwareBuilder {
     private static final long serialVersionUID = 1L;
 
     private final Class<? extends T> modelType;
@@ -93,6 +94,10 @@ public final class ConstrProjectInfoBuilderRef<T> implements ProjectInfoBuilder2
         return getWrapped().getName();
     }
 
+    public boolean isThreadSafeBuilder() {
+        return BuilderUtils.isThreadSafe(getWrapped());
+    }
+
     public Object getWrappedObject() {
         return null;
     }
@@ -7,9 +7,10 @@ import java.io.Serializable;
 import java.util.Arrays;
 import java.util.concurrent.atomic.AtomicReference;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
+import org.netbeans.gradle.model.util.BuilderUtils;
 import org.netbeans.gradle.model.util.ReflectionUtils;
 
-public final class EnumProjectInfoBuilderRef<T> implements ProjectInfoBuilder2<T>, BuilderWrapper {
+public final class EnumProjectInfoBuilderRef<T> implements ProjectInfoBuilder2<T>, BuilderWrapper, ThreadSafetyAwareBuilder {
     private static final long serialVersionUID = 1L;
 
     private final Class<? extends T> modelType;
@@ -96,6 +97,10 @@ public final class EnumProjectInfoBuilderRef<T> implements ProjectInfoBuilder2<T
         return getWrapped().getName();
     }
 
+    public boolean isThreadSafeBuilder() {
+        return BuilderUtils.isThreadSafe(getWrapped());
+    }
+
     public Object getWrappedObject() {
         return null;
     }
@@ -12,10 +12,40 @@ public final class ModelQueryInput implements Serializable {
 
     // Object -> List of ProjectInfoBuilder<?>
     private final CustomSerializedMap.Deserializer projectInfoRequests;
+    private final boolean needProjectDependencies;
+    private final boolean parallelBuilders;
 
     public ModelQueryInput(CustomSerializedMap.Deserializer projectInfoRequests) {
+        this(projectInfoRequests, false, false);
+    }
+
+    public ModelQueryInput(
+            CustomSerializedMap.Deserializer projectInfoRequests,
+            boolean needProjectDependencies,
+            boolean parallelBuilders) {
         if (projectInfoRequests == null) throw new NullPointerException("projectInfoRequests");
         this.projectInfoRequests = projectInfoRequests;
+        this.needProjectDependencies = needProjectDependencies;
+        this.parallelBuilders = parallelBuilders;
+    }
+
+    /**
+     * Returns {@code true} if the project dependencies of the evaluated
+     * projects have to be collected into
+     * {@link ModelQueryOutput.BasicInfo#getProjectDependencies() BasicInfo}.
+     * They are only needed when not all the projects of the build are fetched.
+     */
+    public boolean isNeedProjectDependencies() {
+        return needProjectDependencies;
+    }
+
+    /**
+     * Returns {@code true} if the
+     * {@link org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder thread-safe}
+     * builders of a project might be evaluated concurrently.
+     */
+    public boolean isParallelBuilders() {
+        return parallelBuilders;
     }
 
     public Map<Object, List<?>> getProjectInfoRequests(SerializationCache cache, ClassLoader parent) {
@@ -3,6 +3,7 @@ package org.netbeans.gradle.model.internal;
 import java.io.File;
 import java.io.Serializable;
 import java.util.Collection;
+import java.util.Set;
 import org.netbeans.gradle.model.GradleTaskID;
 import org.netbeans.gradle.model.ProjectId;
 import org.netbeans.gradle.model.util.CollectionUtils;
@@ -49,6 +50,7 @@ public final class ModelQueryOutput implements Serializable {
         private final File buildScript;
         private final File buildDir;
         private final Collection<GradleTaskID> tasks;
+        private final Set<String> projectDependencies;
 
         public BasicInfo(
                 ProjectId projectId,
@@ -56,6 +58,16 @@ public final class ModelQueryOutput implements Serializable {
                 File buildScript,
                 File buildDir,
                 Collection<GradleTaskID> tasks) {
+            this(projectId, projectFullName, buildScript, buildDir, tasks, null);
+        }
+
+        public BasicInfo(
+                ProjectId projectId,
+                String projectFullName,
+                File buildScript,
+                File buildDir,
+                Collection<GradleTaskID> tasks,
+                Collection<String> projectDependencies) {
             if (projectId == null) throw new NullPointerException("projectId");
             if (projectFullName == null) throw new NullPointerException("projectFullName");
             if (buildDir == null) throw new NullPointerException("buildDir");
@@ -65,6 +77,13 @@ public final class ModelQueryOutput implements Serializable {
             this.buildScript = buildScript;
             this.buildDir = buildDir;
             this.tasks = CollectionUtils.copyNullSafeList(tasks);
+            this.projectDependencies = projectDependencies != null
+                    ? CollectionUtils.copyToLinkedHashSet(projectDependencies)
+                    : null;
+
+            if (this.projectDependencies != null) {
+                CollectionUtils.checkNoNullElements(this.projectDependencies, "projectDependencies");
+            }
         }
 
         public ProjectId getProjectId() {
@@ -86,5 +105,17 @@ public final class ModelQueryOutput implements Serializable {
         public Collection<GradleTaskID> getTasks() {
             return tasks;
         }
+
+        /**
+         * Returns the paths of the projects this project directly declares a
+         * project dependency on (in any of its configurations). The
+         * dependencies are not resolved to determine this set.
+         *
+         * @return the paths of the directly referenced projects or {@code null}
+         *   if they were not requested or could not be determined
+         */
+        public Set<String> getProjectDependencies() {
+            return projectDependencies;
+        }
     }
 }
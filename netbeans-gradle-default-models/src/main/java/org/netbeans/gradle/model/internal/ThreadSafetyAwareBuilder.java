@@ -0,0 +1,11 @@
+package org.netbeans.gradle.model.internal;
+
+/**
+ * Implemented by builder references which only know if the referenced builder
+ * is thread-safe after the builder was loaded.
+ *
+ * @see org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder
+ */
+public interface ThreadSafetyAwareBuilder {
+    public boolean isThreadSafeBuilder();
+}
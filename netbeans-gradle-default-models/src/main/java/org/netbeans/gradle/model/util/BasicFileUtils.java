@@ -228,6 +228,29 @@ public final class BasicFileUtils {
         }
     }
 
+    public static String getMD5(File file) throws IOException {
+        MessageDigest md;
+        try {
+            md = MessageDigest.getInstance("MD5");
+        } catch (NoSuchAlgorithmException ex) {
+            throw new IllegalStateException("Missing MD5 MessageDigest");
+        }
+
+        FileInputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[16 * 1024];
+            int readCount = input.read(buffer);
+            while (readCount >= 0) {
+                md.update(buffer, 0, readCount);
+                readCount = input.read(buffer);
+            }
+        } finally {
+            input.close();
+        }
+
+        return byteArrayToHex(md.digest());
+    }
+
     private static String byteArrayToHex(byte[] array) {
         StringBuilder result = new StringBuilder(array.length * 2);
         for (byte value: array) {
@@ -6,7 +6,9 @@ import org.netbeans.gradle.model.BuildInfoBuilder;
 import org.netbeans.gradle.model.BuilderIssue;
 import org.netbeans.gradle.model.api.ModelClassPathDef;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
+import org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder;
 import org.netbeans.gradle.model.internal.BuilderWrapper;
+import org.netbeans.gradle.model.internal.ThreadSafetyAwareBuilder;
 
 public final class BuilderUtils {
     public static String getNameForEnumBuilder(Enum<?> instance) {
@@ -42,6 +44,22 @@ public final class BuilderUtils {
         return ModelClassPathDef.EMPTY;
     }
 
+    /**
+     * Returns {@code true} if the given builder might be called concurrently
+     * with other builders.
+     *
+     * @see org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder
+     */
+    public static boolean isThreadSafe(ProjectInfoBuilder2<?> builder) {
+        if (builder instanceof ThreadSafeProjectInfoBuilder) {
+            return true;
+        }
+        if (builder instanceof ThreadSafetyAwareBuilder) {
+            return ((ThreadSafetyAwareBuilder)builder).isThreadSafeBuilder();
+        }
+        return false;
+    }
+
     private static String getSafeToString(Object obj) {
         String className = obj.getClass().getSimpleName();
         String toStringValue = obj.toString();
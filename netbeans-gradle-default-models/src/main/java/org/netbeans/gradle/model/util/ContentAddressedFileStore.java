@@ -0,0 +1,449 @@
+package org.netbeans.gradle.model.util;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.nio.charset.Charset;
+import java.security.SecureRandom;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Defines a persistent store of files identified by their content. Files
+ * created by this store are not removed when the last reference to them is
+ * closed, so subsequent requests for the same content (even from a different
+ * process using the same directory) can reuse the already existing file.
+ * <P>
+ * Files are never synced to the disk because they are only read by processes
+ * on the same machine. Files not used for a long time are removed by an
+ * occasional garbage collection step, which never removes files currently
+ * referenced by this store.
+ *
+ * <h3>Thread safety</h3>
+ * Methods of this class are safe to be used by multiple threads concurrently.
+ *
+ * <h4>Synchronization transparency</h4>
+ * Methods of this class are not <I>synchronization transparent</I>.
+ */
+public final class ContentAddressedFileStore {
+    private static final Logger LOGGER = Logger.getLogger(ContentAddressedFileStore.class.getName());
+
+    private static final String FILE_SUFFIX = ".tmp";
+    private static final String PARTIAL_FILE_SUFFIX = ".part";
+
+    private static final int MAX_IDLE_ENTRY_COUNT = 64;
+    private static final long TOUCH_INTERVAL_MS = 60L * 60 * 1000;
+    private static final long GC_INTERVAL_MS = 24L * 60 * 60 * 1000;
+    private static final long MAX_UNUSED_AGE_MS = 7L * 24 * 60 * 60 * 1000;
+    private static final long MAX_PARTIAL_FILE_AGE_MS = 60L * 60 * 1000;
+
+    private static final ContentAddressedFileStore DEFAULT = new ContentAddressedFileStore(new NbSupplier5<File>() {
+        public File get() {
+            return new File(BasicFileUtils.getPluginTmpDir(), "file-store");
+        }
+    });
+
+    private final NbSupplier5<File> storeDirProvider;
+    private final SecureRandom random;
+
+    private final Lock mainLock;
+    private final Map<BinaryContent, StoredFile> files;
+    private File storeDir;
+    private long lastGcTime;
+
+    public ContentAddressedFileStore(File storeDir) {
+        this(fixedDir(storeDir));
+    }
+
+    private ContentAddressedFileStore(NbSupplier5<File> storeDirProvider) {
+        this.storeDirProvider = storeDirProvider;
+        this.random = new SecureRandom();
+        this.mainLock = new ReentrantLock();
+        this.files = new LinkedHashMap<BinaryContent, StoredFile>(16, 0.75f, true);
+        this.storeDir = null;
+        this.lastGcTime = Long.MIN_VALUE;
+    }
+
+    private static NbSupplier5<File> fixedDir(final File dir) {
+        if (dir == null) throw new NullPointerException("dir");
+
+        return new NbSupplier5<File>() {
+            public File get() {
+                return dir;
+            }
+        };
+    }
+
+    public static ContentAddressedFileStore getDefault() {
+        return DEFAULT;
+    }
+
+    public TemporaryFileRef createFile(String preferredPrefix, String strContent, Charset charset) throws IOException {
+        BinaryContent content = new BinaryContent(strContent.getBytes(charset.name()), false);
+        return createFile(preferredPrefix, content);
+    }
+
+    public TemporaryFileRef createFile(String preferredPrefix, String strContent, String charsetName) throws IOException {
+        BinaryContent content = new BinaryContent(strContent.getBytes(charsetName), false);
+        return createFile(preferredPrefix, content);
+    }
+
+    public TemporaryFileRef createFileFromSerialized(String preferredPrefix, Object contentObj) throws IOException {
+        BinaryContent content = new BinaryContent(SerializationUtils.serializeObject(contentObj), false);
+        return createFile(preferredPrefix, content);
+    }
+
+    public TemporaryFileRef createFile(String preferredPrefix, byte[] content) throws IOException {
+        return createFile(preferredPrefix, new BinaryContent(content, true));
+    }
+
+    private TemporaryFileRef createFile(String preferredPrefix, BinaryContent content) throws IOException {
+        File dir = getStoreDir();
+        collectGarbageIfNeeded(dir);
+
+        StoredFile storedFile;
+
+        mainLock.lock();
+        try {
+            storedFile = files.get(content);
+            if (storedFile != null && storedFile.validated) {
+                storedFile.useCount++;
+                return new StoredFileRef(storedFile);
+            }
+
+            if (storedFile == null) {
+                String fileName = preferredPrefix + "-" + BasicFileUtils.getMD5(content.content) + FILE_SUFFIX;
+                storedFile = new StoredFile(content, new File(dir, fileName));
+                files.put(content, storedFile);
+            }
+
+            // The reference is acquired before the file is validated, so that
+            // the garbage collector does not remove it while we are checking.
+            storedFile.useCount++;
+        } finally {
+            mainLock.unlock();
+        }
+
+        try {
+            storedFile.ensureValid();
+        } catch (Throwable ex) {
+            release(storedFile);
+            throw Exceptions.throwUncheckedIO(ex);
+        }
+
+        mainLock.lock();
+        try {
+            storedFile.validated = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        return new StoredFileRef(storedFile);
+    }
+
+    private void release(StoredFile storedFile) {
+        mainLock.lock();
+        try {
+            storedFile.useCount--;
+            if (storedFile.useCount <= 0) {
+                // The file must be checked again because it might be modified
+                // or removed by another process while we are not using it.
+                storedFile.validated = false;
+                removeExcessIdleEntries();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void removeExcessIdleEntries() {
+        int idleCount = 0;
+        for (StoredFile storedFile: files.values()) {
+            if (storedFile.useCount <= 0) {
+                idleCount++;
+            }
+        }
+
+        // The map is in access order, so the least recently used entries come first.
+        Iterator<StoredFile> itr = files.values().iterator();
+        while (idleCount > MAX_IDLE_ENTRY_COUNT && itr.hasNext()) {
+            if (itr.next().useCount <= 0) {
+                itr.remove();
+                idleCount--;
+            }
+        }
+    }
+
+    private File getStoreDir() throws IOException {
+        mainLock.lock();
+        try {
+            if (storeDir != null) {
+                return storeDir;
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        File dir = storeDirProvider.get();
+        if (!dir.isDirectory() && !dir.mkdirs() && !dir.isDirectory()) {
+            throw new IOException("Could not create directory: " + dir);
+        }
+
+        mainLock.lock();
+        try {
+            if (storeDir == null) {
+                storeDir = dir;
+            }
+            return storeDir;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private boolean isInUse(String fileName) {
+        for (StoredFile storedFile: files.values()) {
+            if (storedFile.useCount > 0 && storedFile.file.getName().equals(fileName)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private void collectGarbageIfNeeded(File dir) {
+        long currentTime = System.currentTimeMillis();
+
+        mainLock.lock();
+        try {
+            if (lastGcTime != Long.MIN_VALUE && currentTime - lastGcTime < GC_INTERVAL_MS) {
+                return;
+            }
+            lastGcTime = currentTime;
+        } finally {
+            mainLock.unlock();
+        }
+
+        collectGarbage(dir, currentTime);
+    }
+
+    private void collectGarbage(File dir, long currentTime) {
+        File[] storedFiles = dir.listFiles();
+        if (storedFiles == null) {
+            return;
+        }
+
+        for (File file: storedFiles) {
+            String name = file.getName();
+
+            long maxAge;
+            if (name.endsWith(FILE_SUFFIX)) {
+                maxAge = MAX_UNUSED_AGE_MS;
+            }
+            else if (name.endsWith(PARTIAL_FILE_SUFFIX)) {
+                maxAge = MAX_PARTIAL_FILE_AGE_MS;
+            }
+            else {
+                continue;
+            }
+
+            if (currentTime - file.lastModified() < maxAge) {
+                continue;
+            }
+
+            mainLock.lock();
+            try {
+                if (isInUse(name)) {
+                    continue;
+                }
+
+                if (!file.delete()) {
+                    LOGGER.log(Level.INFO, "Failed to remove unused file: {0}", file);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+    }
+
+    private static boolean hasContent(File file, byte[] content) throws IOException {
+        InputStream input = new FileInputStream(file);
+        try {
+            byte[] buffer = new byte[Math.max(1, Math.min(content.length, 8 * 1024))];
+            int offset = 0;
+            while (true) {
+                int readCount = input.read(buffer);
+                if (readCount < 0) {
+                    return offset == content.length;
+                }
+
+                if (offset + readCount > content.length) {
+                    return false;
+                }
+
+                for (int i = 0; i < readCount; i++) {
+                    if (buffer[i] != content[offset + i]) {
+                        return false;
+                    }
+                }
+                offset += readCount;
+            }
+        } finally {
+            input.close();
+        }
+    }
+
+    private void writeFile(File file, byte[] content) throws IOException {
+        File partialFile = new File(file.getParentFile(),
+                file.getName() + "." + Long.toHexString(random.nextLong()) + PARTIAL_FILE_SUFFIX);
+        try {
+            OutputStream output = new FileOutputStream(partialFile);
+            try {
+                output.write(content);
+            } finally {
+                output.close();
+            }
+
+            if (partialFile.renameTo(file)) {
+                return;
+            }
+
+            // Some file systems refuse to overwrite an existing file. Another
+            // process might have already created a valid file concurrently.
+            if (file.length() == content.length && hasContent(file, content)) {
+                return;
+            }
+
+            if (!file.delete() || !partialFile.renameTo(file)) {
+                throw new IOException("Failed to create file: " + file);
+            }
+        } finally {
+            if (partialFile.exists() && !partialFile.delete()) {
+                LOGGER.log(Level.WARNING, "Failed to remove temporary file: {0}", partialFile);
+            }
+        }
+    }
+
+    private final class StoredFile {
+        private final BinaryContent content;
+        private final File file;
+        private final Lock validationLock;
+
+        private int useCount;
+        private boolean validated;
+
+        private long verifiedLength;
+        private long verifiedLastModified;
+
+        public StoredFile(BinaryContent content, File file) {
+            this.content = content;
+            this.file = file;
+            this.validationLock = new ReentrantLock();
+            this.useCount = 0;
+            this.validated = false;
+            this.verifiedLength = -1;
+            this.verifiedLastModified = -1;
+        }
+
+        public void ensureValid() throws IOException {
+            validationLock.lock();
+            try {
+                ensureValid0();
+            } finally {
+                validationLock.unlock();
+            }
+        }
+
+        private void ensureValid0() throws IOException {
+            byte[] bytes = content.content;
+
+            long lastModified = file.lastModified();
+            long length = file.length();
+
+            boolean valid;
+            if (lastModified == 0L) {
+                valid = false;
+            }
+            else if (length == verifiedLength && lastModified == verifiedLastModified) {
+                valid = true;
+            }
+            else {
+                valid = length == bytes.length && hasContent(file, bytes);
+            }
+
+            if (!valid) {
+                writeFile(file, bytes);
+                lastModified = file.lastModified();
+            }
+            else if (System.currentTimeMillis() - lastModified > TOUCH_INTERVAL_MS) {
+                // Other processes sharing this directory rely on the last
+                // modification time to find out if the file is still in use.
+                if (file.setLastModified(System.currentTimeMillis())) {
+                    lastModified = file.lastModified();
+                }
+            }
+
+            verifiedLength = bytes.length;
+            verifiedLastModified = lastModified;
+        }
+    }
+
+    private final class StoredFileRef implements TemporaryFileRef {
+        private final StoredFile storedFile;
+        private final ObjectFinalizer finalizer;
+
+        public StoredFileRef(final StoredFile storedFile) {
+            this.storedFile = storedFile;
+            this.finalizer = new ObjectFinalizer(new Runnable() {
+                public void run() {
+                    release(storedFile);
+                }
+            }, "StoredFileRef{" + storedFile.file + "}");
+        }
+
+        public File getFile() {
+            return storedFile.file;
+        }
+
+        public void close() throws IOException {
+            finalizer.doFinalize();
+        }
+
+        @Override
+        public String toString() {
+            return "StoredFileRef{" + storedFile.file + "}";
+        }
+    }
+
+    private static final class BinaryContent {
+        private final byte[] content;
+        private final int hash;
+
+        public BinaryContent(byte[] content, boolean clone) {
+            this.content = clone ? content.clone() : content;
+            this.hash = 563 + Arrays.hashCode(this.content);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final BinaryContent other = (BinaryContent)obj;
+            return Arrays.equals(this.content, other.content);
+        }
+    }
+}
@@ -5,10 +5,19 @@ import java.io.Serializable;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadFactory;
 import org.gradle.api.Project;
 import org.gradle.api.Task;
+import org.gradle.api.artifacts.Configuration;
+import org.gradle.api.artifacts.ProjectDependency;
 import org.gradle.api.tasks.TaskContainer;
 import org.gradle.tooling.provider.model.ToolingModelBuilder;
 import org.netbeans.gradle.model.BuilderResult;
@@ -43,30 +52,86 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
         int requestCount = projectInfoRequests.size();
         CustomSerializedMap.Builder projectInfosBuilder = new CustomSerializedMap.Builder(requestCount);
 
+        List<BuilderWorkUnit> workUnits = new ArrayList<BuilderWorkUnit>();
         for (Map.Entry<?, List<?>> entry: projectInfoRequests.entrySet()) {
             Object key = entry.getKey();
             for (Object projectInfoBuilder: entry.getValue()) {
-                Object info = null;
-                Throwable issue = null;
-                ProjectInfoBuilder2<?> builder = null;
-
-                try {
-                    builder = (ProjectInfoBuilder2<?>)projectInfoBuilder;
-                    info = builder.getProjectInfo(project);
-                } catch (Throwable ex) {
-                    issue = ex;
+                workUnits.add(new BuilderWorkUnit(key, projectInfoBuilder));
+            }
+        }
+
+        // The results are added in the order of the requests regardless
+        // how they were evaluated, so the output is always the same.
+        BuilderResult[] results = evaluateAll(project, workUnits);
+        for (int i = 0; i < results.length; i++) {
+            if (results[i] != null) {
+                projectInfosBuilder.addValue(workUnits.get(i).key, results[i]);
+            }
+        }
+
+        return projectInfosBuilder.create();
+    }
+
+    private BuilderResult[] evaluateAll(Project project, List<BuilderWorkUnit> workUnits) {
+        BuilderResult[] results = new BuilderResult[workUnits.size()];
+
+        int threadSafeCount = input.isParallelBuilders() ? countThreadSafe(workUnits) : 0;
+        if (threadSafeCount < 2) {
+            for (int i = 0; i < results.length; i++) {
+                results[i] = workUnits.get(i).evaluate(project);
+            }
+            return results;
+        }
+
+        ExecutorService executor = ParallelBuilders.newExecutor(threadSafeCount);
+        try {
+            List<Future<BuilderResult>> futures = new ArrayList<Future<BuilderResult>>(results.length);
+            for (BuilderWorkUnit workUnit: workUnits) {
+                futures.add(workUnit.isThreadSafe()
+                        ? executor.submit(workUnit.toTask(project))
+                        : null);
+            }
+
+            // Builders not known to be thread-safe (e.g.: those resolving
+            // dependencies) are evaluated on the calling thread, in order.
+            for (int i = 0; i < results.length; i++) {
+                if (futures.get(i) == null) {
+                    results[i] = workUnits.get(i).evaluate(project);
                 }
+            }
 
-                if (info != null || issue != null) {
-                    BuilderResult builderResult = new BuilderResult(
-                            info,
-                            BuilderUtils.createIssue(builder, issue));
-                    projectInfosBuilder.addValue(key, builderResult);
+            for (int i = 0; i < results.length; i++) {
+                Future<BuilderResult> future = futures.get(i);
+                if (future != null) {
+                    results[i] = getResult(future, workUnits.get(i));
                 }
             }
+        } finally {
+            executor.shutdown();
         }
+        return results;
+    }
 
-        return projectInfosBuilder.create();
+    private static BuilderResult getResult(Future<BuilderResult> future, BuilderWorkUnit workUnit) {
+        try {
+            return future.get();
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return workUnit.toResult(null, ex);
+        } catch (ExecutionException ex) {
+            // Unexpected because BuilderWorkUnit.evaluate does not throw exceptions.
+            return workUnit.toResult(null, ex.getCause());
+        }
+    }
+
+    private static int countThreadSafe(List<BuilderWorkUnit> workUnits) {
+        int result = 0;
+        for (BuilderWorkUnit workUnit: workUnits) {
+            if (workUnit.isThreadSafe()) {
+                result++;
+            }
+        }
+        return result;
     }
 
     private Collection<GradleTaskID> findTasks(Project project) {
@@ -88,6 +153,16 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
         return result;
     }
 
+    private static Collection<String> findProjectDependencies(Project project) {
+        Collection<String> result = new LinkedHashSet<String>();
+        for (Configuration config: project.getConfigurations()) {
+            for (ProjectDependency dependency: config.getDependencies().withType(ProjectDependency.class)) {
+                result.add(dependency.getDependencyProject().getPath());
+            }
+        }
+        return result;
+    }
+
     private static String toSafeString(Object obj) {
         String result = obj != null ? obj.toString() : null;
         return result != null ? result : "";
@@ -107,6 +182,7 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
 
         File buildFile = null;
         Collection<GradleTaskID> tasks = Collections.emptyList();
+        Collection<String> projectDependencies = null;
 
         Throwable error = null;
         try {
@@ -116,7 +192,18 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
             error = ex;
         }
 
-        ModelQueryOutput.BasicInfo result = new ModelQueryOutput.BasicInfo(projectId, projectFullName, buildFile, buildDir, tasks);
+        if (input.isNeedProjectDependencies()) {
+            try {
+                projectDependencies = findProjectDependencies(project);
+            } catch (Throwable ex) {
+                // Unknown dependencies (null) make the client fetch every
+                // project, so this must not fail the project.
+                projectDependencies = null;
+            }
+        }
+
+        ModelQueryOutput.BasicInfo result = new ModelQueryOutput.BasicInfo(
+                projectId, projectFullName, buildFile, buildDir, tasks, projectDependencies);
         return new BasicInfoWithError(result, error);
     }
 
@@ -141,6 +228,83 @@ public final class DynamicModelLoader implements ToolingModelBuilder {
         return new DefaultModelQueryOutputRef(output);
     }
 
+    private static final class BuilderWorkUnit {
+        public final Object key;
+        private final Object projectInfoBuilder;
+
+        public BuilderWorkUnit(Object key, Object projectInfoBuilder) {
+            this.key = key;
+            this.projectInfoBuilder = projectInfoBuilder;
+        }
+
+        public boolean isThreadSafe() {
+            try {
+                return projectInfoBuilder instanceof ProjectInfoBuilder2
+                        && BuilderUtils.isThreadSafe((ProjectInfoBuilder2<?>)projectInfoBuilder);
+            } catch (Throwable ex) {
+                // Let the failure be reported by the sequential evaluation.
+                return false;
+            }
+        }
+
+        public BuilderResult evaluate(Project project) {
+            Object info = null;
+            Throwable issue = null;
+            ProjectInfoBuilder2<?> builder = null;
+
+            try {
+                builder = (ProjectInfoBuilder2<?>)projectInfoBuilder;
+                info = builder.getProjectInfo(project);
+            } catch (Throwable ex) {
+                issue = ex;
+            }
+
+            return toResult(info, issue);
+        }
+
+        public BuilderResult toResult(Object info, Throwable issue) {
+            if (info == null && issue == null) {
+                return null;
+            }
+
+            ProjectInfoBuilder2<?> builder = projectInfoBuilder instanceof ProjectInfoBuilder2
+                    ? (ProjectInfoBuilder2<?>)projectInfoBuilder
+                    : null;
+            return new BuilderResult(info, BuilderUtils.createIssue(builder, issue));
+        }
+
+        public Callable<BuilderResult> toTask(final Project project) {
+            return new Callable<BuilderResult>() {
+                public BuilderResult call() {
+                    return evaluate(project);
+                }
+            };
+        }
+    }
+
+    private static final class ParallelBuilders {
+        private static final int MAX_THREAD_COUNT = 4;
+
+        /**
+         * Creates a new executor for the given number of tasks. The executor
+         * is not shared between builds because the class loader of this class
+         * might be different for each build.
+         */
+        public static ExecutorService newExecutor(int taskCount) {
+            int threadCount = Math.min(Runtime.getRuntime().availableProcessors(), MAX_THREAD_COUNT);
+            threadCount = Math.max(1, Math.min(threadCount, taskCount));
+
+            return Executors.newFixedThreadPool(threadCount, new ThreadFactory() {
+                public Thread newThread(Runnable task) {
+                    // The daemon must not be kept alive by these threads.
+                    Thread thread = new Thread(task, "NetBeans-model-builder");
+                    thread.setDaemon(true);
+                    return thread;
+                }
+            });
+        }
+    }
+
     private static final class BasicInfoWithError {
         public final ModelQueryOutput.BasicInfo info;
         public final Throwable error;
@@ -3,9 +3,13 @@ package org.netbeans.gradle.model.java;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.GroovyPlugin;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
+import org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder;
 import org.netbeans.gradle.model.util.BuilderUtils;
 
-enum GroovyBaseModelBuilder implements ProjectInfoBuilder2<GroovyBaseModel> {
+enum GroovyBaseModelBuilder
+implements
+        ProjectInfoBuilder2<GroovyBaseModel>,
+        ThreadSafeProjectInfoBuilder {
     INSTANCE;
 
     public GroovyBaseModel getProjectInfo(Object project) {
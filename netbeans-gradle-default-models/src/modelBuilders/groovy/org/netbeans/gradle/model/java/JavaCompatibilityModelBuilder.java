@@ -3,6 +3,7 @@ package org.netbeans.gradle.model.java;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.JavaPluginConvention;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
+import org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder;
 import org.netbeans.gradle.model.util.BuilderUtils;
 
 /**
@@ -14,7 +15,8 @@ import org.netbeans.gradle.model.util.BuilderUtils;
  */
 enum JavaCompatibilityModelBuilder
 implements
-        ProjectInfoBuilder2<JavaCompatibilityModel> {
+        ProjectInfoBuilder2<JavaCompatibilityModel>,
+        ThreadSafeProjectInfoBuilder {
 
     /**
      * The one and only instance of {@code JavaCompatibilityModelBuilder}.
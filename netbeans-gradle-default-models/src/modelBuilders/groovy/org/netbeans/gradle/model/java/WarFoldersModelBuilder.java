@@ -3,11 +3,13 @@ package org.netbeans.gradle.model.java;
 import org.gradle.api.Project;
 import org.gradle.api.plugins.WarPluginConvention;
 import org.netbeans.gradle.model.api.ProjectInfoBuilder2;
+import org.netbeans.gradle.model.api.ThreadSafeProjectInfoBuilder;
 import org.netbeans.gradle.model.util.BuilderUtils;
 
 enum WarFoldersModelBuilder
 implements
-        ProjectInfoBuilder2<WarFoldersModel> {
+        ProjectInfoBuilder2<WarFoldersModel>,
+        ThreadSafeProjectInfoBuilder {
 
     INSTANCE;
 
@@ -0,0 +1,113 @@
+package org.netbeans.gradle.model;
+
+import groovy.lang.GroovyClassLoader;
+import java.io.File;
+import java.io.InputStream;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Method;
+import java.net.URL;
+import java.net.URLClassLoader;
+import java.util.Scanner;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class NbBootClassPathCacheTest {
+    private static final String CACHE_SCRIPT = "/org/netbeans/gradle/scripts/nb-boot-classpath-cache.gradle";
+    private static final long GC_TIMEOUT_MS = 10000;
+
+    private Method getEntryMethod;
+    private File classPath;
+
+    private static String readScript() throws Exception {
+        InputStream input = NbBootClassPathCacheTest.class.getResourceAsStream(CACHE_SCRIPT);
+        assertNotNull("Missing resource: " + CACHE_SCRIPT, input);
+        try {
+            return new Scanner(input, "UTF-8").useDelimiter("\\A").next();
+        } finally {
+            input.close();
+        }
+    }
+
+    @Before
+    public void setUp() throws Exception {
+        // A new class loader for each test, so that the static state of the
+        // cache is not shared between the tests.
+        GroovyClassLoader groovyLoader = new GroovyClassLoader(getClass().getClassLoader());
+        groovyLoader.parseClass(readScript());
+
+        Class<?> cacheClass = groovyLoader.loadClass("NbBootClassPathCache");
+        getEntryMethod = cacheClass.getMethod("getEntry", String.class, File.class, ClassLoader.class);
+        classPath = new File("nb-boot-classpath.jar").getAbsoluteFile();
+    }
+
+    private Object getEntry(String key, ClassLoader parent) throws Exception {
+        return getEntryMethod.invoke(null, key, classPath, parent);
+    }
+
+    private static ClassLoader getEntryClassLoader(Object entry) throws Exception {
+        Field field = entry.getClass().getField("classLoader");
+        return (ClassLoader)field.get(entry);
+    }
+
+    private static ClassLoader newParent() {
+        return new URLClassLoader(new URL[0], null);
+    }
+
+    private static void waitForCollection(WeakReference<?> ref) throws InterruptedException {
+        long startTime = System.nanoTime();
+        while (ref.get() != null) {
+            if ((System.nanoTime() - startTime) / 1000000 > GC_TIMEOUT_MS) {
+                fail("The class loader was not collected.");
+            }
+
+            System.gc();
+            // Allocate a little to encourage the collector.
+            byte[][] garbage = new byte[64][];
+            for (int i = 0; i < garbage.length; i++) {
+                garbage[i] = new byte[64 * 1024];
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void testSameParentReusesClassLoader() throws Exception {
+        ClassLoader parent = newParent();
+
+        Object entry1 = getEntry("key", parent);
+        Object entry2 = getEntry("key", parent);
+
+        assertSame(entry1, entry2);
+        assertSame(parent, getEntryClassLoader(entry1).getParent());
+    }
+
+    @Test
+    public void testChangedKeyCreatesNewClassLoader() throws Exception {
+        ClassLoader parent = newParent();
+
+        Object entry1 = getEntry("key1", parent);
+        Object entry2 = getEntry("key2", parent);
+
+        assertNotSame(getEntryClassLoader(entry1), getEntryClassLoader(entry2));
+    }
+
+    @Test(timeout = 30000)
+    public void testUnusedParentCanBeCollected() throws Exception {
+        ClassLoader parent1 = newParent();
+        getEntry("key", parent1);
+
+        ClassLoader parent2 = newParent();
+        Object entry2 = getEntry("key", parent2);
+
+        WeakReference<ClassLoader> parent1Ref = new WeakReference<ClassLoader>(parent1);
+        parent1 = null;
+
+        waitForCollection(parent1Ref);
+
+        // The most recently used entry is still cached.
+        assertSame(entry2, getEntry("key", parent2));
+    }
+}
@@ -29,6 +29,7 @@ import org.netbeans.gradle.model.BuilderIssue;
 import org.netbeans.gradle.model.BuilderResult;
 import org.netbeans.gradle.model.FetchedModels;
 import org.netbeans.gradle.model.FetchedModelsOrError;
+import org.netbeans.gradle.model.FetchedProjectModels;
 import org.netbeans.gradle.model.GenericModelFetcher;
 import org.netbeans.gradle.model.GenericProjectProperties;
 import org.netbeans.gradle.model.GradleBuildInfoQuery;
@@ -677,6 +678,69 @@ public class MultiLevelJavaProjectTest {
         return InfoQueries.verifyNoError(modelsOrError);
     }
 
+    private static String getFetchedProjectPath(FetchedProjectModels projectModels) {
+        return projectModels.getProjectDef().getMainProject().getGenericProperties().getProjectFullName();
+    }
+
+    private static Set<String> getFetchedProjectPaths(FetchedModels models) {
+        Set<String> result = new HashSet<String>();
+        result.add(getFetchedProjectPath(models.getDefaultProjectModels()));
+        for (FetchedProjectModels projectModels: models.getOtherProjectModels()) {
+            result.add(getFetchedProjectPath(projectModels));
+        }
+        return result;
+    }
+
+    @Test
+    public void testRequestedProjectsWithDependencies() throws IOException {
+        Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfos
+                = new HashMap<Object, List<GradleProjectInfoQuery2<?>>>();
+        projectInfos.put(0, Collections.<GradleProjectInfoQuery2<?>>singletonList(
+                InfoQueries.toCustomQuery(JavaModelBuilders.JAR_OUTPUTS_BUILDER)));
+
+        // Not canonical on purpose: It must still match the project directory.
+        File requestedDir = new File(getProjectDir("apps", "app2"), "../app2");
+
+        final GenericModelFetcher fetcher = new GenericModelFetcher(
+                Collections.<Object, List<GradleBuildInfoQuery<?>>>emptyMap(),
+                projectInfos,
+                Collections.<Class<?>>emptySet(),
+                Collections.singleton(requestedDir));
+
+        runTestForSubProject("apps:app1", new ProjectConnectionTask() {
+            public void doTask(ProjectConnection connection) throws Exception {
+                FetchedModels models = verifyNoError(fetcher.getModels(connection, TestUtils.defaultInit()));
+
+                Set<String> expected = new HashSet<String>(Arrays.asList(
+                        ":apps:app1", ":apps:app2", ":libs:lib1", ":libs:lib2"));
+                assertEquals(expected, getFetchedProjectPaths(models));
+            }
+        });
+    }
+
+    @Test
+    public void testAllProjectsFetchedWithoutRequestedProjects() throws IOException {
+        Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfos
+                = new HashMap<Object, List<GradleProjectInfoQuery2<?>>>();
+        projectInfos.put(0, Collections.<GradleProjectInfoQuery2<?>>singletonList(
+                InfoQueries.toCustomQuery(JavaModelBuilders.JAR_OUTPUTS_BUILDER)));
+
+        final GenericModelFetcher fetcher = new GenericModelFetcher(
+                Collections.<Object, List<GradleBuildInfoQuery<?>>>emptyMap(),
+                projectInfos,
+                Collections.<Class<?>>emptySet());
+
+        runTestForSubProject("apps:app1", new ProjectConnectionTask() {
+            public void doTask(ProjectConnection connection) throws Exception {
+                FetchedModels models = verifyNoError(fetcher.getModels(connection, TestUtils.defaultInit()));
+
+                Set<String> fetchedPaths = getFetchedProjectPaths(models);
+                assertTrue(fetchedPaths.toString(), fetchedPaths.contains(":libs:lib3"));
+                assertTrue(fetchedPaths.toString(), fetchedPaths.contains(":libs:lib3:lib1"));
+            }
+        });
+    }
+
     @Test
     public void testManyQueries() throws IOException {
         Map<Object, List<GradleBuildInfoQuery<?>>> buildInfos
@@ -737,6 +801,51 @@ public class MultiLevelJavaProjectTest {
         return null;
     }
 
+    @Test
+    public void testParallelBuildersKeepRequestOrder() throws IOException {
+        // The compatibility, war and groovy builders are thread-safe,
+        // the others are evaluated on the calling thread.
+        List<GradleProjectInfoQuery2<?>> queries = Arrays.<GradleProjectInfoQuery2<?>>asList(
+                InfoQueries.toCustomQuery(JavaModelBuilders.JAVA_COMPATIBILITY_BUILDER),
+                InfoQueries.toCustomQuery(JavaModelBuilders.JAR_OUTPUTS_BUILDER),
+                InfoQueries.toCustomQuery(JavaModelBuilders.GROOVY_BASE_BUILDER),
+                InfoQueries.toCustomQuery(JavaModelBuilders.WAR_FOLDERS_BUILDER),
+                InfoQueries.toCustomQuery(JavaModelBuilders.JAVA_SOURCES_BUILDER_COMPLETE));
+
+        Map<Object, List<GradleProjectInfoQuery2<?>>> projectInfos
+                = new HashMap<Object, List<GradleProjectInfoQuery2<?>>>();
+        projectInfos.put(0, queries);
+
+        final GenericModelFetcher fetcher = new GenericModelFetcher(
+                Collections.<Object, List<GradleBuildInfoQuery<?>>>emptyMap(),
+                projectInfos,
+                Collections.<Class<?>>emptySet(),
+                null,
+                true);
+
+        runTestForSubProject("apps:app1", new ProjectConnectionTask() {
+            public void doTask(ProjectConnection connection) throws Exception {
+                FetchedModels models = verifyNoError(fetcher.getModels(connection, TestUtils.defaultInit()));
+
+                List<BuilderResult> results = models.getDefaultProjectModels().getProjectInfoResults().get(0);
+                assertNotNull("Must have results of query", results);
+
+                // The war builder has no result because app1 is not a web project.
+                List<Class<?>> expectedTypes = Arrays.<Class<?>>asList(
+                        JavaCompatibilityModel.class,
+                        JarOutputsModel.class,
+                        GroovyBaseModel.class,
+                        JavaSourcesModel.class);
+
+                assertEquals("Result count", expectedTypes.size(), results.size());
+                for (int i = 0; i < expectedTypes.size(); i++) {
+                    Object result = results.get(i).getResultIfNoIssue();
+                    assertTrue("Result " + i + ": " + result, expectedTypes.get(i).isInstance(result));
+                }
+            }
+        });
+    }
+
     @Test
     public void testManyQueriesSingleKey() throws IOException {
         Map<Object, List<GradleBuildInfoQuery<?>>> buildInfos
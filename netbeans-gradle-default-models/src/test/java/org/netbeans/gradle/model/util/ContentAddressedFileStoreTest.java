@@ -0,0 +1,175 @@
+package org.netbeans.gradle.model.util;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.RandomAccessFile;
+import java.nio.charset.Charset;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ContentAddressedFileStoreTest {
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static byte[] readAll(InputStream input) throws IOException {
+        byte[] buffer = new byte[8 * 1024];
+        ByteArrayOutputStream result = new ByteArrayOutputStream(256);
+
+        int readCount = input.read(buffer);
+
+        while (readCount > 0) {
+            result.write(buffer, 0, readCount);
+            readCount = input.read(buffer);
+        }
+
+        return result.toByteArray();
+    }
+
+    private static byte[] readAll(File file) throws IOException {
+        FileInputStream fileStream = new FileInputStream(file);
+        try {
+            return readAll(fileStream);
+        } finally {
+            fileStream.close();
+        }
+    }
+
+    private static void assertContent(TemporaryFileRef fileRef, String expectedContent) throws IOException {
+        String fileContent = new String(readAll(fileRef.getFile()), UTF8.name());
+        assertEquals(expectedContent, fileContent);
+    }
+
+    private ContentAddressedFileStore createStore() {
+        return new ContentAddressedFileStore(tmpFolder.getRoot());
+    }
+
+    @Test
+    public void testFileContainsText() throws Exception {
+        String content = "EXPECTED FILE content: testFileContainsText";
+
+        TemporaryFileRef fileRef = createStore().createFile("testFileContainsText", content, UTF8);
+        try {
+            assertContent(fileRef, content);
+        } finally {
+            fileRef.close();
+        }
+    }
+
+    @Test
+    public void testFileIsKeptAfterClose() throws Exception {
+        String content = "EXPECTED FILE content: testFileIsKeptAfterClose";
+
+        ContentAddressedFileStore store = createStore();
+
+        TemporaryFileRef fileRef1 = store.createFile("testFileIsKeptAfterClose", content, UTF8);
+        fileRef1.close();
+
+        assertTrue("File must be kept after close.", fileRef1.getFile().isFile());
+
+        TemporaryFileRef fileRef2 = store.createFile("testFileIsKeptAfterClose", content, UTF8);
+        try {
+            assertEquals(fileRef1.getFile(), fileRef2.getFile());
+            assertContent(fileRef2, content);
+        } finally {
+            fileRef2.close();
+        }
+    }
+
+    @Test
+    public void testFileIsSharedBetweenStores() throws Exception {
+        String content = "EXPECTED FILE content: testFileIsSharedBetweenStores";
+
+        TemporaryFileRef fileRef1 = createStore().createFile("testFileIsSharedBetweenStores", content, UTF8);
+        fileRef1.close();
+
+        long lastModified = fileRef1.getFile().lastModified();
+
+        TemporaryFileRef fileRef2 = createStore().createFile("testFileIsSharedBetweenStores", content, UTF8);
+        try {
+            assertEquals(fileRef1.getFile(), fileRef2.getFile());
+            assertEquals(lastModified, fileRef2.getFile().lastModified());
+        } finally {
+            fileRef2.close();
+        }
+    }
+
+    @Test
+    public void testDifferentContent() throws Exception {
+        ContentAddressedFileStore store = createStore();
+
+        TemporaryFileRef fileRef1 = store.createFile("testDifferentContent", "content1", UTF8);
+        try {
+            TemporaryFileRef fileRef2 = store.createFile("testDifferentContent", "content2", UTF8);
+            try {
+                assertFalse(fileRef1.getFile().equals(fileRef2.getFile()));
+                assertContent(fileRef1, "content1");
+                assertContent(fileRef2, "content2");
+            } finally {
+                fileRef2.close();
+            }
+        } finally {
+            fileRef1.close();
+        }
+    }
+
+    private void testModifiedContent(String name, byte[] modContent) throws Exception {
+        String content = "EXPECTED FILE content: testModifiedContent";
+
+        ContentAddressedFileStore store = createStore();
+
+        TemporaryFileRef fileRef1 = store.createFile(name, content, UTF8);
+        fileRef1.close();
+
+        RandomAccessFile fileContent = new RandomAccessFile(fileRef1.getFile(), "rw");
+        try {
+            fileContent.setLength(0);
+            fileContent.write(modContent);
+        } finally {
+            fileContent.close();
+        }
+
+        TemporaryFileRef fileRef2 = store.createFile(name, content, UTF8);
+        try {
+            assertContent(fileRef2, content);
+        } finally {
+            fileRef2.close();
+        }
+    }
+
+    @Test
+    public void testModifiedContentWithEmpty() throws Exception {
+        testModifiedContent("testModifiedContentWithEmpty", new byte[0]);
+    }
+
+    @Test
+    public void testModifiedContentWithNonEmpty() throws Exception {
+        testModifiedContent("testModifiedContentWithNonEmpty", new byte[]{1, 2, 3});
+    }
+
+    @Test
+    public void testDeletedFileIsRecreated() throws Exception {
+        String content = "EXPECTED FILE content: testDeletedFileIsRecreated";
+
+        ContentAddressedFileStore store = createStore();
+
+        TemporaryFileRef fileRef1 = store.createFile("testDeletedFileIsRecreated", content, UTF8);
+        fileRef1.close();
+
+        assertTrue(fileRef1.getFile().delete());
+
+        TemporaryFileRef fileRef2 = store.createFile("testDeletedFileIsRecreated", content, UTF8);
+        try {
+            assertContent(fileRef2, content);
+        } finally {
+            fileRef2.close();
+        }
+    }
+}
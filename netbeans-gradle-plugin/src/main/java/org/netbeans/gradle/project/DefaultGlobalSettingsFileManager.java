@@ -1,15 +1,23 @@
 package org.netbeans.gradle.project;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.io.OutputStream;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryNotEmptyException;
+import java.nio.file.DirectoryStream;
 import java.nio.file.Files;
 import java.nio.file.InvalidPathException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
-import java.security.MessageDigest;
-import java.security.NoSuchAlgorithmException;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
 import java.security.SecureRandom;
 import java.util.ArrayList;
 import java.util.HashMap;
@@ -17,9 +25,10 @@ import java.util.List;
 import java.util.Map;
 import java.util.Objects;
 import java.util.Properties;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
-import java.util.concurrent.locks.ReentrantReadWriteLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim.concurrent.GenericUpdateTaskExecutor;
@@ -30,6 +39,7 @@ import org.netbeans.gradle.project.model.NbGradleModel;
 import org.netbeans.gradle.project.model.NbGradleProjectTree;
 import org.netbeans.gradle.project.model.SettingsGradleDef;
 import org.netbeans.gradle.project.properties.global.GlobalSettingsUtils;
+import org.netbeans.gradle.project.util.NbSupplier;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.util.StringUtils;
 
@@ -40,7 +50,22 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
     private static final SecureRandom RANDOM = new SecureRandom();
     private static final int STAMP_SIZE = 16 ; // bytes
 
+    private static final String STORE_DIR_NAME = "settings-gradle";
+    private static final String LOG_FILE_NAME = "locations.log";
+    static final int LOG_FORMAT_VERSION = 1;
+    static final int RECORD_MARKER = 1;
+    static final int MIN_COMPACTION_RECORD_COUNT = 1024;
+    private static final int COMPACTION_RATIO = 2;
+
+    private static final NbSupplier<Path> DEFAULT_LOG_FILE_PROVIDER = new NbSupplier<Path>() {
+        @Override
+        public Path get() {
+            return GlobalSettingsUtils.tryGetGlobalCachePath(STORE_DIR_NAME, LOG_FILE_NAME);
+        }
+    };
+
     private final RootProjectRegistry rootProjectRegistry;
+    private final NbSupplier<Path> logFileProvider;
     private final UpdateTaskExecutor settingsDefPersistor;
 
     private final Lock outstandingDefsLock;
@@ -48,13 +73,35 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
 
     private final Locker locker;
 
+    // The records of the log are kept in memory. These fields are only
+    // modified while holding the write lock of the locker.
+    private final ConcurrentMap<File, SettingsDef> storedDefs;
+    private volatile boolean storeLoaded;
+    private int logRecordCount;
+
     public DefaultGlobalSettingsFileManager(RootProjectRegistry rootProjectRegistry) {
+        this(rootProjectRegistry,
+                DEFAULT_LOG_FILE_PROVIDER,
+                new GenericUpdateTaskExecutor(SETTINGS_FILE_UPDATER));
+    }
+
+    DefaultGlobalSettingsFileManager(
+            RootProjectRegistry rootProjectRegistry,
+            NbSupplier<Path> logFileProvider,
+            UpdateTaskExecutor settingsDefPersistor) {
         ExceptionHelper.checkNotNullArgument(rootProjectRegistry, "rootProjectRegistry");
+        ExceptionHelper.checkNotNullArgument(logFileProvider, "logFileProvider");
+        ExceptionHelper.checkNotNullArgument(settingsDefPersistor, "settingsDefPersistor");
+
         this.rootProjectRegistry = rootProjectRegistry;
-        this.settingsDefPersistor = new GenericUpdateTaskExecutor(SETTINGS_FILE_UPDATER);
+        this.logFileProvider = logFileProvider;
+        this.settingsDefPersistor = settingsDefPersistor;
         this.outstandingDefsLock = new ReentrantLock();
         this.outstandingDefs = new HashMap<>();
         this.locker = new Locker();
+        this.storedDefs = new ConcurrentHashMap<>();
+        this.storeLoaded = false;
+        this.logRecordCount = 0;
     }
 
     @Override
@@ -149,27 +196,23 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
         getLocker().doWrite(new IoTask<Void>() {
             @Override
             public Void run() throws IOException {
-                MessageDigest hashCalculator = getNameHasher();
-                for (SettingsDef def: toSave) {
-                    Path savePath = tryGetProjectSaveFile(def.projectDir, hashCalculator);
-                    if (savePath == null) {
-                        LOGGER.log(Level.WARNING, "Cannot save settings.gradle location for projects.");
-                        break;
-                    }
+                Path logFile = tryGetLogFile();
+                if (logFile == null) {
+                    LOGGER.log(Level.WARNING, "Cannot save settings.gradle location for projects.");
+                    return null;
+                }
 
-                    Path settingsGradle = def.settingsGradleDef.getSettingsGradle();
+                loadStoreUnsafe(logFile);
 
-                    Properties output = new Properties();
-                    output.put("projectDir", def.projectDir.toString());
-                    output.put("rootProjectDir", def.rootProjectDir.toString());
-                    output.put("maySearchUpwards", Boolean.toString(def.settingsGradleDef.isMaySearchUpwards()));
-                    output.put("settingsGradle", settingsGradle != null ? settingsGradle.toString() : "");
-                    output.put("stamp", def.stamp);
+                for (SettingsDef def: toSave) {
+                    storedDefs.put(def.projectDir, def);
+                }
 
-                    Files.createDirectories(savePath.getParent());
-                    try (OutputStream outputStream = Files.newOutputStream(savePath)) {
-                        output.store(outputStream, null);
-                    }
+                if (needsCompactionUnsafe(toSave.size())) {
+                    compactLogUnsafe(logFile);
+                }
+                else {
+                    appendToLogUnsafe(logFile, toSave);
                 }
                 return null;
             }
@@ -187,69 +230,193 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
         }
     }
 
-    private SettingsDef tryGetSettingsDef(File projectDir) {
-        outstandingDefsLock.lock();
-        try {
-            SettingsDef outstanding = outstandingDefs.get(projectDir);
-            if (outstanding != null) {
-                return outstanding;
+    private boolean needsCompactionUnsafe(int appendedRecordCount) {
+        int newRecordCount = logRecordCount + appendedRecordCount;
+        return newRecordCount > MIN_COMPACTION_RECORD_COUNT
+                && newRecordCount > COMPACTION_RATIO * storedDefs.size();
+    }
+
+    private void appendToLogUnsafe(Path logFile, List<SettingsDef> defs) throws IOException {
+        Files.createDirectories(logFile.getParent());
+
+        boolean newFile = !Files.isRegularFile(logFile) || Files.size(logFile) == 0;
+        OutputStream fileOutput = Files.newOutputStream(logFile,
+                StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(fileOutput))) {
+            if (newFile) {
+                output.writeInt(LOG_FORMAT_VERSION);
+            }
+            for (SettingsDef def: defs) {
+                writeDef(def, output);
             }
-        } finally {
-            outstandingDefsLock.unlock();
         }
 
-        SettingsDef result = tryGetStoredSettingsDef(projectDir);
+        logRecordCount += defs.size();
+    }
+
+    private void compactLogUnsafe(Path logFile) throws IOException {
+        Files.createDirectories(logFile.getParent());
+
+        Path tmpFile = logFile.resolveSibling(logFile.getFileName() + ".tmp");
+        try (DataOutputStream output = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmpFile)))) {
+            output.writeInt(LOG_FORMAT_VERSION);
+            for (SettingsDef def: storedDefs.values()) {
+                writeDef(def, output);
+            }
+        }
 
-        outstandingDefsLock.lock();
         try {
-            SettingsDef outstanding = outstandingDefs.get(projectDir);
-            if (outstanding != null) {
-                result = outstanding;
+            Files.move(tmpFile, logFile, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException ex) {
+            Files.move(tmpFile, logFile, StandardCopyOption.REPLACE_EXISTING);
+        }
+
+        logRecordCount = storedDefs.size();
+    }
+
+    private static void writeDef(SettingsDef def, DataOutputStream output) throws IOException {
+        Path settingsGradle = def.settingsGradleDef.getSettingsGradle();
+
+        output.writeByte(RECORD_MARKER);
+        output.writeUTF(def.projectDir.toString());
+        output.writeUTF(def.rootProjectDir.toString());
+        output.writeBoolean(def.settingsGradleDef.isMaySearchUpwards());
+        output.writeUTF(settingsGradle != null ? settingsGradle.toString() : "");
+        output.writeUTF(def.stamp);
+    }
+
+    private static SettingsDef readDef(DataInputStream input) throws IOException {
+        File projectDir = new File(input.readUTF());
+        File rootProjectDir = new File(input.readUTF());
+        boolean maySearchUpwards = input.readBoolean();
+        String settingsGradle = input.readUTF();
+        String stamp = input.readUTF();
+
+        SettingsGradleDef settingsGradleDef = new SettingsGradleDef(
+                settingsGradle.isEmpty() ? null : Paths.get(settingsGradle),
+                maySearchUpwards);
+        return new SettingsDef(rootProjectDir, projectDir, settingsGradleDef, stamp);
+    }
+
+    private void loadStoreIfNeeded() throws IOException {
+        if (storeLoaded) {
+            return;
+        }
+
+        getLocker().doWrite(new IoTask<Void>() {
+            @Override
+            public Void run() throws IOException {
+                Path logFile = tryGetLogFile();
+                if (logFile != null) {
+                    loadStoreUnsafe(logFile);
+                }
+                return null;
             }
-        } finally {
-            outstandingDefsLock.unlock();
+        });
+    }
+
+    private void loadStoreUnsafe(Path logFile) throws IOException {
+        if (storeLoaded) {
+            return;
         }
 
-        return result;
+        if (Files.isRegularFile(logFile)) {
+            readLogUnsafe(logFile);
+        }
+        else {
+            Path storeDir = logFile.getParent();
+            importLegacyStoreUnsafe(storeDir);
+            if (!storedDefs.isEmpty()) {
+                compactLogUnsafe(logFile);
+                deleteLegacyStoreUnsafe(storeDir);
+            }
+        }
+
+        storeLoaded = true;
     }
 
-    private SettingsDef tryGetStoredSettingsDef(File projectDir) {
-        try {
-            return tryGetStoredSettingsDef0(projectDir);
-        } catch (IOException ex) {
-            throw new RuntimeException(ex);
+    private void readLogUnsafe(Path logFile) throws IOException {
+        int recordCount = 0;
+        boolean complete = false;
+
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+            int version = input.readInt();
+            if (version != LOG_FORMAT_VERSION) {
+                LOGGER.log(Level.INFO, "Ignoring settings.gradle locations with unknown format version {0}.", version);
+            }
+            else {
+                int marker = input.read();
+                while (marker == RECORD_MARKER) {
+                    SettingsDef def = readDef(input);
+                    storedDefs.put(def.projectDir, def);
+                    recordCount++;
+
+                    marker = input.read();
+                }
+                complete = marker < 0;
+            }
+        } catch (EOFException ex) {
+            // The last record was not completely written.
+        } catch (IOException | InvalidPathException ex) {
+            LOGGER.log(Level.INFO, "Failed to read settings.gradle locations from: " + logFile, ex);
         }
+
+        // If the log is damaged, new records cannot be simply appended,
+        // so force rewriting it on the next update.
+        logRecordCount = complete ? recordCount : Integer.MAX_VALUE / 2;
     }
 
-    private SettingsDef tryGetStoredSettingsDef0(final File projectDir) throws IOException {
-        return getLocker().doRead(new IoTask<SettingsDef>() {
-            @Override
-            public SettingsDef run() throws IOException {
-                SettingsDef result = tryGetStoredSettingsDefUnsafe(projectDir);
-                if (result == null) {
-                    return null;
+    private void importLegacyStoreUnsafe(Path storeDir) throws IOException {
+        if (!Files.isDirectory(storeDir)) {
+            return;
+        }
+
+        try (DirectoryStream<Path> subDirs = Files.newDirectoryStream(storeDir)) {
+            for (Path subDir: subDirs) {
+                if (!Files.isDirectory(subDir)) {
+                    continue;
                 }
 
-                if (Objects.equals(projectDir, result.projectDir)) {
-                    return result;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(subDir, "*.properties")) {
+                    for (Path file: files) {
+                        SettingsDef def = tryReadLegacySettingsDef(file);
+                        if (def != null) {
+                            storedDefs.put(def.projectDir, def);
+                        }
+                    }
                 }
+            }
+        }
+    }
 
-                SettingsDef rootDef = tryGetStoredSettingsDefUnsafe(projectDir);
-                if (rootDef == null) {
-                    return null;
+    private static void deleteLegacyStoreUnsafe(Path storeDir) throws IOException {
+        try (DirectoryStream<Path> subDirs = Files.newDirectoryStream(storeDir)) {
+            for (Path subDir: subDirs) {
+                if (!Files.isDirectory(subDir)) {
+                    continue;
                 }
 
-                return Objects.equals(result.stamp, rootDef.stamp) ? result : null;
+                try (DirectoryStream<Path> files = Files.newDirectoryStream(subDir, "*.properties")) {
+                    for (Path file: files) {
+                        tryDelete(file);
+                    }
+                }
+                tryDelete(subDir);
             }
-        });
+        }
     }
 
-    private SettingsDef tryGetStoredSettingsDefUnsafe(File projectDir) {
-        Path settingsFile = tryGetProjectSaveFile(projectDir);
-        if (settingsFile == null || !Files.isRegularFile(settingsFile)) {
-            return null;
+    private static void tryDelete(Path file) {
+        try {
+            Files.deleteIfExists(file);
+        } catch (DirectoryNotEmptyException ex) {
+            // Not created by us, so leave it alone.
+        } catch (IOException ex) {
+            LOGGER.log(Level.INFO, "Failed to delete migrated settings file: " + file, ex);
         }
+    }
 
+    private static SettingsDef tryReadLegacySettingsDef(Path settingsFile) {
         Properties settings = new Properties();
         try (InputStream input = Files.newInputStream(settingsFile)) {
             settings.load(input);
@@ -258,61 +425,84 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
             return null;
         }
 
-        String storedProjectDir = settings.getProperty("projectDir", "");
-        if (!storedProjectDir.isEmpty() && !projectDir.equals(new File(storedProjectDir))) {
-            return null;
-        }
-
+        String projectDir = settings.getProperty("projectDir", "");
         String rootProjectDir = settings.getProperty("rootProjectDir", "");
         String maySearchUpwards = settings.getProperty("maySearchUpwards", "");
         String settingsGradle = settings.getProperty("settingsGradle", "");
         String stamp = settings.getProperty("stamp", "");
 
+        if (projectDir.isEmpty()) {
+            return null;
+        }
+
         try {
             SettingsGradleDef settingsGradleDef = new SettingsGradleDef(
                     settingsGradle.isEmpty() ? null : Paths.get(settingsGradle),
                     Boolean.parseBoolean(maySearchUpwards));
 
-            return new SettingsDef(new File(rootProjectDir), projectDir, settingsGradleDef, stamp);
+            return new SettingsDef(new File(rootProjectDir), new File(projectDir), settingsGradleDef, stamp);
         } catch (InvalidPathException ex) {
             LOGGER.log(Level.INFO, "Failed to parse settings settings in: " + settingsFile, ex);
             return null;
         }
     }
 
-    private Path tryGetProjectSaveFile(File projectDir) {
-        return tryGetProjectSaveFile(projectDir, getNameHasher());
+    private SettingsDef tryGetSettingsDef(File projectDir) {
+        outstandingDefsLock.lock();
+        try {
+            SettingsDef outstanding = outstandingDefs.get(projectDir);
+            if (outstanding != null) {
+                return outstanding;
+            }
+        } finally {
+            outstandingDefsLock.unlock();
+        }
+
+        SettingsDef result = tryGetStoredSettingsDef(projectDir);
+
+        outstandingDefsLock.lock();
+        try {
+            SettingsDef outstanding = outstandingDefs.get(projectDir);
+            if (outstanding != null) {
+                result = outstanding;
+            }
+        } finally {
+            outstandingDefsLock.unlock();
+        }
+
+        return result;
     }
 
-    private Path tryGetProjectSaveFile(File projectDir, MessageDigest hashCalculator) {
-        hashCalculator.reset();
-        String keyHash = StringUtils.byteArrayToHex(hashCalculator.digest(projectDir.toString().getBytes(StringUtils.UTF8)));
+    private SettingsDef tryGetStoredSettingsDef(File projectDir) {
+        try {
+            loadStoreIfNeeded();
+        } catch (IOException ex) {
+            throw new RuntimeException(ex);
+        }
 
-        List<String> subPaths = new ArrayList<>();
-        subPaths.add("settings-gradle");
+        SettingsDef result = storedDefs.get(projectDir);
+        if (result == null) {
+            return null;
+        }
 
-        if (keyHash.length() > 2) {
-            subPaths.add(keyHash.substring(0, 2));
-            subPaths.add(keyHash.substring(2) + ".properties");
+        if (Objects.equals(projectDir, result.projectDir)) {
+            return result;
         }
-        else {
-            subPaths.add("XX");
-            subPaths.add(keyHash + ".properties");
+
+        SettingsDef rootDef = storedDefs.get(projectDir);
+        if (rootDef == null) {
+            return null;
         }
 
-        return GlobalSettingsUtils.tryGetGlobalCachePath(subPaths);
+        return Objects.equals(result.stamp, rootDef.stamp) ? result : null;
     }
 
-    private Locker getLocker() {
-        return locker;
+    private Path tryGetLogFile() {
+        return logFileProvider.get();
     }
 
-    private static MessageDigest getNameHasher() {
-        try {
-            return MessageDigest.getInstance("MD5");
-        } catch (NoSuchAlgorithmException ex) {
-            throw new RuntimeException("Unable to load the MD5 calculator.", ex);
-        }
+    private Locker getLocker() {
+        return locker;
     }
 
     private static final class SettingsDef {
@@ -339,25 +529,13 @@ public final class DefaultGlobalSettingsFileManager implements GlobalSettingsFil
     }
 
     private static final class Locker {
-        private final Lock readLock;
         private final Lock writeLock;
 
         public Locker() {
             // TODO: We should also use file lock (though it is not a big issue since
             //       NB cannot run concurrently with itself anyway).
 
-            ReentrantReadWriteLock readWriteLock = new ReentrantReadWriteLock();
-            this.readLock = readWriteLock.readLock();
-            this.writeLock = readWriteLock.writeLock();
-        }
-
-        public <R> R doRead(IoTask<? extends R> task) throws IOException {
-            readLock.lock();
-            try {
-                return task.run();
-            } finally {
-                readLock.unlock();
-            }
+            this.writeLock = new ReentrantLock();
         }
 
         public <R> R doWrite(IoTask<? extends R> task) throws IOException {
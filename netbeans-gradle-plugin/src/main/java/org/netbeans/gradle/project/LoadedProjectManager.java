@@ -2,18 +2,19 @@ package org.netbeans.gradle.project;
 
 import java.io.File;
 import java.nio.file.Path;
+import org.jtrim.event.ListenerRef;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.gradle.project.properties.WeakValueHashMap;
+import org.netbeans.gradle.project.util.ConcurrentWeakValueMap;
 import org.netbeans.gradle.project.util.NbConsumer;
 import org.netbeans.gradle.project.util.NbFileUtils;
 
 public final class LoadedProjectManager {
     private static final LoadedProjectManager DEFAULT = new LoadedProjectManager();
 
-    private final WeakValueHashMap<Path, NbGradleProject> projects;
+    private final ConcurrentWeakValueMap<Path, NbGradleProject> projects;
 
     public LoadedProjectManager() {
-        this.projects = new WeakValueHashMap<>();
+        this.projects = new ConcurrentWeakValueMap<>();
     }
 
     public static LoadedProjectManager getDefault() {
@@ -25,11 +26,23 @@ public final class LoadedProjectManager {
         projects.put(projectDir, project);
     }
 
+    /**
+     * Registers a listener to be notified when a project is added to this
+     * manager or when a project is removed (because it was garbage collected).
+     * The listener might be called from any thread.
+     *
+     * @param listener the listener to be notified. This argument cannot be
+     *   {@code null}.
+     * @return the {@code ListenerRef} which can be used to unregister the
+     *   listener. This method never returns {@code null}.
+     */
+    public ListenerRef addProjectListener(
+            ConcurrentWeakValueMap.EntryListener<? super Path, ? super NbGradleProject> listener) {
+        return projects.addEntryListener(listener);
+    }
+
     public void forProjects(NbConsumer<? super NbGradleProject> action) {
-        ExceptionHelper.checkNotNullArgument(action, "action");
-        for (NbGradleProject project: projects.values()) {
-            action.accept(project);
-        }
+        projects.forEachValue(action);
     }
 
     public NbGradleProject tryGetLoadedProject(File projectDir) {
@@ -408,7 +408,8 @@ public final class NbGradleProject implements Project {
 
             List<PropertySource<CloseableAction>> actionProperties = Arrays.asList(
                     LICENSE_MANAGER.getRegisterListenerAction(currentModel, licenseInfo),
-                    ROOT_PROJECT_REGISTRY.forProject(currentModel)
+                    ROOT_PROJECT_REGISTRY.forProject(currentModel),
+                    ProjectAutoReloader.getDefault().forProject(currentModel)
             );
 
             return GenericOpenHook.create(actionProperties, new Runnable() {
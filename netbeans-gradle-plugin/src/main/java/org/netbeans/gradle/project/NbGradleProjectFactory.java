@@ -37,6 +37,7 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
             = new ConcurrentHashMap<>();
 
     private static final String TEMP_DIR = System.getProperty("java.io.tmpdir");
+    private static volatile FileObject tempDirObjCache = null;
 
     public static Project loadSafeProject(Path projectDir) throws IOException {
         return loadSafeProject(projectDir.toFile());
@@ -163,6 +164,22 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
         return SAFE_TO_OPEN_PROJECTS.containsKey(projectDirPath);
     }
 
+    private static FileObject tryGetTempDirObj() {
+        FileObject result = tempDirObjCache;
+        if (result != null && result.isValid()) {
+            return result;
+        }
+
+        if (TEMP_DIR == null) {
+            return null;
+        }
+
+        File tempDir = FileUtil.normalizeFile(new File(TEMP_DIR));
+        result = FileUtil.toFileObject(tempDir);
+        tempDirObjCache = result;
+        return result;
+    }
+
     private static boolean hasBuildFile(FileObject directory) {
         Path dirAsPath = NbFileUtils.asPath(directory);
         return dirAsPath != null
@@ -190,13 +207,10 @@ public class NbGradleProjectFactory implements ProjectFactory2 {
         // because NetBeans has a habit to put temporary gradle files to
         // them and then tries to load it which will fail because NetBeans will
         // delete them soon.
-        if (TEMP_DIR != null) {
-            File tempDir = FileUtil.normalizeFile(new File(TEMP_DIR));
-            FileObject tempDirObj = FileUtil.toFileObject(tempDir);
-            if (tempDirObj != null) {
-                if (FileUtil.getRelativePath(tempDirObj, projectDirectory) != null) {
-                    return false;
-                }
+        FileObject tempDirObj = tryGetTempDirObj();
+        if (tempDirObj != null) {
+            if (FileUtil.getRelativePath(tempDirObj, projectDirectory) != null) {
+                return false;
             }
         }
 
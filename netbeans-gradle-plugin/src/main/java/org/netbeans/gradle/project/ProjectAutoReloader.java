@@ -0,0 +1,381 @@
+package org.netbeans.gradle.project;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.property.PropertySource;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.properties.NbProperties;
+import org.netbeans.gradle.project.properties.global.CommonGlobalSettings;
+import org.netbeans.gradle.project.script.CommonScripts;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.FileSystemWatcher;
+import org.netbeans.gradle.project.util.NbBiFunction;
+import org.netbeans.gradle.project.util.NbConsumer;
+import org.netbeans.gradle.project.util.NbFileUtils;
+
+/**
+ * Watches the build scripts, {@code gradle.properties} and wrapper properties
+ * of opened projects and reloads the build they belong to when they change.
+ * <P>
+ * Changes are collected per root project and the build is only reloaded when
+ * there were no changes for a while. This way a burst of changes (e.g., a VCS
+ * checkout) only triggers a single reload.
+ */
+public final class ProjectAutoReloader {
+    private static final Logger LOGGER = Logger.getLogger(ProjectAutoReloader.class.getName());
+
+    private static final CloseableAction NO_WATCH = new CloseableAction() {
+        @Override
+        public CloseableAction.Ref open() {
+            return CloseableAction.CLOSED_REF;
+        }
+    };
+
+    private static final long DEFAULT_DEBOUNCE_TIME_MS = 2000;
+    private static final String WRAPPER_PROPERTIES_NAME = "gradle-wrapper.properties";
+
+    private static final ScheduledExecutorService DEBOUNCE_TIMER = createTimer();
+
+    private final FileSystemWatcher watcher;
+    private final long debounceTimeNanos;
+    private final BuildReloader reloader;
+
+    private final Lock mainLock;
+    private final Map<File, PendingReload> pendingReloads;
+
+    public ProjectAutoReloader(FileSystemWatcher watcher, long debounceTime, TimeUnit unit, BuildReloader reloader) {
+        ExceptionHelper.checkNotNullArgument(watcher, "watcher");
+        ExceptionHelper.checkArgumentInRange(debounceTime, 0, Long.MAX_VALUE, "debounceTime");
+        ExceptionHelper.checkNotNullArgument(unit, "unit");
+        ExceptionHelper.checkNotNullArgument(reloader, "reloader");
+
+        this.watcher = watcher;
+        this.debounceTimeNanos = unit.toNanos(debounceTime);
+        this.reloader = reloader;
+        this.mainLock = new ReentrantLock();
+        this.pendingReloads = new HashMap<>();
+    }
+
+    public static ProjectAutoReloader getDefault() {
+        return DefaultHolder.DEFAULT;
+    }
+
+    private static ScheduledExecutorService createTimer() {
+        ScheduledThreadPoolExecutor result = new ScheduledThreadPoolExecutor(1, new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread thread = new Thread(r, "Gradle-Auto-Reload-Timer");
+                thread.setDaemon(true);
+                return thread;
+            }
+        });
+        result.setKeepAliveTime(1, TimeUnit.SECONDS);
+        result.allowCoreThreadTimeOut(true);
+        return result;
+    }
+
+    public PropertySource<CloseableAction> forProject(PropertySource<? extends NbGradleModel> currentModel) {
+        return forProject(currentModel, CommonGlobalSettings.getDefault().autoReloadProjects().getActiveSource());
+    }
+
+    /**
+     * Returns the action watching the build scripts of the current model of
+     * a project. Nothing is watched while auto reloading is disabled.
+     */
+    public PropertySource<CloseableAction> forProject(
+            PropertySource<? extends NbGradleModel> currentModel,
+            PropertySource<Boolean> enabled) {
+        ExceptionHelper.checkNotNullArgument(currentModel, "currentModel");
+        ExceptionHelper.checkNotNullArgument(enabled, "enabled");
+
+        return NbProperties.combine(currentModel, enabled, new NbBiFunction<NbGradleModel, Boolean, CloseableAction>() {
+            @Override
+            public CloseableAction apply(final NbGradleModel model, Boolean enabledValue) {
+                if (!Boolean.TRUE.equals(enabledValue)) {
+                    return NO_WATCH;
+                }
+
+                return new CloseableAction() {
+                    @Override
+                    public CloseableAction.Ref open() {
+                        return watchProject(model);
+                    }
+                };
+            }
+        });
+    }
+
+    public CloseableAction.Ref watchProject(NbGradleModel model) {
+        ExceptionHelper.checkNotNullArgument(model, "model");
+
+        File projectDir = model.getProjectDir();
+        File rootProjectDir = model.getProjectDef().getRootProject().getProjectDir();
+
+        List<Path> projectFiles = new ArrayList<>();
+        addIfNotNull(NbFileUtils.asPath(model.getBuildFile()), projectFiles);
+        addIfNotNull(NbFileUtils.asPath(new File(projectDir, CommonScripts.GRADLE_PROPERTIES_NAME)), projectFiles);
+
+        List<Path> buildFiles = new ArrayList<>();
+        addIfNotNull(model.getSettingsFile(), buildFiles);
+        Path rootDirPath = NbFileUtils.asPath(rootProjectDir);
+        if (rootDirPath != null) {
+            buildFiles.add(rootDirPath.resolve(CommonScripts.GRADLE_PROPERTIES_NAME));
+            buildFiles.add(rootDirPath.resolve("gradle").resolve("wrapper").resolve(WRAPPER_PROPERTIES_NAME));
+        }
+
+        return watchFiles(rootProjectDir, projectDir, projectFiles, buildFiles);
+    }
+
+    private static <T> void addIfNotNull(T element, Collection<? super T> result) {
+        if (element != null) {
+            result.add(element);
+        }
+    }
+
+    /**
+     * Watches the given files of a project.
+     *
+     * @param rootProjectDir the directory of the root project of the build.
+     *   This argument cannot be {@code null}.
+     * @param projectDir the directory of the project. This argument cannot be
+     *   {@code null}.
+     * @param projectFiles the files which only affect the given project.
+     *   This argument cannot be {@code null}.
+     * @param buildFiles the files which affect every project of the build.
+     *   This argument cannot be {@code null}.
+     * @return the reference which can be used to stop watching the files.
+     *   This method never returns {@code null}.
+     */
+    CloseableAction.Ref watchFiles(
+            final File rootProjectDir,
+            final File projectDir,
+            Collection<Path> projectFiles,
+            Collection<Path> buildFiles) {
+        ExceptionHelper.checkNotNullArgument(rootProjectDir, "rootProjectDir");
+        ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+        ExceptionHelper.checkNotNullElements(projectFiles, "projectFiles");
+        ExceptionHelper.checkNotNullElements(buildFiles, "buildFiles");
+
+        final List<ListenerRef> refs = new ArrayList<>(projectFiles.size() + buildFiles.size());
+        try {
+            Runnable projectChangeListener = new Runnable() {
+                @Override
+                public void run() {
+                    onFileChanged(rootProjectDir, projectDir);
+                }
+            };
+            for (Path file: projectFiles) {
+                refs.add(watcher.watchFileContent(file, projectChangeListener));
+            }
+
+            Runnable buildChangeListener = new Runnable() {
+                @Override
+                public void run() {
+                    onFileChanged(rootProjectDir, null);
+                }
+            };
+            for (Path file: buildFiles) {
+                refs.add(watcher.watchFileContent(file, buildChangeListener));
+            }
+        } catch (Throwable ex) {
+            unregisterAll(refs);
+            throw ex;
+        }
+
+        return new CloseableAction.Ref() {
+            @Override
+            public void close() {
+                unregisterAll(refs);
+            }
+        };
+    }
+
+    private static void unregisterAll(List<ListenerRef> refs) {
+        for (ListenerRef ref: refs) {
+            ref.unregister();
+        }
+    }
+
+    private void onFileChanged(File rootProjectDir, File affectedProjectDir) {
+        boolean scheduleCheck;
+
+        mainLock.lock();
+        try {
+            PendingReload pendingReload = pendingReloads.get(rootProjectDir);
+            scheduleCheck = pendingReload == null;
+            if (scheduleCheck) {
+                pendingReload = new PendingReload();
+                pendingReloads.put(rootProjectDir, pendingReload);
+            }
+            pendingReload.addChange(affectedProjectDir);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (scheduleCheck) {
+            scheduleCheck(rootProjectDir, debounceTimeNanos);
+        }
+    }
+
+    private void scheduleCheck(final File rootProjectDir, long delayNanos) {
+        DEBOUNCE_TIMER.schedule(new Runnable() {
+            @Override
+            public void run() {
+                checkPendingReload(rootProjectDir);
+            }
+        }, delayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private void checkPendingReload(File rootProjectDir) {
+        PendingReload pendingReload;
+        long remainingNanos;
+
+        mainLock.lock();
+        try {
+            pendingReload = pendingReloads.get(rootProjectDir);
+            if (pendingReload == null) {
+                return;
+            }
+
+            remainingNanos = pendingReload.lastChangeTime + debounceTimeNanos - System.nanoTime();
+            if (remainingNanos <= 0) {
+                pendingReloads.remove(rootProjectDir);
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (remainingNanos > 0) {
+            scheduleCheck(rootProjectDir, remainingNanos);
+            return;
+        }
+
+        try {
+            reloader.reloadBuild(rootProjectDir, pendingReload.getAffectedProjectDirs(), pendingReload.allAffected);
+        } catch (Throwable ex) {
+            LOGGER.log(Level.SEVERE, "Failed to reload the build of " + rootProjectDir, ex);
+        }
+    }
+
+    public interface BuildReloader {
+        /**
+         * Reloads the build with the given root project after its build
+         * files have changed.
+         *
+         * @param rootProjectDir the directory of the root project of the build.
+         *   This argument cannot be {@code null}.
+         * @param affectedProjectDirs the directories of the projects whose
+         *   own build files have changed. This argument cannot be {@code null}.
+         * @param allProjectsAffected {@code true} if a file affecting every
+         *   project of the build has changed (e.g., the settings script)
+         */
+        public void reloadBuild(File rootProjectDir, Set<File> affectedProjectDirs, boolean allProjectsAffected);
+    }
+
+    private static final class PendingReload {
+        private final Set<File> affectedProjectDirs;
+        private boolean allAffected;
+        private long lastChangeTime;
+
+        public PendingReload() {
+            this.affectedProjectDirs = new HashSet<>();
+            this.allAffected = false;
+            this.lastChangeTime = System.nanoTime();
+        }
+
+        public void addChange(File affectedProjectDir) {
+            if (affectedProjectDir != null) {
+                affectedProjectDirs.add(affectedProjectDir);
+            }
+            else {
+                allAffected = true;
+            }
+            lastChangeTime = System.nanoTime();
+        }
+
+        public Set<File> getAffectedProjectDirs() {
+            return Collections.unmodifiableSet(affectedProjectDirs);
+        }
+    }
+
+    /**
+     * Reloads a single loaded project of the build. Loading the models of
+     * a project evaluates the whole build and updates the models of every
+     * other loaded project of the same build, so reloading each affected
+     * project separately would be wasteful.
+     */
+    private enum LoadedProjectReloader implements BuildReloader {
+        INSTANCE;
+
+        @Override
+        public void reloadBuild(
+                final File rootProjectDir,
+                final Set<File> affectedProjectDirs,
+                final boolean allProjectsAffected) {
+
+            if (!CommonGlobalSettings.getDefault().autoReloadProjects().getActiveValue()) {
+                return;
+            }
+
+            final NbGradleProject[] selected = new NbGradleProject[1];
+            final int[] selectedRank = {Integer.MAX_VALUE};
+
+            LoadedProjectManager.getDefault().forProjects(new NbConsumer<NbGradleProject>() {
+                @Override
+                public void accept(NbGradleProject project) {
+                    NbGradleModel model = project.currentModel().getValue();
+                    if (!rootProjectDir.equals(model.getProjectDef().getRootProject().getProjectDir())) {
+                        return;
+                    }
+
+                    int rank = getRank(project.getProjectDirectoryAsFile());
+                    if (rank < selectedRank[0]) {
+                        selected[0] = project;
+                        selectedRank[0] = rank;
+                    }
+                }
+
+                private int getRank(File projectDir) {
+                    boolean affected = affectedProjectDirs.contains(projectDir);
+                    if (allProjectsAffected || affected) {
+                        return rootProjectDir.equals(projectDir) ? 0 : 1;
+                    }
+                    return Integer.MAX_VALUE;
+                }
+            });
+
+            NbGradleProject project = selected[0];
+            if (project != null) {
+                LOGGER.log(Level.INFO, "Reloading {0} because its build files have changed.",
+                        project.getProjectDirectoryAsFile());
+                project.reloadProject();
+            }
+        }
+    }
+
+    private static final class DefaultHolder {
+        private static final ProjectAutoReloader DEFAULT = new ProjectAutoReloader(
+                FileSystemWatcher.getDefault(),
+                DEFAULT_DEBOUNCE_TIME_MS,
+                TimeUnit.MILLISECONDS,
+                LoadedProjectReloader.INSTANCE);
+    }
+}
@@ -0,0 +1,226 @@
+package org.netbeans.gradle.project.java;
+
+import java.io.File;
+import java.nio.file.Path;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+
+/**
+ * Keeps track of the directories outside the project directory which are
+ * owned by the project. Only the difference between the current and the
+ * previous set of directories is passed to the {@link OwnerMarker}, so
+ * reloading an unchanged model does not update the owner registrations at
+ * all.
+ * <P>
+ * Multiple projects might claim the same external directory. In this case,
+ * the project claiming it last owns the directory, and when a project drops
+ * the directory, the ownership is passed back to one of the projects still
+ * claiming it instead of removing the registration. A project must call
+ * {@link #releaseAll() releaseAll} when it is closed, otherwise the registry
+ * would keep it alive and might pass ownership back to it.
+ */
+final class ExternalOwnedDirs {
+    private static final OwnerRegistry DEFAULT_REGISTRY = new OwnerRegistry();
+
+    private final Path projectDir;
+    private final OwnerRegistry registry;
+    private final OwnerMarker ownerMarker;
+
+    private final Lock mainLock;
+    private volatile Set<File> ownedDirs;
+
+    public ExternalOwnedDirs(File projectDir, OwnerMarker ownerMarker) {
+        this(projectDir, DEFAULT_REGISTRY, ownerMarker);
+    }
+
+    ExternalOwnedDirs(File projectDir, OwnerRegistry registry, OwnerMarker ownerMarker) {
+        ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+        ExceptionHelper.checkNotNullArgument(registry, "registry");
+        ExceptionHelper.checkNotNullArgument(ownerMarker, "ownerMarker");
+
+        this.projectDir = projectDir.toPath();
+        this.registry = registry;
+        this.ownerMarker = ownerMarker;
+        this.mainLock = new ReentrantLock();
+        this.ownedDirs = Collections.emptySet();
+    }
+
+    private void addIfExternal(File dir, Set<File> result) {
+        if (!dir.toPath().startsWith(projectDir)) {
+            result.add(dir);
+        }
+    }
+
+    private void addIfExternal(Collection<? extends File> dirs, Set<File> result) {
+        for (File dir: dirs) {
+            addIfExternal(dir, result);
+        }
+    }
+
+    private Set<File> getExternalDirs(NbJavaModule module) {
+        Set<File> result = new HashSet<>();
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
+            addIfExternal(outputDirs.getClassesDir(), result);
+            addIfExternal(outputDirs.getResourcesDir(), result);
+            addIfExternal(outputDirs.getOtherDirs(), result);
+
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                addIfExternal(sourceGroup.getSourceRoots(), result);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Updates the owner registrations to the directories of the given module.
+     */
+    public void update(NbJavaModule module) {
+        ExceptionHelper.checkNotNullArgument(module, "module");
+
+        Set<File> newDirs = getExternalDirs(module);
+
+        mainLock.lock();
+        try {
+            Set<File> prevDirs = ownedDirs;
+            if (prevDirs.equals(newDirs)) {
+                return;
+            }
+
+            for (File dir: prevDirs) {
+                if (!newDirs.contains(dir)) {
+                    registry.release(dir, this);
+                }
+            }
+            for (File dir: newDirs) {
+                if (!prevDirs.contains(dir)) {
+                    registry.claim(dir, this);
+                }
+            }
+
+            ownedDirs = Collections.unmodifiableSet(newDirs);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Releases every directory claimed by this project. The registry does not
+     * keep a reference to this object after this method returns, so it will
+     * not be made the owner of any directory until {@link #update(NbJavaModule) update}
+     * is called again.
+     */
+    public void releaseAll() {
+        mainLock.lock();
+        try {
+            for (File dir: ownedDirs) {
+                registry.release(dir, this);
+            }
+            ownedDirs = Collections.emptySet();
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    /**
+     * Returns {@code true} if the given file is one of the registered
+     * directories or is within one of them. This method does not access the
+     * file system.
+     */
+    public boolean isInOwnedDir(File file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        Set<File> currentDirs = ownedDirs;
+        if (currentDirs.isEmpty()) {
+            return false;
+        }
+
+        File current = file;
+        while (current != null) {
+            if (currentDirs.contains(current)) {
+                return true;
+            }
+            current = current.getParentFile();
+        }
+        return false;
+    }
+
+    public Set<File> getOwnedDirs() {
+        return ownedDirs;
+    }
+
+    public interface OwnerMarker {
+        public void markOwned(File dir, boolean owned);
+    }
+
+    /**
+     * Keeps track of the projects claiming the external directories, so that
+     * a project only unregisters a directory if no other project claims it.
+     */
+    static final class OwnerRegistry {
+        private final Lock mainLock;
+        // The last element of the list is the current owner of the directory.
+        private final Map<File, List<ExternalOwnedDirs>> claims;
+
+        public OwnerRegistry() {
+            this.mainLock = new ReentrantLock();
+            this.claims = new HashMap<>();
+        }
+
+        public void claim(File dir, ExternalOwnedDirs claimer) {
+            mainLock.lock();
+            try {
+                List<ExternalOwnedDirs> claimers = claims.get(dir);
+                if (claimers == null) {
+                    claimers = new LinkedList<>();
+                    claims.put(dir, claimers);
+                }
+
+                claimers.remove(claimer);
+                claimers.add(claimer);
+                claimer.ownerMarker.markOwned(dir, true);
+            } finally {
+                mainLock.unlock();
+            }
+        }
+
+        public void release(File dir, ExternalOwnedDirs claimer) {
+            mainLock.lock();
+            try {
+                List<ExternalOwnedDirs> claimers = claims.get(dir);
+                if (claimers == null || claimers.isEmpty()) {
+                    return;
+                }
+
+                ExternalOwnedDirs currentOwner = claimers.get(claimers.size() - 1);
+                if (!claimers.remove(claimer)) {
+                    return;
+                }
+
+                if (claimers.isEmpty()) {
+                    claims.remove(dir);
+                    claimer.ownerMarker.markOwned(dir, false);
+                }
+                else if (currentOwner == claimer) {
+                    ExternalOwnedDirs newOwner = claimers.get(claimers.size() - 1);
+                    newOwner.ownerMarker.markOwned(dir, true);
+                }
+            } finally {
+                mainLock.unlock();
+            }
+        }
+    }
+}
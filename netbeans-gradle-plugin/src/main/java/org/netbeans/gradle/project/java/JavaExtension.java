@@ -5,9 +5,7 @@ import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.IOException;
 import java.net.URI;
-import java.nio.file.Path;
 import java.util.ArrayList;
-import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.concurrent.atomic.AtomicReference;
@@ -26,8 +24,6 @@ import org.netbeans.api.java.classpath.ClassPath;
 import org.netbeans.api.java.classpath.GlobalPathRegistry;
 import org.netbeans.api.project.FileOwnerQuery;
 import org.netbeans.api.project.Project;
-import org.netbeans.gradle.model.java.JavaOutputDirs;
-import org.netbeans.gradle.model.java.JavaSourceGroup;
 import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
 import org.netbeans.gradle.project.ProjectInitListener;
@@ -97,6 +93,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     private final ChangeListenerManager modelChangeListeners;
     private final AtomicReference<JavaProjectProperties> projectPropertiesRef;
     private final AtomicReference<ProjectSettingsProvider.ExtensionSettings> extensionSettingsRef;
+    private final ExternalOwnedDirs externalOwnedDirs;
 
     private JavaExtension(Project project) throws IOException {
         ExceptionHelper.checkNotNullArgument(project, "project");
@@ -125,6 +122,16 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         this.modelChangeListeners = new GenericChangeListenerManager();
         this.projectPropertiesRef = new AtomicReference<>(null);
         this.extensionSettingsRef = new AtomicReference<>(null);
+        this.externalOwnedDirs = new ExternalOwnedDirs(projectDirectoryAsFile, new ExternalOwnedDirs.OwnerMarker() {
+            @Override
+            public void markOwned(File dir, boolean owned) {
+                URI dirUri = Utilities.toURI(dir);
+                FileOwnerQuery.markExternalOwner(
+                        dirUri,
+                        owned ? JavaExtension.this.project : null,
+                        FileOwnerQuery.EXTERNAL_ALGORITHM_TRANSIENT);
+            }
+        });
     }
 
     public static PropertySource<JavaExtension> extensionOfProject(Project project) {
@@ -211,6 +218,10 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     }
 
     public boolean isOwnerProject(File file) {
+        if (externalOwnedDirs.isInOwnedDir(file)) {
+            return true;
+        }
+
         FileObject fileObj;
 
         File currentFile = file;
@@ -444,37 +455,6 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         return result;
     }
 
-    private void markOwnerIfNecessary(Path projectDir, File dir) {
-        if (!dir.toPath().startsWith(projectDir)) {
-            URI dirUri = Utilities.toURI(dir);
-            FileOwnerQuery.markExternalOwner(dirUri, project, FileOwnerQuery.EXTERNAL_ALGORITHM_TRANSIENT);
-        }
-    }
-
-    private void markOwnerIfNecessary(Path projectDir, Collection<? extends File> dirs) {
-        for (File dir: dirs) {
-            markOwnerIfNecessary(projectDir, dir);
-        }
-    }
-
-    private void markOwnedOutputDirs(Path projectDir, JavaSourceSet sourceSet) {
-        JavaOutputDirs outputDirs = sourceSet.getOutputDirs();
-        markOwnerIfNecessary(projectDir, outputDirs.getClassesDir());
-        markOwnerIfNecessary(projectDir, outputDirs.getResourcesDir());
-        markOwnerIfNecessary(projectDir, outputDirs.getOtherDirs());
-    }
-
-    private void markOwnedDirs(NbJavaModule mainModule) {
-        Path projectDir = getProjectDirectoryAsFile().toPath();
-        for (JavaSourceSet sourceSet: mainModule.getSources()) {
-            markOwnedOutputDirs(projectDir, sourceSet);
-
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                markOwnerIfNecessary(projectDir, sourceGroup.getSourceRoots());
-            }
-        }
-    }
-
     @Override
     public void activateExtension(NbJavaModel parsedModel) {
         ExceptionHelper.checkNotNullArgument(parsedModel, "parsedModel");
@@ -485,13 +465,14 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         NbJavaModule mainModule = parsedModel.getMainModule();
 
         checkDependencyResolveProblems(mainModule);
-        markOwnedDirs(mainModule);
+        externalOwnedDirs.update(mainModule);
 
         fireModelChange();
     }
 
     @Override
     public void deactivateExtension() {
+        externalOwnedDirs.releaseAll();
     }
 
     private static PropertySource<CloseableAction> classPathProviderProperty(
@@ -550,9 +531,11 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
     // OpenHook is important for debugging because the debugger relies on the
     // globally registered source class paths for source stepping.
     private static class OpenHook extends ProjectOpenedHook {
+        private final JavaExtension javaExt;
         private final CloseableActionContainer closeableActions;
 
         public OpenHook(JavaExtension javaExt) {
+            this.javaExt = javaExt;
             this.closeableActions = new CloseableActionContainer();
 
             closeableActions.defineAction(classPathProviderProperty(javaExt,
@@ -570,6 +553,7 @@ public final class JavaExtension implements GradleProjectExtension2<NbJavaModel>
         @Override
         protected void projectClosed() {
             closeableActions.close();
+            javaExt.externalOwnedDirs.releaseAll();
         }
     }
 
@@ -101,7 +101,7 @@ public final class JavaProjectDependencies {
         public ListenerRef addChangeListener(Runnable listener) {
             List<ListenerRef> result = new ArrayList<>(src.size());
             for (ProjectDependencyCandidate candidate: src.values()) {
-                candidate.projectDependency().addChangeListener(listener);
+                result.add(candidate.projectDependency().addChangeListener(listener));
             }
             return ListenerRegistries.combineListenerRefs(result);
         }
@@ -47,6 +47,51 @@ public final class JavaProjectDependencyDef {
         return result.toString();
     }
 
+    @Override
+    public int hashCode() {
+        int hash = 7;
+        hash = 67 * hash + javaExt.hashCode();
+        for (JavaSourceSet sourceSet: sourceSets) {
+            hash = 67 * hash + sourceSet.getName().hashCode();
+        }
+        return hash;
+    }
+
+    /**
+     * Returns {@code true} if the other dependency refers to the same source
+     * sets (by name and build output) of the same project. Source sets are
+     * recreated each time the project is reloaded, so they cannot be compared
+     * by reference.
+     */
+    @Override
+    public boolean equals(Object obj) {
+        if (obj == null) return false;
+        if (obj == this) return true;
+        if (getClass() != obj.getClass()) return false;
+
+        final JavaProjectDependencyDef other = (JavaProjectDependencyDef)obj;
+        if (javaExt != other.javaExt) {
+            return false;
+        }
+
+        int sourceSetCount = sourceSets.size();
+        if (sourceSetCount != other.sourceSets.size()) {
+            return false;
+        }
+
+        for (int i = 0; i < sourceSetCount; i++) {
+            if (!isSameSourceSet(sourceSets.get(i), other.sourceSets.get(i))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private static boolean isSameSourceSet(JavaSourceSet sourceSet1, JavaSourceSet sourceSet2) {
+        return sourceSet1.getName().equals(sourceSet2.getName())
+                && sourceSet1.getOutputDirs().getClassesDir().equals(sourceSet2.getOutputDirs().getClassesDir());
+    }
+
     @Override
     public String toString() {
         return "Project dependency of " + javaExt.getProjectDirectoryAsFile() + " for source sets: " + getDisplaySourceSetNames() + '}';
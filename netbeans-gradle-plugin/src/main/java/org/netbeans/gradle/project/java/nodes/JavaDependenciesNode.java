@@ -3,28 +3,22 @@ package org.netbeans.gradle.project.java.nodes;
 import java.awt.Image;
 import java.awt.event.ActionEvent;
 import java.io.File;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Collection;
-import java.util.Collections;
-import java.util.Comparator;
-import java.util.HashMap;
-import java.util.HashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
-import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
+import org.jtrim.concurrent.GenericUpdateTaskExecutor;
 import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.concurrent.TaskExecutors;
+import org.jtrim.concurrent.UpdateTaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.project.Project;
-import org.netbeans.gradle.model.java.JavaClassPaths;
-import org.netbeans.gradle.model.java.JavaSourceSet;
-import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
 import org.netbeans.gradle.project.NbIcons;
@@ -32,16 +26,13 @@ import org.netbeans.gradle.project.NbStrings;
 import org.netbeans.gradle.project.api.nodes.SingleNodeFactory;
 import org.netbeans.gradle.project.api.task.CommandCompleteListener;
 import org.netbeans.gradle.project.java.JavaExtension;
-import org.netbeans.gradle.project.java.model.JavaProjectDependencies;
 import org.netbeans.gradle.project.java.model.JavaProjectDependencyDef;
-import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
 import org.netbeans.gradle.project.tasks.DaemonTaskDef;
 import org.netbeans.gradle.project.tasks.DownloadSourcesTask;
 import org.netbeans.gradle.project.tasks.GradleDaemonManager;
 import org.netbeans.gradle.project.util.ListenerRegistrations;
 import org.netbeans.gradle.project.util.NbTaskExecutors;
-import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 import org.openide.loaders.DataObject;
@@ -104,373 +95,95 @@ public final class JavaDependenciesNode extends AbstractNode {
             ChildFactory.Detachable<SingleNodeFactory> {
 
         private final JavaExtension javaExt;
-        private final AtomicReference<NbJavaModule> lastModule;
+        private final AtomicReference<JavaDependencyViewModel> viewModelRef;
+        private final ConcurrentMap<String, DependencyGroupChildFactory> attachedGroups;
+        private final UpdateTaskExecutor viewModelUpdater;
         private final ListenerRegistrations listenerRefs;
 
         public DependenciesChildFactory(JavaExtension javaExt) {
             ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
 
             this.javaExt = javaExt;
-            this.lastModule = new AtomicReference<>(null);
+            this.viewModelRef = new AtomicReference<>(null);
+            this.attachedGroups = new ConcurrentHashMap<>();
+            this.viewModelUpdater = new GenericUpdateTaskExecutor(
+                    TaskExecutors.inOrderSimpleExecutor(NbTaskExecutors.DEFAULT_EXECUTOR));
             this.listenerRefs = new ListenerRegistrations();
         }
 
-        private static boolean hasRelevantDifferences(NbJavaModule module1, NbJavaModule module2) {
-            if (module1 == module2) {
-                // In practice this happens only when they are nulls.
-                return false;
-            }
-            if (module1 == null || module2 == null) {
-                return true;
-            }
-
-            if (module1.getSources().size() != module2.getSources().size()) {
-                return true;
-            }
-
-            Map<String, JavaSourceSet> sources2 = getSourceSetMap(module2);
-            for (JavaSourceSet sourceSet1: module1.getSources()) {
-                JavaSourceSet sourceSet2 = sources2.get(sourceSet1.getName());
-                if (sourceSet2 == null) {
-                    return true;
-                }
-
-                if (!isClassPathSame(sourceSet1, sourceSet2)) {
-                    return true;
-                }
-            }
-            return false;
+        private JavaDependencyViewModel createViewModel(JavaDependencyViewModel prevModel) {
+            NbJavaModule module = javaExt.getCurrentModel().getMainModule();
+            Map<File, JavaProjectDependencyDef> projectDependencies
+                    = javaExt.getProjectDependencies().translatedDependencies().getValue();
+            return JavaDependencyViewModel.create(module, projectDependencies, prevModel);
         }
 
-        private static boolean isClassPathSame(JavaSourceSet sourceSet1, JavaSourceSet sourceSet2) {
-            JavaClassPaths classpaths1 = sourceSet1.getClasspaths();
-            JavaClassPaths classpaths2 = sourceSet2.getClasspaths();
-
-            if (!classpaths1.getCompileClasspaths().equals(classpaths2.getCompileClasspaths())) {
-                return false;
-            }
-
-            return classpaths1.getRuntimeClasspaths().equals(classpaths2.getRuntimeClasspaths());
-        }
-
-        private static Map<String, JavaSourceSet> getSourceSetMap(NbJavaModule module) {
-            Map<String, JavaSourceSet> result = CollectionUtils.newHashMap(module.getSources().size());
-            for (JavaSourceSet sourceSet: module.getSources()) {
-                result.put(sourceSet.getName(), sourceSet);
+        private JavaDependencyViewModel getViewModel() {
+            JavaDependencyViewModel result = viewModelRef.get();
+            if (result == null) {
+                viewModelRef.compareAndSet(null, createViewModel(null));
+                result = viewModelRef.get();
             }
             return result;
         }
 
-        private void modelChanged() {
-            NbJavaModule newModule = javaExt.getCurrentModel().getMainModule();
-            NbJavaModule prevModule = lastModule.getAndSet(newModule);
-
-            if (hasRelevantDifferences(newModule, prevModule)) {
-                refresh(false);
-            }
-        }
-
-        @Override
-        protected void addNotify() {
-            // FIXME: We have to refresh this node in case a project dependency might appear.
-            //   That is, every time a project of JavaProjectDependencyDef gets its model refreshed.
-            //   However, we have to be careful not to refresh needlessly as it would be very annoying to the user.
-            //   One way to do this is to calculate all the nodes in the background and then check if it is the
-            //   same as the one currently being displayed.
-            lastModule.set(javaExt.getCurrentModel().getMainModule());
-            listenerRefs.add(javaExt.addModelChangeListener(new Runnable() {
-                @Override
-                public void run() {
-                    modelChanged();
-                }
-            }));
-        }
-
-        @Override
-        protected void removeNotify() {
-            listenerRefs.unregisterAll();
-        }
-
-        private void addDependencyGroup(
-                String groupName,
-                Collection<? extends SingleNodeFactory> dependencies,
-                List<SingleNodeFactory> toPopulate) {
-
-            if (dependencies.isEmpty()) {
+        private void updateViewModel() {
+            // This method is never called concurrently due to the update executor.
+            JavaDependencyViewModel prevModel = viewModelRef.get();
+            JavaDependencyViewModel newModel = createViewModel(prevModel);
+            if (newModel == prevModel || !viewModelRef.compareAndSet(prevModel, newModel)) {
                 return;
             }
 
-            toPopulate.add(new DependencyGroupNodeFactory(groupName, dependencies));
-        }
-
-        private List<SingleNodeFactory> filesToNodes(Collection<File> files) {
-            List<SingleNodeFactory> result = new ArrayList<>(files.size());
-
-            Map<FileObject, List<JavaProjectDependencyDef>> allProjectDependencies = new HashMap<>();
-
-            JavaProjectDependencies projectDependencies = javaExt.getProjectDependencies();
-
-            for (File file: files) {
-                JavaProjectDependencyDef projectDep = projectDependencies.tryGetDependency(file);
-                if (projectDep == null) {
-                    result.add(new FileDependency(file));
-                }
-                else {
-                    FileObject projectDir = projectDep.getProject().getProjectDirectory();
-                    List<JavaProjectDependencyDef> dependencySourceSets = allProjectDependencies.get(projectDir);
-                    if (dependencySourceSets == null) {
-                        dependencySourceSets = new ArrayList<>();
-                        allProjectDependencies.put(projectDir, dependencySourceSets);
-                    }
-                    dependencySourceSets.add(projectDep);
-                }
-            }
-
-            for (List<JavaProjectDependencyDef> dependencySourceSets: allProjectDependencies.values()) {
-                boolean showSourceSetName = dependencySourceSets.size() > 1;
-                for (JavaProjectDependencyDef projectDependency: dependencySourceSets) {
-                    result.add(new ProjectDependencyFactory(projectDependency, showSourceSetName));
-                }
-            }
-
-            return result;
-        }
-
-        private static String listToString(Collection<?> list) {
-            StringBuilder result = new StringBuilder();
-            boolean first = true;
-            for (Object element: list) {
-                if (first) {
-                    first = false;
-                }
-                else {
-                    result.append(", ");
-                }
-                result.append(element != null ? element.toString() : "null");
-            }
-            return result.toString();
-        }
-
-        private static String getBaseDependencyGroupName(
-                DependencyType dependencyType,
-                JavaSourceSet sourceSet) {
-
-            String sourceSetName = sourceSet.getName();
-
-            switch (dependencyType) {
-                case COMPILE:
-                    return NbStrings.getCompileForSourceSet(sourceSetName);
-                case RUNTIME:
-                    return NbStrings.getRuntimeForSourceSet(sourceSetName);
-                case PROVIDED:
-                    return NbStrings.getProvidedForSourceSet(sourceSetName);
-                default:
-                    throw new AssertionError(dependencyType.name());
-            }
-        }
-
-        private String getNameForDependencyGroup(
-                DependencyType dependencyType,
-                JavaSourceSet sourceSet,
-                Map<String, Set<String>> sourceSetDependencyGraph) {
-
-            String baseName = getBaseDependencyGroupName(dependencyType, sourceSet);
-            Set<String> dependencies = sourceSetDependencyGraph.get(sourceSet.getName());
-            if (dependencies == null || dependencies.isEmpty()) {
-                return baseName;
-            }
-            else {
-                return NbStrings.getSourceSetInherits(baseName, listToString(dependencies));
-            }
-        }
-
-        private static int compareProjectDependencyNodes(ProjectDependencyFactory node1, ProjectDependencyFactory node2) {
-            NbJavaModule module1 = node1.projectDep.getJavaModule();
-            NbJavaModule module2 = node2.projectDep.getJavaModule();
-
-            if (module1 == module2) {
-                return 0;
+            if (!newModel.hasSameGroupNames(prevModel)) {
+                refresh(false);
             }
-            return StringUtils.STR_CMP.compare(module1.getShortName(), module2.getShortName());
-        }
-
-        private static int compareFileDependencyNodes(FileDependency node1, FileDependency node2) {
-            String name1 = node1.file.getName();
-            String name2 = node2.file.getName();
-
-            return StringUtils.STR_CMP.compare(name1, name2);
-        }
 
-        private static int compareDependencyNodes(SingleNodeFactory node1, SingleNodeFactory node2) {
-            if (node1 instanceof ProjectDependencyFactory) {
-                if (node2 instanceof ProjectDependencyFactory) {
-                    return compareProjectDependencyNodes(
-                            (ProjectDependencyFactory)node1,
-                            (ProjectDependencyFactory)node2);
-                }
-                else {
-                    return -1;
+            for (String groupName: newModel.getChangedGroupNames(prevModel)) {
+                DependencyGroupChildFactory groupFactory = attachedGroups.get(groupName);
+                if (groupFactory != null) {
+                    groupFactory.refresh(false);
                 }
             }
-            else if (node2 instanceof ProjectDependencyFactory) {
-                return 1;
-            }
-            else if (node1 instanceof FileDependency && node2 instanceof FileDependency) {
-                return compareFileDependencyNodes((FileDependency)node1, (FileDependency)node2);
-            }
-            else {
-                return 0;
-            }
         }
 
-        private static List<SingleNodeFactory> sortDependencyNodes(List<SingleNodeFactory> nodes) {
-            SingleNodeFactory[] nodesArray = nodes.toArray(new SingleNodeFactory[nodes.size()]);
-
-            Arrays.sort(nodesArray, new Comparator<SingleNodeFactory>() {
+        private void modelChanged() {
+            viewModelUpdater.execute(new Runnable() {
                 @Override
-                public int compare(SingleNodeFactory o1, SingleNodeFactory o2) {
-                    return compareDependencyNodes(o1, o2);
+                public void run() {
+                    updateViewModel();
                 }
             });
-
-            return Arrays.asList(nodesArray);
-        }
-
-        private void addSourceSetDependencyNodes(
-                NbJavaModel currentModel,
-                String nodeGroupName,
-                Collection<String> sourceSetDependencies,
-                Set<File> classpaths, // IN/OUT
-                List<SingleNodeFactory> toPopulate) {
-
-            NbJavaModule mainModule = currentModel.getMainModule();
-            classpaths.removeAll(mainModule.getAllBuildOutputs());
-
-            for (String inheritedName: sourceSetDependencies) {
-                JavaSourceSet inherited = mainModule.tryGetSourceSetByName(inheritedName);
-                if (inherited != null) {
-                    classpaths.removeAll(inherited.getClasspaths().getCompileClasspaths());
-                    classpaths.removeAll(inherited.getClasspaths().getRuntimeClasspaths());
-                    classpaths.remove(inherited.getOutputDirs().getClassesDir());
-                    classpaths.remove(inherited.getOutputDirs().getResourcesDir());
-                    classpaths.removeAll(inherited.getOutputDirs().getOtherDirs());
-                }
-            }
-
-            List<SingleNodeFactory> dependencyNodes = filesToNodes(classpaths);
-            dependencyNodes = sortDependencyNodes(dependencyNodes);
-
-            addDependencyGroup(nodeGroupName, dependencyNodes, toPopulate);
-        }
-
-        private static <T> Set<T> splitSets(Set<T> set1, Set<T> set2) {
-            Set<T> smallerSet;
-            Set<T> largerSet;
-
-            if (set1.size() < set2.size()) {
-                smallerSet = set1;
-                largerSet = set2;
-            }
-            else {
-                smallerSet = set2;
-                largerSet = set1;
-            }
-
-            Set<T> intersect = new HashSet<>();
-            for (T element: smallerSet) {
-                if (largerSet.remove(element)) {
-                    intersect.add(element);
-                }
-            }
-            smallerSet.removeAll(intersect);
-
-            return intersect;
         }
 
-        private static Map<String, Set<String>> sourceSetDependencyGraph(
-                NbJavaModule mainModule) {
-
-            Map<File, String> buildOutput = new HashMap<>();
-            for (JavaSourceSet sourceSet: mainModule.getSources()) {
-                buildOutput.put(sourceSet.getOutputDirs().getClassesDir(), sourceSet.getName());
-            }
-
-            Map<String, Set<String>> result = new HashMap<>();
-            for (JavaSourceSet sourceSet: mainModule.getSources()) {
-                String sourceSetName = sourceSet.getName();
-
-                Set<File> compileClasspaths = sourceSet.getClasspaths().getCompileClasspaths();
-                Set<File> runtimeClasspaths = sourceSet.getClasspaths().getRuntimeClasspaths();
-
-                Set<String> dependencies = new HashSet<>();
-                for (Map.Entry<File, String> entry: buildOutput.entrySet()) {
-                    File classesOutputDir = entry.getKey();
-                    if (runtimeClasspaths.contains(classesOutputDir) || compileClasspaths.contains(classesOutputDir)) {
-                        String dependencyName = entry.getValue();
-                        if (!sourceSetName.equals(dependencyName)) {
-                            dependencies.add(entry.getValue());
-                        }
-                    }
+        @Override
+        protected void addNotify() {
+            Runnable changeListener = new Runnable() {
+                @Override
+                public void run() {
+                    modelChanged();
                 }
+            };
 
-                result.put(sourceSetName, dependencies);
-            }
-
-            // TODO: Remove redundant edges
+            listenerRefs.add(javaExt.addModelChangeListener(changeListener));
+            listenerRefs.add(javaExt.getProjectDependencies().translatedDependencies().addChangeListener(changeListener));
 
-            return result;
+            // The model might have changed while we were not listening.
+            modelChanged();
         }
 
-        private void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
-            NbJavaModel currentModel = javaExt.getCurrentModel();
-            NbJavaModule mainModule = currentModel.getMainModule();
-
-            Map<String, Set<String>> dependencyGraph = sourceSetDependencyGraph(mainModule);
-
-            for (JavaSourceSet sourceSet: mainModule.getSources()) {
-                JavaClassPaths classpaths = sourceSet.getClasspaths();
-
-                Set<File> providedClassPaths = new HashSet<>(classpaths.getCompileClasspaths());
-                Set<File> runtimeClassPaths = new HashSet<>(classpaths.getRuntimeClasspaths());
-                Set<File> compileClassPaths = splitSets(providedClassPaths, runtimeClassPaths);
-
-                Set<String> sourceDependencies = dependencyGraph.get(sourceSet.getName());
-                if (sourceDependencies == null) {
-                    sourceDependencies = Collections.emptySet();
-                }
-
-                addSourceSetDependencyNodes(
-                        currentModel,
-                        getNameForDependencyGroup(DependencyType.COMPILE, sourceSet, dependencyGraph),
-                        sourceDependencies,
-                        compileClassPaths,
-                        toPopulate);
-
-                addSourceSetDependencyNodes(
-                        currentModel,
-                        getNameForDependencyGroup(DependencyType.PROVIDED, sourceSet, dependencyGraph),
-                        sourceDependencies,
-                        providedClassPaths,
-                        toPopulate);
-
-                addSourceSetDependencyNodes(
-                        currentModel,
-                        getNameForDependencyGroup(DependencyType.RUNTIME, sourceSet, dependencyGraph),
-                        sourceDependencies,
-                        runtimeClassPaths,
-                        toPopulate);
-            }
-
-            LOGGER.fine("Dependencies for the Gradle project were found.");
+        @Override
+        protected void removeNotify() {
+            listenerRefs.unregisterAll();
         }
 
         @Override
         protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-            try {
-                readKeys(toPopulate);
-            } catch (DataObjectNotFoundException ex) {
-                throw new RuntimeException(ex);
+            for (String groupName: getViewModel().getGroupNames()) {
+                toPopulate.add(new DependencyGroupNodeFactory(groupName, this));
             }
+
+            LOGGER.fine("Dependencies for the Gradle project were found.");
             return true;
         }
 
@@ -482,16 +195,17 @@ public final class JavaDependenciesNode extends AbstractNode {
 
     private static class DependencyGroupNodeFactory implements SingleNodeFactory {
         private final String groupName;
-        private final List<SingleNodeFactory> dependencies;
+        private final DependenciesChildFactory parent;
 
-        public DependencyGroupNodeFactory(String groupName, Collection<? extends SingleNodeFactory> dependencies) {
-            this.dependencies = new ArrayList<>(dependencies);
+        public DependencyGroupNodeFactory(String groupName, DependenciesChildFactory parent) {
             this.groupName = groupName;
+            this.parent = parent;
         }
 
         @Override
         public Node createNode() {
-            AbstractNode result = new AbstractNode(Children.create(new DependencyGroupChildFactory(dependencies), true)) {
+            DependencyGroupChildFactory childFactory = new DependencyGroupChildFactory(groupName, parent);
+            AbstractNode result = new AbstractNode(Children.create(childFactory, true)) {
                 @Override
                 public Image getIcon(int type) {
                     return NbIcons.getLibrariesIcon();
@@ -516,7 +230,6 @@ public final class JavaDependenciesNode extends AbstractNode {
         public int hashCode() {
             int hash = 7;
             hash = 83 * hash + Objects.hashCode(this.groupName);
-            hash = 83 * hash + Objects.hashCode(this.dependencies);
             return hash;
         }
 
@@ -526,28 +239,45 @@ public final class JavaDependenciesNode extends AbstractNode {
             if (getClass() != obj.getClass()) return false;
 
             final DependencyGroupNodeFactory other = (DependencyGroupNodeFactory)obj;
-            return Objects.equals(this.groupName, other.groupName)
-                    && Objects.equals(this.dependencies, other.dependencies);
+            return Objects.equals(this.groupName, other.groupName);
         }
     }
 
-    private static class DependencyGroupChildFactory extends ChildFactory<SingleNodeFactory> {
-        private final List<SingleNodeFactory> dependencies;
+    private static class DependencyGroupChildFactory extends ChildFactory.Detachable<SingleNodeFactory> {
+        private final String groupName;
+        private final DependenciesChildFactory parent;
+
+        public DependencyGroupChildFactory(String groupName, DependenciesChildFactory parent) {
+            this.groupName = groupName;
+            this.parent = parent;
+        }
+
+        @Override
+        protected void addNotify() {
+            parent.attachedGroups.put(groupName, this);
+        }
 
-        public DependencyGroupChildFactory(Collection<? extends SingleNodeFactory> dependencies) {
-            this.dependencies = new ArrayList<>(dependencies);
+        @Override
+        protected void removeNotify() {
+            parent.attachedGroups.remove(groupName, this);
         }
 
-        protected void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
-            toPopulate.addAll(dependencies);
+        private static SingleNodeFactory toNodeFactory(JavaDependencyViewModel.Entry entry) {
+            JavaProjectDependencyDef projectDep = entry.getProjectDependency();
+            return projectDep != null
+                    ? new ProjectDependencyFactory(projectDep, entry.isShowSourceSet())
+                    : new FileDependency(entry.getFile());
         }
 
         @Override
         protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-            try {
-                readKeys(toPopulate);
-            } catch (DataObjectNotFoundException ex) {
-                throw new RuntimeException(ex);
+            JavaDependencyViewModel.DependencyGroup group = parent.getViewModel().tryGetGroup(groupName);
+            if (group == null) {
+                return true;
+            }
+
+            for (JavaDependencyViewModel.Entry entry: group.getEntries()) {
+                toPopulate.add(toNodeFactory(entry));
             }
             return true;
         }
@@ -685,6 +415,7 @@ public final class JavaDependenciesNode extends AbstractNode {
         public int hashCode() {
             int hash = 3;
             hash = 29 * hash + Objects.hashCode(this.projectDep);
+            hash = 29 * hash + (this.showSourceSet ? 1 : 0);
             return hash;
         }
 
@@ -694,16 +425,11 @@ public final class JavaDependenciesNode extends AbstractNode {
             if (getClass() != obj.getClass()) return false;
 
             final ProjectDependencyFactory other = (ProjectDependencyFactory)obj;
-            return Objects.equals(this.projectDep, other.projectDep);
+            return this.showSourceSet == other.showSourceSet
+                    && Objects.equals(this.projectDep, other.projectDep);
         }
     }
 
-    private enum DependencyType {
-        COMPILE,
-        RUNTIME,
-        PROVIDED
-    }
-
     @SuppressWarnings("serial")
     private static final class DownloadSourcesAction extends AbstractAction {
         private final NbGradleProject project;
@@ -0,0 +1,500 @@
+package org.netbeans.gradle.project.java.nodes;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.NbStrings;
+import org.netbeans.gradle.project.java.model.JavaProjectDependencyDef;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.util.StringUtils;
+import org.openide.filesystems.FileObject;
+
+/**
+ * Defines the dependency groups displayed under the dependencies node of a
+ * Java project. A new view model is created from the previous one, so that the
+ * groups of a module are only calculated once and groups whose content did not
+ * change are shared between the view models (including their sorted order).
+ */
+final class JavaDependencyViewModel {
+    private static final Comparator<Entry> ENTRY_CMP = new Comparator<Entry>() {
+        @Override
+        public int compare(Entry o1, Entry o2) {
+            return compareEntries(o1, o2);
+        }
+    };
+
+    private final NbJavaModule module;
+    private final List<GroupDef> groupDefs;
+    private final Map<String, DependencyGroup> groups;
+
+    private JavaDependencyViewModel(
+            NbJavaModule module,
+            List<GroupDef> groupDefs,
+            Map<String, DependencyGroup> groups) {
+        this.module = module;
+        this.groupDefs = groupDefs;
+        this.groups = Collections.unmodifiableMap(groups);
+    }
+
+    /**
+     * Creates the view model of the given module reusing whatever possible from
+     * the previous view model.
+     *
+     * @param module the module whose dependencies are to be displayed. This
+     *   argument cannot be {@code null}.
+     * @param projectDependencies the project dependencies keyed by their build
+     *   output. This argument cannot be {@code null}.
+     * @param prevModel the previously displayed view model. This argument can
+     *   be {@code null}, if there is no previous view model.
+     * @return the view model of the given module. This method returns
+     *   {@code prevModel} itself if nothing has changed. This method never
+     *   returns {@code null}.
+     */
+    public static JavaDependencyViewModel create(
+            NbJavaModule module,
+            Map<File, JavaProjectDependencyDef> projectDependencies,
+            JavaDependencyViewModel prevModel) {
+        ExceptionHelper.checkNotNullArgument(module, "module");
+        ExceptionHelper.checkNotNullArgument(projectDependencies, "projectDependencies");
+
+        List<GroupDef> groupDefs = prevModel != null && prevModel.module == module
+                ? prevModel.groupDefs
+                : createGroupDefs(module);
+
+        boolean reusedAll = prevModel != null;
+        Map<String, DependencyGroup> groups = new LinkedHashMap<>();
+        for (GroupDef groupDef: groupDefs) {
+            List<Entry> entries = toEntries(groupDef.files, projectDependencies);
+            if (entries.isEmpty()) {
+                continue;
+            }
+
+            DependencyGroup prevGroup = prevModel != null
+                    ? prevModel.groups.get(groupDef.name)
+                    : null;
+            DependencyGroup group = DependencyGroup.create(groupDef.name, entries, prevGroup);
+            if (group != prevGroup) {
+                reusedAll = false;
+            }
+            groups.put(groupDef.name, group);
+        }
+
+        if (reusedAll && groups.keySet().equals(prevModel.groups.keySet())) {
+            return prevModel;
+        }
+        return new JavaDependencyViewModel(module, groupDefs, groups);
+    }
+
+    public NbJavaModule getModule() {
+        return module;
+    }
+
+    public Collection<String> getGroupNames() {
+        return groups.keySet();
+    }
+
+    public DependencyGroup tryGetGroup(String groupName) {
+        return groups.get(groupName);
+    }
+
+    public boolean hasSameGroupNames(JavaDependencyViewModel other) {
+        if (other == null) {
+            return false;
+        }
+        return new ArrayList<>(groups.keySet()).equals(new ArrayList<>(other.groups.keySet()));
+    }
+
+    /**
+     * Returns the names of the groups which are present in both view models
+     * but have different content.
+     */
+    public Set<String> getChangedGroupNames(JavaDependencyViewModel prevModel) {
+        if (prevModel == null || prevModel == this) {
+            return Collections.emptySet();
+        }
+
+        Set<String> result = new HashSet<>();
+        for (DependencyGroup group: groups.values()) {
+            DependencyGroup prevGroup = prevModel.groups.get(group.getName());
+            if (prevGroup != null && prevGroup != group) {
+                result.add(group.getName());
+            }
+        }
+        return result;
+    }
+
+    private static List<Entry> toEntries(
+            Collection<File> files,
+            Map<File, JavaProjectDependencyDef> projectDependencies) {
+
+        List<Entry> result = new ArrayList<>(files.size());
+        Map<FileObject, List<JavaProjectDependencyDef>> allProjectDependencies = null;
+
+        for (File file: files) {
+            JavaProjectDependencyDef projectDep = projectDependencies.get(file);
+            if (projectDep == null) {
+                result.add(new Entry(file, null, false));
+                continue;
+            }
+
+            if (allProjectDependencies == null) {
+                allProjectDependencies = new HashMap<>();
+            }
+
+            FileObject projectDir = projectDep.getProject().getProjectDirectory();
+            List<JavaProjectDependencyDef> dependencySourceSets = allProjectDependencies.get(projectDir);
+            if (dependencySourceSets == null) {
+                dependencySourceSets = new ArrayList<>();
+                allProjectDependencies.put(projectDir, dependencySourceSets);
+            }
+            dependencySourceSets.add(projectDep);
+        }
+
+        if (allProjectDependencies != null) {
+            for (List<JavaProjectDependencyDef> dependencySourceSets: allProjectDependencies.values()) {
+                boolean showSourceSetName = dependencySourceSets.size() > 1;
+                for (JavaProjectDependencyDef projectDependency: dependencySourceSets) {
+                    result.add(new Entry(null, projectDependency, showSourceSetName));
+                }
+            }
+        }
+
+        return result;
+    }
+
+    private static List<GroupDef> createGroupDefs(NbJavaModule module) {
+        Map<String, Set<String>> dependencyGraph = sourceSetDependencyGraph(module);
+
+        List<GroupDef> result = new ArrayList<>(3 * module.getSources().size());
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            JavaClassPaths classpaths = sourceSet.getClasspaths();
+
+            Set<File> providedClassPaths = new HashSet<>(classpaths.getCompileClasspaths());
+            Set<File> runtimeClassPaths = new HashSet<>(classpaths.getRuntimeClasspaths());
+            Set<File> compileClassPaths = splitSets(providedClassPaths, runtimeClassPaths);
+
+            Set<String> sourceDependencies = dependencyGraph.get(sourceSet.getName());
+            if (sourceDependencies == null) {
+                sourceDependencies = Collections.emptySet();
+            }
+
+            Set<File> excluded = getExcludedFiles(module, sourceDependencies);
+            compileClassPaths.removeAll(excluded);
+            providedClassPaths.removeAll(excluded);
+            runtimeClassPaths.removeAll(excluded);
+
+            result.add(new GroupDef(
+                    getNameForDependencyGroup(DependencyType.COMPILE, sourceSet, sourceDependencies),
+                    compileClassPaths));
+            result.add(new GroupDef(
+                    getNameForDependencyGroup(DependencyType.PROVIDED, sourceSet, sourceDependencies),
+                    providedClassPaths));
+            result.add(new GroupDef(
+                    getNameForDependencyGroup(DependencyType.RUNTIME, sourceSet, sourceDependencies),
+                    runtimeClassPaths));
+        }
+        return Collections.unmodifiableList(result);
+    }
+
+    private static Set<File> getExcludedFiles(NbJavaModule module, Collection<String> sourceSetDependencies) {
+        Set<File> result = new HashSet<>(module.getAllBuildOutputs());
+        for (String inheritedName: sourceSetDependencies) {
+            JavaSourceSet inherited = module.tryGetSourceSetByName(inheritedName);
+            if (inherited != null) {
+                result.addAll(inherited.getClasspaths().getCompileClasspaths());
+                result.addAll(inherited.getClasspaths().getRuntimeClasspaths());
+                result.add(inherited.getOutputDirs().getClassesDir());
+                result.add(inherited.getOutputDirs().getResourcesDir());
+                result.addAll(inherited.getOutputDirs().getOtherDirs());
+            }
+        }
+        return result;
+    }
+
+    private static <T> Set<T> splitSets(Set<T> set1, Set<T> set2) {
+        Set<T> smallerSet;
+        Set<T> largerSet;
+
+        if (set1.size() < set2.size()) {
+            smallerSet = set1;
+            largerSet = set2;
+        }
+        else {
+            smallerSet = set2;
+            largerSet = set1;
+        }
+
+        Set<T> intersect = new HashSet<>();
+        for (T element: smallerSet) {
+            if (largerSet.remove(element)) {
+                intersect.add(element);
+            }
+        }
+        smallerSet.removeAll(intersect);
+
+        return intersect;
+    }
+
+    private static Map<String, Set<String>> sourceSetDependencyGraph(NbJavaModule module) {
+        Map<File, String> buildOutput = new HashMap<>();
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            buildOutput.put(sourceSet.getOutputDirs().getClassesDir(), sourceSet.getName());
+        }
+
+        Map<String, Set<String>> result = new HashMap<>();
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            String sourceSetName = sourceSet.getName();
+
+            Set<File> compileClasspaths = sourceSet.getClasspaths().getCompileClasspaths();
+            Set<File> runtimeClasspaths = sourceSet.getClasspaths().getRuntimeClasspaths();
+
+            Set<String> dependencies = new HashSet<>();
+            for (Map.Entry<File, String> entry: buildOutput.entrySet()) {
+                File classesOutputDir = entry.getKey();
+                if (runtimeClasspaths.contains(classesOutputDir) || compileClasspaths.contains(classesOutputDir)) {
+                    String dependencyName = entry.getValue();
+                    if (!sourceSetName.equals(dependencyName)) {
+                        dependencies.add(dependencyName);
+                    }
+                }
+            }
+
+            result.put(sourceSetName, dependencies);
+        }
+
+        // TODO: Remove redundant edges
+
+        return result;
+    }
+
+    private static String listToString(Collection<?> list) {
+        StringBuilder result = new StringBuilder();
+        boolean first = true;
+        for (Object element: list) {
+            if (first) {
+                first = false;
+            }
+            else {
+                result.append(", ");
+            }
+            result.append(element != null ? element.toString() : "null");
+        }
+        return result.toString();
+    }
+
+    private static String getBaseDependencyGroupName(
+            DependencyType dependencyType,
+            JavaSourceSet sourceSet) {
+
+        String sourceSetName = sourceSet.getName();
+
+        switch (dependencyType) {
+            case COMPILE:
+                return NbStrings.getCompileForSourceSet(sourceSetName);
+            case RUNTIME:
+                return NbStrings.getRuntimeForSourceSet(sourceSetName);
+            case PROVIDED:
+                return NbStrings.getProvidedForSourceSet(sourceSetName);
+            default:
+                throw new AssertionError(dependencyType.name());
+        }
+    }
+
+    private static String getNameForDependencyGroup(
+            DependencyType dependencyType,
+            JavaSourceSet sourceSet,
+            Set<String> sourceSetDependencies) {
+
+        String baseName = getBaseDependencyGroupName(dependencyType, sourceSet);
+        if (sourceSetDependencies.isEmpty()) {
+            return baseName;
+        }
+        else {
+            return NbStrings.getSourceSetInherits(baseName, listToString(sourceSetDependencies));
+        }
+    }
+
+    private static int compareEntries(Entry entry1, Entry entry2) {
+        JavaProjectDependencyDef projectDep1 = entry1.getProjectDependency();
+        JavaProjectDependencyDef projectDep2 = entry2.getProjectDependency();
+
+        if (projectDep1 != null) {
+            if (projectDep2 == null) {
+                return -1;
+            }
+
+            NbJavaModule module1 = projectDep1.getJavaModule();
+            NbJavaModule module2 = projectDep2.getJavaModule();
+            if (module1 == module2) {
+                return 0;
+            }
+            return StringUtils.STR_CMP.compare(module1.getShortName(), module2.getShortName());
+        }
+        else if (projectDep2 != null) {
+            return 1;
+        }
+
+        return StringUtils.STR_CMP.compare(entry1.getFile().getName(), entry2.getFile().getName());
+    }
+
+    private static List<Entry> mergeSorted(List<Entry> sorted1, List<Entry> sorted2) {
+        List<Entry> result = new ArrayList<>(sorted1.size() + sorted2.size());
+
+        int index1 = 0;
+        int index2 = 0;
+        while (index1 < sorted1.size() && index2 < sorted2.size()) {
+            Entry entry1 = sorted1.get(index1);
+            Entry entry2 = sorted2.get(index2);
+            if (compareEntries(entry1, entry2) <= 0) {
+                result.add(entry1);
+                index1++;
+            }
+            else {
+                result.add(entry2);
+                index2++;
+            }
+        }
+        result.addAll(sorted1.subList(index1, sorted1.size()));
+        result.addAll(sorted2.subList(index2, sorted2.size()));
+        return result;
+    }
+
+    /**
+     * Defines a single displayed dependency: Either a file or a dependency on
+     * another project.
+     */
+    public static final class Entry {
+        private final File file;
+        private final JavaProjectDependencyDef projectDependency;
+        private final boolean showSourceSet;
+
+        private Entry(File file, JavaProjectDependencyDef projectDependency, boolean showSourceSet) {
+            this.file = file;
+            this.projectDependency = projectDependency;
+            this.showSourceSet = showSourceSet;
+        }
+
+        /**
+         * Returns the dependency file or {@code null} if this entry is a
+         * project dependency.
+         */
+        public File getFile() {
+            return file;
+        }
+
+        /**
+         * Returns the project dependency or {@code null} if this entry is a
+         * plain file dependency.
+         */
+        public JavaProjectDependencyDef getProjectDependency() {
+            return projectDependency;
+        }
+
+        public boolean isShowSourceSet() {
+            return showSourceSet;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 53 * hash + Objects.hashCode(this.file);
+            hash = 53 * hash + Objects.hashCode(this.projectDependency);
+            hash = 53 * hash + (this.showSourceSet ? 1 : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final Entry other = (Entry)obj;
+            return this.showSourceSet == other.showSourceSet
+                    && Objects.equals(this.file, other.file)
+                    && Objects.equals(this.projectDependency, other.projectDependency);
+        }
+    }
+
+    /**
+     * Defines a named group of dependencies in the order they are to be
+     * displayed.
+     */
+    public static final class DependencyGroup {
+        private final String name;
+        private final List<Entry> entries;
+        private final Set<Entry> entrySet;
+
+        private DependencyGroup(String name, List<Entry> entries, Set<Entry> entrySet) {
+            this.name = name;
+            this.entries = Collections.unmodifiableList(entries);
+            this.entrySet = entrySet;
+        }
+
+        private static DependencyGroup create(String name, List<Entry> entries, DependencyGroup prevGroup) {
+            Set<Entry> entrySet = new HashSet<>(entries);
+            if (prevGroup == null) {
+                List<Entry> sorted = new ArrayList<>(entries);
+                Collections.sort(sorted, ENTRY_CMP);
+                return new DependencyGroup(name, sorted, entrySet);
+            }
+
+            // Only the new entries have to be sorted, the rest is already in order.
+            List<Entry> retained = new ArrayList<>(prevGroup.entries.size());
+            for (Entry entry: prevGroup.entries) {
+                if (entrySet.contains(entry)) {
+                    retained.add(entry);
+                }
+            }
+
+            List<Entry> added = new ArrayList<>();
+            for (Entry entry: entries) {
+                if (!prevGroup.entrySet.contains(entry)) {
+                    added.add(entry);
+                }
+            }
+
+            if (added.isEmpty() && retained.size() == prevGroup.entries.size()) {
+                return prevGroup;
+            }
+
+            Collections.sort(added, ENTRY_CMP);
+            return new DependencyGroup(name, mergeSorted(retained, added), entrySet);
+        }
+
+        public String getName() {
+            return name;
+        }
+
+        public List<Entry> getEntries() {
+            return entries;
+        }
+    }
+
+    private static final class GroupDef {
+        private final String name;
+        private final Set<File> files;
+
+        public GroupDef(String name, Set<File> files) {
+            this.name = name;
+            this.files = files;
+        }
+    }
+
+    private enum DependencyType {
+        COMPILE,
+        RUNTIME,
+        PROVIDED
+    }
+}
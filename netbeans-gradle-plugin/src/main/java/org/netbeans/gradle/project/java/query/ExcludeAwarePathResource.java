@@ -6,7 +6,6 @@ import java.nio.file.Path;
 import java.util.Objects;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.util.FileGroupFilter;
-import org.netbeans.gradle.project.util.UrlFactory;
 import org.netbeans.spi.java.classpath.ClassPathImplementation;
 import org.netbeans.spi.java.classpath.FilteringPathResourceImplementation;
 import org.netbeans.spi.java.classpath.support.PathResourceBase;
@@ -22,17 +21,15 @@ final class ExcludeAwarePathResource extends PathResourceBase implements Filteri
         this.includeRules = includeRules;
     }
 
-    public static ExcludeAwarePathResource tryCreate(
+    public static ExcludeAwarePathResource create(
             File root,
-            FileGroupFilter includeRules,
-            UrlFactory urlForArchiveFactory) {
+            URL rootUrl,
+            FileGroupFilter includeRules) {
+        ExceptionHelper.checkNotNullArgument(root, "root");
+        ExceptionHelper.checkNotNullArgument(rootUrl, "rootUrl");
         ExceptionHelper.checkNotNullArgument(includeRules, "includeRules");
 
-        URL url = urlForArchiveFactory.toUrl(root);
-        if (url == null) {
-            return null;
-        }
-        return new ExcludeAwarePathResource(root, url, includeRules);
+        return new ExcludeAwarePathResource(root, rootUrl, includeRules);
     }
 
     @Override
@@ -233,6 +233,10 @@ implements
                 scheduleReloadPathResources();
             }
         }));
+
+        // Prefetch the classpath, so that the first findClassPath call
+        // likely finds them already computed.
+        scheduleReloadPathResources();
     }
 
     // These PropertyChangeListener methods are declared because
@@ -458,7 +462,10 @@ implements
         }
 
         if (!loadedOnce) {
-            loadPathResources(projectModel);
+            // The returned ClassPath is updated once the resources are loaded,
+            // so there is no reason to block the caller (usually the editor
+            // or the indexer).
+            scheduleReloadPathResources();
         }
 
         loadClassPath(classPathKey);
@@ -342,10 +342,14 @@ public final class GradleProjectSources implements Sources, JavaModelChangeListe
                 return true;
             }
 
-            if (FileUtil.getRelativePath(location, file) == null) {
+            if (!FileUtil.isParentOf(location, file)) {
                 return false;
             }
 
+            if (includeRules.isAllowAll()) {
+                return true;
+            }
+
             return rulesAllow(file);
         }
 
@@ -2,76 +2,41 @@ package org.netbeans.gradle.project.java.query;
 
 import java.io.File;
 import java.net.URL;
-import java.util.ArrayList;
-import java.util.Collection;
-import java.util.List;
+import java.util.concurrent.atomic.AtomicReference;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.gradle.model.java.JavaSourceGroup;
-import org.netbeans.gradle.model.java.JavaSourceSet;
 import org.netbeans.gradle.project.java.JavaExtension;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
-import org.netbeans.gradle.project.util.UrlFactory;
 import org.netbeans.spi.java.queries.MultipleRootsUnitTestForSourceQueryImplementation;
 import org.openide.filesystems.FileObject;
 import org.openide.filesystems.FileUtil;
 
 public final class GradleUnitTestFinder implements MultipleRootsUnitTestForSourceQueryImplementation {
     private final JavaExtension javaExt;
+    private final AtomicReference<SourceRootIndex> indexRef;
 
     public GradleUnitTestFinder(JavaExtension javaExt) {
         ExceptionHelper.checkNotNullArgument(javaExt, "javaExt");
         this.javaExt = javaExt;
+        this.indexRef = new AtomicReference<>(null);
     }
 
-    private static boolean hasSource(NbJavaModule module, FileObject source) {
-        for (JavaSourceSet sourceSet: module.getNonTestSourceSets()) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    FileObject sourceRootObj = FileUtil.toFileObject(sourceRoot);
-                    if (sourceRootObj != null && FileUtil.getRelativePath(sourceRootObj, source) != null) {
-                        return true;
-                    }
-                }
-            }
-        }
-
-        return false;
-    }
-
-    private static URL[] urlsFromSourceSets(Collection<JavaSourceSet> sourceSets) {
-        UrlFactory urlFactory = UrlFactory.getDefaultArchiveOrDirFactory();
-
-        List<URL> result = new ArrayList<>();
-        for (JavaSourceSet sourceSet: sourceSets) {
-            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
-                for (File sourceRoot: sourceGroup.getSourceRoots()) {
-                    URL url = urlFactory.toUrl(sourceRoot);
-                    if (url != null) {
-                        result.add(url);
-                    }
-                }
-            }
-        }
-
-        return result.toArray(new URL[result.size()]);
-    }
-
-    private static URL[] getSourceRoots(NbJavaModule module) {
-        return urlsFromSourceSets(module.getNonTestSourceSets());
+    private SourceRootIndex getIndex(NbJavaModule module) {
+        return SourceRootIndex.getIndex(module, indexRef);
     }
 
-    private static URL[] getTestRoots(NbJavaModule module) {
-        return urlsFromSourceSets(module.getTestSourceSets());
+    private static boolean hasSource(SourceRootIndex index, FileObject source) {
+        File sourceFile = FileUtil.toFile(source);
+        return sourceFile != null && index.isInNonTestRoot(sourceFile);
     }
 
     @Override
     public URL[] findUnitTests(FileObject source) {
         NbJavaModel projectModel = javaExt.getCurrentModel();
 
-        NbJavaModule mainModule = projectModel.getMainModule();
-        if (hasSource(mainModule, source)) {
-            return getTestRoots(mainModule);
+        SourceRootIndex index = getIndex(projectModel.getMainModule());
+        if (hasSource(index, source)) {
+            return index.getTestRootUrls().clone();
         }
 
         return null;
@@ -81,9 +46,9 @@ public final class GradleUnitTestFinder implements MultipleRootsUnitTestForSourc
     public URL[] findSources(FileObject unitTest) {
         NbJavaModel projectModel = javaExt.getCurrentModel();
 
-        NbJavaModule mainModule = projectModel.getMainModule();
-        if (!hasSource(mainModule, unitTest)) {
-            return getSourceRoots(mainModule);
+        SourceRootIndex index = getIndex(projectModel.getMainModule());
+        if (!hasSource(index, unitTest)) {
+            return index.getNonTestRootUrls().clone();
         }
 
         return null;
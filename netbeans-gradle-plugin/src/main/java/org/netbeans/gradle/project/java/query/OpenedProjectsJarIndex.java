@@ -0,0 +1,182 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.collections.CollectionsEx;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.event.ListenerRegistries;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
+import org.netbeans.gradle.project.NbGradleProject;
+import org.netbeans.gradle.project.java.JavaExtension;
+import org.netbeans.gradle.project.java.model.JavaProjectDependencies;
+import org.netbeans.gradle.project.java.model.JavaProjectDependencyDef;
+import org.netbeans.gradle.project.java.model.NbJarOutput;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.properties.global.CommonGlobalSettings;
+import org.openide.util.Lookup;
+
+/**
+ * Maps the names of the JAR files built by the opened Gradle Java projects to
+ * the output directories the JAR files are built from. The index is shared by
+ * every project and is only rebuilt after the set of opened projects, the
+ * model of an indexed project or its project dependencies change.
+ */
+final class OpenedProjectsJarIndex {
+    private static final AtomicReference<IndexSnapshot> LAST_INDEX = new AtomicReference<>(null);
+    private static final AtomicLong INDEX_VERSION = new AtomicLong(0);
+    private static final AtomicBoolean OPEN_PROJECTS_LISTENER_ADDED = new AtomicBoolean(false);
+
+    /**
+     * Returns the index of the JARs built by the opened projects keyed by the
+     * lower case file name of the JAR.
+     *
+     * @return the index of the JARs built by the opened projects or
+     *   {@code null} if project dependencies should not be detected by their
+     *   JAR name
+     */
+    public static Map<String, Set<File>> tryGetIndex() {
+        if (!CommonGlobalSettings.getDefault().detectProjectDependenciesByJarName().getActiveValue()) {
+            return null;
+        }
+
+        IndexSnapshot lastIndex = LAST_INDEX.get();
+        if (lastIndex != null) {
+            return lastIndex.index;
+        }
+
+        listenForOpenedProjects();
+
+        // The listeners are registered before reading the models, so a change
+        // happening while the index is being built increments the version.
+        long version = INDEX_VERSION.get();
+        Collection<JavaExtension> javaExts = getAllOpenedJavaExts();
+        ListenerRef changeRef = listenForChanges(javaExts);
+
+        IndexSnapshot newIndex = new IndexSnapshot(createIndex(getMainModules(javaExts)), changeRef);
+        if (INDEX_VERSION.get() != version || !LAST_INDEX.compareAndSet(null, newIndex)) {
+            changeRef.unregister();
+            return newIndex.index;
+        }
+
+        if (INDEX_VERSION.get() != version && LAST_INDEX.compareAndSet(newIndex, null)) {
+            changeRef.unregister();
+        }
+        return newIndex.index;
+    }
+
+    private static void invalidateIndex() {
+        INDEX_VERSION.incrementAndGet();
+
+        IndexSnapshot lastIndex = LAST_INDEX.getAndSet(null);
+        if (lastIndex != null) {
+            lastIndex.changeRef.unregister();
+        }
+    }
+
+    private static void listenForOpenedProjects() {
+        if (!OPEN_PROJECTS_LISTENER_ADDED.compareAndSet(false, true)) {
+            return;
+        }
+
+        OpenProjects.getDefault().addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (OpenProjects.PROPERTY_OPEN_PROJECTS.equals(evt.getPropertyName())) {
+                    invalidateIndex();
+                }
+            }
+        });
+    }
+
+    private static ListenerRef listenForChanges(Collection<JavaExtension> javaExts) {
+        Runnable invalidateTask = new Runnable() {
+            @Override
+            public void run() {
+                invalidateIndex();
+            }
+        };
+
+        List<ListenerRef> refs = new ArrayList<>(2 * javaExts.size());
+        for (JavaExtension javaExt: javaExts) {
+            refs.add(javaExt.addModelChangeListener(invalidateTask));
+            refs.add(javaExt.getProjectDependencies().translatedDependencies().addChangeListener(invalidateTask));
+        }
+        return ListenerRegistries.combineListenerRefs(refs);
+    }
+
+    /**
+     * Returns the extensions of all the currently opened Gradle Java projects,
+     * including the projects referenced by them (project dependencies).
+     */
+    private static Collection<JavaExtension> getAllOpenedJavaExts() {
+        Project[] openedProjects = OpenProjects.getDefault().getOpenProjects();
+        Map<File, JavaExtension> javaExts = new HashMap<>();
+
+        for (Project project: openedProjects) {
+            Lookup lookup = project.getLookup();
+            NbGradleProject gradleProject = lookup.lookup(NbGradleProject.class);
+            JavaExtension javaExt = lookup.lookup(JavaExtension.class);
+
+            if (javaExt != null && gradleProject != null) {
+                javaExts.put(gradleProject.getProjectDirectoryAsFile(), javaExt);
+
+                JavaProjectDependencies projectDependencies = javaExt.getProjectDependencies();
+                for (JavaProjectDependencyDef dependency: projectDependencies.translatedDependencies().getValue().values()) {
+                    JavaExtension dependencyJavaExt = dependency.getJavaExt();
+                    javaExts.put(dependencyJavaExt.getProjectDirectoryAsFile(), dependencyJavaExt);
+                }
+            }
+        }
+        return javaExts.values();
+    }
+
+    private static List<NbJavaModule> getMainModules(Collection<JavaExtension> javaExts) {
+        List<NbJavaModule> result = new ArrayList<>(javaExts.size());
+        for (JavaExtension javaExt: javaExts) {
+            result.add(javaExt.getCurrentModel().getMainModule());
+        }
+        return result;
+    }
+
+    private static Map<String, Set<File>> createIndex(Collection<NbJavaModule> modules) {
+        Map<String, Set<File>> result = CollectionsEx.newHashMap(modules.size());
+        for (NbJavaModule mainModule: modules) {
+            for (NbJarOutput jarOutput: mainModule.getJarOutputs()) {
+                String key = jarOutput.getJar().getName().toLowerCase(Locale.ROOT);
+                Set<File> classDirs = jarOutput.getClassDirs();
+
+                if (!classDirs.isEmpty() && (!result.containsKey(key) || jarOutput.isDefaultJar())) {
+                    result.put(key, jarOutput.getClassDirs());
+                }
+            }
+        }
+        return Collections.unmodifiableMap(result);
+    }
+
+    private static final class IndexSnapshot {
+        private final Map<String, Set<File>> index;
+        private final ListenerRef changeRef;
+
+        public IndexSnapshot(Map<String, Set<File>> index, ListenerRef changeRef) {
+            this.index = index;
+            this.changeRef = changeRef;
+        }
+    }
+
+    private OpenedProjectsJarIndex() {
+        throw new AssertionError();
+    }
+}
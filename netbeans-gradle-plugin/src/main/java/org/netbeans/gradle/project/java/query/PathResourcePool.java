@@ -0,0 +1,155 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.net.URL;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.FileGroupFilter;
+import org.netbeans.gradle.project.util.UrlFactory;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+
+/**
+ * Defines a pool of {@code PathResourceImplementation} instances, so that the
+ * classpaths of different projects share the same instance for the same
+ * classpath entry. The pool only references its elements weakly, so an
+ * element is removed once no classpath uses it anymore.
+ * <P>
+ * The methods of this class are safe to be called from multiple threads
+ * concurrently.
+ */
+final class PathResourcePool {
+    private static final PathResourcePool DEFAULT = new PathResourcePool();
+
+    private final ConcurrentMap<ResourceKey, ResourceRef> resources;
+    private final ReferenceQueue<PathResourceImplementation> collectedResources;
+
+    public PathResourcePool() {
+        this.resources = new ConcurrentHashMap<>(1024);
+        this.collectedResources = new ReferenceQueue<>();
+    }
+
+    public static PathResourcePool getDefault() {
+        return DEFAULT;
+    }
+
+    /**
+     * Returns the path resource of the given URL. The URL must be a valid
+     * argument of {@link ClassPathSupport#createResource(URL) ClassPathSupport.createResource}.
+     */
+    public PathResourceImplementation getResource(URL url) {
+        ExceptionHelper.checkNotNullArgument(url, "url");
+        return getResource(null, url, null);
+    }
+
+    /**
+     * Returns the path resource of the given file or directory or {@code null}
+     * if the file cannot be converted to a URL.
+     */
+    public PathResourceImplementation tryGetResource(
+            File file,
+            FileGroupFilter includeRules,
+            UrlFactory urlFactory) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+        ExceptionHelper.checkNotNullArgument(includeRules, "includeRules");
+        ExceptionHelper.checkNotNullArgument(urlFactory, "urlFactory");
+
+        URL url = urlFactory.toUrl(file);
+        if (url == null) {
+            return null;
+        }
+
+        return getResource(file, url, includeRules.isAllowAll() ? null : includeRules);
+    }
+
+    private PathResourceImplementation getResource(File file, URL url, FileGroupFilter includeRules) {
+        removeCollected();
+
+        // URL.equals might resolve host names, so we rather compare strings.
+        ResourceKey key = new ResourceKey(url.toExternalForm(), includeRules);
+
+        ResourceRef resultRef = resources.get(key);
+        PathResourceImplementation result = resultRef != null ? resultRef.get() : null;
+        if (result != null) {
+            return result;
+        }
+
+        PathResourceImplementation newResource = includeRules != null
+                ? ExcludeAwarePathResource.create(file, url, includeRules)
+                : ClassPathSupport.createResource(url);
+        ResourceRef newRef = new ResourceRef(key, newResource, collectedResources);
+
+        while (true) {
+            ResourceRef prevRef = resources.putIfAbsent(key, newRef);
+            if (prevRef == null) {
+                return newResource;
+            }
+
+            PathResourceImplementation prevResource = prevRef.get();
+            if (prevResource != null) {
+                return prevResource;
+            }
+
+            if (resources.replace(key, prevRef, newRef)) {
+                return newResource;
+            }
+        }
+    }
+
+    private void removeCollected() {
+        ResourceRef ref = (ResourceRef)collectedResources.poll();
+        while (ref != null) {
+            resources.remove(ref.key, ref);
+            ref = (ResourceRef)collectedResources.poll();
+        }
+    }
+
+    int getPoolSize() {
+        removeCollected();
+        return resources.size();
+    }
+
+    private static final class ResourceRef extends WeakReference<PathResourceImplementation> {
+        private final ResourceKey key;
+
+        public ResourceRef(
+                ResourceKey key,
+                PathResourceImplementation referent,
+                ReferenceQueue<? super PathResourceImplementation> queue) {
+            super(referent, queue);
+            this.key = key;
+        }
+    }
+
+    private static final class ResourceKey {
+        private final String url;
+        private final FileGroupFilter includeRules;
+
+        public ResourceKey(String url, FileGroupFilter includeRules) {
+            this.url = url;
+            this.includeRules = includeRules;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 3;
+            hash = 41 * hash + url.hashCode();
+            hash = 41 * hash + Objects.hashCode(includeRules);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final ResourceKey other = (ResourceKey)obj;
+            return this.url.equals(other.url)
+                    && Objects.equals(this.includeRules, other.includeRules);
+        }
+    }
+}
@@ -15,33 +15,32 @@ import java.util.Map;
 import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
-import org.jtrim.collections.CollectionsEx;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableFunction;
+import org.jtrim.concurrent.TaskExecutorService;
+import org.jtrim.concurrent.TaskFuture;
 import org.jtrim.utils.ExceptionHelper;
-import org.netbeans.api.project.Project;
-import org.netbeans.api.project.ui.OpenProjects;
 import org.netbeans.gradle.model.java.JavaOutputDirs;
 import org.netbeans.gradle.model.java.JavaSourceGroup;
 import org.netbeans.gradle.model.java.JavaSourceSet;
-import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.api.entry.ProjectPlatform;
-import org.netbeans.gradle.project.java.JavaExtension;
-import org.netbeans.gradle.project.java.model.JavaProjectDependencies;
 import org.netbeans.gradle.project.java.model.JavaProjectDependencyDef;
-import org.netbeans.gradle.project.java.model.NbJarOutput;
 import org.netbeans.gradle.project.java.model.NbJavaModel;
 import org.netbeans.gradle.project.java.model.NbJavaModule;
-import org.netbeans.gradle.project.properties.global.CommonGlobalSettings;
 import org.netbeans.gradle.project.util.ExcludeIncludeRules;
 import org.netbeans.gradle.project.util.FileGroupFilter;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
 import org.netbeans.gradle.project.util.UnionFileGroupFilter;
 import org.netbeans.gradle.project.util.UrlFactory;
 import org.netbeans.spi.java.classpath.PathResourceImplementation;
-import org.netbeans.spi.java.classpath.support.ClassPathSupport;
-import org.openide.util.Lookup;
 
 public final class ProjectClassPathResourceBuilder {
     private static final Logger LOGGER = Logger.getLogger(ProjectClassPathResourceBuilder.class.getName());
 
+    private static final TaskExecutorService SOURCE_SET_LOADER
+            = NbTaskExecutors.newExecutor("Classpath-source-set-loader", getSourceSetLoaderThreadCount());
+
     private final NbJavaModel projectModel;
     private final Map<File, JavaProjectDependencyDef> translatedDependencies;
     private final ProjectPlatform currentPlatform;
@@ -72,14 +71,12 @@ public final class ProjectClassPathResourceBuilder {
     }
 
     public void build() {
-        openedProjectsOutput = findOpenedProjectsOutput();
+        openedProjectsOutput = OpenedProjectsJarIndex.tryGetIndex();
         classpathResources = new HashMap<>();
         missing = new HashSet<>();
 
         NbJavaModule mainModule = projectModel.getMainModule();
-        for (JavaSourceSet sourceSet: mainModule.getSources()) {
-            loadPathResources(sourceSet, missing);
-        }
+        loadAllPathResources(mainModule.getSources());
 
         loadBootClassPath();
         loadAllRuntimeClassPath(mainModule);
@@ -89,52 +86,8 @@ public final class ProjectClassPathResourceBuilder {
         loadRuntimeForGlobalClassPath(projectModel);
     }
 
-    /**
-     * Returns all the currently opened Gradle Java projects, including the projects
-     * referenced by them (project dependencies).
-     */
-    private static Collection<JavaExtension> getAllOpenedGradleJavaProjects() {
-        Project[] openedProjects = OpenProjects.getDefault().getOpenProjects();
-        Map<File, JavaExtension> result = new HashMap<>();
-
-        for (Project project: openedProjects) {
-            Lookup lookup = project.getLookup();
-            NbGradleProject gradleProject = lookup.lookup(NbGradleProject.class);
-            JavaExtension javaExt = lookup.lookup(JavaExtension.class);
-
-            if (javaExt != null && gradleProject != null) {
-                result.put(gradleProject.getProjectDirectoryAsFile(), javaExt);
-
-                JavaProjectDependencies projectDependencies = javaExt.getProjectDependencies();
-                for (JavaProjectDependencyDef dependency: projectDependencies.translatedDependencies().getValue().values()) {
-                    JavaExtension dependencyJavaExt = dependency.getJavaExt();
-                    result.put(dependencyJavaExt.getProjectDirectoryAsFile(), dependencyJavaExt);
-                }
-            }
-        }
-
-        return new ArrayList<>(result.values());
-    }
-
-    private static Map<String, Set<File>> findOpenedProjectsOutput() {
-        if (!CommonGlobalSettings.getDefault().detectProjectDependenciesByJarName().getActiveValue()) {
-            return null;
-        }
-
-        Collection<JavaExtension> javaExts = getAllOpenedGradleJavaProjects();
-        Map<String, Set<File>> result = CollectionsEx.newHashMap(javaExts.size());
-        for (JavaExtension javaExt: javaExts) {
-            NbJavaModule mainModule = javaExt.getCurrentModel().getMainModule();
-            for (NbJarOutput jarOutput: mainModule.getJarOutputs()) {
-                String key = jarOutput.getJar().getName().toLowerCase(Locale.ROOT);
-                Set<File> classDirs = jarOutput.getClassDirs();
-
-                if (!classDirs.isEmpty() && (!result.containsKey(key) || jarOutput.isDefaultJar())) {
-                    result.put(key, jarOutput.getClassDirs());
-                }
-            }
-        }
-        return result;
+    private static int getSourceSetLoaderThreadCount() {
+        return Math.max(1, Math.min(Runtime.getRuntime().availableProcessors(), 4));
     }
 
     private List<PathResourceImplementation> getBuildOutputDirsAsPathResources(JavaSourceSet sourceSet) {
@@ -186,22 +139,21 @@ public final class ProjectClassPathResourceBuilder {
         return updateDependencies(sourceSet.getClasspaths().getRuntimeClasspaths());
     }
 
-    private void loadCompilePathResources(JavaSourceSet sourceSet, Set<File> invalid) {
+    private void loadCompilePathResources(JavaSourceSet sourceSet, SourceSetResources result) {
         Collection<File> compileCP = getFixedCompileClasspaths(sourceSet);
-        setClassPathResources(
+        result.setClassPathResources(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.COMPILE),
-                getPathResources(compileCP, invalid));
+                getPathResources(compileCP, result.invalid));
     }
 
-    private void loadRuntimePathResources(JavaSourceSet sourceSet, Set<File> invalid) {
+    private void loadRuntimePathResources(JavaSourceSet sourceSet, SourceSetResources result) {
         Collection<File> runtimeCP = getFixedRuntimeClasspaths(sourceSet);
-        setClassPathResources(
+        result.setClassPathResources(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.RUNTIME),
-                getPathResources(runtimeCP, invalid),
-                getBuildOutputDirsAsPathResources(sourceSet));
+                concat(getPathResources(runtimeCP, result.invalid), getBuildOutputDirsAsPathResources(sourceSet)));
     }
 
-    private void loadSourcePathResources(JavaSourceSet sourceSet, Set<File> invalid) {
+    private void loadSourcePathResources(JavaSourceSet sourceSet, SourceSetResources result) {
         Map<File, FileGroupFilter> allRoots = new LinkedHashMap<>();
         for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
             Set<File> sourceRoots = sourceGroup.getSourceRoots();
@@ -221,9 +173,9 @@ public final class ProjectClassPathResourceBuilder {
         }
 
         List<PathResourceImplementation> sourcePaths = new ArrayList<>(allRoots.size());
-        addPathResources(allRoots, invalid, sourcePaths);
+        addPathResources(allRoots, result.invalid, sourcePaths);
 
-        setClassPathResources(
+        result.setClassPathResources(
                 new SourceSetClassPathType(sourceSet.getName(), ClassPathType.SOURCES),
                 sourcePaths);
     }
@@ -238,17 +190,51 @@ public final class ProjectClassPathResourceBuilder {
         }
     }
 
-    private void loadPathResources(JavaSourceSet sourceSet, Set<File> invalid) {
-        loadCompilePathResources(sourceSet, invalid);
-        loadRuntimePathResources(sourceSet, invalid);
-        loadSourcePathResources(sourceSet, invalid);
+    private SourceSetResources loadPathResources(JavaSourceSet sourceSet) {
+        SourceSetResources result = new SourceSetResources();
+        loadCompilePathResources(sourceSet, result);
+        loadRuntimePathResources(sourceSet, result);
+        loadSourcePathResources(sourceSet, result);
+        return result;
+    }
+
+    private TaskFuture<SourceSetResources> submitLoadPathResources(final JavaSourceSet sourceSet) {
+        return SOURCE_SET_LOADER.submit(Cancellation.UNCANCELABLE_TOKEN, new CancelableFunction<SourceSetResources>() {
+            @Override
+            public SourceSetResources execute(CancellationToken cancelToken) {
+                return loadPathResources(sourceSet);
+            }
+        }, null);
+    }
+
+    private void loadAllPathResources(List<JavaSourceSet> sourceSets) {
+        if (sourceSets.isEmpty()) {
+            return;
+        }
+
+        // The first source set is loaded by the calling thread, so that we do not
+        // have to wait for the executor if there is only a single source set.
+        List<TaskFuture<SourceSetResources>> futures = new ArrayList<>(sourceSets.size() - 1);
+        for (JavaSourceSet sourceSet: sourceSets.subList(1, sourceSets.size())) {
+            futures.add(submitLoadPathResources(sourceSet));
+        }
+
+        addSourceSetResources(loadPathResources(sourceSets.get(0)));
+        for (TaskFuture<SourceSetResources> future: futures) {
+            addSourceSetResources(future.waitAndGet(Cancellation.UNCANCELABLE_TOKEN));
+        }
+    }
+
+    private void addSourceSetResources(SourceSetResources resources) {
+        classpathResources.putAll(resources.classpathResources);
+        missing.addAll(resources.invalid);
     }
 
     private void loadBootClassPath() {
         Collection<URL> bootLibraries = currentPlatform.getBootLibraries();
         List<PathResourceImplementation> platformResources = new ArrayList<>(bootLibraries.size());
         for (URL url: bootLibraries) {
-            platformResources.add(ClassPathSupport.createResource(url));
+            platformResources.add(PathResourcePool.getDefault().getResource(url));
         }
 
         setClassPathResources(SpecialClassPath.BOOT, platformResources);
@@ -329,27 +315,26 @@ public final class ProjectClassPathResourceBuilder {
         classpathResources.put(classPathKey, Collections.unmodifiableList(paths));
     }
 
-    private void setClassPathResources(
-            ClassPathKey classPathKey,
+    private static List<PathResourceImplementation> concat(
             List<PathResourceImplementation> paths1,
             List<PathResourceImplementation> paths2) {
         List<PathResourceImplementation> paths = new ArrayList<>(paths1.size() + paths2.size());
         paths.addAll(paths1);
         paths.addAll(paths2);
-        setClassPathResources(classPathKey, paths);
+        return paths;
     }
 
 
     private static PathResourceImplementation toPathResource(File file, UrlFactory urlForArchiveFactory) {
-        URL url = urlForArchiveFactory.toUrl(file);
-        return url != null ? ClassPathSupport.createResource(url) : null;
+        return toPathResource(file, ExcludeIncludeRules.ALLOW_ALL, urlForArchiveFactory);
     }
 
     private static PathResourceImplementation toPathResource(
             File file,
             FileGroupFilter includeRules,
             UrlFactory urlForArchiveFactory) {
-        return ExcludeAwarePathResource.tryCreate(file, includeRules, urlForArchiveFactory);
+        // The pool makes sure that every project shares the same instance for the same entry.
+        return PathResourcePool.getDefault().tryGetResource(file, includeRules, urlForArchiveFactory);
     }
 
     private static List<PathResourceImplementation> getPathResources(
@@ -369,14 +354,10 @@ public final class ProjectClassPathResourceBuilder {
             Set<File> invalid,
             FileGroupFilter includeRules) {
 
-        boolean allowAll = includeRules.isAllowAll();
-
         UrlFactory urlFactory = UrlFactory.getDefaultArchiveOrDirFactory();
         List<PathResourceImplementation> result = new ArrayList<>(files.size());
         for (File file: asSet(files)) {
-            PathResourceImplementation pathResource = allowAll
-                    ? toPathResource(file, urlFactory)
-                    : toPathResource(file, includeRules, urlFactory);
+            PathResourceImplementation pathResource = toPathResource(file, includeRules, urlFactory);
             // Ignore invalid classpath entries
             if (pathResource != null) {
                 result.add(pathResource);
@@ -407,6 +388,22 @@ public final class ProjectClassPathResourceBuilder {
         return Collections.unmodifiableMap(classpathResources);
     }
 
+    private static final class SourceSetResources {
+        private final Map<ClassPathKey, List<PathResourceImplementation>> classpathResources;
+        private final Set<File> invalid;
+
+        public SourceSetResources() {
+            this.classpathResources = new HashMap<>();
+            this.invalid = new HashSet<>();
+        }
+
+        public void setClassPathResources(
+                ClassPathKey classPathKey,
+                List<PathResourceImplementation> paths) {
+            classpathResources.put(classPathKey, Collections.unmodifiableList(paths));
+        }
+    }
+
     public enum ClassPathType {
         SOURCES,
         COMPILE,
@@ -0,0 +1,157 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.util.UrlFactory;
+import org.openide.util.Utilities;
+
+/**
+ * Defines an immutable index of the source roots of a module. Finding the
+ * source root of a file only requires a hash lookup for each parent of the
+ * file, and the URLs of the roots are created when the index is created.
+ */
+final class SourceRootIndex {
+    private static final Logger LOGGER = Logger.getLogger(SourceRootIndex.class.getName());
+
+    private static final URL[] NO_ROOTS = new URL[0];
+
+    private final NbJavaModule module;
+    private final Map<File, JavaSourceSet> sourceSetsOfRoots;
+    private final Set<File> nonTestRoots;
+    private final Map<File, URL[]> binaryRoots;
+    private final URL[] nonTestRootUrls;
+    private final URL[] testRootUrls;
+
+    private SourceRootIndex(NbJavaModule module) {
+        this.module = module;
+        this.sourceSetsOfRoots = new HashMap<>();
+        this.nonTestRoots = new HashSet<>();
+        this.binaryRoots = new HashMap<>();
+
+        UrlFactory urlFactory = UrlFactory.getDefaultArchiveOrDirFactory();
+        this.nonTestRootUrls = toUrls(module.getNonTestSourceSets(), urlFactory, nonTestRoots);
+        this.testRootUrls = toUrls(module.getTestSourceSets(), urlFactory, new HashSet<File>());
+
+        for (JavaSourceSet sourceSet: module.getSources()) {
+            URL[] outputUrls = null;
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                    if (sourceSetsOfRoots.containsKey(sourceRoot)) {
+                        continue;
+                    }
+
+                    if (outputUrls == null) {
+                        outputUrls = toBinaryUrls(sourceSet.getOutputDirs().getClassesDir());
+                    }
+                    sourceSetsOfRoots.put(sourceRoot, sourceSet);
+                    binaryRoots.put(sourceRoot, outputUrls);
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the index of the given module. The index is only created if the
+     * cached index belongs to a different module.
+     */
+    public static SourceRootIndex getIndex(NbJavaModule module, AtomicReference<SourceRootIndex> cacheRef) {
+        ExceptionHelper.checkNotNullArgument(module, "module");
+        ExceptionHelper.checkNotNullArgument(cacheRef, "cacheRef");
+
+        SourceRootIndex result = cacheRef.get();
+        if (result == null || result.module != module) {
+            result = new SourceRootIndex(module);
+            cacheRef.set(result);
+        }
+        return result;
+    }
+
+    private static URL[] toUrls(Collection<JavaSourceSet> sourceSets, UrlFactory urlFactory, Set<File> roots) {
+        List<URL> result = new ArrayList<>();
+        for (JavaSourceSet sourceSet: sourceSets) {
+            for (JavaSourceGroup sourceGroup: sourceSet.getSourceGroups()) {
+                for (File sourceRoot: sourceGroup.getSourceRoots()) {
+                    roots.add(sourceRoot);
+
+                    URL url = urlFactory.toUrl(sourceRoot);
+                    if (url != null) {
+                        result.add(url);
+                    }
+                }
+            }
+        }
+        return result.toArray(new URL[result.size()]);
+    }
+
+    private static URL[] toBinaryUrls(File outputDir) {
+        try {
+            return new URL[]{Utilities.toURI(outputDir).toURL()};
+        } catch (MalformedURLException ex) {
+            LOGGER.log(Level.INFO, "Cannot convert to URL: " + outputDir, ex);
+            return NO_ROOTS;
+        }
+    }
+
+    /**
+     * Returns the deepest source root containing the given file (or the
+     * file itself if it is a source root). Returns {@code null} if the file
+     * is not within any of the source roots.
+     */
+    public File tryGetSourceRoot(File file) {
+        for (File current = file; current != null; current = current.getParentFile()) {
+            if (sourceSetsOfRoots.containsKey(current)) {
+                return current;
+            }
+        }
+        return null;
+    }
+
+    public boolean isInNonTestRoot(File file) {
+        for (File current = file; current != null; current = current.getParentFile()) {
+            if (nonTestRoots.contains(current)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Returns the URLs of the build output of the given source root. The
+     * returned array must not be modified.
+     */
+    public URL[] getBinaryRootUrls(File sourceRoot) {
+        URL[] result = binaryRoots.get(sourceRoot);
+        return result != null ? result : NO_ROOTS;
+    }
+
+    /**
+     * Returns the URLs of the source roots of the non-test source sets. The
+     * returned array must not be modified.
+     */
+    public URL[] getNonTestRootUrls() {
+        return nonTestRootUrls;
+    }
+
+    /**
+     * Returns the URLs of the source roots of the test source sets. The
+     * returned array must not be modified.
+     */
+    public URL[] getTestRootUrls() {
+        return testRootUrls;
+    }
+}
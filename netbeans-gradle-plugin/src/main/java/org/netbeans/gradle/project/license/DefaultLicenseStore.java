@@ -6,19 +6,78 @@ import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Enumeration;
-import java.util.List;
 import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeAdapter;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
 import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
 import org.openide.filesystems.FileUtil;
 
+/**
+ * Defines the store of the license templates of NetBeans. The licenses found
+ * in the license template folder are indexed when they are first needed, and
+ * the index is kept up-to-date by listening for changes in that folder, so
+ * that queries do not need to list the folder.
+ */
 public final class DefaultLicenseStore implements LicenseStore<DefaultLicenseDef>, LicenseSource {
     private static final Logger LOGGER = Logger.getLogger(DefaultLicenseStore.class.getName());
 
     private static final String LICENSE_FILE_PREFIX = "license-";
     private static final String LICENSE_FILE_SUFFIX = ".txt";
 
+    private final Lock mainLock;
+    private final FileChangeListener licenseRootListener;
+    private final AtomicInteger rootChangeCount;
+    private volatile FileObject indexedRoot;
+    private volatile Map<String, LicenseRef> licenseIndex;
+
+    public DefaultLicenseStore() {
+        this.mainLock = new ReentrantLock();
+        this.rootChangeCount = new AtomicInteger(0);
+        this.indexedRoot = null;
+        this.licenseIndex = null;
+        this.licenseRootListener = new FileChangeAdapter() {
+            @Override
+            public void fileDataCreated(FileEvent fe) {
+                updateIndex(fe.getFile());
+            }
+
+            @Override
+            public void fileChanged(FileEvent fe) {
+                updateIndex(fe.getFile());
+            }
+
+            @Override
+            public void fileAttributeChanged(FileAttributeEvent fe) {
+                updateIndex(fe.getFile());
+            }
+
+            @Override
+            public void fileDeleted(FileEvent fe) {
+                removeFromIndex(fe.getFile());
+            }
+
+            @Override
+            public void fileRenamed(FileRenameEvent fe) {
+                FileObject file = fe.getFile();
+                String oldNameExt = fe.getExt().isEmpty()
+                        ? fe.getName()
+                        : fe.getName() + "." + fe.getExt();
+                removeFromIndex(file.getParent(), oldNameExt);
+                updateIndex(file);
+            }
+        };
+    }
+
     @Override
     public void addLicense(DefaultLicenseDef licenseDef) throws IOException {
         FileObject licenseRoot = getLicenseRoot();
@@ -51,27 +110,111 @@ public final class DefaultLicenseStore implements LicenseStore<DefaultLicenseDef
         templateFile.setAttribute("template", true);
         templateFile.setAttribute("displayName", licenseDef.getDisplayName());
         templateFile.setAttribute("dynamicLicense", true);
+
+        updateIndex(templateFile);
     }
 
     @Override
     public Collection<LicenseRef> getAllLicense() {
+        Map<String, LicenseRef> index = getLicenseIndex();
+        return index.isEmpty()
+                ? Collections.<LicenseRef>emptySet()
+                : new ArrayList<>(index.values());
+    }
+
+    private Map<String, LicenseRef> getLicenseIndex() {
+        Map<String, LicenseRef> result = licenseIndex;
+        if (result != null) {
+            return result;
+        }
+
         FileObject licenseRoot = tryGetLicenseRoot();
         if (licenseRoot == null) {
-            return Collections.emptySet();
+            return Collections.emptyMap();
         }
 
-        List<LicenseRef> result = new ArrayList<>();
+        mainLock.lock();
+        try {
+            result = licenseIndex;
+            while (result == null) {
+                int changeCount = rootChangeCount.get();
+                result = createIndex(licenseRoot);
+                if (changeCount != rootChangeCount.get()) {
+                    // The folder has changed while we were listing it.
+                    result = null;
+                }
+            }
+            licenseIndex = result;
+        } finally {
+            mainLock.unlock();
+        }
+        return result;
+    }
+
+    private Map<String, LicenseRef> createIndex(FileObject licenseRoot) {
+        if (indexedRoot != licenseRoot) {
+            if (indexedRoot != null) {
+                indexedRoot.removeFileChangeListener(licenseRootListener);
+            }
+            // Register the listener before listing the files, so that we
+            // cannot miss a change.
+            licenseRoot.addFileChangeListener(licenseRootListener);
+            indexedRoot = licenseRoot;
+        }
+
+        Map<String, LicenseRef> result = new ConcurrentHashMap<>();
         Enumeration<? extends FileObject> children = licenseRoot.getChildren(false);
         while (children.hasMoreElements()) {
             FileObject child = children.nextElement();
             LicenseRef licenseRef = tryGetLicenseRef(child);
             if (licenseRef != null) {
-                result.add(licenseRef);
+                result.put(child.getNameExt(), licenseRef);
             }
         }
         return result;
     }
 
+    private void updateIndex(FileObject file) {
+        rootChangeCount.incrementAndGet();
+
+        Map<String, LicenseRef> index = licenseIndex;
+        if (index == null) {
+            return;
+        }
+
+        if (file.getParent() != indexedRoot) {
+            return;
+        }
+
+        LicenseRef licenseRef = tryGetLicenseRef(file);
+        if (licenseRef != null) {
+            index.put(file.getNameExt(), licenseRef);
+        }
+        else {
+            index.remove(file.getNameExt());
+        }
+    }
+
+    private void removeFromIndex(FileObject file) {
+        rootChangeCount.incrementAndGet();
+
+        if (file == indexedRoot) {
+            // The template folder itself was deleted, so we will index it
+            // again when it is needed.
+            licenseIndex = null;
+            return;
+        }
+
+        removeFromIndex(file.getParent(), file.getNameExt());
+    }
+
+    private void removeFromIndex(FileObject parent, String nameExt) {
+        Map<String, LicenseRef> index = licenseIndex;
+        if (index != null && parent == indexedRoot) {
+            index.remove(nameExt);
+        }
+    }
+
     private LicenseRef tryGetLicenseRef(FileObject file) {
         if (file.isFolder()) {
             return null;
@@ -129,17 +272,14 @@ public final class DefaultLicenseStore implements LicenseStore<DefaultLicenseDef
             return;
         }
         licenseFile.delete();
+
+        removeFromIndex(licenseRoot, baseFileName);
     }
 
     @Override
     public boolean containsLicense(String licenseId) {
-        FileObject licenseRoot = tryGetLicenseRoot();
-        if (licenseRoot == null) {
-            return false;
-        }
-
         String fileName = toLicenseFileName(licenseId);
-        return licenseRoot.getFileObject(fileName) != null;
+        return getLicenseIndex().containsKey(fileName);
     }
 
     private static String tryExtractLicenseName(String fileName) {
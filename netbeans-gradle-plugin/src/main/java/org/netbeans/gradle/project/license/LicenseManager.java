@@ -1,6 +1,7 @@
 package org.netbeans.gradle.project.license;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.Map;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -8,6 +9,7 @@ import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim.cancel.Cancellation;
 import org.jtrim.cancel.CancellationToken;
+import org.jtrim.collections.CollectionsEx;
 import org.jtrim.concurrent.CancelableTask;
 import org.jtrim.concurrent.MonitorableTaskExecutor;
 import org.jtrim.concurrent.TaskExecutor;
@@ -70,6 +72,7 @@ public final class LicenseManager<T> {
         private final NbBiFunction<? super T, ? super LK, ? extends LD> licenseDefFactory;
 
         private final Map<LK, RegisteredLicense<LD>> licenseRegistartions;
+        private volatile Map<LK, String> registeredLicenseIds;
 
         public Impl(
                 TaskExecutor executor,
@@ -85,6 +88,7 @@ public final class LicenseManager<T> {
             this.licenseKeyFactory = licenseKeyFactory;
             this.licenseDefFactory = licenseDefFactory;
             this.licenseRegistartions = new HashMap<>();
+            this.registeredLicenseIds = Collections.emptyMap();
         }
 
         public String tryGetRegisteredLicenseName(T ownerModel, LicenseHeaderInfo headerInfo) {
@@ -92,17 +96,32 @@ public final class LicenseManager<T> {
             ExceptionHelper.checkNotNullArgument(headerInfo, "headerInfo");
 
             LK key = tryGetLicenseKey(ownerModel, headerInfo);
-            RegisteredLicense<LD> registration = key != null
-                    ? licenseRegistartions.get(key)
+            String registeredId = key != null
+                    ? registeredLicenseIds.get(key)
                     : null;
 
-            String licenseId = registration != null
-                    ? registration.getLicenseId()
+            String licenseId = registeredId != null
+                    ? registeredId
                     : headerInfo.getLicenseName();
 
             return licenseStore.containsLicense(licenseId) ? licenseId : null;
         }
 
+        /**
+         * Publishes the current registrations for {@link #tryGetRegisteredLicenseName}
+         * which might be called from any thread. The published map is never
+         * modified, only replaced.
+         */
+        private void publishRegistrations() {
+            assert syncExecutor.isExecutingInThis();
+
+            Map<LK, String> newIds = CollectionsEx.newHashMap(licenseRegistartions.size());
+            for (Map.Entry<LK, RegisteredLicense<LD>> entry: licenseRegistartions.entrySet()) {
+                newIds.put(entry.getKey(), entry.getValue().getLicenseId());
+            }
+            registeredLicenseIds = Collections.unmodifiableMap(newIds);
+        }
+
         private void removeLicense(RegisteredLicense<LD> registration) throws IOException {
             assert syncExecutor.isExecutingInThis();
 
@@ -127,6 +146,7 @@ public final class LicenseManager<T> {
 
                     if (registration.release()) {
                         licenseRegistartions.remove(key);
+                        publishRegistrations();
                         removeLicense(registration);
                     }
                 }
@@ -141,6 +161,7 @@ public final class LicenseManager<T> {
                     if (registration == null) {
                         registration = new RegisteredLicense<>(getLicenseDef(ownerModel, key));
                         licenseRegistartions.put(key, registration);
+                        publishRegistrations();
                         addLicense(registration);
                     }
                     else {
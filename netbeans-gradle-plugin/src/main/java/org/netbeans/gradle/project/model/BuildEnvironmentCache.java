@@ -0,0 +1,150 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.locks.ReentrantLock;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.properties.GradleLocationDef;
+
+/**
+ * Defines a cache of the {@link CachedBuildEnvironment build environments} of
+ * projects, so that the environment does not have to be requested from the
+ * Gradle daemon before each model load and task execution.
+ * <P>
+ * A cached environment is only returned if it was fetched with the same
+ * {@link Key key}, that is, with the same Gradle distribution, Gradle user
+ * home, Java home and wrapper properties file (with the same last modified
+ * time).
+ * <P>
+ * The cache retains at most a fixed number of project directories, evicting
+ * the least recently used one, so that environments of closed projects do not
+ * accumulate.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads concurrently.
+ */
+final class BuildEnvironmentCache {
+    private static final int DEFAULT_MAX_SIZE = 64;
+
+    private final ReentrantLock mainLock;
+    private final Map<File, Entry> entries;
+
+    public BuildEnvironmentCache() {
+        this(DEFAULT_MAX_SIZE);
+    }
+
+    public BuildEnvironmentCache(final int maxSize) {
+        ExceptionHelper.checkArgumentInRange(maxSize, 1, Integer.MAX_VALUE, "maxSize");
+
+        this.mainLock = new ReentrantLock();
+        this.entries = new LinkedHashMap<File, Entry>(16, 0.75f, true) {
+            private static final long serialVersionUID = 1L;
+
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<File, Entry> eldest) {
+                return size() > maxSize;
+            }
+        };
+    }
+
+    public CachedBuildEnvironment tryGet(File projectDir, Key key) {
+        ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        Entry entry;
+        mainLock.lock();
+        try {
+            entry = entries.get(projectDir);
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (entry == null || !entry.key.equals(key)) {
+            return null;
+        }
+        return entry.environment;
+    }
+
+    public void put(File projectDir, Key key, CachedBuildEnvironment environment) {
+        ExceptionHelper.checkNotNullArgument(projectDir, "projectDir");
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(environment, "environment");
+
+        Entry entry = new Entry(key, environment);
+        mainLock.lock();
+        try {
+            entries.put(projectDir, entry);
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private static final class Entry {
+        public final Key key;
+        public final CachedBuildEnvironment environment;
+
+        public Entry(Key key, CachedBuildEnvironment environment) {
+            this.key = key;
+            this.environment = environment;
+        }
+    }
+
+    public static final class Key {
+        private final GradleLocationDef gradleLocation;
+        private final File gradleUserHome;
+        private final File javaHome;
+        private final FileTime wrapperPropertiesTime;
+
+        public Key(
+                GradleLocationDef gradleLocation,
+                File gradleUserHome,
+                File javaHome,
+                Path wrapperPropertiesFile) {
+            ExceptionHelper.checkNotNullArgument(gradleLocation, "gradleLocation");
+            ExceptionHelper.checkNotNullArgument(wrapperPropertiesFile, "wrapperPropertiesFile");
+
+            this.gradleLocation = gradleLocation;
+            this.gradleUserHome = gradleUserHome;
+            this.javaHome = javaHome;
+            this.wrapperPropertiesTime = tryGetLastModifiedTime(wrapperPropertiesFile);
+        }
+
+        private static FileTime tryGetLastModifiedTime(Path file) {
+            try {
+                return Files.getLastModifiedTime(file);
+            } catch (IOException ex) {
+                // Most likely there is no wrapper.
+                return null;
+            }
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 5;
+            hash = 59 * hash + Objects.hashCode(this.gradleLocation);
+            hash = 59 * hash + Objects.hashCode(this.gradleUserHome);
+            hash = 59 * hash + Objects.hashCode(this.javaHome);
+            hash = 59 * hash + Objects.hashCode(this.wrapperPropertiesTime);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (obj == null) return false;
+            if (obj == this) return true;
+            if (getClass() != obj.getClass()) return false;
+
+            final Key other = (Key)obj;
+
+            return Objects.equals(this.gradleLocation, other.gradleLocation)
+                    && Objects.equals(this.gradleUserHome, other.gradleUserHome)
+                    && Objects.equals(this.javaHome, other.javaHome)
+                    && Objects.equals(this.wrapperPropertiesTime, other.wrapperPropertiesTime);
+        }
+    }
+}
@@ -0,0 +1,36 @@
+package org.netbeans.gradle.project.model;
+
+import org.gradle.tooling.model.build.BuildEnvironment;
+import org.gradle.util.GradleVersion;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a {@link BuildEnvironment} along with the Gradle version parsed from
+ * it.
+ * <P>
+ * Instances of this class are immutable and safe to be shared across threads.
+ */
+public final class CachedBuildEnvironment {
+    private final BuildEnvironment buildEnvironment;
+    private final GradleVersion gradleVersion;
+
+    public CachedBuildEnvironment(BuildEnvironment buildEnvironment) {
+        ExceptionHelper.checkNotNullArgument(buildEnvironment, "buildEnvironment");
+
+        this.buildEnvironment = buildEnvironment;
+        this.gradleVersion = GradleVersion.version(buildEnvironment.getGradle().getGradleVersion());
+    }
+
+    /**
+     * Returns the build environment as returned by the Tooling API. Note that
+     * the JVM arguments of the returned environment are the ones of the
+     * operation which fetched the environment.
+     */
+    public BuildEnvironment getBuildEnvironment() {
+        return buildEnvironment;
+    }
+
+    public GradleVersion getGradleVersion() {
+        return gradleVersion;
+    }
+}
@@ -86,6 +86,8 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
     private static final AtomicReference<GradleModelCache> DEFAULT_CACHE_REF
             = new AtomicReference<>(null);
 
+    private static final BuildEnvironmentCache BUILD_ENVIRONMENT_CACHE = new BuildEnvironmentCache();
+
     private final NbGradleProject project;
     private final TaskExecutor projectLoader;
     private final MonitorableTaskExecutorService modelLoadNotifier;
@@ -147,13 +149,16 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         return cacheRef.get();
     }
 
-    private static boolean hasWrapper(NbGradleProject project) {
+    private static Path getWrapperPropertiesFile(NbGradleProject project) {
         Path rootDir = getProjectLoadKey(project).getAppliedRootProjectDir();
-        Path wrapperPropertiesFile = rootDir
+        return rootDir
                 .resolve("gradle")
                 .resolve("wrapper")
                 .resolve("gradle-wrapper.properties");
-        return Files.isRegularFile(wrapperPropertiesFile);
+    }
+
+    private static boolean hasWrapper(NbGradleProject project) {
+        return Files.isRegularFile(getWrapperPropertiesFile(project));
     }
 
     private static boolean shouldRelyOnWrapper(NbGradleProject project, GradleLocationDef locationDef) {
@@ -214,6 +219,40 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         return result;
     }
 
+    /**
+     * Returns the build environment of the given project. The environment is
+     * only requested through the given connection if it was not requested
+     * before with the same Gradle distribution and Java home, or the wrapper
+     * properties file has changed since then.
+     */
+    public static CachedBuildEnvironment getBuildEnvironment(
+            Project project,
+            ProjectConnection projectConnection,
+            DefaultModelBuilderSetup setup) {
+        ExceptionHelper.checkNotNullArgument(project, "project");
+        ExceptionHelper.checkNotNullArgument(projectConnection, "projectConnection");
+        ExceptionHelper.checkNotNullArgument(setup, "setup");
+
+        NbGradleProject gradleProject = NbGradleProjectFactory.getGradleProject(project);
+        File projectDir = gradleProject.getProjectDirectoryAsFile();
+
+        BuildEnvironmentCache.Key key = new BuildEnvironmentCache.Key(
+                gradleProject.getCommonProperties().gradleLocation().getActiveValue(),
+                CommonGlobalSettings.getDefault().gradleUserHomeDir().getActiveValue(),
+                setup.getJdkHome(),
+                getWrapperPropertiesFile(gradleProject));
+
+        CachedBuildEnvironment result = BUILD_ENVIRONMENT_CACHE.tryGet(projectDir, key);
+        if (result == null) {
+            ModelBuilder<BuildEnvironment> modelBuilder = projectConnection.model(BuildEnvironment.class);
+            setupLongRunningOP(setup, modelBuilder);
+
+            result = new CachedBuildEnvironment(modelBuilder.get());
+            BUILD_ENVIRONMENT_CACHE.put(projectDir, key, result);
+        }
+        return result;
+    }
+
     private static ProjectLoadRequest getProjectLoadKey(NbGradleProject project) {
         SettingsGradleDef settingsFile = project.getPreferredSettingsGradleDef();
         return new ProjectLoadRequest(project, settingsFile);
@@ -572,15 +611,12 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
             DefaultModelBuilderSetup setup = modelBuilderSetup(projectLoadKey, progress);
 
-            ModelBuilder<BuildEnvironment> modelBuilder = projectConnection.model(BuildEnvironment.class);
-            setupLongRunningOP(setup, modelBuilder);
-
-            BuildEnvironment env = modelBuilder.get();
+            CachedBuildEnvironment env = getBuildEnvironment(project, projectConnection, setup);
             reportKnownIssues(env);
 
             GradleTarget gradleTarget = new GradleTarget(
                     setup.getJDKVersion(),
-                    GradleVersion.version(env.getGradle().getGradleVersion()));
+                    env.getGradleVersion());
             NbModelLoader modelLoader = chooseModel(projectLoadKey.settingsGradleDef, gradleTarget, cachedEntry, setup);
 
             loadedModels = modelLoader.loadModels(project, projectConnection, progress);
@@ -601,16 +637,16 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
         return result;
     }
 
-    private static void reportKnownIssues(BuildEnvironment env) {
-        GradleVersion version = GradleVersion.version(env.getGradle().getGradleVersion());
+    private static void reportKnownIssues(CachedBuildEnvironment env) {
+        GradleVersion version = env.getGradleVersion();
         if (GradleVersions.VERSION_1_7.compareTo(version) < 0
                 && GradleVersions.VERSION_1_8.compareTo(version) >= 0) {
 
-            String gradleVersion = env.getGradle().getGradleVersion();
+            String gradleVersion = env.getBuildEnvironment().getGradle().getGradleVersion();
             GlobalErrorReporter.showIssue(NbStrings.getIssueWithGradle18Message(gradleVersion));
         }
         else if (GradleVersions.VERSION_2_3.equals(version.getBaseVersion())) {
-            String gradleVersion = env.getGradle().getGradleVersion();
+            String gradleVersion = env.getBuildEnvironment().getGradle().getGradleVersion();
             GlobalErrorReporter.showIssue(NbStrings.getIssueWithGradle23Message(gradleVersion));
         }
     }
@@ -623,9 +659,15 @@ public final class DefaultGradleModelLoader implements ModelLoader<NbGradleModel
 
         GradleVersion version = gradleTarget.getGradleVersion();
 
-        ModelLoadingStrategy modelLoadingStrategy = CommonGlobalSettings.getDefault().modelLoadingStrategy().getActiveValue();
+        CommonGlobalSettings globalSettings = CommonGlobalSettings.getDefault();
+        ModelLoadingStrategy modelLoadingStrategy = globalSettings.modelLoadingStrategy().getActiveValue();
         NbModelLoader result = modelLoadingStrategy.canUse18Api(version)
-                ? new NbGradle18ModelLoader(settingsGradleDef, setup, gradleTarget)
+                ? new NbGradle18ModelLoader(
+                        settingsGradleDef,
+                        setup,
+                        gradleTarget,
+                        modelLoadingStrategy.isOpenedProjectsOnly(),
+                        globalSettings.parallelModelBuilders().getActiveValue())
                 : new NbCompatibleModelLoader(settingsGradleDef, cachedModel, setup, gradleTarget);
 
         LOGGER.log(Level.INFO, "Using model loader: {0}", result.getClass().getSimpleName());
@@ -44,6 +44,14 @@ public final class DefaultModelBuilderSetup implements OperationInitializer {
         return jdkPlatform;
     }
 
+    /**
+     * Returns the Java home the Gradle operations are executed with or
+     * {@code null} if the default is used.
+     */
+    public File getJdkHome() {
+        return jdkHome;
+    }
+
     public SpecificationVersion getJDKVersion() {
         Specification spec = jdkPlatform.getSpecification();
         if (spec == null) {
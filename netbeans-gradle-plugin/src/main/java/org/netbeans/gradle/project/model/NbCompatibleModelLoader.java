@@ -4,10 +4,11 @@ import java.io.File;
 import java.io.IOException;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.Comparator;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Set;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.gradle.tooling.ModelBuilder;
@@ -158,59 +159,19 @@ public final class NbCompatibleModelLoader implements NbModelLoader {
         return result;
     }
 
-    private static NbGradleProjectTree tryCreateProjectTreeFromIdea(IdeaModule module, ScriptFileProvider scriptProvider) {
-        File moduleDir = IdeaJavaModelUtils.tryGetModuleDir(module);
-        if (moduleDir == null) {
-            return null;
-        }
-
-        int expectedChildCount = module.getGradleProject().getChildren().size();
-        List<NbGradleProjectTree> children = new ArrayList<>(expectedChildCount);
-        for (IdeaModule child: getChildModules(module)) {
-            NbGradleProjectTree childInfo = tryCreateProjectTreeFromIdea(child, scriptProvider);
-            if (childInfo != null) {
-                children.add(childInfo);
-            }
-        }
-
-        GradleProject gradleProject = module.getGradleProject();
-        String projectName = gradleProject.getName();
-        String projectFullName = gradleProject.getPath();
-        GenericProjectProperties properties = NbGenericModelInfo
-                .createProjectProperties(projectName, projectFullName, moduleDir.toPath(), scriptProvider);
-
-        return new NbGradleProjectTree(properties, getTasksOfModule(module), children);
-    }
-
-    private static List<IdeaModule> getChildModules(IdeaModule module) {
-        Collection<? extends GradleProject> children = module.getGradleProject().getChildren();
-        Set<String> childrenPaths = CollectionUtils.newHashSet(children.size());
-        for (GradleProject child: children) {
-            childrenPaths.add(child.getPath());
-        }
-
-        List<IdeaModule> result = new ArrayList<>();
-        for (IdeaModule candidateChild: module.getProject().getModules()) {
-            if (childrenPaths.contains(candidateChild.getGradleProject().getPath())) {
-                result.add(candidateChild);
-            }
-        }
-        return result;
-    }
-
     private static NbGradleModel loadMainModelFromIdeaModule(
             NbGradleProjectTree rootProject,
             IdeaModule ideaModule,
-            ScriptFileProvider scriptProvider) throws IOException {
+            IdeaProjectTrees projectTrees) throws IOException {
         ExceptionHelper.checkNotNullArgument(rootProject, "rootProject");
         ExceptionHelper.checkNotNullArgument(ideaModule, "ideaModule");
 
-        NbGradleProjectTree projectTree = tryCreateProjectTreeFromIdea(ideaModule, scriptProvider);
+        NbGradleProjectTree projectTree = projectTrees.tryGetTree(ideaModule);
         if (projectTree == null) {
             throw new IOException("Failed to create project tree for project: " + ideaModule.getName());
         }
 
-        return new NbGradleModel(new NbGradleMultiProjectDef(rootProject, projectTree), scriptProvider);
+        return new NbGradleModel(new NbGradleMultiProjectDef(rootProject, projectTree), projectTrees.scriptProvider);
     }
 
     private NbGradleModel.Builder loadMainModel(
@@ -248,20 +209,21 @@ public final class NbCompatibleModelLoader implements NbModelLoader {
         ExceptionHelper.checkNotNullArgument(ideaProject, "ideaProject");
         ExceptionHelper.checkNotNullArgument(otherModels, "otherModels");
 
+        ScriptFileProvider scriptProvider = project.getScriptFileProvider();
+        IdeaProjectTrees projectTrees = new IdeaProjectTrees(ideaProject, scriptProvider);
+
         File projectDir = project.getProjectDirectoryAsFile();
-        IdeaModule mainModule = IdeaJavaModelUtils.tryFindMainModule(projectDir, ideaProject);
+        IdeaModule mainModule = projectTrees.tryGetModuleByDir(projectDir);
         if (mainModule == null) {
             throw new IOException("Failed to find idea module for project: " + project.getDisplayName());
         }
 
-        IdeaModule rootModule = tryFindRootModule(ideaProject);
+        IdeaModule rootModule = projectTrees.tryGetRootModule();
         if (rootModule == null) {
             throw new IOException("Failed to find root module for project: " + project.getDisplayName());
         }
 
-        ScriptFileProvider scriptProvider = project.getScriptFileProvider();
-
-        NbGradleProjectTree rootTree = tryCreateProjectTreeFromIdea(rootModule, scriptProvider);
+        NbGradleProjectTree rootTree = projectTrees.tryGetTree(rootModule);
         if (rootTree == null) {
             throw new IOException("Failed to find root tree for project: " + rootModule.getName());
         }
@@ -278,19 +240,12 @@ public final class NbCompatibleModelLoader implements NbModelLoader {
                     otherModels.add(toBuilder(new NbGradleMultiProjectDef(rootTree, rootTree), scriptProvider));
                 }
                 else {
-                    otherModels.add(toBuilder(loadMainModelFromIdeaModule(rootTree, otherModule, scriptProvider)));
+                    otherModels.add(toBuilder(loadMainModelFromIdeaModule(rootTree, otherModule, projectTrees)));
                 }
             }
         }
 
-        NbGradleProjectTree mainTree;
-        if (rootPath.equals(mainModule.getGradleProject().getPath())) {
-            mainTree = rootTree;
-        }
-        else {
-            mainTree = tryCreateProjectTreeFromIdea(mainModule, scriptProvider);
-        }
-
+        NbGradleProjectTree mainTree = projectTrees.tryGetTree(mainModule);
         if (mainTree == null) {
             throw new IOException("Failed to find tree for project: " + mainModule.getName());
         }
@@ -298,23 +253,6 @@ public final class NbCompatibleModelLoader implements NbModelLoader {
         return toBuilder(new NbGradleMultiProjectDef(rootTree, mainTree), scriptProvider);
     }
 
-    private static IdeaModule tryFindRootModule(IdeaProject ideaModel) {
-        DomainObjectSet<? extends IdeaModule> modules = ideaModel.getModules();
-        if (modules.isEmpty()) {
-            return null;
-        }
-
-        GradleProject rootProject = getRoot(modules.iterator().next().getGradleProject());
-        String rootName = rootProject.getPath();
-
-        for (IdeaModule module: ideaModel.getModules()) {
-            if (rootName.equals(module.getGradleProject().getPath())) {
-                return module;
-            }
-        }
-        return null;
-    }
-
     private static GradleProject getRoot(GradleProject project) {
         GradleProject prev = null;
         GradleProject current = project;
@@ -324,4 +262,116 @@ public final class NbCompatibleModelLoader implements NbModelLoader {
         } while (current != null);
         return prev;
     }
+
+    /**
+     * Indexes the modules of an {@code IdeaProject} and creates the project
+     * trees of the modules. Each tree is only created once and is shared
+     * with the tree of the parent module, so creating the trees of every
+     * module takes linear time in the number of modules.
+     */
+    private static final class IdeaProjectTrees {
+        private final IdeaProject ideaProject;
+        private final ScriptFileProvider scriptProvider;
+
+        private final Map<String, IdeaModule> modulesByPath;
+        private final Map<String, Integer> moduleIndexes;
+        private final Map<File, IdeaModule> modulesByDir;
+        private final Map<String, NbGradleProjectTree> trees;
+
+        public IdeaProjectTrees(IdeaProject ideaProject, ScriptFileProvider scriptProvider) {
+            this.ideaProject = ideaProject;
+            this.scriptProvider = scriptProvider;
+
+            DomainObjectSet<? extends IdeaModule> modules = ideaProject.getModules();
+            this.modulesByPath = CollectionUtils.newHashMap(modules.size());
+            this.moduleIndexes = CollectionUtils.newHashMap(modules.size());
+            this.modulesByDir = CollectionUtils.newHashMap(modules.size());
+            this.trees = CollectionUtils.newHashMap(modules.size());
+
+            int index = 0;
+            for (IdeaModule module: modules) {
+                String path = module.getGradleProject().getPath();
+                modulesByPath.put(path, module);
+                moduleIndexes.put(path, index);
+                index++;
+
+                File moduleDir = IdeaJavaModelUtils.tryGetModuleDir(module);
+                if (moduleDir != null && !modulesByDir.containsKey(moduleDir)) {
+                    modulesByDir.put(moduleDir, module);
+                }
+            }
+        }
+
+        public IdeaModule tryGetModuleByDir(File moduleDir) {
+            return modulesByDir.get(moduleDir);
+        }
+
+        public IdeaModule tryGetRootModule() {
+            DomainObjectSet<? extends IdeaModule> modules = ideaProject.getModules();
+            if (modules.isEmpty()) {
+                return null;
+            }
+
+            GradleProject rootProject = getRoot(modules.iterator().next().getGradleProject());
+            return modulesByPath.get(rootProject.getPath());
+        }
+
+        private List<IdeaModule> getChildModules(IdeaModule module) {
+            Collection<? extends GradleProject> children = module.getGradleProject().getChildren();
+
+            List<IdeaModule> result = new ArrayList<>(children.size());
+            for (GradleProject child: children) {
+                IdeaModule childModule = modulesByPath.get(child.getPath());
+                if (childModule != null) {
+                    result.add(childModule);
+                }
+            }
+
+            // Keep the order in which the modules are listed by the IdeaProject.
+            Collections.sort(result, new Comparator<IdeaModule>() {
+                @Override
+                public int compare(IdeaModule o1, IdeaModule o2) {
+                    int index1 = moduleIndexes.get(o1.getGradleProject().getPath());
+                    int index2 = moduleIndexes.get(o2.getGradleProject().getPath());
+                    return Integer.compare(index1, index2);
+                }
+            });
+            return result;
+        }
+
+        public NbGradleProjectTree tryGetTree(IdeaModule module) {
+            String path = module.getGradleProject().getPath();
+            if (trees.containsKey(path)) {
+                return trees.get(path);
+            }
+
+            NbGradleProjectTree result = tryCreateTree(module);
+            trees.put(path, result);
+            return result;
+        }
+
+        private NbGradleProjectTree tryCreateTree(IdeaModule module) {
+            File moduleDir = IdeaJavaModelUtils.tryGetModuleDir(module);
+            if (moduleDir == null) {
+                return null;
+            }
+
+            List<IdeaModule> childModules = getChildModules(module);
+            List<NbGradleProjectTree> children = new ArrayList<>(childModules.size());
+            for (IdeaModule child: childModules) {
+                NbGradleProjectTree childInfo = tryGetTree(child);
+                if (childInfo != null) {
+                    children.add(childInfo);
+                }
+            }
+
+            GradleProject gradleProject = module.getGradleProject();
+            String projectName = gradleProject.getName();
+            String projectFullName = gradleProject.getPath();
+            GenericProjectProperties properties = NbGenericModelInfo
+                    .createProjectProperties(projectName, projectFullName, moduleDir.toPath(), scriptProvider);
+
+            return new NbGradleProjectTree(properties, getTasksOfModule(module), children);
+        }
+    }
 }
@@ -118,18 +118,7 @@ public final class NbGenericModelInfo implements Serializable {
     }
 
     public static Path findSettingsGradle(Path projectDir, ScriptFileProvider scriptProvider) {
-        Path settingsGradle = scriptProvider.findScriptFile(projectDir, CommonScripts.SETTINGS_BASE_NAME);
-        if (settingsGradle != null) {
-            return settingsGradle;
-        }
-
-        Path parentDir = projectDir.getParent();
-        if (parentDir != null) {
-            return findSettingsGradle(parentDir, scriptProvider);
-        }
-        else {
-            return null;
-        }
+        return scriptProvider.findScriptFileInDirOrParents(projectDir, CommonScripts.SETTINGS_BASE_NAME);
     }
 
     public static FileObject findSettingsGradle(FileObject projectDir, ScriptFileProvider scriptProvider) {
@@ -12,6 +12,8 @@ import java.util.Map;
 import org.gradle.tooling.ProjectConnection;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
+import org.netbeans.api.project.Project;
+import org.netbeans.api.project.ui.OpenProjects;
 import org.netbeans.gradle.model.BuilderIssue;
 import org.netbeans.gradle.model.BuilderResult;
 import org.netbeans.gradle.model.FetchedModels;
@@ -41,8 +43,27 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
     private final SettingsGradleDef settingsGradleDef;
     private final GradleTarget gradleTarget;
     private final OperationInitializer setup;
+    private final boolean openedProjectsOnly;
+    private final boolean parallelBuilders;
 
     public NbGradle18ModelLoader(SettingsGradleDef settingsGradleDef, OperationInitializer setup, GradleTarget gradleTarget) {
+        this(settingsGradleDef, setup, gradleTarget, false, false);
+    }
+
+    /**
+     * @param openedProjectsOnly if {@code true}, only the models of the opened
+     *   projects and their project dependencies are fetched. Other projects of
+     *   the build only appear in the project tree and their models are loaded
+     *   when they are opened.
+     * @param parallelBuilders if {@code true}, the thread-safe model builders
+     *   of a project might be evaluated concurrently in the Gradle daemon
+     */
+    public NbGradle18ModelLoader(
+            SettingsGradleDef settingsGradleDef,
+            OperationInitializer setup,
+            GradleTarget gradleTarget,
+            boolean openedProjectsOnly,
+            boolean parallelBuilders) {
         ExceptionHelper.checkNotNullArgument(settingsGradleDef, "settingsGradleDef");
         ExceptionHelper.checkNotNullArgument(setup, "setup");
         ExceptionHelper.checkNotNullArgument(gradleTarget, "gradleTarget");
@@ -50,6 +71,8 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
         this.settingsGradleDef = settingsGradleDef;
         this.gradleTarget = gradleTarget;
         this.setup = setup;
+        this.openedProjectsOnly = openedProjectsOnly;
+        this.parallelBuilders = parallelBuilders;
     }
 
     private static <E> void addAllNullSafe(Collection<? super E> collection, Collection<? extends E> toAdd) {
@@ -64,7 +87,15 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
             ProjectConnection connection,
             ProgressHandle progress) throws IOException, GradleModelLoadError {
 
-        ProjectModelFetcher modelFetcher = new ProjectModelFetcher(project, gradleTarget);
+        Collection<File> requestedProjectDirs = openedProjectsOnly
+                ? getOpenedProjectDirs(project)
+                : null;
+
+        ProjectModelFetcher modelFetcher = new ProjectModelFetcher(
+                project,
+                gradleTarget,
+                requestedProjectDirs,
+                parallelBuilders);
         FetchedModelsOrError fetchedModelsOrError = modelFetcher.getModels(connection, setup);
         FetchedModels fetchedModels = fetchedModelsOrError.getModels();
         if (fetchedModels == null) {
@@ -80,6 +111,20 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
         return parser.parseModel(fetchedModels);
     }
 
+    private static Collection<File> getOpenedProjectDirs(NbGradleProject project) {
+        Project[] openedProjects = OpenProjects.getDefault().getOpenProjects();
+
+        Collection<File> result = new ArrayList<>(openedProjects.length + 1);
+        result.add(project.getProjectDirectoryAsFile());
+        for (Project openedProject: openedProjects) {
+            NbGradleProject gradleProject = openedProject.getLookup().lookup(NbGradleProject.class);
+            if (gradleProject != null) {
+                result.add(gradleProject.getProjectDirectoryAsFile());
+            }
+        }
+        return result;
+    }
+
     private static File getProjectDirFromModels(FetchedProjectModels projectModels) {
         return projectModels
                 .getProjectDef()
@@ -343,7 +388,11 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
         private final Map<String, List<Class<?>>> toolingModelNeeds;
         private final GenericModelFetcher modelFetcher;
 
-        public ProjectModelFetcher(NbGradleProject project, GradleTarget gradleTarget) {
+        public ProjectModelFetcher(
+                NbGradleProject project,
+                GradleTarget gradleTarget,
+                Collection<File> requestedProjectDirs,
+                boolean parallelBuilders) {
             this.settingsFile = NbGenericModelInfo.findSettingsGradle(
                     project.getProjectDirectoryAsPath(),
                     project.getScriptFileProvider());
@@ -368,7 +417,12 @@ public final class NbGradle18ModelLoader implements NbModelLoader {
                 MultiMapUtils.addAllToMultiMap(extensionName, modelDef.getToolingModels(), toolingModelNeeds);
             }
 
-            modelFetcher = new GenericModelFetcher(buildInfoRequests, projectInfoRequests, models);
+            modelFetcher = new GenericModelFetcher(
+                    buildInfoRequests,
+                    projectInfoRequests,
+                    models,
+                    requestedProjectDirs,
+                    parallelBuilders);
         }
 
         public FetchedModelsOrError getModels(ProjectConnection connection, OperationInitializer init) throws IOException {
@@ -32,6 +32,7 @@ public final class NbGradleProjectTree implements Serializable {
 
     private final AtomicReference<Map<String, NbGradleProjectTree>> childrenMap;
     private final AtomicInteger numberOfSubprojectsRef;
+    private final AtomicInteger structureHashRef;
 
     public NbGradleProjectTree(
             GenericProjectProperties genericProperties,
@@ -46,6 +47,7 @@ public final class NbGradleProjectTree implements Serializable {
         this.childrenMap = new AtomicReference<>(null);
         this.parentRef = new AtomicReference<>(null);
         this.numberOfSubprojectsRef = new AtomicInteger(-1);
+        this.structureHashRef = new AtomicInteger(-1);
     }
 
     public NbGradleProjectTree(GradleProjectTree tree) {
@@ -58,6 +60,7 @@ public final class NbGradleProjectTree implements Serializable {
         this.childrenMap = new AtomicReference<>(null);
         this.parentRef = new AtomicReference<>(null);
         this.numberOfSubprojectsRef = new AtomicInteger(-1);
+        this.structureHashRef = new AtomicInteger(-1);
     }
 
     public int getNumberOfSubprojects() {
@@ -78,6 +81,37 @@ public final class NbGradleProjectTree implements Serializable {
         return result;
     }
 
+    /**
+     * Returns a hash code of the project names and directories of this tree
+     * (recursively). That is, if two trees have different structure hash,
+     * then they have different subprojects. The hash does not depend on the
+     * order of the children.
+     *
+     * @return the hash code of the structure of this project tree. The
+     *   returned value is never negative.
+     */
+    public int getStructureHash() {
+        int result = structureHashRef.get();
+        if (result < 0) {
+            result = calculateStructureHash();
+            structureHashRef.set(result);
+        }
+        return result;
+    }
+
+    private int calculateStructureHash() {
+        int childrenHash = 0;
+        for (NbGradleProjectTree child: children) {
+            childrenHash += child.getStructureHash();
+        }
+
+        int hash = 7;
+        hash = 83 * hash + getProjectName().hashCode();
+        hash = 83 * hash + getProjectDir().hashCode();
+        hash = 83 * hash + childrenHash;
+        return hash & 0x7FFFFFFF;
+    }
+
     public NbGradleProjectTree getParent(NbGradleProjectTree root) {
         if (root == this) {
             return null;
@@ -160,6 +194,18 @@ public final class NbGradleProjectTree implements Serializable {
         return Collections.unmodifiableMap(result);
     }
 
+    /**
+     * Returns the immediate child project with the given name.
+     *
+     * @param projectName the name of the requested child project (without
+     *   the path of this project). This argument cannot be {@code null}.
+     * @return the immediate child project with the given name or {@code null}
+     *   if there is no such child
+     */
+    public NbGradleProjectTree tryGetChild(String projectName) {
+        return getChildrenMap().get(projectName);
+    }
+
     private Map<String, NbGradleProjectTree> getChildrenMap() {
         Map<String, NbGradleProjectTree> result = childrenMap.get();
         if (result == null) {
@@ -0,0 +1,144 @@
+package org.netbeans.gradle.project.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Objects;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines the difference between two versions of the same project tree.
+ * Subtrees with the same {@link NbGradleProjectTree#getStructureHash() structure hash}
+ * are assumed to be the same, so computing the difference only needs to visit
+ * the changed parts of the trees.
+ */
+public final class NbGradleProjectTreeDiff {
+    private final List<NbGradleProjectTree> addedProjects;
+    private final List<NbGradleProjectTree> removedProjects;
+    private final List<NbGradleProjectTree> changedParents;
+
+    private NbGradleProjectTreeDiff(
+            List<NbGradleProjectTree> addedProjects,
+            List<NbGradleProjectTree> removedProjects,
+            List<NbGradleProjectTree> changedParents) {
+        this.addedProjects = Collections.unmodifiableList(addedProjects);
+        this.removedProjects = Collections.unmodifiableList(removedProjects);
+        this.changedParents = Collections.unmodifiableList(changedParents);
+    }
+
+    /**
+     * Computes the difference between the given trees. The roots of the trees
+     * are expected to represent the same project.
+     *
+     * @param prevTree the previous version of the project tree. This argument
+     *   cannot be {@code null}.
+     * @param newTree the new version of the project tree. This argument
+     *   cannot be {@code null}.
+     * @return the difference between the given trees. This method never
+     *   returns {@code null}.
+     */
+    public static NbGradleProjectTreeDiff compute(NbGradleProjectTree prevTree, NbGradleProjectTree newTree) {
+        ExceptionHelper.checkNotNullArgument(prevTree, "prevTree");
+        ExceptionHelper.checkNotNullArgument(newTree, "newTree");
+
+        List<NbGradleProjectTree> added = new ArrayList<>();
+        List<NbGradleProjectTree> removed = new ArrayList<>();
+        List<NbGradleProjectTree> changed = new ArrayList<>();
+
+        if (prevTree != newTree) {
+            addDifferences(prevTree, newTree, added, removed, changed);
+        }
+
+        return new NbGradleProjectTreeDiff(added, removed, changed);
+    }
+
+    private static void addDifferences(
+            NbGradleProjectTree prevTree,
+            NbGradleProjectTree newTree,
+            List<NbGradleProjectTree> added,
+            List<NbGradleProjectTree> removed,
+            List<NbGradleProjectTree> changed) {
+
+        if (prevTree.getStructureHash() == newTree.getStructureHash()
+                && equalsShallow(prevTree, newTree)) {
+            // The hash might collide but we accept that.
+            return;
+        }
+
+        boolean childrenChanged = false;
+
+        Collection<NbGradleProjectTree> newChildren = newTree.getChildren();
+        for (NbGradleProjectTree prevChild: prevTree.getChildren()) {
+            NbGradleProjectTree newChild = newTree.tryGetChild(prevChild.getProjectName());
+            if (newChild == null) {
+                removed.add(prevChild);
+                childrenChanged = true;
+            }
+            else {
+                if (!equalsNode(prevChild, newChild)) {
+                    childrenChanged = true;
+                }
+                addDifferences(prevChild, newChild, added, removed, changed);
+            }
+        }
+
+        for (NbGradleProjectTree newChild: newChildren) {
+            if (prevTree.tryGetChild(newChild.getProjectName()) == null) {
+                added.add(newChild);
+                childrenChanged = true;
+            }
+        }
+
+        if (childrenChanged) {
+            changed.add(newTree);
+        }
+    }
+
+    private static boolean equalsNode(NbGradleProjectTree tree1, NbGradleProjectTree tree2) {
+        return Objects.equals(tree1.getProjectName(), tree2.getProjectName())
+                && Objects.equals(tree1.getProjectDir(), tree2.getProjectDir())
+                && tree1.getChildren().isEmpty() == tree2.getChildren().isEmpty();
+    }
+
+    private static boolean equalsShallow(NbGradleProjectTree tree1, NbGradleProjectTree tree2) {
+        return equalsNode(tree1, tree2)
+                && tree1.getChildren().size() == tree2.getChildren().size();
+    }
+
+    public boolean isEmpty() {
+        return addedProjects.isEmpty() && removedProjects.isEmpty() && changedParents.isEmpty();
+    }
+
+    /**
+     * Returns the roots of the subtrees added to the new tree.
+     *
+     * @return the roots of the subtrees added to the new tree. This method
+     *   never returns {@code null}.
+     */
+    public List<NbGradleProjectTree> getAddedProjects() {
+        return addedProjects;
+    }
+
+    /**
+     * Returns the roots of the subtrees removed from the previous tree.
+     *
+     * @return the roots of the subtrees removed from the previous tree. This
+     *   method never returns {@code null}.
+     */
+    public List<NbGradleProjectTree> getRemovedProjects() {
+        return removedProjects;
+    }
+
+    /**
+     * Returns the projects of the new tree whose immediate children were
+     * added, removed, moved to another directory, or got their first child
+     * or lost all of their children.
+     *
+     * @return the projects of the new tree whose immediate children have
+     *   changed. This method never returns {@code null}.
+     */
+    public List<NbGradleProjectTree> getChangedParents() {
+        return changedParents;
+    }
+}
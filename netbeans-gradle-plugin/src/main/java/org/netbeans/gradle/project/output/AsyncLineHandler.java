@@ -0,0 +1,260 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationToken;
+import org.jtrim.concurrent.CancelableTask;
+import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
+
+/**
+ * Defines a {@link LineOutputWriter.Handler} which forwards lines to another
+ * handler on a background thread, so that the thread writing the output (i.e.,
+ * the thread of Gradle forwarding the output of the build) does not have to
+ * wait for the lines to be processed.
+ * <P>
+ * Lines are stored in a bounded ring buffer and are passed to the underlying
+ * handler in batches, in the order they were written. If the buffer is full,
+ * the writer has to wait until there is room for the new line. Every line is
+ * passed to the same handler regardless of the backlog, so links are detected
+ * even if the build prints a lot.
+ */
+public final class AsyncLineHandler implements LineOutputWriter.Handler, Closeable {
+    public static interface BatchHandler {
+        /**
+         * Processes the given lines in order. The list must not be modified or
+         * retained after this method returns.
+         */
+        public void writeLines(List<String> lines) throws IOException;
+        public void flush() throws IOException;
+    }
+
+    private static final Logger LOGGER = Logger.getLogger(AsyncLineHandler.class.getName());
+
+    private static final TaskExecutor OUTPUT_EXECUTOR
+            = NbTaskExecutors.newExecutor("Gradle-Output-Processor", Integer.MAX_VALUE);
+
+    private static final int DEFAULT_CAPACITY = 8 * 1024;
+    private static final int MAX_BATCH_SIZE = 256;
+
+    private final BatchHandler handler;
+
+    private final Lock mainLock;
+    private final Condition notFullSignal;
+    private final Condition drainedSignal;
+    private final String[] buffer;
+    private int head;
+    private int size;
+    private boolean flushRequested;
+    private boolean processing;
+
+    private final AtomicBoolean closed;
+
+    private long stallCount;
+    private long stallNanos;
+
+    public AsyncLineHandler(BatchHandler handler) {
+        this(handler, DEFAULT_CAPACITY);
+    }
+
+    public AsyncLineHandler(BatchHandler handler, int capacity) {
+        ExceptionHelper.checkNotNullArgument(handler, "handler");
+        ExceptionHelper.checkArgumentInRange(capacity, 1, Integer.MAX_VALUE, "capacity");
+
+        this.handler = handler;
+        this.mainLock = new ReentrantLock();
+        this.notFullSignal = mainLock.newCondition();
+        this.drainedSignal = mainLock.newCondition();
+        this.buffer = new String[capacity];
+        this.head = 0;
+        this.size = 0;
+        this.flushRequested = false;
+        this.processing = false;
+        this.closed = new AtomicBoolean(false);
+        this.stallCount = 0;
+        this.stallNanos = 0;
+    }
+
+    @Override
+    public void writeLine(String line) throws IOException {
+        ExceptionHelper.checkNotNullArgument(line, "line");
+
+        boolean startProcessing;
+
+        mainLock.lock();
+        try {
+            if (size >= buffer.length) {
+                stallCount++;
+                long startTime = System.nanoTime();
+                while (size >= buffer.length) {
+                    notFullSignal.awaitUninterruptibly();
+                }
+                stallNanos += System.nanoTime() - startTime;
+            }
+
+            buffer[(head + size) % buffer.length] = line;
+            size++;
+
+            startProcessing = !processing;
+            processing = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (startProcessing) {
+            startProcessing();
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        boolean startProcessing;
+
+        mainLock.lock();
+        try {
+            flushRequested = true;
+            startProcessing = !processing;
+            processing = true;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (startProcessing) {
+            startProcessing();
+        }
+    }
+
+    /**
+     * Waits until every line written to this handler is passed to the
+     * underlying handlers, then flushes them. This method is idempotent.
+     */
+    @Override
+    public void close() throws IOException {
+        flush();
+
+        mainLock.lock();
+        try {
+            while (processing) {
+                drainedSignal.awaitUninterruptibly();
+            }
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (closed.compareAndSet(false, true)) {
+            logStatistics();
+        }
+    }
+
+    public long getStallCount() {
+        mainLock.lock();
+        try {
+            return stallCount;
+        } finally {
+            mainLock.unlock();
+        }
+    }
+
+    private void logStatistics() {
+        long currentStallCount;
+        long currentStallNanos;
+
+        mainLock.lock();
+        try {
+            currentStallCount = stallCount;
+            currentStallNanos = stallNanos;
+        } finally {
+            mainLock.unlock();
+        }
+
+        if (currentStallCount > 0) {
+            LOGGER.log(Level.INFO,
+                    "Output processing could not keep up with the build."
+                            + " Writer stalled {0} times for {1} ms.",
+                    new Object[]{
+                        currentStallCount,
+                        TimeUnit.NANOSECONDS.toMillis(currentStallNanos)});
+        }
+    }
+
+    private void startProcessing() {
+        OUTPUT_EXECUTOR.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+            @Override
+            public void execute(CancellationToken cancelToken) {
+                processAll();
+            }
+        }, null);
+    }
+
+    private void processAll() {
+        int maxBatchSize = Math.min(buffer.length, MAX_BATCH_SIZE);
+        List<String> batch = new ArrayList<>(maxBatchSize);
+
+        while (true) {
+            int batchSize;
+            boolean flush;
+
+            mainLock.lock();
+            try {
+                batchSize = Math.min(size, maxBatchSize);
+                for (int i = 0; i < batchSize; i++) {
+                    batch.add(buffer[head]);
+                    buffer[head] = null;
+                    head = (head + 1) % buffer.length;
+                }
+                size -= batchSize;
+
+                flush = flushRequested && size == 0;
+                if (flush) {
+                    flushRequested = false;
+                }
+
+                if (batchSize == 0 && !flush) {
+                    processing = false;
+                    drainedSignal.signalAll();
+                    return;
+                }
+
+                notFullSignal.signalAll();
+            } finally {
+                mainLock.unlock();
+            }
+
+            if (!batch.isEmpty()) {
+                processBatch(batch);
+                batch.clear();
+            }
+
+            if (flush) {
+                flushHandlers();
+            }
+        }
+    }
+
+    private void processBatch(List<String> batch) {
+        try {
+            handler.writeLines(batch);
+        } catch (Throwable ex) {
+            LOGGER.log(Level.WARNING, "Failed to process lines of the output.", ex);
+        }
+    }
+
+    private void flushHandlers() {
+        try {
+            handler.flush();
+        } catch (Throwable ex) {
+            LOGGER.log(Level.WARNING, "Failed to flush the output.", ex);
+        }
+    }
+}
@@ -13,6 +13,11 @@ public final class BuildErrorConsumer implements SmartOutputHandler.Consumer {
         this.consume = false;
     }
 
+    @Override
+    public boolean isCandidateLine(String line) {
+        return consume || EXCEPTION_CAPTION.equalsIgnoreCase(line.trim());
+    }
+
     @Override
     public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException {
         if (consume) {
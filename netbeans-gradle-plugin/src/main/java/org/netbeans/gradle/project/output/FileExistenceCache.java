@@ -0,0 +1,35 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Remembers which paths refer to existing files, so that the same path found
+ * in the output multiple times is only checked once. An instance is expected
+ * to be used for the output of a single build only.
+ */
+public final class FileExistenceCache {
+    private static final int MAX_SIZE = 16 * 1024;
+
+    private final ConcurrentMap<String, Boolean> cache;
+
+    public FileExistenceCache() {
+        this.cache = new ConcurrentHashMap<>();
+    }
+
+    public boolean isFile(File file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        String path = file.getPath();
+        Boolean result = cache.get(path);
+        if (result == null) {
+            result = file.isFile();
+            if (cache.size() < MAX_SIZE) {
+                cache.putIfAbsent(path, result);
+            }
+        }
+        return result;
+    }
+}
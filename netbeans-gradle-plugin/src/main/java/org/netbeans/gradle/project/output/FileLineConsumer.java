@@ -3,10 +3,22 @@ package org.netbeans.gradle.project.output;
 import java.io.File;
 import java.util.logging.Level;
 import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
 
 public final class FileLineConsumer implements OutputLinkFinder {
     private static final Logger LOGGER = Logger.getLogger(FileLineConsumer.class.getName());
 
+    private final FileExistenceCache fileCache;
+
+    public FileLineConsumer() {
+        this(new FileExistenceCache());
+    }
+
+    public FileLineConsumer(FileExistenceCache fileCache) {
+        ExceptionHelper.checkNotNullArgument(fileCache, "fileCache");
+        this.fileCache = fileCache;
+    }
+
     private static int trimEndIndex(String str, int endIndex) {
         for (int i = endIndex - 1; i >= 0; i--) {
             if (str.charAt(i) > ' ') {
@@ -41,8 +53,12 @@ public final class FileLineConsumer implements OutputLinkFinder {
 
     private OutputLinkDef tryFindLink(String line, int sepIndex) {
         String fileStr = line.substring(0, sepIndex).trim();
+        if (fileStr.isEmpty()) {
+            return null;
+        }
+
         File file = new File(fileStr);
-        if (file.isFile()) {
+        if (fileCache.isFile(file)) {
             return tryFindLink(line, file, sepIndex + 1);
         }
         else {
@@ -50,6 +66,11 @@ public final class FileLineConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public int getCandidateKinds() {
+        return OutputLinkScanner.FILE_LINE;
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
         int sepIndex = line.indexOf(':');
@@ -68,6 +89,6 @@ public final class FileLineConsumer implements OutputLinkFinder {
 
             return tryFindLink(line, sepIndex);
         }
-        return null;
+        return result;
     }
 }
@@ -36,33 +36,39 @@ public final class LineOutputWriter extends Writer {
         ExceptionHelper.checkArgumentInRange(len, 0, cbuf.length - off, "len");
 
         int currentOffset = off;
-        int currentLength = len;
+        int endOffset = off + len;
 
-        while (currentLength > 0) {
+        while (currentOffset < endOffset) {
             String line = null;
 
             mainLock.lock();
             try {
-                while (currentLength > 0) {
-                    char currentChar = cbuf[currentOffset];
-                    char prevChar = lastChar;
-                    lastChar = currentChar;
-
+                if (lastChar == '\r' && cbuf[currentOffset] == '\n') {
+                    lastChar = '\n';
                     currentOffset++;
-                    currentLength--;
+                    continue;
+                }
 
-                    if (prevChar == '\r' && currentChar == '\n') {
-                        continue;
-                    }
+                int lineEnd = findLineEnd(cbuf, currentOffset, endOffset);
+                if (lineEnd < endOffset) {
+                    char lineEndChar = cbuf[lineEnd];
 
-                    if (currentChar == '\n' || currentChar == '\r') {
+                    if (lineBuffer.length() > 0) {
+                        lineBuffer.append(cbuf, currentOffset, lineEnd - currentOffset);
                         line = lineBuffer.toString();
                         lineBuffer.setLength(0);
-                        break;
                     }
                     else {
-                        lineBuffer.append(currentChar);
+                        line = new String(cbuf, currentOffset, lineEnd - currentOffset);
                     }
+
+                    lastChar = lineEndChar;
+                    currentOffset = lineEnd + 1;
+                }
+                else {
+                    lineBuffer.append(cbuf, currentOffset, endOffset - currentOffset);
+                    lastChar = cbuf[endOffset - 1];
+                    currentOffset = endOffset;
                 }
             } finally {
                 mainLock.unlock();
@@ -74,6 +80,16 @@ public final class LineOutputWriter extends Writer {
         }
     }
 
+    private static int findLineEnd(char[] cbuf, int startOffset, int endOffset) {
+        for (int i = startOffset; i < endOffset; i++) {
+            char ch = cbuf[i];
+            if (ch == '\n' || ch == '\r') {
+                return i;
+            }
+        }
+        return endOffset;
+    }
+
     @Override
     public void flush() throws IOException {
         handler.flush();
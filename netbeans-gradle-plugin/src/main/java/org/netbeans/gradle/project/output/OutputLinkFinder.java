@@ -1,5 +1,14 @@
 package org.netbeans.gradle.project.output;
 
 public interface OutputLinkFinder {
+    /**
+     * Returns the kinds of links (as defined by {@link OutputLinkScanner})
+     * this finder might find. The {@link #tryFindLink(String) tryFindLink}
+     * method is only called for lines containing at least one of these kinds.
+     *
+     * @return the bitwise or of the {@code OutputLinkScanner} constants
+     */
+    public int getCandidateKinds();
+
     public OutputLinkDef tryFindLink(String line);
 }
@@ -10,44 +10,91 @@ import org.openide.windows.OutputWriter;
 
 public final class OutputLinkPrinter implements SmartOutputHandler.Consumer {
     private final OutputLinkFinder[] linkFinders;
+    private final int[] candidateKinds;
+    private final int allCandidateKinds;
 
     public OutputLinkPrinter(OutputLinkFinder... linkFinders) {
         this.linkFinders = linkFinders.clone();
 
         ExceptionHelper.checkNotNullElements(this.linkFinders, "linkFinders");
+
+        this.candidateKinds = new int[this.linkFinders.length];
+        int allKinds = OutputLinkScanner.NONE;
+        for (int i = 0; i < this.linkFinders.length; i++) {
+            candidateKinds[i] = this.linkFinders[i].getCandidateKinds();
+            allKinds |= candidateKinds[i];
+        }
+        this.allCandidateKinds = allKinds;
     }
 
-    private void findLinkDefs(String line, int startIndex, int endIndex, List<OutputLinkDef> linkDefs) {
+    private OutputLinkDef tryFindFirstLink(String line, int startIndex, int endIndex) {
         if (startIndex >= endIndex || startIndex >= line.length()) {
-            return;
+            return null;
+        }
+
+        int lineKinds = OutputLinkScanner.findCandidates(line, startIndex, endIndex) & allCandidateKinds;
+        if (lineKinds == OutputLinkScanner.NONE) {
+            return null;
         }
 
-        String subStr = line.substring(startIndex, endIndex);
-        for (OutputLinkFinder linkFinder: linkFinders) {
-            OutputLinkDef linkDef = linkFinder.tryFindLink(subStr);
+        String subStr = null;
+        for (int i = 0; i < linkFinders.length; i++) {
+            if ((candidateKinds[i] & lineKinds) == 0) {
+                continue;
+            }
+
+            if (subStr == null) {
+                subStr = startIndex == 0 && endIndex == line.length()
+                        ? line
+                        : line.substring(startIndex, endIndex);
+            }
+
+            OutputLinkDef linkDef = linkFinders[i].tryFindLink(subStr);
             // Empty links are unreasonable and may cause an infinite recursion.
             if (linkDef != null && !linkDef.isEmptyLink()) {
-                OutputLinkDef baseLinkDef = linkDef.offsetLinkDef(startIndex);
-
-                findLinkDefs(line, startIndex, baseLinkDef.getStartIndex(), linkDefs);
-                linkDefs.add(baseLinkDef);
-                findLinkDefs(line, baseLinkDef.getEndIndex(), endIndex, linkDefs);
-                return;
+                return linkDef.offsetLinkDef(startIndex);
             }
         }
+        return null;
+    }
+
+    private void findLinkDefs(
+            String line,
+            int startIndex,
+            int endIndex,
+            OutputLinkDef linkDef,
+            List<OutputLinkDef> linkDefs) {
+
+        OutputLinkDef beforeLinkDef = tryFindFirstLink(line, startIndex, linkDef.getStartIndex());
+        if (beforeLinkDef != null) {
+            findLinkDefs(line, startIndex, linkDef.getStartIndex(), beforeLinkDef, linkDefs);
+        }
+
+        linkDefs.add(linkDef);
+
+        OutputLinkDef afterLinkDef = tryFindFirstLink(line, linkDef.getEndIndex(), endIndex);
+        if (afterLinkDef != null) {
+            findLinkDefs(line, linkDef.getEndIndex(), endIndex, afterLinkDef, linkDefs);
+        }
     }
 
     private List<OutputLinkDef> findLinkDefs(String line) {
         // Note that in the majority of cases, the line is not a link, so we
         // spare creating a list when not needed.
-        for (OutputLinkFinder linkFinder: linkFinders) {
-            if (linkFinder.tryFindLink(line) != null) {
-                List<OutputLinkDef> result = new ArrayList<>(linkFinders.length);
-                findLinkDefs(line, 0, line.length(), result);
-                return result;
-            }
+        OutputLinkDef firstLinkDef = tryFindFirstLink(line, 0, line.length());
+        if (firstLinkDef == null) {
+            return null;
         }
-        return null;
+
+        List<OutputLinkDef> result = new ArrayList<>(linkFinders.length);
+        findLinkDefs(line, 0, line.length(), firstLinkDef, result);
+        return result;
+    }
+
+    @Override
+    public boolean isCandidateLine(String line) {
+        return (OutputLinkScanner.findCandidates(line, 0, line.length()) & allCandidateKinds)
+                != OutputLinkScanner.NONE;
     }
 
     @Override
@@ -0,0 +1,98 @@
+package org.netbeans.gradle.project.output;
+
+/**
+ * Contains a scanner which determines in a single pass over the characters of
+ * a line which kinds of links might be in the line. The scanner does not
+ * allocate any memory and does not copy the line. {@link OutputLinkFinder}
+ * implementations declare the kinds of links they are able to find, so that
+ * they are only asked to parse lines which might contain such links.
+ */
+public final class OutputLinkScanner {
+    /**
+     * The line contains {@code ".java:"}, so it might be a stack trace element.
+     */
+    public static final int STACK_TRACE = 1;
+
+    /**
+     * The line contains {@code "://"}, so it might contain a URL.
+     */
+    public static final int URL = 2;
+
+    /**
+     * The line contains a path separator ({@code '/'} or {@code '\\'}).
+     */
+    public static final int FILE_PATH = 4;
+
+    /**
+     * The line contains {@code ':'}, so it might be a file name followed by a
+     * line number.
+     */
+    public static final int FILE_LINE = 8;
+
+    public static final int NONE = 0;
+    public static final int ALL = STACK_TRACE | URL | FILE_PATH | FILE_LINE;
+
+    private static final String JAVA_EXT = ".java";
+
+    public static int findCandidates(String line) {
+        return findCandidates(line, 0, line.length());
+    }
+
+    public static int findCandidates(String line, int startIndex, int endIndex) {
+        int result = NONE;
+
+        // The number of matched characters of ".java"
+        int javaExtMatch = 0;
+        // The number of slashes directly after a ':'
+        int colonSlashCount = -1;
+
+        for (int i = startIndex; i < endIndex; i++) {
+            char ch = line.charAt(i);
+
+            switch (ch) {
+                case ':':
+                    result |= FILE_LINE;
+                    if (javaExtMatch == JAVA_EXT.length()) {
+                        result |= STACK_TRACE;
+                    }
+                    colonSlashCount = 0;
+                    javaExtMatch = 0;
+                    break;
+                case '/':
+                    result |= FILE_PATH;
+                    if (colonSlashCount >= 0) {
+                        colonSlashCount++;
+                        if (colonSlashCount == 2) {
+                            result |= URL;
+                        }
+                    }
+                    javaExtMatch = 0;
+                    break;
+                case '\\':
+                    result |= FILE_PATH;
+                    colonSlashCount = -1;
+                    javaExtMatch = 0;
+                    break;
+                default:
+                    colonSlashCount = -1;
+                    if (javaExtMatch < JAVA_EXT.length() && ch == JAVA_EXT.charAt(javaExtMatch)) {
+                        javaExtMatch++;
+                    }
+                    else {
+                        javaExtMatch = ch == '.' ? 1 : 0;
+                    }
+                    break;
+            }
+
+            if (result == ALL) {
+                break;
+            }
+        }
+
+        return result;
+    }
+
+    private OutputLinkScanner() {
+        throw new AssertionError();
+    }
+}
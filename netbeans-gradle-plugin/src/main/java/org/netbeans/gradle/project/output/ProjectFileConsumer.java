@@ -4,19 +4,80 @@ import java.io.File;
 import java.net.MalformedURLException;
 import java.net.URL;
 import java.util.Locale;
+import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.filesystems.FileObject;
 import org.openide.util.Utilities;
 
 public final class ProjectFileConsumer implements OutputLinkFinder {
-    private final String normalizedPath;
+    private final char[] normalizedPath;
+    private final FileExistenceCache fileCache;
 
     public ProjectFileConsumer(NbGradleProject project) {
+        this(project, new FileExistenceCache());
+    }
+
+    public ProjectFileConsumer(NbGradleProject project, FileExistenceCache fileCache) {
+        ExceptionHelper.checkNotNullArgument(fileCache, "fileCache");
+
         FileObject projectDirectory = project.getProjectDirectory();
         // In case the filesystem is not case-sesitive, otherwise it shouldn't
         // hurt much, since we will check if the file exists anyway.
-        normalizedPath = projectDirectory.getPath().toLowerCase(Locale.ROOT);
+        this.normalizedPath = toNormalizedChars(projectDirectory.getPath());
+        this.fileCache = fileCache;
+    }
+
+    private static char normalizeChar(char ch) {
+        return ch == File.separatorChar ? '/' : Character.toLowerCase(ch);
+    }
+
+    private static char[] toNormalizedChars(String str) {
+        char[] result = new char[str.length()];
+        for (int i = 0; i < result.length; i++) {
+            result[i] = normalizeChar(str.charAt(i));
+        }
+        return result;
+    }
+
+    /**
+     * Finds the normalized project path in the line without creating a
+     * normalized copy of the line.
+     */
+    private int indexOfProjectPath(String line) {
+        if (normalizedPath.length == 0) {
+            return 0;
+        }
+
+        char firstChar = normalizedPath[0];
+        int lastStartIndex = line.length() - normalizedPath.length;
+
+        for (int startIndex = 0; startIndex <= lastStartIndex; startIndex++) {
+            if (normalizeChar(line.charAt(startIndex)) != firstChar) {
+                continue;
+            }
+
+            int matchLength = 1;
+            while (matchLength < normalizedPath.length
+                    && normalizeChar(line.charAt(startIndex + matchLength)) == normalizedPath[matchLength]) {
+                matchLength++;
+            }
+
+            if (matchLength == normalizedPath.length) {
+                return startIndex;
+            }
+        }
+        return -1;
+    }
+
+    private static int lastIndexOfSeparator(String line) {
+        for (int i = line.length() - 1; i >= 0; i--) {
+            char ch = line.charAt(i);
+            if (ch == '/' || ch == File.separatorChar) {
+                return i;
+            }
+        }
+        return -1;
     }
 
     public static boolean isBrowserFile(String path) {
@@ -67,15 +128,19 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public int getCandidateKinds() {
+        return OutputLinkScanner.FILE_PATH;
+    }
+
     @Override
     public OutputLinkDef tryFindLink(String line) {
-        String normalizedLine = line.replace(File.separatorChar, '/').toLowerCase(Locale.ROOT);
-        int startIndex = normalizedLine.indexOf(normalizedPath);
+        int startIndex = indexOfProjectPath(line);
         if (startIndex < 0) {
             return null;
         }
 
-        int endPathIndex = normalizedLine.lastIndexOf('/');
+        int endPathIndex = lastIndexOfSeparator(line);
         if (endPathIndex < 0) {
             // I don't think that this is possible but just in case it happens.
             return null;
@@ -107,7 +172,7 @@ public final class ProjectFileConsumer implements OutputLinkFinder {
         completeLinkEndIndex = completeLinkEndIndex - (unstrippedFileStr.length() - fileStr.length());
 
         File file = new File(fileStr);
-        if (!file.isFile()) {
+        if (!fileCache.isFile(file)) {
             return null;
         }
 
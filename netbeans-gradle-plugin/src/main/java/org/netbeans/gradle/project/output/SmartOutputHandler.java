@@ -1,6 +1,7 @@
 package org.netbeans.gradle.project.output;
 
 import java.io.IOException;
+import java.util.Collections;
 import java.util.List;
 import java.util.logging.Level;
 import java.util.logging.Logger;
@@ -9,10 +10,17 @@ import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
 import org.openide.windows.InputOutput;
 import org.openide.windows.OutputWriter;
 
-public final class SmartOutputHandler implements LineOutputWriter.Handler {
+public final class SmartOutputHandler implements LineOutputWriter.Handler, AsyncLineHandler.BatchHandler {
     private static final Logger LOGGER = Logger.getLogger(SmartOutputHandler.class.getName());
 
     public static interface Consumer {
+        /**
+         * Returns {@code false} if {@link #tryConsumeLine(String, InputOutput, OutputWriter) tryConsumeLine}
+         * would certainly not consume the given line. This method must be
+         * cheap and must not print anything.
+         */
+        public boolean isCandidateLine(String line);
+
         public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) throws IOException;
     }
 
@@ -42,36 +50,70 @@ public final class SmartOutputHandler implements LineOutputWriter.Handler {
 
     @Override
     public void writeLine(String line) throws IOException {
+        writeLines(Collections.singletonList(line));
+    }
+
+    @Override
+    public void writeLines(List<String> lines) throws IOException {
         Throwable error = null;
 
         for (TaskOutputProcessor visitor: visitors) {
-            try {
-                visitor.processLine(line);
-            } catch (Throwable ex) {
-                LOGGER.log(Level.SEVERE, "Unexpected failure while checking a line of the output.", error);
-                error = ex;
+            for (String line: lines) {
+                try {
+                    visitor.processLine(line);
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.SEVERE, "Unexpected failure while checking a line of the output.", ex);
+                    error = ex;
+                }
             }
         }
 
-        for (Consumer processor: processors) {
-            try {
-                if (processor.tryConsumeLine(line, ioParent, output)) {
-                    return;
+        StringBuilder plainLines = new StringBuilder();
+        for (String line: lines) {
+            boolean consumed = false;
+            for (Consumer processor: processors) {
+                try {
+                    if (!processor.isCandidateLine(line)) {
+                        continue;
+                    }
+
+                    // The consumer may print the line itself, so the lines
+                    // before it must already be printed.
+                    error = printLines(plainLines, error);
+                    if (processor.tryConsumeLine(line, ioParent, output)) {
+                        consumed = true;
+                        break;
+                    }
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.SEVERE, "Unexpected failure while analysing a line of the output.", ex);
+                    error = ex;
                 }
-            } catch (Throwable ex) {
-                LOGGER.log(Level.SEVERE, "Unexpected failure while analysing a line of the output.", error);
-                error = ex;
+            }
+
+            if (!consumed) {
+                plainLines.append(line);
+                plainLines.append('\n');
             }
         }
+        error = printLines(plainLines, error);
+
+        ExceptionHelper.rethrowCheckedIfNotNull(error, IOException.class);
+    }
+
+    private Throwable printLines(StringBuilder lines, Throwable error) {
+        if (lines.length() == 0) {
+            return error;
+        }
 
         try {
-            output.println(line);
+            output.print(lines.toString());
         } catch (Throwable ex) {
-            LOGGER.log(Level.SEVERE, "Unexpected failure while printing a line of the output.", error);
-            error = ex;
+            LOGGER.log(Level.SEVERE, "Unexpected failure while printing lines of the output.", ex);
+            return ex;
+        } finally {
+            lines.setLength(0);
         }
-
-        ExceptionHelper.rethrowCheckedIfNotNull(error, IOException.class);
+        return error;
     }
 
     @Override
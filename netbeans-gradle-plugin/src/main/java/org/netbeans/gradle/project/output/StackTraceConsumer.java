@@ -3,6 +3,12 @@ package org.netbeans.gradle.project.output;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
 import java.net.URL;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import java.util.regex.Matcher;
@@ -14,8 +20,18 @@ import org.netbeans.api.project.Project;
 import org.netbeans.gradle.project.java.query.GradleClassPathProvider;
 import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation;
 import org.openide.filesystems.FileObject;
-import org.openide.filesystems.URLMapper;
 
+/**
+ * Defines an {@code OutputLinkFinder} creating links to the source files of
+ * stack trace elements.
+ * <P>
+ * The source file of each class is only looked up once for each instance of
+ * this class, so a single instance should be used for the whole output of a
+ * task. The binary roots of the runtime class path are only checked for the
+ * package of the looked up class (the result is remembered for each package)
+ * and the source roots of a binary root are only queried once, so that the
+ * class path does not have to be searched for each line of a stack trace.
+ */
 public final class StackTraceConsumer implements OutputLinkFinder {
     private static final Logger LOGGER = Logger.getLogger(StackTraceConsumer.class.getName());
 
@@ -24,11 +40,23 @@ public final class StackTraceConsumer implements OutputLinkFinder {
     private final Project project;
     private final ClassPath classPath;
 
+    private final ConcurrentMap<String, SourceFileRef> sourceFiles;
+    private final ConcurrentMap<String, List<BinaryRootInfo>> rootsByPackage;
+    private final AtomicReference<List<BinaryRootInfo>> binaryRootsRef;
+
     public StackTraceConsumer(Project project) {
+        this(project, getClassPathFromProject(project));
+    }
+
+    StackTraceConsumer(Project project, ClassPath classPath) {
         ExceptionHelper.checkNotNullArgument(project, "project");
+        ExceptionHelper.checkNotNullArgument(classPath, "classPath");
 
         this.project = project;
-        this.classPath = getClassPathFromProject(project);
+        this.classPath = classPath;
+        this.sourceFiles = new ConcurrentHashMap<>();
+        this.rootsByPackage = new ConcurrentHashMap<>();
+        this.binaryRootsRef = new AtomicReference<>(null);
     }
 
     private static ClassPath getClassPathFromProject(Project project) {
@@ -46,21 +74,11 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         return classPath;
     }
 
-    private OpenEditorOutputListener tryCreateLinkListener(
-            SourceForBinaryQuery.Result sourceForBinary,
-            String path,
-            String lineNum) {
-
-        FileObject[] roots = sourceForBinary.getRoots();
-        for (FileObject root: roots) {
+    private static FileObject tryFindSourceFile(FileObject[] sourceRoots, String path) {
+        for (FileObject root: sourceRoots) {
             FileObject javaFo = root.getFileObject(path);
             if (javaFo != null) {
-                int lineInt = -1;
-                try {
-                    lineInt = Integer.parseInt(lineNum);
-                } catch (NumberFormatException ex) {
-                }
-                return OpenEditorOutputListener.tryCreateListener(javaFo, lineInt);
+                return javaFo;
             }
         }
         return null;
@@ -81,6 +99,11 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         }
     }
 
+    @Override
+    public int getCandidateKinds() {
+        return OutputLinkScanner.STACK_TRACE;
+    }
+
     // This method is based on
     // org.netbeans.modules.maven.api.output.OutputUtils.matchStackTraceLine
     @Override
@@ -97,36 +120,158 @@ public final class StackTraceConsumer implements OutputLinkFinder {
         if (index < 0) {
             return null;
         }
-        String packageName = method.substring(0, index).replace('.', '/');
-        String resourceName = packageName + file + ".class";
-        FileObject resource = classPath.findResource(resourceName);
-        if (resource == null) {
+        String className = method.substring(0, index).replace('.', '/') + file;
+
+        FileObject sourceFile = findSourceFile(className);
+        if (sourceFile == null) {
             return null;
         }
 
-        String path = packageName + file + ".java";
-        FileObject root = classPath.findOwnerRoot(resource);
-        if (root == null) {
-            return null;
+        int lineInt = -1;
+        try {
+            lineInt = Integer.parseInt(lineNum);
+        } catch (NumberFormatException ex) {
         }
-        URL url = URLMapper.findURL(root, URLMapper.INTERNAL);
 
-        for (SourceForBinaryQueryImplementation query: project.getLookup().lookupAll(SourceForBinaryQueryImplementation.class)) {
-            SourceForBinaryQuery.Result sourceForBinary = query.findSourceRoots(url);
-            if (sourceForBinary != null) {
-                OpenEditorOutputListener result = tryCreateLinkListener(sourceForBinary, path, lineNum);
-                if (result != null) {
-                    return new OutputLinkDef(match.start(), match.end(), result);
+        OpenEditorOutputListener result = OpenEditorOutputListener.tryCreateListener(sourceFile, lineInt);
+        return result != null ? new OutputLinkDef(match.start(), match.end(), result) : null;
+    }
+
+    FileObject findSourceFile(String className) {
+        SourceFileRef result = sourceFiles.get(className);
+        if (result == null) {
+            result = new SourceFileRef(lookupSourceFile(className));
+            SourceFileRef prevResult = sourceFiles.putIfAbsent(className, result);
+            if (prevResult != null) {
+                result = prevResult;
+            }
+        }
+        return result.sourceFile;
+    }
+
+    private FileObject lookupSourceFile(String className) {
+        String resourceName = className + ".class";
+        String path = className + ".java";
+
+        // Multiple roots can only contain the same package if it is split,
+        // so this is usually a single check.
+        for (BinaryRootInfo rootInfo: getRootsOfPackage(getPackagePath(resourceName))) {
+            if (rootInfo.binaryRoot.getFileObject(resourceName) != null) {
+                return tryFindSourceFile(rootInfo.getSourceRoots(), path);
+            }
+        }
+        return null;
+    }
+
+    private List<BinaryRootInfo> getRootsOfPackage(String packagePath) {
+        List<BinaryRootInfo> result = rootsByPackage.get(packagePath);
+        if (result == null) {
+            result = findRootsOfPackage(packagePath);
+            List<BinaryRootInfo> prevResult = rootsByPackage.putIfAbsent(packagePath, result);
+            if (prevResult != null) {
+                result = prevResult;
+            }
+        }
+        return result;
+    }
+
+    private List<BinaryRootInfo> findRootsOfPackage(String packagePath) {
+        List<BinaryRootInfo> binaryRoots = getBinaryRoots();
+        if (packagePath.isEmpty()) {
+            return binaryRoots;
+        }
+
+        List<BinaryRootInfo> result = new ArrayList<>(1);
+        for (BinaryRootInfo rootInfo: binaryRoots) {
+            FileObject packageDir = rootInfo.binaryRoot.getFileObject(packagePath);
+            if (packageDir != null && packageDir.isFolder()) {
+                result.add(rootInfo);
+            }
+        }
+        return result;
+    }
+
+    private List<BinaryRootInfo> getBinaryRoots() {
+        List<BinaryRootInfo> result = binaryRootsRef.get();
+        if (result == null) {
+            List<ClassPath.Entry> entries = classPath.entries();
+            result = new ArrayList<>(entries.size());
+
+            for (ClassPath.Entry entry: entries) {
+                FileObject binaryRoot = entry.getRoot();
+                if (binaryRoot != null) {
+                    result.add(new BinaryRootInfo(binaryRoot, entry.getURL()));
                 }
             }
+
+            if (!binaryRootsRef.compareAndSet(null, result)) {
+                result = binaryRootsRef.get();
+            }
         }
+        return result;
+    }
 
-        SourceForBinaryQuery.Result sourceForBinary = SourceForBinaryQuery.findSourceRoots(url);
-        if (sourceForBinary == null) {
-            return null;
+    private FileObject[] findSourceRoots(URL binaryRootUrl) {
+        List<FileObject> sourceRoots = new ArrayList<>();
+
+        for (SourceForBinaryQueryImplementation query: getSourceQueries()) {
+            SourceForBinaryQuery.Result sourceForBinary = query.findSourceRoots(binaryRootUrl);
+            if (sourceForBinary != null) {
+                addAll(sourceForBinary.getRoots(), sourceRoots);
+            }
         }
 
-        OpenEditorOutputListener result = tryCreateLinkListener(sourceForBinary, path, lineNum);
-        return result != null ? new OutputLinkDef(match.start(), match.end(), result) : null;
+        SourceForBinaryQuery.Result sourceForBinary = SourceForBinaryQuery.findSourceRoots(binaryRootUrl);
+        if (sourceForBinary != null) {
+            addAll(sourceForBinary.getRoots(), sourceRoots);
+        }
+
+        return sourceRoots.toArray(new FileObject[sourceRoots.size()]);
+    }
+
+    private Collection<? extends SourceForBinaryQueryImplementation> getSourceQueries() {
+        return project.getLookup().lookupAll(SourceForBinaryQueryImplementation.class);
+    }
+
+    private static String getPackagePath(String resourceName) {
+        int separatorIndex = resourceName.lastIndexOf('/');
+        return separatorIndex >= 0 ? resourceName.substring(0, separatorIndex) : "";
+    }
+
+    private static void addAll(FileObject[] src, List<FileObject> dest) {
+        for (FileObject element: src) {
+            dest.add(element);
+        }
+    }
+
+    private final class BinaryRootInfo {
+        public final FileObject binaryRoot;
+        private final URL url;
+        private final AtomicReference<FileObject[]> sourceRootsRef;
+
+        public BinaryRootInfo(FileObject binaryRoot, URL url) {
+            this.binaryRoot = binaryRoot;
+            this.url = url;
+            this.sourceRootsRef = new AtomicReference<>(null);
+        }
+
+        public FileObject[] getSourceRoots() {
+            FileObject[] result = sourceRootsRef.get();
+            if (result == null) {
+                result = findSourceRoots(url);
+                if (!sourceRootsRef.compareAndSet(null, result)) {
+                    result = sourceRootsRef.get();
+                }
+            }
+            return result;
+        }
+    }
+
+    private static final class SourceFileRef {
+        public final FileObject sourceFile;
+
+        public SourceFileRef(FileObject sourceFile) {
+            this.sourceFile = sourceFile;
+        }
     }
 }
@@ -6,13 +6,25 @@ import org.netbeans.gradle.project.util.GradleVersions;
 // Warning: Never rename instances of this enum because they are used to save
 //          the actual configuration.
 public enum ModelLoadingStrategy {
-    NEWEST_POSSIBLE(true),
-    USE_IDEA_MODEL(false);
+    NEWEST_POSSIBLE(true, false),
+    USE_IDEA_MODEL(false, false),
+    OPENED_PROJECTS_ONLY(true, true);
 
     private final boolean mayUse18Api;
+    private final boolean openedProjectsOnly;
 
-    private ModelLoadingStrategy(boolean mayUse18Api) {
+    private ModelLoadingStrategy(boolean mayUse18Api, boolean openedProjectsOnly) {
         this.mayUse18Api = mayUse18Api;
+        this.openedProjectsOnly = openedProjectsOnly;
+    }
+
+    /**
+     * Returns {@code true} if only the models of the opened projects (and the
+     * projects they depend on) should be fetched instead of the models of all
+     * the projects of the build. This only matters when the 1.8 API is used.
+     */
+    public boolean isOpenedProjectsOnly() {
+        return openedProjectsOnly;
     }
 
     public boolean canUse18Api(GradleVersion gradleVersion) {
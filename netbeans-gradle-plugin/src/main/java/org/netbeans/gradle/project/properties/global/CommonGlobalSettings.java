@@ -53,6 +53,8 @@ public final class CommonGlobalSettings {
     private final PropertyReference<Boolean> detectProjectDependenciesByJarName;
     private final PropertyReference<SelfMaintainedTasks> selfMaintainedTasks;
     private final PropertyReference<ModelLoadingStrategy> modelLoadingStrategy;
+    private final PropertyReference<Boolean> autoReloadProjects;
+    private final PropertyReference<Boolean> parallelModelBuilders;
 
     private final PropertyReference<Integer> projectCacheSize;
     private final PropertyReference<Integer> gradleDaemonTimeoutSec;
@@ -77,6 +79,8 @@ public final class CommonGlobalSettings {
         this.detectProjectDependenciesByJarName = detectProjectDependenciesByJarName(activeSettingsQuery);
         this.selfMaintainedTasks = selfMaintainedTasks(activeSettingsQuery);
         this.modelLoadingStrategy = modelLoadingStrategy(activeSettingsQuery);
+        this.autoReloadProjects = autoReloadProjects(activeSettingsQuery);
+        this.parallelModelBuilders = parallelModelBuilders(activeSettingsQuery);
         this.projectCacheSize = projectCacheSize(activeSettingsQuery);
         this.gradleDaemonTimeoutSec = gradleDaemonTimeoutSec(activeSettingsQuery);
     }
@@ -233,6 +237,22 @@ public final class CommonGlobalSettings {
         return modelLoadingStrategy;
     }
 
+    public static PropertyReference<Boolean> autoReloadProjects(ActiveSettingsQuery activeSettingsQuery) {
+        return propertyRef(defineBooleanProperty("model-loading", "auto-reload"), activeSettingsQuery, false);
+    }
+
+    public PropertyReference<Boolean> autoReloadProjects() {
+        return autoReloadProjects;
+    }
+
+    public static PropertyReference<Boolean> parallelModelBuilders(ActiveSettingsQuery activeSettingsQuery) {
+        return propertyRef(defineBooleanProperty("model-loading", "parallel-builders"), activeSettingsQuery, false);
+    }
+
+    public PropertyReference<Boolean> parallelModelBuilders() {
+        return parallelModelBuilders;
+    }
+
     public static PropertyReference<Integer> projectCacheSize(ActiveSettingsQuery activeSettingsQuery) {
         return propertyRef(defineIntProperty("cache", "size"), activeSettingsQuery, 100);
     }
@@ -56,11 +56,15 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
         private final PropertyReference<ModelLoadingStrategy> modelLoadingStrategyRef;
         private final PropertyReference<Boolean> loadRootProjectFirstRef;
         private final PropertyReference<Boolean> mayRelyOnJavaOfScriptRef;
+        private final PropertyReference<Boolean> autoReloadProjectsRef;
+        private final PropertyReference<Boolean> parallelModelBuildersRef;
 
         public PropertyRefs(ActiveSettingsQuery settingsQuery) {
             modelLoadingStrategyRef = CommonGlobalSettings.modelLoadingStrategy(settingsQuery);
             loadRootProjectFirstRef = CommonGlobalSettings.loadRootProjectFirst(settingsQuery);
             mayRelyOnJavaOfScriptRef = CommonGlobalSettings.mayRelyOnJavaOfScript(settingsQuery);
+            autoReloadProjectsRef = CommonGlobalSettings.autoReloadProjects(settingsQuery);
+            parallelModelBuildersRef = CommonGlobalSettings.parallelModelBuilders(settingsQuery);
         }
 
         @Override
@@ -80,6 +84,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
         private final ModelLoadingStrategy modelLoadingStrategy;
         private final Boolean loadRootProjectFirst;
         private final Boolean mayRelyOnJavaOfScript;
+        private final Boolean autoReloadProjects;
+        private final Boolean parallelModelBuilders;
 
         public StoredSettingsImpl(PropertyRefs properties) {
             this.properties = properties;
@@ -87,6 +93,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
             this.modelLoadingStrategy = properties.modelLoadingStrategyRef.tryGetValueWithoutFallback();
             this.loadRootProjectFirst = properties.loadRootProjectFirstRef.tryGetValueWithoutFallback();
             this.mayRelyOnJavaOfScript = properties.mayRelyOnJavaOfScriptRef.tryGetValueWithoutFallback();
+            this.autoReloadProjects = properties.autoReloadProjectsRef.tryGetValueWithoutFallback();
+            this.parallelModelBuilders = properties.parallelModelBuildersRef.tryGetValueWithoutFallback();
         }
 
         public StoredSettingsImpl(PropertyRefs properties, BuildScriptParsingPanel panel) {
@@ -95,6 +103,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
             this.modelLoadingStrategy = panel.modelLoadingStrategyCombo.getSelectedValue();
             this.loadRootProjectFirst = panel.jLoadRootProjectFirst.isSelected();
             this.mayRelyOnJavaOfScript = panel.jReliableJavaVersionCheck.isSelected();
+            this.autoReloadProjects = panel.jAutoReloadProjects.isSelected();
+            this.parallelModelBuilders = panel.jParallelModelBuilders.isSelected();
         }
 
         @Override
@@ -104,6 +114,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
                     : properties.modelLoadingStrategyRef.getActiveValue());
             displayCheck(jLoadRootProjectFirst, loadRootProjectFirst, properties.loadRootProjectFirstRef);
             displayCheck(jReliableJavaVersionCheck, mayRelyOnJavaOfScript, properties.mayRelyOnJavaOfScriptRef);
+            displayCheck(jAutoReloadProjects, autoReloadProjects, properties.autoReloadProjectsRef);
+            displayCheck(jParallelModelBuilders, parallelModelBuilders, properties.parallelModelBuildersRef);
         }
 
         @Override
@@ -111,6 +123,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
             properties.modelLoadingStrategyRef.setValue(modelLoadingStrategy);
             properties.loadRootProjectFirstRef.setValue(loadRootProjectFirst);
             properties.mayRelyOnJavaOfScriptRef.setValue(mayRelyOnJavaOfScript);
+            properties.autoReloadProjectsRef.setValue(autoReloadProjects);
+            properties.parallelModelBuildersRef.setValue(parallelModelBuilders);
         }
     }
 
@@ -126,6 +140,8 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
         jModelLoadStrategyLabel = new javax.swing.JLabel();
         jReliableJavaVersionCheck = new javax.swing.JCheckBox();
         jLoadRootProjectFirst = new javax.swing.JCheckBox();
+        jAutoReloadProjects = new javax.swing.JCheckBox();
+        jParallelModelBuilders = new javax.swing.JCheckBox();
 
         org.openide.awt.Mnemonics.setLocalizedText(jModelLoadStrategyLabel, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jModelLoadStrategyLabel.text")); // NOI18N
 
@@ -133,6 +149,10 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
 
         org.openide.awt.Mnemonics.setLocalizedText(jLoadRootProjectFirst, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jLoadRootProjectFirst.text")); // NOI18N
 
+        org.openide.awt.Mnemonics.setLocalizedText(jAutoReloadProjects, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jAutoReloadProjects.text")); // NOI18N
+
+        org.openide.awt.Mnemonics.setLocalizedText(jParallelModelBuilders, org.openide.util.NbBundle.getMessage(BuildScriptParsingPanel.class, "BuildScriptParsingPanel.jParallelModelBuilders.text")); // NOI18N
+
         javax.swing.GroupLayout layout = new javax.swing.GroupLayout(this);
         this.setLayout(layout);
         layout.setHorizontalGroup(
@@ -145,7 +165,9 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
                         .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.RELATED)
                         .addComponent(jModelLoadStrategy, 0, javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
                     .addComponent(jReliableJavaVersionCheck)
-                    .addComponent(jLoadRootProjectFirst))
+                    .addComponent(jLoadRootProjectFirst)
+                    .addComponent(jAutoReloadProjects)
+                    .addComponent(jParallelModelBuilders))
                 .addContainerGap())
         );
         layout.setVerticalGroup(
@@ -159,15 +181,21 @@ public class BuildScriptParsingPanel extends javax.swing.JPanel implements Profi
                 .addComponent(jLoadRootProjectFirst)
                 .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
                 .addComponent(jReliableJavaVersionCheck)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jAutoReloadProjects)
+                .addPreferredGap(javax.swing.LayoutStyle.ComponentPlacement.UNRELATED)
+                .addComponent(jParallelModelBuilders)
                 .addContainerGap(javax.swing.GroupLayout.DEFAULT_SIZE, Short.MAX_VALUE))
         );
     }// </editor-fold>//GEN-END:initComponents
 
 
     // Variables declaration - do not modify//GEN-BEGIN:variables
+    private javax.swing.JCheckBox jAutoReloadProjects;
     private javax.swing.JCheckBox jLoadRootProjectFirst;
     private javax.swing.JComboBox<EnumCombo.Item<ModelLoadingStrategy>> jModelLoadStrategy;
     private javax.swing.JLabel jModelLoadStrategyLabel;
+    private javax.swing.JCheckBox jParallelModelBuilders;
     private javax.swing.JCheckBox jReliableJavaVersionCheck;
     // End of variables declaration//GEN-END:variables
 }
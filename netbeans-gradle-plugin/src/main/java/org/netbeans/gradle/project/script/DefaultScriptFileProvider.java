@@ -17,7 +17,15 @@ import org.netbeans.gradle.project.util.NbPredicate;
 public final class DefaultScriptFileProvider implements ScriptFileProvider {
     private static final String[] EXTENSIONS = {".gradle", ".gradle.kts"};
 
+    private final ScriptFileProbeCache probeCache;
+
     public DefaultScriptFileProvider() {
+        this(ScriptFileProbeCache.getDefault());
+    }
+
+    public DefaultScriptFileProvider(ScriptFileProbeCache probeCache) {
+        ExceptionHelper.checkNotNullArgument(probeCache, "probeCache");
+        this.probeCache = probeCache;
     }
 
     @Override
@@ -35,19 +43,24 @@ public final class DefaultScriptFileProvider implements ScriptFileProvider {
     public Path findScriptFile(Path baseDir, String baseName) {
         for (String ext: EXTENSIONS) {
             Path candidate = baseDir.resolve(baseName + ext);
-            if (Files.isRegularFile(candidate)) {
+            if (probeCache.isRegularFile(candidate)) {
                 return candidate;
             }
         }
         return null;
     }
 
+    @Override
+    public Path findScriptFileInDirOrParents(Path baseDir, String baseName) {
+        return probeCache.findScriptFileInDirOrParents(baseDir, baseName, this);
+    }
+
     @Override
     public Iterable<Path> findScriptFiles(Path baseDir, String baseName) {
         List<Path> result = new ArrayList<>(EXTENSIONS.length);
         for (String ext: EXTENSIONS) {
             Path candidate = baseDir.resolve(baseName + ext);
-            if (Files.isRegularFile(candidate)) {
+            if (probeCache.isRegularFile(candidate)) {
                 result.add(candidate);
             }
         }
@@ -0,0 +1,443 @@
+package org.netbeans.gradle.project.script;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Comparator;
+import java.util.Locale;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentNavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.util.NbFileUtils;
+import org.openide.filesystems.FileAttributeEvent;
+import org.openide.filesystems.FileChangeListener;
+import org.openide.filesystems.FileEvent;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileRenameEvent;
+import org.openide.filesystems.FileStateInvalidException;
+
+/**
+ * Caches whether script files exist and where the nearest script file with
+ * a given name is in the parent directories of a directory. Project detection
+ * and project loading query the same few paths many times which might be slow
+ * on network drives.
+ * <P>
+ * When a script file is created, deleted or renamed according to the file
+ * system of NetBeans, the results which might depend on it (the file itself
+ * and searches started in its directory or below) are invalidated. When a
+ * directory is created, deleted or renamed, the results for paths within that
+ * directory are invalidated. Since NetBeans might not notice changes made by
+ * external processes immediately, cached values also expire after a few
+ * seconds.
+ */
+public final class ScriptFileProbeCache {
+    private static final Logger LOGGER = Logger.getLogger(ScriptFileProbeCache.class.getName());
+
+    private static final long MAX_AGE_NANOS = TimeUnit.SECONDS.toNanos(10);
+    private static final int MAX_ENTRY_COUNT = 16 * 1024;
+
+    private static final ScriptFileProbeCache DEFAULT = new ScriptFileProbeCache();
+
+    private static final Comparator<Path> PATH_ORDER = new Comparator<Path>() {
+        @Override
+        public int compare(Path path1, Path path2) {
+            return comparePaths(path1, path2);
+        }
+    };
+
+    private static final Comparator<NearestKey> NEAREST_KEY_ORDER = new Comparator<NearestKey>() {
+        @Override
+        public int compare(NearestKey key1, NearestKey key2) {
+            int pathCmp = comparePaths(key1.baseDir, key2.baseDir);
+            return pathCmp != 0 ? pathCmp : key1.baseName.compareTo(key2.baseName);
+        }
+    };
+
+    private final ProbeResultMap<Path, Boolean> regularFiles;
+    private final ProbeResultMap<NearestKey, Path> nearestFiles;
+    private final AtomicLong generation;
+    private final AtomicBoolean listenerRegistered;
+
+    public ScriptFileProbeCache() {
+        this.regularFiles = new ProbeResultMap<Path, Boolean>(PATH_ORDER) {
+            @Override
+            protected Path getPath(Path key) {
+                return key;
+            }
+
+            @Override
+            protected Path getFirstKeyOfPath(Path path) {
+                return path;
+            }
+        };
+        this.nearestFiles = new ProbeResultMap<NearestKey, Path>(NEAREST_KEY_ORDER) {
+            @Override
+            protected Path getPath(NearestKey key) {
+                return key.baseDir;
+            }
+
+            @Override
+            protected NearestKey getFirstKeyOfPath(Path path) {
+                return new NearestKey(path, "");
+            }
+        };
+        this.generation = new AtomicLong(0);
+        this.listenerRegistered = new AtomicBoolean(false);
+    }
+
+    public static ScriptFileProbeCache getDefault() {
+        return DEFAULT;
+    }
+
+    public boolean isRegularFile(Path file) {
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        long currentTime = System.nanoTime();
+        ProbeResult<Boolean> cached = regularFiles.get(file);
+        if (cached != null && cached.isValid(currentTime)) {
+            return cached.value;
+        }
+
+        ensureListenerRegistered(file);
+
+        long startGeneration = generation.get();
+        boolean result = Files.isRegularFile(file);
+        storeResult(regularFiles, file, new ProbeResult<>(result, currentTime), startGeneration);
+        return result;
+    }
+
+    /**
+     * Returns the script file with the given base name in the given directory
+     * or in the closest parent directory of it where such script exists.
+     *
+     * @param baseDir the directory where the search starts. This argument
+     *   cannot be {@code null}.
+     * @param baseName the name of the script file without extension. This
+     *   argument cannot be {@code null}.
+     * @param scriptProvider the {@code ScriptFileProvider} used to look for
+     *   script file in a single directory. This argument cannot be {@code null}.
+     * @return the closest script file or {@code null} if there is no such
+     *   script file
+     */
+    public Path findScriptFileInDirOrParents(Path baseDir, String baseName, ScriptFileProvider scriptProvider) {
+        ExceptionHelper.checkNotNullArgument(baseDir, "baseDir");
+        ExceptionHelper.checkNotNullArgument(baseName, "baseName");
+        ExceptionHelper.checkNotNullArgument(scriptProvider, "scriptProvider");
+
+        NearestKey key = new NearestKey(baseDir, baseName);
+
+        long currentTime = System.nanoTime();
+        ProbeResult<Path> cached = nearestFiles.get(key);
+        if (cached != null && cached.isValid(currentTime)) {
+            return cached.value;
+        }
+
+        long startGeneration = generation.get();
+
+        Path result = null;
+        Path dir = baseDir;
+        while (dir != null && result == null) {
+            result = scriptProvider.findScriptFile(dir, baseName);
+            dir = dir.getParent();
+        }
+
+        storeResult(nearestFiles, key, new ProbeResult<>(result, currentTime), startGeneration);
+        return result;
+    }
+
+    public void invalidateAll() {
+        generation.incrementAndGet();
+        regularFiles.clear();
+        nearestFiles.clear();
+    }
+
+    /**
+     * Invalidates the results which might depend on the existence of the
+     * given script file.
+     */
+    void invalidateScriptFile(Path file) {
+        generation.incrementAndGet();
+        regularFiles.remove(file);
+
+        Path dir = file.getParent();
+        if (dir == null) {
+            nearestFiles.clear();
+            return;
+        }
+
+        nearestFiles.removeSubtree(dir);
+    }
+
+    /**
+     * Invalidates the results for paths within the given directory (including
+     * the directory itself).
+     */
+    void invalidateDirectory(Path dir) {
+        generation.incrementAndGet();
+
+        regularFiles.removeSubtree(dir);
+        nearestFiles.removeSubtree(dir);
+    }
+
+    private void invalidate(Path path, boolean directory) {
+        if (directory) {
+            invalidateDirectory(path);
+        }
+        else {
+            invalidateScriptFile(path);
+        }
+    }
+
+    private <K, V> void storeResult(
+            ProbeResultMap<K, V> cache,
+            K key,
+            ProbeResult<V> result,
+            long startGeneration) {
+
+        if (cache.size() >= MAX_ENTRY_COUNT) {
+            cache.clear();
+        }
+
+        cache.put(key, result);
+        if (generation.get() != startGeneration) {
+            // The result might have been calculated before a change,
+            // so we cannot trust it.
+            cache.remove(key, result);
+        }
+    }
+
+    private void ensureListenerRegistered(Path file) {
+        if (!listenerRegistered.compareAndSet(false, true)) {
+            return;
+        }
+
+        // All local files are in the same file system, so it is enough to
+        // register a single listener.
+        Path root = file.getRoot();
+        FileObject rootObj = root != null ? NbFileUtils.asFileObject(root.toFile()) : null;
+        if (rootObj == null) {
+            LOGGER.log(Level.INFO, "Cannot listen for changes of script files, relying on expiration only.");
+            return;
+        }
+
+        try {
+            rootObj.getFileSystem().addFileChangeListener(new InvalidatorListener());
+        } catch (FileStateInvalidException ex) {
+            LOGGER.log(Level.INFO, "Cannot listen for changes of " + rootObj, ex);
+        }
+    }
+
+    private static boolean isScriptFileName(String fileName) {
+        String normName = fileName.toLowerCase(Locale.ROOT);
+        return normName.endsWith(GroovyScripts.EXTENSION)
+                || normName.endsWith(KotlinScripts.EXTENSION);
+    }
+
+    private final class InvalidatorListener implements FileChangeListener {
+        private void invalidateIfNeeded(FileEvent fe) {
+            FileObject file = fe.getFile();
+            boolean directory = file.isFolder();
+            if (!directory && !isScriptFileName(file.getNameExt())) {
+                return;
+            }
+
+            Path path = NbFileUtils.asPath(file);
+            if (path == null) {
+                invalidateAll();
+                return;
+            }
+
+            invalidate(path, directory);
+        }
+
+        @Override
+        public void fileFolderCreated(FileEvent fe) {
+            invalidateIfNeeded(fe);
+        }
+
+        @Override
+        public void fileDataCreated(FileEvent fe) {
+            invalidateIfNeeded(fe);
+        }
+
+        @Override
+        public void fileChanged(FileEvent fe) {
+        }
+
+        @Override
+        public void fileDeleted(FileEvent fe) {
+            invalidateIfNeeded(fe);
+        }
+
+        @Override
+        public void fileRenamed(FileRenameEvent fe) {
+            String oldName = fe.getName();
+            String oldExt = fe.getExt();
+            String oldNameExt = oldExt.isEmpty() ? oldName : oldName + "." + oldExt;
+
+            FileObject file = fe.getFile();
+            boolean directory = file.isFolder();
+            if (!directory && !isScriptFileName(file.getNameExt()) && !isScriptFileName(oldNameExt)) {
+                return;
+            }
+
+            Path path = NbFileUtils.asPath(file);
+            if (path == null) {
+                invalidateAll();
+                return;
+            }
+
+            invalidate(path, directory);
+            invalidate(path.resolveSibling(oldNameExt), directory);
+        }
+
+        @Override
+        public void fileAttributeChanged(FileAttributeEvent fe) {
+        }
+    }
+
+    private static final class ProbeResult<V> {
+        private final V value;
+        private final long probeTime;
+
+        public ProbeResult(V value, long probeTime) {
+            this.value = value;
+            this.probeTime = probeTime;
+        }
+
+        public boolean isValid(long currentTime) {
+            return currentTime - probeTime < MAX_AGE_NANOS;
+        }
+    }
+
+    /**
+     * Compares paths name by name, so that the paths within a directory
+     * immediately follow the directory itself.
+     */
+    private static int comparePaths(Path path1, Path path2) {
+        Path root1 = path1.getRoot();
+        Path root2 = path2.getRoot();
+        if (root1 == null || root2 == null) {
+            if (root1 != root2) {
+                return root1 == null ? -1 : 1;
+            }
+        }
+        else {
+            int rootCmp = root1.compareTo(root2);
+            if (rootCmp != 0) {
+                return rootCmp;
+            }
+        }
+
+        int nameCount1 = path1.getNameCount();
+        int nameCount2 = path2.getNameCount();
+        int commonCount = Math.min(nameCount1, nameCount2);
+        for (int i = 0; i < commonCount; i++) {
+            int nameCmp = path1.getName(i).compareTo(path2.getName(i));
+            if (nameCmp != 0) {
+                return nameCmp;
+            }
+        }
+        return Integer.compare(nameCount1, nameCount2);
+    }
+
+    /**
+     * A concurrent map of probe results whose keys are ordered by a path, so
+     * that the results for a whole directory can be removed without visiting
+     * the unrelated entries.
+     */
+    private static abstract class ProbeResultMap<K, V> {
+        private final ConcurrentNavigableMap<K, ProbeResult<V>> results;
+        // ConcurrentSkipListMap.size() is not a constant time operation.
+        private final AtomicInteger entryCount;
+
+        public ProbeResultMap(Comparator<? super K> keyOrder) {
+            this.results = new ConcurrentSkipListMap<>(keyOrder);
+            this.entryCount = new AtomicInteger(0);
+        }
+
+        protected abstract Path getPath(K key);
+
+        /**
+         * Returns the key preceding every other key with the given path or a
+         * path within it.
+         */
+        protected abstract K getFirstKeyOfPath(Path path);
+
+        public ProbeResult<V> get(K key) {
+            return results.get(key);
+        }
+
+        public int size() {
+            return entryCount.get();
+        }
+
+        public void put(K key, ProbeResult<V> result) {
+            if (results.put(key, result) == null) {
+                entryCount.incrementAndGet();
+            }
+        }
+
+        public void remove(K key) {
+            if (results.remove(key) != null) {
+                entryCount.decrementAndGet();
+            }
+        }
+
+        public void remove(K key, ProbeResult<V> result) {
+            if (results.remove(key, result)) {
+                entryCount.decrementAndGet();
+            }
+        }
+
+        public void removeSubtree(Path dir) {
+            for (K key: results.tailMap(getFirstKeyOfPath(dir)).keySet()) {
+                if (!getPath(key).startsWith(dir)) {
+                    break;
+                }
+                remove(key);
+            }
+        }
+
+        public void clear() {
+            for (K key: results.keySet()) {
+                remove(key);
+            }
+        }
+    }
+
+    private static final class NearestKey {
+        private final Path baseDir;
+        private final String baseName;
+
+        public NearestKey(Path baseDir, String baseName) {
+            this.baseDir = baseDir;
+            this.baseName = baseName;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 53 * hash + baseDir.hashCode();
+            hash = 53 * hash + baseName.hashCode();
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final NearestKey other = (NearestKey)obj;
+            return Objects.equals(this.baseDir, other.baseDir)
+                    && Objects.equals(this.baseName, other.baseName);
+        }
+    }
+}
@@ -10,6 +10,7 @@ public interface ScriptFileProvider {
     public boolean isScriptFileName(String fileName);
 
     public Path findScriptFile(Path baseDir, String baseName);
+    public Path findScriptFileInDirOrParents(Path baseDir, String baseName);
     public Iterable<Path> findScriptFiles(Path baseDir, String baseName);
 
     public Collection<Path> findScriptFiles(
@@ -25,11 +25,8 @@ import java.util.logging.Logger;
 import javax.swing.SwingUtilities;
 import org.gradle.tooling.BuildLauncher;
 import org.gradle.tooling.GradleConnector;
-import org.gradle.tooling.ModelBuilder;
 import org.gradle.tooling.ProjectConnection;
 import org.gradle.tooling.internal.consumer.DefaultCancellationTokenSource;
-import org.gradle.tooling.model.build.BuildEnvironment;
-import org.gradle.util.GradleVersion;
 import org.jtrim.cancel.Cancellation;
 import org.jtrim.cancel.CancellationSource;
 import org.jtrim.cancel.CancellationToken;
@@ -39,7 +36,7 @@ import org.jtrim.event.ListenerRef;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.progress.ProgressHandle;
 import org.netbeans.gradle.model.OperationInitializer;
-import org.netbeans.gradle.model.util.TemporaryFileManager;
+import org.netbeans.gradle.model.util.ContentAddressedFileStore;
 import org.netbeans.gradle.model.util.TemporaryFileRef;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbStrings;
@@ -54,11 +51,15 @@ import org.netbeans.gradle.project.api.task.GradleCommandContext;
 import org.netbeans.gradle.project.api.task.GradleCommandService;
 import org.netbeans.gradle.project.api.task.GradleCommandServiceFactory;
 import org.netbeans.gradle.project.api.task.GradleTargetVerifier;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.model.CachedBuildEnvironment;
 import org.netbeans.gradle.project.model.DefaultGradleModelLoader;
 import org.netbeans.gradle.project.model.DefaultModelBuilderSetup;
+import org.netbeans.gradle.project.output.AsyncLineHandler;
 import org.netbeans.gradle.project.output.BuildErrorConsumer;
+import org.netbeans.gradle.project.output.FileExistenceCache;
 import org.netbeans.gradle.project.output.FileLineConsumer;
 import org.netbeans.gradle.project.output.IOTabRef;
 import org.netbeans.gradle.project.output.IOTabs;
@@ -88,6 +89,7 @@ import org.netbeans.gradle.project.util.StringUtils;
 import org.netbeans.spi.project.ui.support.BuildExecutionSupport;
 import org.openide.LifecycleManager;
 import org.openide.filesystems.FileObject;
+import org.openide.windows.InputOutput;
 import org.openide.windows.OutputWriter;
 
 public final class AsyncGradleTask implements Runnable {
@@ -195,7 +197,7 @@ public final class AsyncGradleTask implements Runnable {
                     }
                     else {
                         String scriptContent = scriptQuery.getInitScript();
-                        results.add(TemporaryFileManager.getDefault().createFile(
+                        results.add(ContentAddressedFileStore.getDefault().createFile(
                                 "task-init-script", scriptContent, StringUtils.UTF8));
                     }
                 } catch (Throwable ex) {
@@ -264,37 +266,57 @@ public final class AsyncGradleTask implements Runnable {
         }
     }
 
+    private static AsyncLineHandler createOutputHandler(
+            InputOutput ioParent,
+            OutputWriter output,
+            TaskOutputProcessor listener,
+            List<SmartOutputHandler.Consumer> consumers) {
+
+        List<TaskOutputProcessor> listeners = Collections.singletonList(listener);
+        return new AsyncLineHandler(new SmartOutputHandler(ioParent, output, listeners, consumers));
+    }
+
     private static OutputRef configureOutput(
             NbGradleProject project,
             GradleTaskDef taskDef,
             BuildLauncher buildLauncher,
             TaskIOTab tab) {
 
+        // The link finders are shared by stdout and stderr, so that
+        // they do not have to resolve the same links twice.
+        FileExistenceCache fileCache = new FileExistenceCache();
+        StackTraceConsumer stackTraceConsumer = new StackTraceConsumer(project);
+        OutputUrlConsumer outputUrlConsumer = new OutputUrlConsumer();
+        ProjectFileConsumer projectFileConsumer = new ProjectFileConsumer(project, fileCache);
+
         List<SmartOutputHandler.Consumer> outputConsumers = new ArrayList<>();
         outputConsumers.add(new OutputLinkPrinter(
-                new StackTraceConsumer(project),
-                new OutputUrlConsumer(),
-                new ProjectFileConsumer(project)));
+                stackTraceConsumer,
+                outputUrlConsumer,
+                projectFileConsumer));
 
         List<SmartOutputHandler.Consumer> errorConsumers = new ArrayList<>();
         errorConsumers.add(new BuildErrorConsumer());
         errorConsumers.add(new OutputLinkPrinter(
-                new StackTraceConsumer(project),
-                new OutputUrlConsumer(),
-                new ProjectFileConsumer(project),
-                new FileLineConsumer()));
+                stackTraceConsumer,
+                outputUrlConsumer,
+                projectFileConsumer,
+                new FileLineConsumer(fileCache)));
 
         InputOutputWrapper io = tab.getIo();
-        Writer forwardedStdOut = new LineOutputWriter(new SmartOutputHandler(
+        AsyncLineHandler stdOutHandler = createOutputHandler(
                 io.getIo(),
                 io.getOutRef(),
-                Arrays.asList(taskDef.getStdOutListener(project)),
-                outputConsumers));
-        Writer forwardedStdErr = new LineOutputWriter(new SmartOutputHandler(
+                taskDef.getStdOutListener(project),
+                outputConsumers);
+        AsyncLineHandler stdErrHandler = createOutputHandler(
                 io.getIo(),
                 io.getErrRef(),
-                Arrays.asList(taskDef.getStdErrListener(project)),
-                errorConsumers));
+                taskDef.getStdErrListener(project),
+                errorConsumers);
+
+        Writer forwardedStdOut = new LineOutputWriter(stdOutHandler);
+        Writer forwardedStdErr = new LineOutputWriter(stdErrHandler);
 
         buildLauncher.setStandardOutput(new WriterOutputStream(forwardedStdOut));
         buildLauncher.setStandardError(new WriterOutputStream(forwardedStdErr));
@@ -306,7 +328,7 @@ public final class AsyncGradleTask implements Runnable {
 
         buildLauncher.setStandardInput(new ReaderInputStream(input));
 
-        return new OutputRef(forwardedStdOut, forwardedStdErr);
+        return new OutputRef(forwardedStdOut, forwardedStdErr, stdOutHandler, stdErrHandler);
     }
 
     private boolean checkTaskExecutable(
@@ -320,14 +342,12 @@ public final class AsyncGradleTask implements Runnable {
             return true;
         }
 
-        ModelBuilder<BuildEnvironment> envGetter = projectConnection.model(BuildEnvironment.class);
-        DefaultGradleModelLoader.setupLongRunningOP(targetSetup, envGetter);
-
-        BuildEnvironment buildEnv = envGetter.get();
+        CachedBuildEnvironment buildEnv
+                = DefaultGradleModelLoader.getBuildEnvironment(project, projectConnection, targetSetup);
 
         GradleTarget gradleTarget = new GradleTarget(
                     targetSetup.getJDKVersion(),
-                    GradleVersion.version(buildEnv.getGradle().getGradleVersion()));
+                    buildEnv.getGradleVersion());
 
         return targetVerifier.checkTaskExecutable(gradleTarget, io.getOutRef(), io.getErrRef());
     }
@@ -471,8 +491,6 @@ public final class AsyncGradleTask implements Runnable {
 
                         try (OutputRef outputRef = configureOutput(project, taskDef, buildLauncher, tab);
                                 GradleCommandService commandService = commandServiceFactory.startService(cancelToken, commandContext)) {
-                            assert outputRef != null; // Avoid warning
-
                             InputOutputWrapper io = tab.getIo();
                             if (!actionContexts.contains(GradleActionProviderContext.DONT_FOCUS_ON_OUTPUT)) {
                                 io.getIo().select();
@@ -490,6 +508,10 @@ public final class AsyncGradleTask implements Runnable {
                                 configureBuildLauncher(targetSetup, buildLauncher, finalTaskDef, initScripts);
                                 runBuild(cancelToken, buildLauncher);
 
+                                // The output is processed asynchronously, so we
+                                // have to wait for it before printing anything else.
+                                outputRef.close();
+
                                 taskDef.getSuccessfulCommandFinalizer().finalizeSuccessfulCommand(
                                         buildOutput,
                                         io.getErrRef());
@@ -838,18 +860,22 @@ public final class AsyncGradleTask implements Runnable {
     }
 
     private static class OutputRef implements Closeable {
-        private final Writer[] writers;
+        private final Closeable[] outputs;
 
-        public OutputRef(Writer... writers) {
-            this.writers = writers.clone();
+        public OutputRef(Closeable... outputs) {
+            this.outputs = outputs.clone();
 
-            ExceptionHelper.checkNotNullElements(this.writers, "writers");
+            ExceptionHelper.checkNotNullElements(this.outputs, "outputs");
         }
 
+        /**
+         * Closes the writers and waits until every line they received is
+         * printed. This method is idempotent.
+         */
         @Override
         public void close() throws IOException {
-            for (Writer writer: writers) {
-                writer.close();
+            for (Closeable output: outputs) {
+                output.close();
             }
         }
     }
@@ -593,9 +593,11 @@ public final class GradleTaskDef {
             CustomCommandActions customActions,
             Lookup actionContext) {
 
-        StringResolver strResolver = StringResolvers.getDefaultResolverSelector().getProjectResolver(project, actionContext);
-
+        // Use the same variable map for the template and the task, so that
+        // variables are not evaluated twice.
         TaskVariableMap varReplaceMap = TaskVariableMaps.createProjectActionVariableMap(project, actionContext);
+        StringResolver strResolver = StringResolvers.bindVariableResolver(VariableResolvers.getDefault(), varReplaceMap);
+
         TaskOutputDef caption = getOutputDef(project, customActions.getTaskKind(), command);
         GradleTaskDef.Builder builder = createFromTemplate(caption, command, strResolver);
         addAdditionalArguments(project, actionContext, customActions, strResolver, builder);
@@ -1,7 +1,12 @@
 package org.netbeans.gradle.project.tasks.vars;
 
+import java.util.Map;
+import java.util.Objects;
+import java.util.WeakHashMap;
 import java.util.concurrent.ConcurrentHashMap;
 import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantLock;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.task.TaskVariable;
 import org.netbeans.gradle.project.api.task.TaskVariableMap;
@@ -19,13 +24,47 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
         public VariableDef<ProjectInfo> tryGetDef(TaskVariable variable);
     }
 
+    public interface ProjectStateKeyProvider<ProjectInfo> {
+        /**
+         * Returns an object which is equal to the previously returned object
+         * if and only if the project scoped variables of the project might
+         * not have changed.
+         */
+        public Object getStateKey(ProjectInfo project);
+    }
+
     public static final class VariableDef<ProjectInfo> {
         private final TaskVariable variable;
         private final ValueGetter<ProjectInfo> valueGetter;
+        private final boolean projectScoped;
 
         public VariableDef(TaskVariable variable, ValueGetter<ProjectInfo> valueGetter) {
+            this(variable, valueGetter, false);
+        }
+
+        /**
+         * Creates a new variable definition.
+         *
+         * @param variable the variable defined. This argument cannot be {@code null}.
+         * @param valueGetter the function calculating the value of the variable.
+         *   This argument cannot be {@code null}.
+         * @param projectScoped {@code true} if the value of the variable only
+         *   depends on the state of the project and not on the action context
+         *   or other variables, {@code false} otherwise. The values of project
+         *   scoped variables might be reused by multiple {@code CachingVariableMap}
+         *   instances sharing the same {@link ProjectValueCache}.
+         */
+        public VariableDef(TaskVariable variable, ValueGetter<ProjectInfo> valueGetter, boolean projectScoped) {
+            ExceptionHelper.checkNotNullArgument(variable, "variable");
+            ExceptionHelper.checkNotNullArgument(valueGetter, "valueGetter");
+
             this.variable = variable;
             this.valueGetter = valueGetter;
+            this.projectScoped = projectScoped;
+        }
+
+        public boolean isProjectScoped() {
+            return projectScoped;
         }
 
         public TaskVariable getVariable() {
@@ -52,14 +91,69 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
         }
     }
 
+    /**
+     * Stores the values of project scoped variables of projects until the
+     * state key of the project changes. The projects are only referenced
+     * weakly.
+     */
+    public static final class ProjectValueCache<ProjectInfo> {
+        private final ProjectStateKeyProvider<? super ProjectInfo> stateKeyProvider;
+        private final Lock cacheLock;
+        private final Map<ProjectInfo, ProjectValues> projectValues;
+
+        public ProjectValueCache(ProjectStateKeyProvider<? super ProjectInfo> stateKeyProvider) {
+            ExceptionHelper.checkNotNullArgument(stateKeyProvider, "stateKeyProvider");
+
+            this.stateKeyProvider = stateKeyProvider;
+            this.cacheLock = new ReentrantLock();
+            this.projectValues = new WeakHashMap<>();
+        }
+
+        private ConcurrentMap<TaskVariable, VariableValue> getValues(ProjectInfo project) {
+            Object stateKey = stateKeyProvider.getStateKey(project);
+
+            cacheLock.lock();
+            try {
+                ProjectValues values = projectValues.get(project);
+                if (values == null || !Objects.equals(values.stateKey, stateKey)) {
+                    values = new ProjectValues(stateKey);
+                    projectValues.put(project, values);
+                }
+                return values.values;
+            } finally {
+                cacheLock.unlock();
+            }
+        }
+    }
+
+    private static final class ProjectValues {
+        private final Object stateKey;
+        private final ConcurrentMap<TaskVariable, VariableValue> values;
+
+        public ProjectValues(Object stateKey) {
+            this.stateKey = stateKey;
+            this.values = new ConcurrentHashMap<>();
+        }
+    }
+
     private final ProjectInfo project;
     private final Lookup actionContext;
     private final VariableDefMap<ProjectInfo> taskVariableMap;
+    private final ProjectValueCache<ProjectInfo> projectValueCache;
 
     private final ConcurrentMap<TaskVariable, VariableValue> cache;
+    private volatile ConcurrentMap<TaskVariable, VariableValue> projectCache;
+
+    public CachingVariableMap(
+            VariableDefMap<ProjectInfo> taskVariableMap,
+            ProjectInfo project,
+            Lookup actionContext) {
+        this(taskVariableMap, null, project, actionContext);
+    }
 
     public CachingVariableMap(
             VariableDefMap<ProjectInfo> taskVariableMap,
+            ProjectValueCache<ProjectInfo> projectValueCache,
             ProjectInfo project,
             Lookup actionContext) {
         ExceptionHelper.checkNotNullArgument(taskVariableMap, "taskVariableMap");
@@ -69,7 +163,24 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
         this.project = project;
         this.actionContext = actionContext;
         this.taskVariableMap = taskVariableMap;
+        this.projectValueCache = projectValueCache;
         this.cache = new ConcurrentHashMap<>();
+        this.projectCache = null;
+    }
+
+    private ConcurrentMap<TaskVariable, VariableValue> getCache(VariableDef<ProjectInfo> var) {
+        if (!var.isProjectScoped() || projectValueCache == null) {
+            return cache;
+        }
+
+        // The state key is only checked once, so that all variables of this
+        // map are consistent with each other.
+        ConcurrentMap<TaskVariable, VariableValue> result = projectCache;
+        if (result == null) {
+            result = projectValueCache.getValues(project);
+            projectCache = result;
+        }
+        return result;
     }
 
     @Override
@@ -79,11 +190,13 @@ public final class CachingVariableMap<ProjectInfo> implements TaskVariableMap {
             return null;
         }
 
-        VariableValue result = cache.get(variable);
+        ConcurrentMap<TaskVariable, VariableValue> valueCache = getCache(var);
+
+        VariableValue result = valueCache.get(variable);
         if (result == null) {
             result = var.tryGetValue(this, project, actionContext);
 
-            VariableValue prevResult = cache.putIfAbsent(variable, result);
+            VariableValue prevResult = valueCache.putIfAbsent(variable, result);
             if (prevResult != null) {
                 result = prevResult;
             }
@@ -0,0 +1,166 @@
+package org.netbeans.gradle.project.tasks.vars;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+import org.netbeans.gradle.project.util.StringUtils;
+
+/**
+ * Defines a string split into literal text and variable references. A
+ * {@code CompiledTemplate} is immutable, so it might be reused for every
+ * replacement of variables in the same string.
+ */
+final class CompiledTemplate {
+    private static final Segment[] NO_SEGMENTS = new Segment[0];
+
+    private final String source;
+    private final Segment[] segments;
+    private final int variableCount;
+
+    private CompiledTemplate(String source, Segment[] segments, int variableCount) {
+        this.source = source;
+        this.segments = segments;
+        this.variableCount = variableCount;
+    }
+
+    public static CompiledTemplate compile(String str) {
+        ExceptionHelper.checkNotNullArgument(str, "str");
+
+        List<Segment> segments = null;
+        int variableCount = 0;
+
+        int literalStart = 0;
+        int index = 0;
+        while (index < str.length()) {
+            if (str.charAt(index) == '$') {
+                int varStart = str.indexOf('{', index + 1);
+                int varEnd = varStart >= 0
+                        ? StringUtils.unescapedIndexOf(str, varStart + 1, '}')
+                        : -1;
+                if (varStart >= 0 && varEnd >= varStart) {
+                    String varDef = str.substring(varStart + 1, varEnd);
+                    DisplayedTaskVariable taskVar = LenientVariableResolver.tryParseTaskVariable(varDef);
+
+                    if (taskVar != null) {
+                        if (segments == null) {
+                            segments = new ArrayList<>();
+                        }
+
+                        int nextIndex = varEnd + 1;
+                        if (literalStart < index) {
+                            segments.add(Segment.literal(str, literalStart, index));
+                        }
+                        segments.add(Segment.variable(str, index, nextIndex, taskVar));
+                        variableCount++;
+
+                        index = nextIndex;
+                        literalStart = nextIndex;
+                        continue;
+                    }
+                }
+            }
+            index++;
+        }
+
+        if (segments == null) {
+            return new CompiledTemplate(str, NO_SEGMENTS, 0);
+        }
+
+        if (literalStart < str.length()) {
+            segments.add(Segment.literal(str, literalStart, str.length()));
+        }
+        return new CompiledTemplate(str, segments.toArray(new Segment[segments.size()]), variableCount);
+    }
+
+    public String getSource() {
+        return source;
+    }
+
+    public boolean hasVariables() {
+        return variableCount > 0;
+    }
+
+    public void collectVars(Collection<? super DisplayedTaskVariable> collectedVariables) {
+        for (Segment segment: segments) {
+            if (segment.variable != null) {
+                collectedVariables.add(segment.variable);
+            }
+        }
+    }
+
+    public String replaceVars(TaskVariableMap varReplaceMap, Collection<? super DisplayedTaskVariable> collectedVariables) {
+        if (variableCount == 0) {
+            return source;
+        }
+
+        // The StringBuilder is only created if there is actually something
+        // to be replaced.
+        StringBuilder result = null;
+        for (Segment segment: segments) {
+            if (segment.variable == null) {
+                if (result != null) {
+                    result.append(segment.text);
+                }
+                continue;
+            }
+
+            collectedVariables.add(segment.variable);
+
+            String value = varReplaceMap.tryGetValueForVariable(segment.variable.getVariable());
+            if (value != null) {
+                if (result == null) {
+                    result = new StringBuilder(source.length() * 2);
+                    result.append(source, 0, segment.startIndex);
+                }
+                result.append(value);
+            }
+            else if (result != null) {
+                result.append(segment.text);
+            }
+        }
+        return result != null ? result.toString() : source;
+    }
+
+    public String replaceVarsIfValid(TaskVariableMap varReplaceMap) {
+        if (variableCount == 0) {
+            return source;
+        }
+
+        StringBuilder result = new StringBuilder(source.length() * 2);
+        for (Segment segment: segments) {
+            if (segment.variable == null) {
+                result.append(segment.text);
+                continue;
+            }
+
+            String value = varReplaceMap.tryGetValueForVariable(segment.variable.getVariable());
+            if (value == null) {
+                return null;
+            }
+            result.append(value);
+        }
+        return result.toString();
+    }
+
+    private static final class Segment {
+        private final int startIndex;
+        private final String text;
+        private final DisplayedTaskVariable variable;
+
+        private Segment(int startIndex, String text, DisplayedTaskVariable variable) {
+            this.startIndex = startIndex;
+            this.text = text;
+            this.variable = variable;
+        }
+
+        public static Segment literal(String str, int startIndex, int endIndex) {
+            return new Segment(startIndex, str.substring(startIndex, endIndex), null);
+        }
+
+        public static Segment variable(String str, int startIndex, int endIndex, DisplayedTaskVariable variable) {
+            return new Segment(startIndex, str.substring(startIndex, endIndex), variable);
+        }
+    }
+}
@@ -1,8 +1,8 @@
 package org.netbeans.gradle.project.tasks.vars;
 
-import java.util.ArrayList;
 import java.util.Collection;
-import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import javax.annotation.Nonnull;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.task.TaskVariable;
@@ -15,6 +15,28 @@ final class LenientVariableResolver implements VariableResolver {
     private static final char END_TYPE_CHAR = ']';
     private static final char DISPLAY_NAME_SEPARATOR = ':';
 
+    private static final int MAX_COMPILED_COUNT = 1024;
+
+    private final ConcurrentMap<String, CompiledTemplate> compiledTemplates;
+
+    public LenientVariableResolver() {
+        this.compiledTemplates = new ConcurrentHashMap<>();
+    }
+
+    private CompiledTemplate getCompiledTemplate(String str) {
+        CompiledTemplate result = compiledTemplates.get(str);
+        if (result == null) {
+            result = CompiledTemplate.compile(str);
+            if (compiledTemplates.size() >= MAX_COMPILED_COUNT) {
+                // Templates are usually coming from a few commands, so
+                // there is no need for anything smarter.
+                compiledTemplates.clear();
+            }
+            compiledTemplates.put(str, result);
+        }
+        return result;
+    }
+
     @Override
     public String replaceVars(String str, TaskVariableMap varReplaceMap) {
         return replaceVars(str, varReplaceMap, NbCollectionsEx.getDevNullCollection());
@@ -26,67 +48,24 @@ final class LenientVariableResolver implements VariableResolver {
         ExceptionHelper.checkNotNullArgument(varReplaceMap, "varReplaceMap");
         ExceptionHelper.checkNotNullArgument(collectedVariables, "collectedVariables");
 
-        StringBuilder result = null;
-        int index = 0;
-        while (index < str.length()) {
-            char ch = str.charAt(index);
-            if (ch == '$') {
-                int varStart = str.indexOf('{', index + 1);
-                int varEnd = varStart >= 0
-                        ? StringUtils.unescapedIndexOf(str, varStart + 1, '}')
-                        : -1;
-                if (varStart >= 0 && varEnd >= varStart) {
-                    String varDef = str.substring(varStart + 1, varEnd);
-                    DisplayedTaskVariable taskVar = tryParseTaskVariable(varDef);
-
-                    if (taskVar != null) {
-                        collectedVariables.add(taskVar);
-
-                        int nextIndex = varEnd + 1;
-
-                        String value = varReplaceMap.tryGetValueForVariable(taskVar.getVariable());
-                        if (value != null) {
-                            if (result == null) {
-                                result = new StringBuilder(str.length() * 2);
-                                result.append(str, 0, index);
-                            }
-                            result.append(value);
-                        }
-                        else {
-                            if (result != null) {
-                                result.append(str, index, nextIndex);
-                            }
-                        }
-                        index = nextIndex;
-                        continue;
-                    }
-                }
-            }
-
-            if (result != null) {
-                result.append(ch);
-            }
-
-            index++;
-        }
-        return result != null ? result.toString() : str;
+        return getCompiledTemplate(str).replaceVars(varReplaceMap, collectedVariables);
     }
 
     @Override
     public void collectVars(String str, TaskVariableMap varReplaceMap, Collection<? super DisplayedTaskVariable> collectedVariables) {
-        replaceVars(str, varReplaceMap, collectedVariables);
+        ExceptionHelper.checkNotNullArgument(str, "str");
+        ExceptionHelper.checkNotNullArgument(varReplaceMap, "varReplaceMap");
+        ExceptionHelper.checkNotNullArgument(collectedVariables, "collectedVariables");
+
+        getCompiledTemplate(str).collectVars(collectedVariables);
     }
 
     @Override
     public String replaceVarsIfValid(String str, TaskVariableMap varReplaceMap) {
-        List<DisplayedTaskVariable> vars = new ArrayList<>();
-        String result = replaceVars(str, varReplaceMap, vars);
-        for (DisplayedTaskVariable var: vars) {
-            if (varReplaceMap.tryGetValueForVariable(var.getVariable()) == null) {
-                return null;
-            }
-        }
-        return result;
+        ExceptionHelper.checkNotNullArgument(str, "str");
+        ExceptionHelper.checkNotNullArgument(varReplaceMap, "varReplaceMap");
+
+        return getCompiledTemplate(str).replaceVarsIfValid(varReplaceMap);
     }
 
     public static DisplayedTaskVariable tryParseTaskVariable(String varDef) {
@@ -2,6 +2,7 @@ package org.netbeans.gradle.project.tasks.vars;
 
 import java.io.File;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.logging.Level;
@@ -34,7 +35,7 @@ public enum StandardTaskVariable {
             String uniqueName = project.currentModel().getValue().getMainProject().getProjectFullName();
             return new VariableValue(uniqueName);
         }
-    }),
+    }, true),
     PROJECT_PATH_NORMALIZED("project", new ValueGetter<NbGradleProject>() {
         @Override
         public VariableValue getValue(TaskVariableMap variables, NbGradleProject project, Lookup actionContext) {
@@ -44,7 +45,7 @@ public enum StandardTaskVariable {
             }
             return new VariableValue(uniqueName);
         }
-    }),
+    }, true),
     SELECTED_CLASS("selected-class", new ValueGetter<NbGradleProject>() {
         @Override
         public VariableValue getValue(TaskVariableMap variables, NbGradleProject project, Lookup actionContext) {
@@ -105,7 +106,7 @@ public enum StandardTaskVariable {
                     ? FileUtil.getFileDisplayName(rootFolder)
                     : null);
         }
-    }),
+    }, true),
     TEST_TASK_NAME("test-task-name", new ValueGetter<NbGradleProject>() {
         @Override
         public VariableValue getValue(TaskVariableMap variables, NbGradleProject project, Lookup actionContext) {
@@ -132,6 +133,16 @@ public enum StandardTaskVariable {
     private static final Logger LOGGER = Logger.getLogger(StandardTaskVariable.class.getName());
     private static final CachingVariableMap.VariableDefMap<NbGradleProject> TASK_VARIABLE_MAP
             = createStandardMap();
+    private static final CachingVariableMap.ProjectValueCache<NbGradleProject> PROJECT_VALUE_CACHE
+            = new CachingVariableMap.ProjectValueCache<>(new CachingVariableMap.ProjectStateKeyProvider<NbGradleProject>() {
+                @Override
+                public Object getStateKey(NbGradleProject project) {
+                    // The project scoped variables only depend on these.
+                    return Arrays.asList(
+                            project.currentModel().getValue(),
+                            project.getCommonProperties().targetPlatform().getActiveValue());
+                }
+            });
 
     private static VariableValue getClassNameForFile(NbGradleProject project, FileObject file) {
         SourceGroup[] sourceGroups = ProjectUtils.getSources(project)
@@ -221,15 +232,21 @@ public enum StandardTaskVariable {
 
     public static TaskVariableMap createVarReplaceMap(
             NbGradleProject project, Lookup actionContext) {
-        return new CachingVariableMap<>(TASK_VARIABLE_MAP, project, actionContext);
+        return new CachingVariableMap<>(TASK_VARIABLE_MAP, PROJECT_VALUE_CACHE, project, actionContext);
     }
 
     private final TaskVariable variable;
     private final ValueGetter<NbGradleProject> valueGetter;
+    private final boolean projectScoped;
 
     private StandardTaskVariable(String variableName, ValueGetter<NbGradleProject> valueGetter) {
+        this(variableName, valueGetter, false);
+    }
+
+    private StandardTaskVariable(String variableName, ValueGetter<NbGradleProject> valueGetter, boolean projectScoped) {
         this.variable = new TaskVariable(variableName);
         this.valueGetter = valueGetter;
+        this.projectScoped = projectScoped;
     }
 
     public TaskVariable getVariable() {
@@ -263,6 +280,6 @@ public enum StandardTaskVariable {
     }
 
     private VariableDef<NbGradleProject> asVariableDef() {
-        return new VariableDef<>(variable, valueGetter);
+        return new VariableDef<>(variable, valueGetter, projectScoped);
     }
 }
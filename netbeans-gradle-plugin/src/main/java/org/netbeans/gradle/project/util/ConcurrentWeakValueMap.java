@@ -0,0 +1,235 @@
+package org.netbeans.gradle.project.util;
+
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+import org.jtrim.event.CopyOnTriggerListenerManager;
+import org.jtrim.event.EventDispatcher;
+import org.jtrim.event.ListenerManager;
+import org.jtrim.event.ListenerRef;
+import org.jtrim.utils.ExceptionHelper;
+
+/**
+ * Defines a thread-safe map which only keeps weak references to its values.
+ * Reads do not need any lock and entries whose value has been garbage collected
+ * are removed by a shared background thread (so they are removed even if the
+ * map is never written again).
+ * <P>
+ * Listeners might be registered to be notified when a key is mapped to a new
+ * value or when a mapping is removed (including removal due to the value being
+ * garbage collected). Listeners are called after the map has been updated, and
+ * notifications of concurrent updates might be seen in any order. So, when the
+ * order matters, listeners should check the current content of the map.
+ *
+ * @param <K> the type of the keys of this map
+ * @param <V> the type of the values of this map
+ */
+public final class ConcurrentWeakValueMap<K, V> {
+    private static final Logger LOGGER = Logger.getLogger(ConcurrentWeakValueMap.class.getName());
+
+    private static final ReferenceQueue<Object> REFERENCES = new ReferenceQueue<>();
+    private static final Object EXPUNGE_THREAD_LOCK = new Object();
+    private static Thread expungeThread = null;
+
+    private final ConcurrentMap<K, ValueRef<K, V>> wrappedMap;
+    private final ListenerManager<EntryListener<? super K, ? super V>> listeners;
+
+    public ConcurrentWeakValueMap() {
+        this.wrappedMap = new ConcurrentHashMap<>();
+        this.listeners = new CopyOnTriggerListenerManager<>();
+    }
+
+    private static void ensureExpungeThread() {
+        synchronized (EXPUNGE_THREAD_LOCK) {
+            if (expungeThread != null) {
+                return;
+            }
+
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    expungeForever();
+                }
+            }, "Weak-Value-Map-Expunger");
+            thread.setDaemon(true);
+            thread.start();
+
+            expungeThread = thread;
+        }
+    }
+
+    private static void expungeForever() {
+        while (true) {
+            try {
+                ValueRef<?, ?> ref = (ValueRef<?, ?>)REFERENCES.remove();
+                ref.expunge();
+            } catch (InterruptedException ex) {
+                // Nobody is supposed to interrupt this thread but ignore it
+                // anyway because we must not stop expunging.
+                LOGGER.log(Level.INFO, "Unexpected interrupt of the weak value expunger thread.", ex);
+            } catch (Throwable ex) {
+                LOGGER.log(Level.SEVERE, "Unexpected failure while removing an unreferenced value.", ex);
+            }
+        }
+    }
+
+    public ListenerRef addEntryListener(EntryListener<? super K, ? super V> listener) {
+        ExceptionHelper.checkNotNullArgument(listener, "listener");
+        return listeners.registerListener(listener);
+    }
+
+    /**
+     * Maps the given key to the given value, replacing the previous value
+     * of the key (if there was any).
+     *
+     * @param key the key to be mapped to the value. This argument cannot be
+     *   {@code null}.
+     * @param value the value to be mapped to the key. This argument cannot be
+     *   {@code null}.
+     * @return the previous (still not garbage collected) value mapped to the
+     *   given key or {@code null} if there was no such value
+     */
+    public V put(K key, V value) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+        ExceptionHelper.checkNotNullArgument(value, "value");
+
+        ensureExpungeThread();
+
+        ValueRef<K, V> prevRef = wrappedMap.put(key, new ValueRef<>(this, key, value));
+        V prevValue = prevRef != null ? prevRef.get() : null;
+
+        if (prevValue != value) {
+            listeners.onEvent(AddedDispatcher.INSTANCE, new AbstractMap.SimpleImmutableEntry<>(key, value));
+        }
+        return prevValue;
+    }
+
+    public V remove(K key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        ValueRef<K, V> prevRef = wrappedMap.remove(key);
+        if (prevRef == null) {
+            return null;
+        }
+
+        notifyRemoved(key);
+        return prevRef.get();
+    }
+
+    public V get(K key) {
+        ExceptionHelper.checkNotNullArgument(key, "key");
+
+        ValueRef<K, V> ref = wrappedMap.get(key);
+        return ref != null ? ref.get() : null;
+    }
+
+    public boolean isEmpty() {
+        return wrappedMap.isEmpty();
+    }
+
+    /**
+     * Returns the number of entries in this map. The returned value might
+     * include entries whose values were already garbage collected but not
+     * yet removed.
+     *
+     * @return the number of entries in this map
+     */
+    public int size() {
+        return wrappedMap.size();
+    }
+
+    /**
+     * Returns the values currently stored in this map. The returned list is
+     * a snapshot and is not updated when this map is modified.
+     *
+     * @return the values currently stored in this map. This method never
+     *   returns {@code null}.
+     */
+    public List<V> valuesSnapshot() {
+        List<V> result = new ArrayList<>(wrappedMap.size());
+        for (ValueRef<K, V> ref: wrappedMap.values()) {
+            V value = ref.get();
+            if (value != null) {
+                result.add(value);
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Calls the given action for each value in this map. Values added or
+     * removed concurrently might or might not be passed to the action.
+     *
+     * @param action the action to be called for each value. This argument
+     *   cannot be {@code null}.
+     */
+    public void forEachValue(NbConsumer<? super V> action) {
+        ExceptionHelper.checkNotNullArgument(action, "action");
+
+        for (ValueRef<K, V> ref: wrappedMap.values()) {
+            V value = ref.get();
+            if (value != null) {
+                action.accept(value);
+            }
+        }
+    }
+
+    private void expunge(ValueRef<K, V> ref) {
+        // The key might have been mapped to a new value since.
+        if (wrappedMap.remove(ref.key, ref)) {
+            notifyRemoved(ref.key);
+        }
+    }
+
+    private void notifyRemoved(K key) {
+        listeners.onEvent(RemovedDispatcher.INSTANCE, key);
+    }
+
+    public interface EntryListener<K, V> {
+        public void onAdded(K key, V value);
+        public void onRemoved(K key);
+    }
+
+    private static final class ValueRef<K, V> extends WeakReference<V> {
+        private final ConcurrentWeakValueMap<K, V> owner;
+        private final K key;
+
+        public ValueRef(ConcurrentWeakValueMap<K, V> owner, K key, V value) {
+            super(value, REFERENCES);
+
+            this.owner = owner;
+            this.key = key;
+        }
+
+        public void expunge() {
+            owner.expunge(this);
+        }
+    }
+
+    private enum AddedDispatcher implements EventDispatcher<EntryListener<?, ?>, Map.Entry<?, ?>> {
+        INSTANCE;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onEvent(EntryListener<?, ?> eventListener, Map.Entry<?, ?> arg) {
+            ((EntryListener<Object, Object>)eventListener).onAdded(arg.getKey(), arg.getValue());
+        }
+    }
+
+    private enum RemovedDispatcher implements EventDispatcher<EntryListener<?, ?>, Object> {
+        INSTANCE;
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void onEvent(EntryListener<?, ?> eventListener, Object arg) {
+            ((EntryListener<Object, ?>)eventListener).onRemoved(arg);
+        }
+    }
+}
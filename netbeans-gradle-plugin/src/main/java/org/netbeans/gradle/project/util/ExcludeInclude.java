@@ -43,13 +43,20 @@ public final class ExcludeInclude {
     }
 
     private static boolean matchesAntPattern(Path path, String pattern) {
-        FileSystem fileSystem = path.getFileSystem();
-        PathMatcher matcher = fileSystem.getPathMatcher(toMatchStr(pattern));
+        PathMatcher matcher = getAntPatternMatcher(path.getFileSystem(), pattern);
         return matcher.matches(path);
     }
 
+    static PathMatcher getAntPatternMatcher(FileSystem fileSystem, String pattern) {
+        return fileSystem.getPathMatcher(toMatchStr(pattern));
+    }
+
+    static String normalizePattern(String pattern) {
+        return pattern.replace("\\\\", "/");
+    }
+
     private static String toMatchStr(String pattern) {
-        String normPattern = pattern.replace("\\\\", "/");
+        String normPattern = normalizePattern(pattern);
 
         // 7 = "glob:".length() + "**".length()
         StringBuilder result = new StringBuilder(pattern.length() + 7);
@@ -0,0 +1,306 @@
+package org.netbeans.gradle.project.util;
+
+import java.nio.file.FileSystem;
+import java.nio.file.Path;
+import java.nio.file.PathMatcher;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicReference;
+import org.jtrim.utils.ExceptionHelper;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+
+/**
+ * Defines a matcher deciding if a file is included by a given set of Ant style
+ * include and exclude patterns. The rules are classified when the matcher is
+ * created, so that the common cases do not need to evaluate the patterns:
+ * <ul>
+ *  <li>{@link Kind#ALLOW_ALL}: There are no patterns at all.</li>
+ *  <li>
+ *   {@link Kind#PREFIX_EXCLUDES}: There are only exclude patterns, each naming
+ *   a path relative to the root without wildcards (e.g.: "gen/" or "gen/**").
+ *   Files are matched by looking up the file and its parent directories in a
+ *   hash set, so an excluded directory excludes every file beneath it without
+ *   evaluating any pattern. The excluded paths are resolved once for each
+ *   root the matcher is used with.
+ *  </li>
+ *  <li>
+ *   {@link Kind#GENERAL}: Any other combination of patterns. The patterns are
+ *   compiled only once (per file system).
+ *  </li>
+ * </ul>
+ * <P>
+ * The matcher gives the same result as
+ * {@link ExcludeInclude#includeFile(Path, Path, Collection, Collection) ExcludeInclude.includeFile}.
+ * <P>
+ * Instances of this class are safe to be used by multiple threads concurrently.
+ */
+public final class ExcludeIncludeMatcher {
+    public enum Kind {
+        ALLOW_ALL,
+        PREFIX_EXCLUDES,
+        GENERAL
+    }
+
+    // A matcher is shared by the roots of a source group, which are usually
+    // only a few.
+    private static final int MAX_CACHED_ROOTS = 32;
+
+    private static final ExcludeIncludeMatcher ALLOW_ALL = new ExcludeIncludeMatcher(
+            Kind.ALLOW_ALL,
+            SourceIncludePatterns.ALLOW_ALL,
+            Collections.<String>emptyList(),
+            Collections.<String>emptyList());
+
+    private final Kind kind;
+    private final SourceIncludePatterns patterns;
+    private final List<String> exactExcludes;
+    private final List<String> dirExcludes;
+
+    private final ConcurrentMap<Path, PrefixRules> prefixRulesByRoot;
+    private final AtomicReference<PatternRules> patternRulesRef;
+
+    private ExcludeIncludeMatcher(
+            Kind kind,
+            SourceIncludePatterns patterns,
+            List<String> exactExcludes,
+            List<String> dirExcludes) {
+        this.kind = kind;
+        this.patterns = patterns;
+        this.exactExcludes = exactExcludes;
+        this.dirExcludes = dirExcludes;
+        this.prefixRulesByRoot = new ConcurrentHashMap<>();
+        this.patternRulesRef = new AtomicReference<>(null);
+    }
+
+    public static ExcludeIncludeMatcher create(SourceIncludePatterns patterns) {
+        ExceptionHelper.checkNotNullArgument(patterns, "patterns");
+
+        if (patterns.isAllowAll()) {
+            return ALLOW_ALL;
+        }
+
+        if (patterns.getIncludePatterns().isEmpty()) {
+            List<String> exactExcludes = new ArrayList<>();
+            List<String> dirExcludes = new ArrayList<>();
+            if (tryClassifyPrefixes(patterns.getExcludePatterns(), exactExcludes, dirExcludes)) {
+                return new ExcludeIncludeMatcher(Kind.PREFIX_EXCLUDES, patterns, exactExcludes, dirExcludes);
+            }
+        }
+
+        return new ExcludeIncludeMatcher(
+                Kind.GENERAL,
+                patterns,
+                Collections.<String>emptyList(),
+                Collections.<String>emptyList());
+    }
+
+    private static boolean tryClassifyPrefixes(
+            Collection<String> excludePatterns,
+            List<String> exactExcludes,
+            List<String> dirExcludes) {
+
+        for (String pattern: excludePatterns) {
+            String path = ExcludeInclude.normalizePattern(pattern);
+
+            boolean dirPattern;
+            if (path.endsWith("/")) {
+                dirPattern = true;
+                path = path.substring(0, path.length() - 1);
+            }
+            else if (path.endsWith("/**")) {
+                dirPattern = true;
+                path = path.substring(0, path.length() - 3);
+            }
+            else {
+                dirPattern = false;
+            }
+
+            if (path.startsWith("/")) {
+                path = path.substring(1);
+            }
+
+            if (!isLiteralPath(path)) {
+                return false;
+            }
+
+            if (dirPattern) {
+                dirExcludes.add(path);
+            }
+            else {
+                exactExcludes.add(path);
+            }
+        }
+        return true;
+    }
+
+    private static boolean isLiteralPath(String path) {
+        if (path.isEmpty() || path.startsWith("/") || path.endsWith("/") || path.contains("//")) {
+            return false;
+        }
+
+        for (int i = 0; i < path.length(); i++) {
+            switch (path.charAt(i)) {
+                case '*':
+                case '?':
+                case '[':
+                case ']':
+                case '{':
+                case '}':
+                case '\\':
+                    return false;
+                default:
+                    break;
+            }
+        }
+
+        for (String name: path.split("/")) {
+            if (name.equals(".") || name.equals("..")) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    public Kind getKind() {
+        return kind;
+    }
+
+    public boolean isAllowAll() {
+        return kind == Kind.ALLOW_ALL;
+    }
+
+    public boolean isIncluded(Path rootPath, Path file) {
+        ExceptionHelper.checkNotNullArgument(rootPath, "rootPath");
+        ExceptionHelper.checkNotNullArgument(file, "file");
+
+        Path absoluteRoot = rootPath.toAbsolutePath();
+        Path testedPath = file.toAbsolutePath();
+
+        switch (kind) {
+            case ALLOW_ALL:
+                return testedPath.startsWith(absoluteRoot);
+            case PREFIX_EXCLUDES:
+                return getPrefixRules(absoluteRoot).isIncluded(testedPath);
+            default:
+                if (!testedPath.startsWith(absoluteRoot)) {
+                    return false;
+                }
+                Path relTestedPath = absoluteRoot.relativize(testedPath);
+                return getPatternRules(relTestedPath.getFileSystem()).isIncluded(relTestedPath);
+        }
+    }
+
+    private PrefixRules getPrefixRules(Path absoluteRoot) {
+        PrefixRules result = prefixRulesByRoot.get(absoluteRoot);
+        if (result == null) {
+            if (prefixRulesByRoot.size() >= MAX_CACHED_ROOTS) {
+                prefixRulesByRoot.clear();
+            }
+
+            result = new PrefixRules(absoluteRoot, exactExcludes, dirExcludes);
+            PrefixRules prevResult = prefixRulesByRoot.putIfAbsent(absoluteRoot, result);
+            if (prevResult != null) {
+                result = prevResult;
+            }
+        }
+        return result;
+    }
+
+    private PatternRules getPatternRules(FileSystem fileSystem) {
+        PatternRules result = patternRulesRef.get();
+        if (result == null || result.fileSystem != fileSystem) {
+            result = new PatternRules(fileSystem, patterns);
+            patternRulesRef.set(result);
+        }
+        return result;
+    }
+
+    /**
+     * The excluded paths resolved against a particular root, so that a file
+     * can be checked by walking its parents without relativizing its path.
+     */
+    private static final class PrefixRules {
+        private final Path root;
+        private final Set<Path> exactExcludes;
+        private final Set<Path> dirExcludes;
+
+        public PrefixRules(Path root, List<String> exactExcludes, List<String> dirExcludes) {
+            this.root = root;
+            this.exactExcludes = resolveAll(root, exactExcludes);
+            this.dirExcludes = resolveAll(root, dirExcludes);
+        }
+
+        private static Set<Path> resolveAll(Path root, List<String> paths) {
+            Set<Path> result = new HashSet<>();
+            for (String path: paths) {
+                result.add(root.resolve(path));
+            }
+            return result;
+        }
+
+        public boolean isIncluded(Path file) {
+            if (exactExcludes.contains(file)) {
+                return false;
+            }
+
+            Path parent = file;
+            while (parent != null) {
+                if (parent.equals(root)) {
+                    return true;
+                }
+
+                parent = parent.getParent();
+                if (parent != null && dirExcludes.contains(parent)) {
+                    return false;
+                }
+            }
+            // Not within the root.
+            return false;
+        }
+    }
+
+    private static final class PatternRules {
+        private final FileSystem fileSystem;
+        private final List<PathMatcher> excludeMatchers;
+        private final List<PathMatcher> includeMatchers;
+
+        public PatternRules(FileSystem fileSystem, SourceIncludePatterns patterns) {
+            this.fileSystem = fileSystem;
+            this.excludeMatchers = toMatchers(fileSystem, patterns.getExcludePatterns());
+            this.includeMatchers = toMatchers(fileSystem, patterns.getIncludePatterns());
+        }
+
+        private static List<PathMatcher> toMatchers(FileSystem fileSystem, Collection<String> patterns) {
+            List<PathMatcher> result = new ArrayList<>(patterns.size());
+            for (String pattern: patterns) {
+                result.add(ExcludeInclude.getAntPatternMatcher(fileSystem, pattern));
+            }
+            return result;
+        }
+
+        private static boolean matchesAny(Path path, List<PathMatcher> matchers) {
+            for (PathMatcher matcher: matchers) {
+                if (matcher.matches(path)) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        public boolean isIncluded(Path relPath) {
+            if (!includeMatchers.isEmpty()) {
+                if (!matchesAny(relPath, includeMatchers)) {
+                    return false;
+                }
+            }
+
+            return !matchesAny(relPath, excludeMatchers);
+        }
+    }
+}
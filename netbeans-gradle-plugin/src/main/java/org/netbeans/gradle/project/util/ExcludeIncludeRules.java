@@ -19,10 +19,12 @@ public final class ExcludeIncludeRules implements FileGroupFilter, Serializable
             SourceIncludePatterns.ALLOW_ALL);
 
     private final SourceIncludePatterns sourceIncludePatterns;
+    private final transient ExcludeIncludeMatcher matcher;
 
     private ExcludeIncludeRules(SourceIncludePatterns sourceIncludePatterns) {
         ExceptionHelper.checkNotNullArgument(sourceIncludePatterns, "sourceIncludePatterns");
         this.sourceIncludePatterns = sourceIncludePatterns;
+        this.matcher = ExcludeIncludeMatcher.create(sourceIncludePatterns);
     }
 
     public static ExcludeIncludeRules create(SourceIncludePatterns sourceIncludePatterns) {
@@ -39,7 +41,7 @@ public final class ExcludeIncludeRules implements FileGroupFilter, Serializable
 
     @Override
     public boolean isAllowAll() {
-        return sourceIncludePatterns.isAllowAll();
+        return matcher.isAllowAll();
     }
 
     public SourceIncludePatterns getSourceIncludePatterns() {
@@ -78,11 +80,7 @@ public final class ExcludeIncludeRules implements FileGroupFilter, Serializable
             return true;
         }
 
-        return ExcludeInclude.includeFile(
-                file,
-                rootPath,
-                sourceIncludePatterns.getExcludePatterns(),
-                sourceIncludePatterns.getIncludePatterns());
+        return matcher.isIncluded(rootPath, file);
     }
 
     @Override
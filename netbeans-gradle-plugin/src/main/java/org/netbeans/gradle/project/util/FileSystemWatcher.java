@@ -4,32 +4,40 @@ import java.io.IOException;
 import java.nio.file.ClosedWatchServiceException;
 import java.nio.file.FileSystem;
 import java.nio.file.FileSystems;
+import java.nio.file.FileVisitResult;
 import java.nio.file.Files;
+import java.nio.file.LinkOption;
 import java.nio.file.NoSuchFileException;
+import java.nio.file.NotDirectoryException;
 import java.nio.file.Path;
+import java.nio.file.SimpleFileVisitor;
 import java.nio.file.StandardWatchEventKinds;
 import java.nio.file.WatchEvent;
 import java.nio.file.WatchKey;
 import java.nio.file.WatchService;
-import java.nio.file.Watchable;
+import java.nio.file.attribute.BasicFileAttributes;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
-import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.TimeUnit;
-import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReference;
 import java.util.concurrent.locks.Lock;
 import java.util.concurrent.locks.ReentrantLock;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 import org.jtrim.cancel.Cancellation;
 import org.jtrim.cancel.CancellationToken;
-import org.jtrim.collections.RefLinkedList;
-import org.jtrim.collections.RefList;
 import org.jtrim.concurrent.CancelableTask;
-import org.jtrim.concurrent.CleanupTask;
 import org.jtrim.concurrent.GenericUpdateTaskExecutor;
 import org.jtrim.concurrent.MonitorableTaskExecutorService;
 import org.jtrim.concurrent.TaskExecutor;
@@ -40,42 +48,93 @@ import org.jtrim.swing.concurrent.SwingTaskExecutor;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.gradle.project.api.event.NbListenerRefs;
 
+/**
+ * Notifies listeners about changes of files and directories.
+ * <P>
+ * Directories are registered with one of multiple {@code WatchService}
+ * instances (chosen by the hash of the directory), each of them polled by its
+ * own thread. Events are routed to listeners without locking through the
+ * tables of the directory the event belongs to.
+ * <P>
+ * A watched path is always registered through the closest existing ancestor
+ * directory of it, so watching a path which does not exist (yet) is possible.
+ * Recursive directory trees are also supported: The subdirectories of such
+ * trees are registered in the background, and when the OS reports that
+ * some events were lost (overflow), the affected directory is rescanned.
+ * <P>
+ * Directories only listen for modifications if they are part of a watched
+ * tree or directly contain a file whose content is watched, otherwise creating
+ * and deleting entries is enough to detect when a watched path appears or
+ * disappears.
+ */
 public final class FileSystemWatcher {
     private static final Logger LOGGER = Logger.getLogger(FileSystemWatcher.class.getName());
 
-    private static final WatchEvent.Kind<?>[] EVENTS = new WatchEvent.Kind<?>[]{
+    private static final WatchEvent.Kind<?>[] ANCHOR_EVENTS = new WatchEvent.Kind<?>[]{
         StandardWatchEventKinds.ENTRY_CREATE,
         StandardWatchEventKinds.ENTRY_DELETE
     };
 
-    private final FileSystem fileSystem;
+    private static final WatchEvent.Kind<?>[] CONTENT_EVENTS = new WatchEvent.Kind<?>[]{
+        StandardWatchEventKinds.ENTRY_CREATE,
+        StandardWatchEventKinds.ENTRY_DELETE,
+        StandardWatchEventKinds.ENTRY_MODIFY
+    };
 
-    private final MonitorableTaskExecutorService pollExecutor;
+    private final FileSystem fileSystem;
     private final TaskExecutor eventExecutor;
+    private final TaskExecutor registrationExecutor;
 
-    private WatchService activeWatchService;
-    private final Map<Path, Listeners> checkedPaths;
-    private final Map<WatchKey, WatchKeyListeners> watchKeys;
+    private final Shard[] shards;
 
     private final Lock mainLock;
+    private final Map<Path, PathWatch> pathWatches;
+    private final Set<TreeWatch> treeWatches;
+
+    private final AtomicInteger registeredKeyCount;
+    private final AtomicLong eventCount;
+    private final AtomicLong overflowCount;
+    private final AtomicLong dispatchCount;
+    private final AtomicLong eventLagSumNanos;
+    private final AtomicLong maxEventLagNanos;
 
     public FileSystemWatcher(FileSystem fileSystem, TaskExecutor eventExecutor) {
+        this(fileSystem, eventExecutor, getDefaultShardCount());
+    }
+
+    public FileSystemWatcher(FileSystem fileSystem, TaskExecutor eventExecutor, int shardCount) {
         ExceptionHelper.checkNotNullArgument(fileSystem, "fileSystem");
         ExceptionHelper.checkNotNullArgument(eventExecutor, "eventExecutor");
+        ExceptionHelper.checkArgumentInRange(shardCount, 1, Integer.MAX_VALUE, "shardCount");
 
         this.fileSystem = fileSystem;
         this.eventExecutor = eventExecutor;
+        this.registrationExecutor = NbTaskExecutors.newExecutor("FileSystem-watcher-register", 1);
         this.mainLock = new ReentrantLock();
-        this.pollExecutor = NbTaskExecutors.newStoppableExecutor("FileSystem-watcher-poll", 1);
-        this.checkedPaths = new HashMap<>();
-        this.watchKeys = new HashMap<>();
-        this.activeWatchService = null;
+        this.pathWatches = new HashMap<>();
+        this.treeWatches = Collections.newSetFromMap(new ConcurrentHashMap<TreeWatch, Boolean>());
+
+        this.registeredKeyCount = new AtomicInteger(0);
+        this.eventCount = new AtomicLong(0);
+        this.overflowCount = new AtomicLong(0);
+        this.dispatchCount = new AtomicLong(0);
+        this.eventLagSumNanos = new AtomicLong(0);
+        this.maxEventLagNanos = new AtomicLong(0);
+
+        this.shards = new Shard[shardCount];
+        for (int i = 0; i < shards.length; i++) {
+            shards[i] = new Shard(i);
+        }
     }
 
     public static FileSystemWatcher getDefault() {
         return DefaultHolder.DEFAULT;
     }
 
+    private static int getDefaultShardCount() {
+        return Math.max(1, Math.min(4, Runtime.getRuntime().availableProcessors() / 2));
+    }
+
     /**
      * Waits until there are no more watches registered and no more polling is done.
      * Fails if that state cannot be reached.
@@ -84,237 +143,424 @@ public final class FileSystemWatcher {
      * properly.
      */
     void waitFor(long timeout, TimeUnit unit) {
-        pollExecutor.shutdown();
-        if (!pollExecutor.tryAwaitTermination(Cancellation.UNCANCELABLE_TOKEN, timeout, unit)) {
-            throw new IllegalStateException("Failed to wait for polling executor.");
+        for (Shard shard: shards) {
+            shard.pollExecutor.shutdown();
+        }
+        for (Shard shard: shards) {
+            if (!shard.pollExecutor.tryAwaitTermination(Cancellation.UNCANCELABLE_TOKEN, timeout, unit)) {
+                throw new IllegalStateException("Failed to wait for polling executor.");
+            }
         }
 
         mainLock.lock();
         try {
-            if (!checkedPaths.isEmpty()) {
-                throw new IllegalStateException("There are checked paths: " + checkedPaths.keySet());
-            }
-            if (!watchKeys.isEmpty()) {
-                throw new IllegalStateException("There are watched keys: " + toString(watchKeys.keySet()));
+            if (!pathWatches.isEmpty()) {
+                throw new IllegalStateException("There are checked paths: " + pathWatches.keySet());
             }
         } finally {
             mainLock.unlock();
         }
-    }
 
-    private static String toString(Collection<WatchKey> keys) {
-        List<Object> watchables = new ArrayList<>(keys.size());
-        for (WatchKey key: keys) {
-            watchables.add(key.watchable());
+        if (!treeWatches.isEmpty()) {
+            throw new IllegalStateException("There are watched trees.");
         }
-        return watchables.toString();
-    }
 
-    private Path tryResolve(Path keyContext, Object context) {
-        if (context instanceof Path) {
-            Path relPath = (Path)context;
-            if (keyContext != null) {
-                return keyContext.resolve(relPath);
-            }
-            else {
-                return relPath;
+        for (Shard shard: shards) {
+            Collection<Path> watchedDirs = shard.getWatchedDirs();
+            if (!watchedDirs.isEmpty()) {
+                throw new IllegalStateException("There are watched keys: " + watchedDirs);
             }
         }
-        return null;
     }
 
-    private void notifyPath(Path keyContext, WatchEvent<?> event) {
-        Path path = tryResolve(keyContext, event.context());
-        if (path != null) {
-            notifyPath(path);
-        }
-    }
-
-    private void notifyPath(Path path) {
-        Listeners listenerRefs;
-
+    public Statistics getStatistics() {
+        int watchedPathCount;
         mainLock.lock();
         try {
-            listenerRefs = checkedPaths.get(path);
+            watchedPathCount = pathWatches.size();
         } finally {
             mainLock.unlock();
         }
 
-        if (listenerRefs != null) {
-            listenerRefs.notifyIfChanged();
-        }
+        return new Statistics(
+                registeredKeyCount.get(),
+                watchedPathCount,
+                treeWatches.size(),
+                eventCount.get(),
+                overflowCount.get(),
+                dispatchCount.get(),
+                eventLagSumNanos.get(),
+                maxEventLagNanos.get());
     }
 
-    private static void cancelWatchService(WatchService watchService) {
+    private void recordDispatch(long receiveTime) {
+        long lag = Math.max(0, System.nanoTime() - receiveTime);
+
+        dispatchCount.incrementAndGet();
+        eventLagSumNanos.addAndGet(lag);
+
+        long prevMax;
+        do {
+            prevMax = maxEventLagNanos.get();
+            if (prevMax >= lag) {
+                break;
+            }
+        } while (!maxEventLagNanos.compareAndSet(prevMax, lag));
+    }
+
+    private Shard getShard(Path dir) {
+        return shards[(dir.hashCode() & 0x7FFFFFFF) % shards.length];
+    }
+
+    private DirWatch tryAcquireDir(Path dir) {
         try {
-            watchService.close();
+            return getShard(dir).tryAcquire(dir);
         } catch (IOException ex) {
-            LOGGER.log(Level.WARNING, "Failed to close watch service.", ex);
+            LOGGER.log(Level.INFO, "Failed to watch directory: " + dir, ex);
+            return null;
+        }
+    }
+
+    private static void releaseDir(DirWatch dirWatch) {
+        if (dirWatch != null) {
+            dirWatch.shard.release(dirWatch);
         }
     }
 
-    private void stopPolling(WatchService watchService) throws IOException {
-        WatchService newWatchService = null;
+    /**
+     * Notifies the given listener when the given path is created or deleted.
+     *
+     * @param path the path to be watched. This argument cannot be {@code null}.
+     * @param listener the listener to be notified. This argument cannot be
+     *   {@code null}.
+     * @return the {@code ListenerRef} which can be used to stop watching the
+     *   path. This method never returns {@code null}.
+     */
+    public ListenerRef watchPath(Path path, Runnable listener) {
+        return watchPath(path, listener, false);
+    }
+
+    /**
+     * Notifies the given listener when the given file is created, deleted or
+     * its last modification time or size changes.
+     *
+     * @param path the path to be watched. This argument cannot be {@code null}.
+     * @param listener the listener to be notified. This argument cannot be
+     *   {@code null}.
+     * @return the {@code ListenerRef} which can be used to stop watching the
+     *   file. This method never returns {@code null}.
+     */
+    public ListenerRef watchFileContent(Path path, Runnable listener) {
+        return watchPath(path, listener, true);
+    }
+
+    private ListenerRef watchPath(final Path path, Runnable listener, boolean contentListener) {
+        ExceptionHelper.checkNotNullArgument(path, "path");
+        ExceptionHelper.checkNotNullArgument(listener, "listener");
+        if (path.getFileSystem() != fileSystem) {
+            return UnregisteredListenerRef.INSTANCE;
+        }
+
+        final PathWatch pathWatch;
+        final PathListener pathListener = new PathListener(listener, contentListener);
+        boolean newWatch = false;
+
         mainLock.lock();
         try {
-            if (watchService == activeWatchService) {
-                if (checkedPaths.isEmpty()) {
-                    activeWatchService = null;
-                }
-                else {
-                    newWatchService = fileSystem.newWatchService();
-                    activeWatchService = newWatchService;
-                }
+            PathWatch existing = pathWatches.get(path);
+            if (existing != null) {
+                pathWatch = existing;
+            }
+            else {
+                pathWatch = new PathWatch(path);
+                pathWatches.put(path, pathWatch);
+                newWatch = true;
             }
+            pathWatch.listeners.add(pathListener);
         } finally {
             mainLock.unlock();
         }
 
-        if (newWatchService != null) {
-            startPolling(newWatchService);
+        if (newWatch) {
+            // The state is recorded before registering, so that changes made
+            // while registering are reported rather than lost.
+            pathWatch.recordInitialState();
+            pathWatch.reanchor();
+        }
+        else if (contentListener) {
+            pathWatch.updateContentRegistration();
         }
+
+        return NbListenerRefs.fromRunnable(new Runnable() {
+            @Override
+            public void run() {
+                unregisterPath(pathWatch, pathListener);
+            }
+        });
     }
 
-    private boolean hasCheckedPaths() {
+    private void unregisterPath(PathWatch pathWatch, PathListener pathListener) {
+        boolean lastListener;
+
         mainLock.lock();
         try {
-            return !checkedPaths.isEmpty();
+            pathWatch.listeners.remove(pathListener);
+            lastListener = pathWatch.listeners.isEmpty();
+            if (lastListener) {
+                pathWatches.remove(pathWatch.path);
+            }
         } finally {
             mainLock.unlock();
         }
-    }
 
-    private static Path keyContext(WatchKey key) {
-        Watchable result = key.watchable();
-        return result instanceof Path
-                ? (Path)result
-                : null;
+        if (lastListener) {
+            pathWatch.close();
+        }
+        else if (pathListener.contentListener) {
+            pathWatch.updateContentRegistration();
+        }
     }
 
-    private void startPolling(final WatchService watchService) {
-        pollExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
-            @Override
-            public void execute(CancellationToken cancelToken) throws Exception {
-                ListenerRef cancelRef = null;
-                try {
-                    cancelRef = cancelToken.addCancellationListener(new Runnable() {
-                        @Override
-                        public void run() {
-                            cancelWatchService(watchService);
-                        }
-                    });
+    /**
+     * Notifies the given listener when a file or directory is created, deleted
+     * or modified in the given directory or in any of its subdirectories
+     * (recursively). The listener is passed the path which has changed. If
+     * events might have been lost, the listener is notified with the directory
+     * containing the changed files, and the listener is expected to rescan that
+     * directory.
+     * <P>
+     * The subdirectories are registered in the background, so changes right
+     * after this method returns might not be reported for subdirectories.
+     *
+     * @param rootDir the root of the directory tree to be watched. This
+     *   argument cannot be {@code null}.
+     * @param listener the listener to be notified. This argument cannot be
+     *   {@code null}.
+     * @return the {@code ListenerRef} which can be used to stop watching the
+     *   directory tree. This method never returns {@code null}.
+     */
+    public ListenerRef watchDirectoryTree(Path rootDir, NbConsumer<? super Path> listener) {
+        ExceptionHelper.checkNotNullArgument(rootDir, "rootDir");
+        ExceptionHelper.checkNotNullArgument(listener, "listener");
+        if (rootDir.getFileSystem() != fileSystem) {
+            return UnregisteredListenerRef.INSTANCE;
+        }
 
-                    while (!cancelToken.isCanceled() && hasCheckedPaths()) {
-                        WatchKey key = watchService.take();
-                        Path keyContext = keyContext(key);
+        final TreeWatch treeWatch = new TreeWatch(rootDir, listener);
+        treeWatches.add(treeWatch);
 
-                        List<WatchEvent<?>> events = key.pollEvents();
-                        for (WatchEvent<?> event : events) {
-                            notifyPath(keyContext, event);
-                        }
+        if (treeWatch.tryAddDir(rootDir)) {
+            treeWatch.registerSubtreeLater(rootDir, false);
+        }
 
-                        resetWatchKey(watchService, key, events);
-                    }
-                } catch (ClosedWatchServiceException ex) {
-                    // Canceled
-                } finally {
-                    if (cancelRef != null) {
-                        cancelRef.unregister();
-                    }
-                    stopPolling(watchService);
-                }
-            }
-        }, new CleanupTask() {
+        return NbListenerRefs.fromRunnable(new Runnable() {
             @Override
-            public void cleanup(boolean canceled, Throwable error) throws Exception {
-                NbTaskExecutors.defaultCleanup(canceled, error);
-                watchService.close();
+            public void run() {
+                treeWatches.remove(treeWatch);
+                treeWatch.close();
             }
         });
     }
 
-    public ListenerRef watchPath(final Path path, Runnable listener) {
-        ExceptionHelper.checkNotNullArgument(path, "path");
-        ExceptionHelper.checkNotNullArgument(listener, "listener");
-        if (path.getFileSystem() != fileSystem) {
-            return UnregisteredListenerRef.INSTANCE;
+    private final class Shard {
+        private final Lock shardLock;
+        private final Map<Path, DirWatch> dirs;
+        private final ConcurrentMap<WatchKey, DirWatch> keys;
+        private final MonitorableTaskExecutorService pollExecutor;
+
+        private WatchService watchService;
+
+        public Shard(int index) {
+            this.shardLock = new ReentrantLock();
+            this.dirs = new HashMap<>();
+            this.keys = new ConcurrentHashMap<>();
+            this.pollExecutor = NbTaskExecutors.newStoppableExecutor("FileSystem-watcher-poll-" + index, 1);
+            this.watchService = null;
         }
 
-        try {
-            return watchPathUnsafe(path, listener);
-        } catch (IOException ex) {
-            LOGGER.log(Level.INFO, "Failed to watch for path: " + path, ex);
-            return UnregisteredListenerRef.INSTANCE;
+        public Collection<Path> getWatchedDirs() {
+            shardLock.lock();
+            try {
+                return new ArrayList<>(dirs.keySet());
+            } finally {
+                shardLock.unlock();
+            }
         }
-    }
 
-    private ListenerRef watchPathUnsafe(final Path path, Runnable listener) throws IOException {
-        final ElementRemover listenerRemover;
-        WatchService newWatchService = null;
-        WatchService currentWatchService;
-        Listeners listeners;
+        public DirWatch tryAcquire(Path dir) throws IOException {
+            WatchService newWatchService = null;
+            WatchService toClose = null;
+            DirWatch result;
 
-        mainLock.lock();
-        try {
-            listeners = checkedPaths.get(path);
-            if (listeners == null) {
-                listeners = new Listeners(path, eventExecutor);
-                checkedPaths.put(path, listeners);
+            shardLock.lock();
+            try {
+                result = dirs.get(dir);
+                if (result != null) {
+                    result.refCount++;
+                    return result;
+                }
+
+                if (watchService == null) {
+                    newWatchService = fileSystem.newWatchService();
+                    watchService = newWatchService;
+                }
+
+                WatchKey key = tryRegister(watchService, dir);
+                if (key != null) {
+                    result = new DirWatch(this, dir, key);
+                    dirs.put(dir, result);
+                    keys.put(key, result);
+                    registeredKeyCount.incrementAndGet();
+                }
+                else if (dirs.isEmpty()) {
+                    toClose = watchService;
+                    watchService = null;
+                }
+            } finally {
+                shardLock.unlock();
             }
-            listenerRemover = listeners.addListener(listener);
 
-            if (activeWatchService == null) {
-                newWatchService = fileSystem.newWatchService();
-                activeWatchService = newWatchService;
+            if (toClose != null) {
+                tryClose(toClose);
             }
-            currentWatchService = activeWatchService;
-        } finally {
-            mainLock.unlock();
+            else if (newWatchService != null) {
+                startPolling(newWatchService);
+            }
+
+            return result;
         }
 
-        if (newWatchService != null) {
-            startPolling(newWatchService);
+        public void release(DirWatch dirWatch) {
+            WatchService toClose;
+
+            shardLock.lock();
+            try {
+                dirWatch.refCount--;
+                if (dirWatch.refCount > 0 || !removeUnsafe(dirWatch)) {
+                    return;
+                }
+                toClose = tryDetachWatchServiceUnsafe();
+            } finally {
+                shardLock.unlock();
+            }
+
+            dirWatch.key.cancel();
+            tryClose(toClose);
         }
 
-        startWatching(currentWatchService, path, listeners);
+        /**
+         * Adjusts the number of watches needing modification events in the
+         * given directory (content watched files directly in the directory and
+         * directory trees containing it), and registers the directory for
+         * modification events only while there is at least one such watch.
+         */
+        public void adjustContentWatchCount(DirWatch dirWatch, int delta) {
+            shardLock.lock();
+            try {
+                dirWatch.contentWatchCount += delta;
 
-        return NbListenerRefs.fromRunnable(new Runnable() {
-            @Override
-            public void run() {
-                unregisterPath(path, listenerRemover);
+                boolean watchModify = dirWatch.contentWatchCount > 0;
+                if (watchModify == dirWatch.watchModify || dirs.get(dirWatch.dir) != dirWatch) {
+                    return;
+                }
+
+                // Registering the same directory again only changes the
+                // events of the existing key.
+                dirWatch.dir.register(watchService, watchModify ? CONTENT_EVENTS : ANCHOR_EVENTS);
+                dirWatch.watchModify = watchModify;
+            } catch (IOException ex) {
+                LOGGER.log(Level.INFO, "Failed to update the events of directory: " + dirWatch.dir, ex);
+            } finally {
+                shardLock.unlock();
             }
-        });
-    }
+        }
 
-    private void unregisterPath(Path path, ElementRemover listenerRemover) {
-        WatchService watchServiceToClose = null;
-        WatchKey watchKey;
+        public void removeInvalid(DirWatch dirWatch) {
+            WatchService toClose;
 
-        mainLock.lock();
-        try {
-            int remaining = listenerRemover.removeAndGetRemainingCount();
-            if (remaining > 0) {
-                return;
+            shardLock.lock();
+            try {
+                if (!removeUnsafe(dirWatch)) {
+                    return;
+                }
+                toClose = tryDetachWatchServiceUnsafe();
+            } finally {
+                shardLock.unlock();
+            }
+
+            tryClose(toClose);
+        }
+
+        private boolean removeUnsafe(DirWatch dirWatch) {
+            if (dirs.get(dirWatch.dir) != dirWatch) {
+                return false;
             }
 
-            watchServiceToClose = activeWatchService;
-            activeWatchService = null;
+            dirs.remove(dirWatch.dir);
+            keys.remove(dirWatch.key);
+            registeredKeyCount.decrementAndGet();
+            return true;
+        }
 
-            Listeners listeners = checkedPaths.remove(path);
-            if (listeners == null) {
-                return;
+        private WatchService tryDetachWatchServiceUnsafe() {
+            if (!dirs.isEmpty()) {
+                return null;
             }
 
-            watchKey = listeners.getWatchKey();
-            if (!removeWathKeyOfPath(path, watchKey)) {
-                return;
+            WatchService result = watchService;
+            watchService = null;
+            return result;
+        }
+
+        private void startPolling(final WatchService polledService) {
+            pollExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) throws Exception {
+                    poll(cancelToken, polledService);
+                }
+            }, null);
+        }
+
+        private void poll(CancellationToken cancelToken, final WatchService polledService) throws InterruptedException {
+            ListenerRef cancelRef = cancelToken.addCancellationListener(new Runnable() {
+                @Override
+                public void run() {
+                    tryClose(polledService);
+                }
+            });
+            try {
+                while (!cancelToken.isCanceled()) {
+                    WatchKey key = polledService.take();
+                    long receiveTime = System.nanoTime();
+
+                    List<WatchEvent<?>> events = key.pollEvents();
+                    DirWatch dirWatch = keys.get(key);
+                    if (dirWatch == null) {
+                        continue;
+                    }
+
+                    eventCount.addAndGet(events.size());
+                    dirWatch.dispatch(events, receiveTime);
+
+                    if (!key.reset()) {
+                        removeInvalid(dirWatch);
+                        dirWatch.onInvalidated(receiveTime);
+                    }
+                }
+            } catch (ClosedWatchServiceException ex) {
+                // The service was closed because there is nothing to watch.
+            } finally {
+                cancelRef.unregister();
             }
-        } finally {
-            mainLock.unlock();
-            tryClose(watchServiceToClose);
         }
+    }
 
-        watchKey.cancel();
+    private static WatchKey tryRegister(WatchService watchService, Path dir) throws IOException {
+        try {
+            return dir.register(watchService, ANCHOR_EVENTS);
+        } catch (NoSuchFileException | NotDirectoryException ex) {
+            return null;
+        }
     }
 
     private static void tryClose(WatchService watchService) {
@@ -329,234 +575,654 @@ public final class FileSystemWatcher {
         }
     }
 
-    private boolean removeWathKeyOfPath(Path path, WatchKey watchKey) {
-        if (watchKey == null) {
-            return false;
+    private final class DirWatch {
+        private final Shard shard;
+        private final Path dir;
+        private final WatchKey key;
+        // Guarded by the lock of the shard.
+        private int refCount;
+        // The number of watches needing modification events.
+        private int contentWatchCount;
+        private boolean watchModify;
+
+        // The watched paths keyed by the child of this directory, which is the
+        // ancestor of the watched path (or the watched path itself).
+        private final ConcurrentMap<Path, Set<PathWatch>> routes;
+        private final Set<TreeWatch> trees;
+
+        public DirWatch(Shard shard, Path dir, WatchKey key) {
+            this.shard = shard;
+            this.dir = dir;
+            this.key = key;
+            this.refCount = 1;
+            this.contentWatchCount = 0;
+            this.watchModify = false;
+            this.routes = new ConcurrentHashMap<>();
+            this.trees = Collections.newSetFromMap(new ConcurrentHashMap<TreeWatch, Boolean>());
         }
 
-        WatchKeyListeners watchKeyListeners = watchKeys.get(watchKey);
-        if (watchKeyListeners == null) {
-            return false;
+        public Path getRouteKey(Path path) {
+            return dir.resolve(path.getName(dir.getNameCount()));
         }
 
-        if (watchKeyListeners.removeAndGetRemainingCount(path) > 0) {
-            return false;
-        }
+        public void addRoute(PathWatch pathWatch) {
+            Path routeKey = getRouteKey(pathWatch.path);
 
-        watchKeys.remove(watchKey);
-        return true;
-    }
+            Set<PathWatch> routed = routes.get(routeKey);
+            if (routed == null) {
+                routed = Collections.newSetFromMap(new ConcurrentHashMap<PathWatch, Boolean>());
+                Set<PathWatch> prevRouted = routes.putIfAbsent(routeKey, routed);
+                if (prevRouted != null) {
+                    routed = prevRouted;
+                }
+            }
+            routed.add(pathWatch);
+        }
 
-    private static WatchKey tryRegister(WatchService watchService, Path path) throws IOException {
-        try {
-            if (!Files.exists(path)) {
-                return null;
+        public void removeRoute(PathWatch pathWatch) {
+            Set<PathWatch> routed = routes.get(getRouteKey(pathWatch.path));
+            if (routed != null) {
+                routed.remove(pathWatch);
             }
-            return path.register(watchService, EVENTS);
-        } catch (NoSuchFileException ex) {
-            return null;
         }
-    }
 
-    private void startWatching(WatchService watchService, Path path, Listeners listeners) throws IOException {
-        Path parent = path.getParent();
-        while (parent != null) {
-            WatchKey watchKey = tryRegister(watchService, parent);
-            if (watchKey != null && watchKey.reset()) {
-                WatchKey prevWatchKey;
+        public void dispatch(List<WatchEvent<?>> events, long receiveTime) {
+            boolean overflow = false;
 
-                mainLock.lock();
-                try {
-                    WatchKeyListeners watchKeyListeners = watchKeys.get(watchKey);
-                    if (watchKeyListeners == null) {
-                        watchKeyListeners = new WatchKeyListeners();
-                        watchKeys.put(watchKey, watchKeyListeners);
-                    }
-                    watchKeyListeners.setListeners(path, listeners);
+            for (WatchEvent<?> event: events) {
+                WatchEvent.Kind<?> kind = event.kind();
+                Object context = event.context();
+                if (kind == StandardWatchEventKinds.OVERFLOW || !(context instanceof Path)) {
+                    overflow = true;
+                    continue;
+                }
 
-                    prevWatchKey = listeners.setWatchKey(watchKey);
-                    if (!removeWathKeyOfPath(path, prevWatchKey)) {
-                        return;
+                Path child = dir.resolve((Path)context);
+                boolean created = kind == StandardWatchEventKinds.ENTRY_CREATE;
+
+                Set<PathWatch> routed = routes.get(child);
+                if (routed != null) {
+                    for (PathWatch pathWatch: routed) {
+                        if (created && !pathWatch.path.equals(child)) {
+                            // A directory on the way to the watched path was created.
+                            pathWatch.reanchor();
+                        }
+                        pathWatch.notifyIfChanged(receiveTime);
                     }
-                } finally {
-                    mainLock.unlock();
                 }
 
-                prevWatchKey.cancel();
+                for (TreeWatch tree: trees) {
+                    tree.onChange(child, created, receiveTime);
+                }
             }
-            parent = parent.getParent();
-        }
-    }
 
-    private boolean mayCreatedChild(List<WatchEvent<?>> events) {
-        for (WatchEvent<?> event: events) {
-            WatchEvent.Kind<?> kind = event.kind();
-            if (kind == StandardWatchEventKinds.ENTRY_CREATE || kind == StandardWatchEventKinds.OVERFLOW) {
-                return true;
+            if (overflow) {
+                overflowCount.incrementAndGet();
+                rescan(receiveTime);
             }
         }
-        return false;
-    }
 
-    private void resetWatchKey(WatchService watchService, WatchKey watchKey, List<WatchEvent<?>> events) throws IOException {
-        if (mayCreatedChild(events)) {
-            watchKey.cancel();
-            rebuildWatchKeys(watchService, watchKey);
-        }
-        else {
-            if (!watchKey.reset()) {
-                rebuildWatchKeys(watchService, watchKey);
-            }
-        }
-    }
+        private void rescan(long receiveTime) {
+            recheckPaths(receiveTime);
 
-    private void rebuildWatchKeys(WatchService watchService, WatchKey watchKey) throws IOException {
-        WatchKeyListeners watchKeyListeners = null;
-        mainLock.lock();
-        try {
-            watchKeyListeners = watchKeys.remove(watchKey);
-        } finally {
-            mainLock.unlock();
+            for (TreeWatch tree: trees) {
+                tree.onChange(dir, false, receiveTime);
+                tree.registerSubtreeLater(dir, false);
+            }
         }
 
-        if (watchKeyListeners != null) {
-            List<Listeners> listenersSnapshot = new ArrayList<>(watchKeyListeners.listeners.size());
-            for (Map.Entry<Path, Listeners> entry: watchKeyListeners.listeners.entrySet()) {
-                Listeners listeners = entry.getValue();
-                listenersSnapshot.add(listeners);
+        public void onInvalidated(long receiveTime) {
+            recheckPaths(receiveTime);
 
-                startWatching(watchService, entry.getKey(), listeners);
+            for (TreeWatch tree: trees) {
+                tree.onDirRemoved(this, receiveTime);
             }
+        }
 
-            for (Listeners listeners: listenersSnapshot) {
-                listeners.notifyIfChanged();
+        private void recheckPaths(long receiveTime) {
+            for (Set<PathWatch> routed: routes.values()) {
+                for (PathWatch pathWatch: routed) {
+                    pathWatch.reanchor();
+                    pathWatch.notifyIfChanged(receiveTime);
+                }
             }
         }
     }
 
-    private static final class WatchKeyListeners {
-        private final Map<Path, Listeners> listeners;
+    private final class PathWatch {
+        private static final int EXISTENCE_CHANGED = 1;
+        private static final int CONTENT_CHANGED = 2;
 
-        public WatchKeyListeners() {
-            this.listeners = new HashMap<>();
-        }
+        private final Path path;
+        // Guarded by the mainLock of the watcher.
+        private final List<PathListener> listeners;
+
+        private final Lock anchorLock;
+        private DirWatch anchor;
+        // True if this path is counted in the contentWatchCount of the anchor.
+        private boolean contentRegistered;
+        private boolean closed;
+
+        private final UpdateTaskExecutor executor;
+        private final AtomicReference<PathState> lastState;
+        private final AtomicInteger pendingChanges;
+        private final AtomicLong firstPendingReceiveTime;
 
-        public int removeAndGetRemainingCount(Path path) {
-            listeners.remove(path);
-            return listeners.size();
+        public PathWatch(Path path) {
+            this.path = path;
+            this.listeners = new CopyOnWriteArrayList<>();
+            this.anchorLock = new ReentrantLock();
+            this.anchor = null;
+            this.contentRegistered = false;
+            this.closed = false;
+            this.executor = new GenericUpdateTaskExecutor(eventExecutor);
+            this.lastState = new AtomicReference<>(PathState.MISSING);
+            this.pendingChanges = new AtomicInteger(0);
+            this.firstPendingReceiveTime = new AtomicLong(Long.MAX_VALUE);
         }
 
-        public void setListeners(Path path, Listeners pathListeners) {
-            listeners.put(path, pathListeners);
+        /**
+         * Records the current state of the path, so that only actual changes
+         * compared to this state are reported.
+         */
+        public void recordInitialState() {
+            lastState.set(getState());
         }
-    }
 
-    private static final class Listeners {
-        private final Path path;
+        /**
+         * Registers this path with its closest existing ancestor directory
+         * (if it is not already registered there).
+         */
+        public void reanchor() {
+            anchorLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
 
-        private final Lock listenersLock;
-        private final UpdateTaskExecutor executor;
-        private final RefList<Runnable> listeners;
+                DirWatch prevAnchor = anchor;
 
-        private volatile boolean notifiedOnce;
-        private final AtomicBoolean lastState;
+                DirWatch newAnchor = null;
+                for (Path dir = path.getParent(); dir != null && newAnchor == null; dir = dir.getParent()) {
+                    newAnchor = tryAcquireDir(dir);
+                }
 
-        private WatchKey watchKey;
+                if (newAnchor == prevAnchor) {
+                    releaseDir(newAnchor);
+                    return;
+                }
 
-        public Listeners(Path path, TaskExecutor eventExecutor) {
-            this.path = path;
-            this.executor = new GenericUpdateTaskExecutor(eventExecutor);
-            this.listenersLock = new ReentrantLock();
-            this.listeners = new RefLinkedList<>();
-            this.watchKey = null;
-            this.notifiedOnce = false;
-            this.lastState = new AtomicBoolean();
+                setContentRegisteredUnsafe(false);
+                anchor = newAnchor;
+                if (newAnchor != null) {
+                    newAnchor.addRoute(this);
+                    setContentRegisteredUnsafe(needsModifyEvents());
+                }
+                else {
+                    LOGGER.log(Level.INFO, "Failed to watch for path: {0}", path);
+                }
+
+                if (prevAnchor != null) {
+                    prevAnchor.removeRoute(this);
+                    releaseDir(prevAnchor);
+                }
+            } finally {
+                anchorLock.unlock();
+            }
+        }
+
+        /**
+         * Updates the events the anchor is registered for after content
+         * listeners were added or removed.
+         */
+        public void updateContentRegistration() {
+            anchorLock.lock();
+            try {
+                if (!closed) {
+                    setContentRegisteredUnsafe(needsModifyEvents());
+                }
+            } finally {
+                anchorLock.unlock();
+            }
         }
 
-        public WatchKey getWatchKey() {
-            return watchKey;
+        private boolean needsModifyEvents() {
+            // Modifications are only reported for the direct children of the
+            // registered directory, so an anchor further up cannot help.
+            if (anchor == null || !anchor.dir.equals(path.getParent())) {
+                return false;
+            }
+
+            for (PathListener listener: listeners) {
+                if (listener.contentListener) {
+                    return true;
+                }
+            }
+            return false;
         }
 
-        public WatchKey setWatchKey(WatchKey watchKey) {
-            WatchKey prevWatchKey = this.watchKey;
-            if (Objects.equals(prevWatchKey, watchKey)) {
-                prevWatchKey = null;
+        private void setContentRegisteredUnsafe(boolean newValue) {
+            if (contentRegistered == newValue) {
+                return;
             }
 
-            this.watchKey = watchKey;
-            return prevWatchKey;
+            contentRegistered = newValue;
+            anchor.shard.adjustContentWatchCount(anchor, newValue ? 1 : -1);
         }
 
-        public ElementRemover addListener(Runnable listener) {
-            final RefList.ElementRef<Runnable> elementRef;
-            listenersLock.lock();
+        public void close() {
+            anchorLock.lock();
             try {
-                elementRef = listeners.addLastGetReference(listener);
+                closed = true;
+                if (anchor != null) {
+                    setContentRegisteredUnsafe(false);
+                    anchor.removeRoute(this);
+                    releaseDir(anchor);
+                    anchor = null;
+                }
             } finally {
-                listenersLock.unlock();
+                anchorLock.unlock();
             }
+        }
+
+        private PathState getState() {
+            try {
+                BasicFileAttributes attrs = Files.readAttributes(path, BasicFileAttributes.class);
+                return new PathState(true, attrs.lastModifiedTime().toMillis(), attrs.size());
+            } catch (IOException ex) {
+                return PathState.MISSING;
+            }
+        }
+
+        private int getChanges() {
+            PathState currentState = getState();
+            PathState prevState = lastState.getAndSet(currentState);
+            if (prevState.exists != currentState.exists) {
+                return EXISTENCE_CHANGED | CONTENT_CHANGED;
+            }
+            return prevState.equals(currentState) ? 0 : CONTENT_CHANGED;
+        }
+
+        public void notifyIfChanged(long receiveTime) {
+            int changes = getChanges();
+            if (changes == 0) {
+                return;
+            }
+
+            int prevChanges;
+            do {
+                prevChanges = pendingChanges.get();
+            } while (!pendingChanges.compareAndSet(prevChanges, prevChanges | changes));
+
+            long prevReceiveTime;
+            do {
+                prevReceiveTime = firstPendingReceiveTime.get();
+                if (prevReceiveTime <= receiveTime) {
+                    break;
+                }
+            } while (!firstPendingReceiveTime.compareAndSet(prevReceiveTime, receiveTime));
 
-            return new ElementRemover() {
+            executor.execute(new Runnable() {
                 @Override
-                public int removeAndGetRemainingCount() {
-                    listenersLock.lock();
-                    try {
-                        elementRef.remove();
-                        return listeners.size();
-                    } finally {
-                        listenersLock.unlock();
+                public void run() {
+                    int currentChanges = pendingChanges.getAndSet(0);
+                    long currentReceiveTime = firstPendingReceiveTime.getAndSet(Long.MAX_VALUE);
+                    if (currentReceiveTime != Long.MAX_VALUE) {
+                        recordDispatch(currentReceiveTime);
+                    }
+
+                    boolean existenceChanged = (currentChanges & EXISTENCE_CHANGED) != 0;
+                    boolean contentChanged = (currentChanges & CONTENT_CHANGED) != 0;
+
+                    for (PathListener listener: listeners) {
+                        if (existenceChanged || (contentChanged && listener.contentListener)) {
+                            listener.run();
+                        }
                     }
                 }
-            };
+            });
         }
+    }
+
+    private final class TreeWatch {
+        private final Path rootDir;
+        private final NbConsumer<? super Path> listener;
+
+        private final Lock treeLock;
+        private final Map<Path, DirWatch> dirs;
+        private final Set<Path> pendingChanges;
+        private long firstPendingReceiveTime;
+        private boolean closed;
 
-        private boolean getState() {
-            return Files.exists(path);
+        private final UpdateTaskExecutor executor;
+
+        public TreeWatch(Path rootDir, NbConsumer<? super Path> listener) {
+            this.rootDir = rootDir;
+            this.listener = listener;
+            this.treeLock = new ReentrantLock();
+            this.dirs = new HashMap<>();
+            this.pendingChanges = new LinkedHashSet<>();
+            this.firstPendingReceiveTime = Long.MAX_VALUE;
+            this.closed = false;
+            this.executor = new GenericUpdateTaskExecutor(eventExecutor);
         }
 
-        private boolean needNotify() {
-            boolean currentState = getState();
-            if (!notifiedOnce) {
-                notifiedOnce = true;
-                lastState.set(currentState);
+        public boolean tryAddDir(Path dir) {
+            treeLock.lock();
+            try {
+                if (closed || dirs.containsKey(dir)) {
+                    return !closed;
+                }
+
+                DirWatch dirWatch = tryAcquireDir(dir);
+                if (dirWatch == null) {
+                    return false;
+                }
+
+                dirs.put(dir, dirWatch);
+                dirWatch.trees.add(this);
+                dirWatch.shard.adjustContentWatchCount(dirWatch, 1);
                 return true;
+            } finally {
+                treeLock.unlock();
             }
+        }
 
-            boolean prevState = lastState.getAndSet(currentState);
-            return prevState != currentState;
+        public void registerSubtreeLater(final Path dir, final boolean reportEntries) {
+            registrationExecutor.execute(Cancellation.UNCANCELABLE_TOKEN, new CancelableTask() {
+                @Override
+                public void execute(CancellationToken cancelToken) throws IOException {
+                    registerSubtree(dir, reportEntries);
+                }
+            }, null);
         }
 
-        public void notifyIfChanged() {
-            if (!needNotify()) {
+        private void registerSubtree(Path dir, final boolean reportEntries) throws IOException {
+            if (isClosed()) {
                 return;
             }
 
+            final long startTime = System.nanoTime();
+            try {
+                Files.walkFileTree(dir, new SimpleFileVisitor<Path>() {
+                    @Override
+                    public FileVisitResult preVisitDirectory(Path subDir, BasicFileAttributes attrs) {
+                        if (!tryAddDir(subDir)) {
+                            return isClosed() ? FileVisitResult.TERMINATE : FileVisitResult.SKIP_SUBTREE;
+                        }
+                        if (reportEntries) {
+                            onChange(subDir, false, startTime);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFile(Path file, BasicFileAttributes attrs) {
+                        if (reportEntries) {
+                            onChange(file, false, startTime);
+                        }
+                        return FileVisitResult.CONTINUE;
+                    }
+
+                    @Override
+                    public FileVisitResult visitFileFailed(Path file, IOException exc) {
+                        return FileVisitResult.CONTINUE;
+                    }
+                });
+            } catch (NoSuchFileException ex) {
+                // The directory was removed since.
+            }
+        }
+
+        private boolean isClosed() {
+            treeLock.lock();
+            try {
+                return closed;
+            } finally {
+                treeLock.unlock();
+            }
+        }
+
+        public void onChange(Path path, boolean created, long receiveTime) {
+            treeLock.lock();
+            try {
+                if (closed) {
+                    return;
+                }
+                pendingChanges.add(path);
+                firstPendingReceiveTime = Math.min(firstPendingReceiveTime, receiveTime);
+            } finally {
+                treeLock.unlock();
+            }
+
+            if (created && Files.isDirectory(path, LinkOption.NOFOLLOW_LINKS)) {
+                // Files might have been created in the new directory before
+                // we were able to register it.
+                registerSubtreeLater(path, true);
+            }
+
             executor.execute(new Runnable() {
                 @Override
                 public void run() {
-                    for (Runnable listener: getListenersSnapshot()) {
-                        try {
-                            listener.run();
-                        } catch (Throwable ex) {
-                            LOGGER.log(Level.WARNING, "Path change listener has thrown an unexpected exception.", ex);
-                        }
-                    }
+                    dispatchChanges();
                 }
             });
         }
 
-        private List<Runnable> getListenersSnapshot() {
-            listenersLock.lock();
+        public void onDirRemoved(DirWatch dirWatch, long receiveTime) {
+            treeLock.lock();
+            try {
+                if (dirs.get(dirWatch.dir) == dirWatch) {
+                    dirs.remove(dirWatch.dir);
+                }
+            } finally {
+                treeLock.unlock();
+            }
+            dirWatch.trees.remove(this);
+
+            onChange(dirWatch.dir, false, receiveTime);
+        }
+
+        private void dispatchChanges() {
+            List<Path> changes;
+            long receiveTime;
+
+            treeLock.lock();
             try {
-                return new ArrayList<>(listeners);
+                if (closed || pendingChanges.isEmpty()) {
+                    return;
+                }
+
+                changes = new ArrayList<>(pendingChanges);
+                pendingChanges.clear();
+
+                receiveTime = firstPendingReceiveTime;
+                firstPendingReceiveTime = Long.MAX_VALUE;
             } finally {
-                listenersLock.unlock();
+                treeLock.unlock();
+            }
+
+            recordDispatch(receiveTime);
+
+            for (Path changed: changes) {
+                try {
+                    listener.accept(changed);
+                } catch (Throwable ex) {
+                    LOGGER.log(Level.WARNING, "Directory tree listener of " + rootDir + " has thrown an unexpected exception.", ex);
+                }
             }
         }
+
+        public void close() {
+            List<DirWatch> toRelease;
+
+            treeLock.lock();
+            try {
+                closed = true;
+                toRelease = new ArrayList<>(dirs.values());
+                dirs.clear();
+                pendingChanges.clear();
+            } finally {
+                treeLock.unlock();
+            }
+
+            for (DirWatch dirWatch: toRelease) {
+                dirWatch.trees.remove(this);
+                dirWatch.shard.adjustContentWatchCount(dirWatch, -1);
+                releaseDir(dirWatch);
+            }
+        }
+    }
+
+    private static final class PathListener {
+        private final Runnable listener;
+        private final boolean contentListener;
+
+        public PathListener(Runnable listener, boolean contentListener) {
+            this.listener = listener;
+            this.contentListener = contentListener;
+        }
+
+        public void run() {
+            try {
+                listener.run();
+            } catch (Throwable ex) {
+                LOGGER.log(Level.WARNING, "Path change listener has thrown an unexpected exception.", ex);
+            }
+        }
+    }
+
+    private static final class PathState {
+        public static final PathState MISSING = new PathState(false, 0, 0);
+
+        private final boolean exists;
+        private final long lastModified;
+        private final long size;
+
+        public PathState(boolean exists, long lastModified, long size) {
+            this.exists = exists;
+            this.lastModified = lastModified;
+            this.size = size;
+        }
+
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 41 * hash + (exists ? 1 : 0);
+            hash = 41 * hash + (int)(lastModified ^ (lastModified >>> 32));
+            hash = 41 * hash + (int)(size ^ (size >>> 32));
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final PathState other = (PathState)obj;
+            return this.exists == other.exists
+                    && this.lastModified == other.lastModified
+                    && this.size == other.size;
+        }
     }
 
-    private interface ElementRemover {
-        public int removeAndGetRemainingCount();
+    /**
+     * Contains statistics about a {@link FileSystemWatcher}, useful for
+     * diagnosing how well it keeps up with the changes of the file system.
+     */
+    public static final class Statistics {
+        private final int registeredKeyCount;
+        private final int watchedPathCount;
+        private final int watchedTreeCount;
+        private final long eventCount;
+        private final long overflowCount;
+        private final long dispatchCount;
+        private final long eventLagSumNanos;
+        private final long maxEventLagNanos;
+
+        private Statistics(
+                int registeredKeyCount,
+                int watchedPathCount,
+                int watchedTreeCount,
+                long eventCount,
+                long overflowCount,
+                long dispatchCount,
+                long eventLagSumNanos,
+                long maxEventLagNanos) {
+            this.registeredKeyCount = registeredKeyCount;
+            this.watchedPathCount = watchedPathCount;
+            this.watchedTreeCount = watchedTreeCount;
+            this.eventCount = eventCount;
+            this.overflowCount = overflowCount;
+            this.dispatchCount = dispatchCount;
+            this.eventLagSumNanos = eventLagSumNanos;
+            this.maxEventLagNanos = maxEventLagNanos;
+        }
+
+        /**
+         * Returns the number of directories currently registered with the
+         * underlying watch services.
+         *
+         * @return the number of directories currently registered with the
+         *   underlying watch services
+         */
+        public int getRegisteredKeyCount() {
+            return registeredKeyCount;
+        }
+
+        public int getWatchedPathCount() {
+            return watchedPathCount;
+        }
+
+        public int getWatchedTreeCount() {
+            return watchedTreeCount;
+        }
+
+        public long getEventCount() {
+            return eventCount;
+        }
+
+        /**
+         * Returns the number of times the OS reported that events were lost
+         * and directories had to be rescanned.
+         *
+         * @return the number of times the OS reported that events were lost
+         */
+        public long getOverflowCount() {
+            return overflowCount;
+        }
+
+        /**
+         * Returns the average time elapsed between receiving events and
+         * notifying the listeners.
+         *
+         * @param unit the time unit of the returned value. This argument
+         *   cannot be {@code null}.
+         * @return the average time elapsed between receiving events and
+         *   notifying the listeners
+         */
+        public long getAverageEventLag(TimeUnit unit) {
+            return dispatchCount > 0
+                    ? unit.convert(eventLagSumNanos / dispatchCount, TimeUnit.NANOSECONDS)
+                    : 0;
+        }
+
+        public long getMaxEventLag(TimeUnit unit) {
+            return unit.convert(maxEventLagNanos, TimeUnit.NANOSECONDS);
+        }
+
+        @Override
+        public String toString() {
+            return "FileSystemWatcher.Statistics{"
+                    + "registeredKeys=" + registeredKeyCount
+                    + ", watchedPaths=" + watchedPathCount
+                    + ", watchedTrees=" + watchedTreeCount
+                    + ", events=" + eventCount
+                    + ", overflows=" + overflowCount
+                    + ", averageLagMs=" + getAverageEventLag(TimeUnit.MILLISECONDS)
+                    + ", maxLagMs=" + getMaxEventLag(TimeUnit.MILLISECONDS) + '}';
+        }
     }
 
     private static final class DefaultHolder {
@@ -1,15 +1,15 @@
 package org.netbeans.gradle.project.validate;
 
-import java.util.ArrayList;
 import java.util.List;
+import java.util.Objects;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicReference;
-import java.util.concurrent.locks.Lock;
-import java.util.concurrent.locks.ReentrantLock;
 import javax.swing.event.ChangeEvent;
 import javax.swing.event.ChangeListener;
+import org.jtrim.cancel.Cancellation;
+import org.jtrim.cancel.CancellationSource;
+import org.jtrim.cancel.CancellationToken;
 import org.jtrim.collections.Equality;
-import org.jtrim.collections.RefLinkedList;
-import org.jtrim.collections.RefList;
 import org.jtrim.concurrent.GenericUpdateTaskExecutor;
 import org.jtrim.concurrent.TaskExecutor;
 import org.jtrim.concurrent.UpdateTaskExecutor;
@@ -35,10 +35,12 @@ public final class BackgroundValidator {
     private final PropertySource<Boolean> valid;
 
     private final MostSevereValidator validator;
+    private final AtomicReference<CancellationSource> currentValidationCancel;
 
     public BackgroundValidator() {
         this.validationExecutor = NbTaskExecutors.newDefaultUpdateExecutor();
         this.validator = new MostSevereValidator();
+        this.currentValidationCancel = new AtomicReference<>(null);
 
         this.currentProblem = lazilySetProperty(memProperty((Problem)null, true), Equality.<Problem>referenceEquality());
         this.currentProblemForSwing = SwingProperties.toSwingSource(currentProblem, new EventDispatcher<ChangeListener, Void>() {
@@ -62,6 +64,12 @@ public final class BackgroundValidator {
         return addValidator(validator, input, SwingTaskExecutor.getStrictExecutor(true));
     }
 
+    /**
+     * Adds a validator checking the given input. The validator is only
+     * executed again if the value of its input changes (according to
+     * {@code equals}): If the value of another registered input changes, the
+     * previous result of this validator is reused.
+     */
     public <InputType> ListenerRef addValidator(
             final Validator<InputType> validator,
             final PropertySource<? extends InputType> input,
@@ -73,11 +81,11 @@ public final class BackgroundValidator {
 
         final UpdateTaskExecutor updateReader = new GenericUpdateTaskExecutor(inputReaderExecutor);
 
-        final AtomicReference<InputType> valueRef = new AtomicReference<>(input.getValue());
+        final InputValidator<InputType> inputValidator = new InputValidator<>(validator, input.getValue());
         final Runnable updateValueTask = new Runnable() {
             @Override
             public void run() {
-                valueRef.set(input.getValue());
+                inputValidator.setInput(input.getValue());
                 performValidation();
             }
         };
@@ -88,12 +96,7 @@ public final class BackgroundValidator {
                 updateReader.execute(updateValueTask);
             }
         });
-        ListenerRef ref2 = this.validator.addValidator(new Validator<Void>() {
-            @Override
-            public Problem validateInput(Void inputType) {
-                return validator.validateInput(valueRef.get());
-            }
-        });
+        ListenerRef ref2 = this.validator.addValidator(inputValidator);
 
         performValidation();
 
@@ -121,11 +124,25 @@ public final class BackgroundValidator {
     }
 
     private void performValidation() {
+        CancellationSource newCancelSource = Cancellation.createCancellationSource();
+        CancellationSource prevCancelSource = currentValidationCancel.getAndSet(newCancelSource);
+        if (prevCancelSource != null) {
+            // The result of the previous validation would be overwritten anyway.
+            prevCancelSource.getController().cancel();
+        }
+
+        final CancellationToken cancelToken = newCancelSource.getToken();
         validationExecutor.execute(new Runnable() {
             @Override
             public void run() {
-                Problem problem = validator.validateInput(null);
-                currentProblem.setValue(problem);
+                if (cancelToken.isCanceled()) {
+                    return;
+                }
+
+                Problem problem = validator.validate(cancelToken);
+                if (!cancelToken.isCanceled()) {
+                    currentProblem.setValue(problem);
+                }
             }
         });
     }
@@ -138,62 +155,76 @@ public final class BackgroundValidator {
         return valid.getValue();
     }
 
-    private static class MostSevereValidator implements Validator<Void> {
-        private final Lock validatorsLock;
-        private final RefList<Validator<Void>> validators;
+    private static final class InputValidator<InputType> {
+        private final Validator<InputType> validator;
+        private volatile InputType input;
+        private final AtomicReference<ValidationResult<InputType>> lastResultRef;
 
-        public MostSevereValidator() {
-            this.validatorsLock = new ReentrantLock();
-            this.validators = new RefLinkedList<>();
+        public InputValidator(Validator<InputType> validator, InputType input) {
+            this.validator = validator;
+            this.input = input;
+            this.lastResultRef = new AtomicReference<>(null);
+        }
+
+        public void setInput(InputType input) {
+            this.input = input;
         }
 
-        public ListenerRef addValidator(Validator<Void> validator) {
-            final RefList.ElementRef<Validator<Void>> elementRef;
+        public Problem validate() {
+            InputType currentInput = input;
 
-            validatorsLock.lock();
-            try {
-                elementRef = validators.addLastGetReference(validator);
-            } finally {
-                validatorsLock.unlock();
+            ValidationResult<InputType> lastResult = lastResultRef.get();
+            if (lastResult != null && Objects.equals(lastResult.input, currentInput)) {
+                return lastResult.problem;
             }
 
+            Problem problem = validator.validateInput(currentInput);
+            lastResultRef.set(new ValidationResult<>(currentInput, problem));
+            return problem;
+        }
+    }
+
+    private static final class ValidationResult<InputType> {
+        private final InputType input;
+        private final Problem problem;
+
+        public ValidationResult(InputType input, Problem problem) {
+            this.input = input;
+            this.problem = problem;
+        }
+    }
+
+    private static final class MostSevereValidator {
+        private final List<InputValidator<?>> validators;
+
+        public MostSevereValidator() {
+            this.validators = new CopyOnWriteArrayList<>();
+        }
+
+        public ListenerRef addValidator(final InputValidator<?> validator) {
+            validators.add(validator);
+
             return new ListenerRef() {
                 @Override
                 public boolean isRegistered() {
-                    validatorsLock.lock();
-                    try {
-                        return !elementRef.isRemoved();
-                    } finally {
-                        validatorsLock.unlock();
-                    }
+                    return validators.contains(validator);
                 }
 
                 @Override
                 public void unregister() {
-                    validatorsLock.lock();
-                    try {
-                        elementRef.remove();
-                    } finally {
-                        validatorsLock.unlock();
-                    }
+                    validators.remove(validator);
                 }
             };
         }
 
-        public List<Validator<Void>> getValidators() {
-            validatorsLock.lock();
-            try {
-                return new ArrayList<>(validators);
-            } finally {
-                validatorsLock.unlock();
-            }
-        }
-
-        @Override
-        public Problem validateInput(Void inputType) {
+        public Problem validate(CancellationToken cancelToken) {
             Problem mostSevere = null;
-            for (Validator<Void> current: getValidators()) {
-                Problem currentProblem = current.validateInput(null);
+            for (InputValidator<?> current: validators) {
+                if (cancelToken.isCanceled()) {
+                    return null;
+                }
+
+                Problem currentProblem = current.validate();
                 if (currentProblem != null) {
                     if (currentProblem.getLevel() == Problem.Level.SEVERE) {
                         return currentProblem;
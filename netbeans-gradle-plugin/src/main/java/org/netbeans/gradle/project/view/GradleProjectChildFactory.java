@@ -245,57 +245,90 @@ implements
     }
 
     private void addChildren(List<SingleNodeFactory> toPopulate) {
-        final NbGradleModel shownModule = getShownModule();
-        final Collection<NbGradleProjectTree> immediateChildren
-                = shownModule.getMainProject().getChildren();
-
-        if (immediateChildren.isEmpty()) {
+        NbGradleProjectTree mainProject = getShownModule().getMainProject();
+        if (mainProject.getChildren().isEmpty()) {
             return;
         }
-        final List<NbGradleProjectTree> children = getAllChildren(shownModule);
 
-        toPopulate.add(new SingleNodeFactory() {
-            @Override
-            public Node createNode() {
-                return new FilterNode(
-                        createSimpleNode(),
-                        createSubprojectsChild(),
-                        Lookups.singleton(shownModule.getMainProject())) {
-                    @Override
-                    public String getName() {
-                        return "SubProjectsNode_" + getShownModule().getMainProject().getProjectFullName().replace(':', '_');
-                    }
+        toPopulate.add(new SubProjectsNodeFactory(mainProject));
+    }
 
-                    @Override
-                    public Action[] getActions(boolean context) {
-                        return new Action[] {
-                            createOpenAction(NbStrings.getOpenImmediateSubProjectsCaption(), immediateChildren),
-                            createOpenAction(NbStrings.getOpenSubProjectsCaption(), children)
-                        };
-                    }
+    /**
+     * Creates the "Subprojects" node. Factories of the same main project are
+     * equal, so that the node (along with its expanded children) is kept
+     * when the children of the project node are refreshed. The children of
+     * the "Subprojects" node update themselves when the model changes.
+     */
+    private final class SubProjectsNodeFactory implements SingleNodeFactory {
+        private final NbGradleProjectTree mainProject;
+
+        public SubProjectsNodeFactory(NbGradleProjectTree mainProject) {
+            this.mainProject = mainProject;
+        }
 
-                    @Override
-                    public String getDisplayName() {
-                        return NbStrings.getSubProjectsCaption();
-                    }
+        private GradleProjectChildFactory getOwner() {
+            return GradleProjectChildFactory.this;
+        }
 
-                    @Override
-                    public Image getIcon(int type) {
-                        return NbIcons.getGradleIcon();
-                    }
+        @Override
+        public Node createNode() {
+            return new FilterNode(
+                    createSimpleNode(),
+                    createSubprojectsChild(),
+                    Lookups.singleton(mainProject)) {
+                @Override
+                public String getName() {
+                    return "SubProjectsNode_" + getShownModule().getMainProject().getProjectFullName().replace(':', '_');
+                }
 
-                    @Override
-                    public Image getOpenedIcon(int type) {
-                        return getIcon(type);
-                    }
+                @Override
+                public Action[] getActions(boolean context) {
+                    NbGradleModel shownModule = getShownModule();
+                    return new Action[] {
+                        createOpenAction(NbStrings.getOpenImmediateSubProjectsCaption(), shownModule.getMainProject().getChildren()),
+                        // Collecting every subproject might be slow for huge
+                        // builds, so only do it when it is actually needed.
+                        createOpenAction(NbStrings.getOpenSubProjectsCaption(), getAllChildren(shownModule))
+                    };
+                }
 
-                    @Override
-                    public boolean canRename() {
-                        return false;
-                    }
-                };
-            }
-        });
+                @Override
+                public String getDisplayName() {
+                    return NbStrings.getSubProjectsCaption();
+                }
+
+                @Override
+                public Image getIcon(int type) {
+                    return NbIcons.getGradleIcon();
+                }
+
+                @Override
+                public Image getOpenedIcon(int type) {
+                    return getIcon(type);
+                }
+
+                @Override
+                public boolean canRename() {
+                    return false;
+                }
+            };
+        }
+
+        @Override
+        public int hashCode() {
+            return 59 * System.identityHashCode(getOwner()) + mainProject.getProjectFullName().hashCode();
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final SubProjectsNodeFactory other = (SubProjectsNodeFactory)obj;
+            return this.getOwner() == other.getOwner()
+                    && this.mainProject.getProjectFullName().equals(other.mainProject.getProjectFullName());
+        }
     }
 
     private void readKeys(List<SingleNodeFactory> toPopulate) throws DataObjectNotFoundException {
@@ -7,20 +7,20 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
-import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.atomic.AtomicReference;
 import java.util.logging.Logger;
 import javax.swing.AbstractAction;
 import javax.swing.Action;
 import org.jtrim.utils.ExceptionHelper;
 import org.netbeans.api.project.Project;
-import org.netbeans.gradle.model.util.CollectionUtils;
 import org.netbeans.gradle.project.NbGradleProject;
 import org.netbeans.gradle.project.NbGradleProjectFactory;
 import org.netbeans.gradle.project.NbIcons;
 import org.netbeans.gradle.project.NbStrings;
-import org.netbeans.gradle.project.api.nodes.SingleNodeFactory;
 import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeDiff;
 import org.netbeans.gradle.project.util.ListenerRegistrations;
 import org.netbeans.gradle.project.util.StringUtils;
 import org.openide.loaders.DataFolder;
@@ -34,40 +34,39 @@ import org.openide.util.lookup.Lookups;
 
 public final class SubProjectsChildFactory
 extends
-        ChildFactory.Detachable<SingleNodeFactory> {
+        ChildFactory.Detachable<SubProjectsChildFactory.SubProjectKey> {
 
     private static final Logger LOGGER = Logger.getLogger(SubProjectsChildFactory.class.getName());
 
     private final NbGradleProject project;
-    private final List<NbGradleProjectTree> subProjects;
+    // The names of the projects leading from the main project to the parent
+    // of the displayed subprojects, separated by ':' (empty for the main project).
+    private final String relativePath;
     private final AtomicReference<NbGradleProjectTree> lastTree;
     private final boolean root;
+    private final ConcurrentMap<String, SubProjectsChildFactory> attachedFactories;
     private final ListenerRegistrations listenerRefs;
 
     public SubProjectsChildFactory(NbGradleProject project) {
-        this(project, null, true);
+        this(project, "", true, new ConcurrentHashMap<String, SubProjectsChildFactory>());
     }
 
     private SubProjectsChildFactory(
             NbGradleProject project,
-            Collection<? extends NbGradleProjectTree> subProjects,
-            boolean root) {
+            String relativePath,
+            boolean root,
+            ConcurrentMap<String, SubProjectsChildFactory> attachedFactories) {
 
         ExceptionHelper.checkNotNullArgument(project, "project");
+        ExceptionHelper.checkNotNullArgument(relativePath, "relativePath");
+        ExceptionHelper.checkNotNullArgument(attachedFactories, "attachedFactories");
 
         this.root = root;
         this.project = project;
+        this.relativePath = relativePath;
+        this.attachedFactories = attachedFactories;
         this.listenerRefs = new ListenerRegistrations();
         this.lastTree = new AtomicReference<>(null);
-        if (subProjects != null) {
-            this.subProjects = new ArrayList<>(subProjects);
-            sortModules(this.subProjects);
-
-            ExceptionHelper.checkNotNullElements(this.subProjects, "subProjects");
-        }
-        else {
-            this.subProjects = null;
-        }
     }
 
     private static void sortModules(List<NbGradleProjectTree> modules) {
@@ -79,63 +78,58 @@ extends
         });
     }
 
-    private static boolean hasRelevantDifferences(NbGradleProjectTree tree1, NbGradleProjectTree tree2) {
-        if (tree1 == tree2) {
-            // In practice this happens only when they are nulls.
-            return false;
-        }
-        if (tree1 == null || tree2 == null) {
-            return true;
-        }
-
-        return !equalsTree(tree1, tree2);
-    }
-
-    private static boolean equalsTree(NbGradleProjectTree tree1, NbGradleProjectTree tree2) {
-        Collection<NbGradleProjectTree> children1 = tree1.getChildren();
-        Collection<NbGradleProjectTree> children2 = tree2.getChildren();
-        if (children1.size() != children2.size()) {
-            return false;
-        }
-        if (children1.isEmpty()) {
-            return true;
-        }
-
-        Map<String, NbGradleProjectTree> children2Map = getChildrenMap2(tree2);
-        for (NbGradleProjectTree subTree1: children1) {
-            NbGradleProjectTree subTree2 = children2Map.get(subTree1.getProjectName());
-            if (subTree2 == null) {
-                return false;
-            }
-
-            if (!equalsTree(subTree1, subTree2)) {
-                return false;
+    private static String getRelativePath(NbGradleProjectTree mainProject, NbGradleProjectTree subProject) {
+        String result = "";
+        NbGradleProjectTree current = subProject;
+        while (current != mainProject) {
+            result = ":" + current.getProjectName() + result;
+            current = current.getParent(mainProject);
+            if (current == null) {
+                return null;
             }
         }
-        return true;
+        return result;
     }
 
-    private static Map<String, NbGradleProjectTree> getChildrenMap2(NbGradleProjectTree tree) {
-        Collection<NbGradleProjectTree> children = tree.getChildren();
-        Map<String, NbGradleProjectTree> result = CollectionUtils.newHashMap(children.size());
+    private NbGradleProjectTree getMainProject() {
+        return project.currentModel().getValue().getMainProject();
+    }
 
-        for (NbGradleProjectTree child: children) {
-            result.put(child.getProjectName(), child);
-        }
-        return result;
+    /**
+     * Returns the current version of the project whose children are displayed
+     * by this factory or {@code null} if the project was removed.
+     */
+    private NbGradleProjectTree tryGetParentProject() {
+        NbGradleProjectTree mainProject = getMainProject();
+        return root ? mainProject : mainProject.findByPath(relativePath);
     }
 
     private void modelChanged() {
-        NbGradleProjectTree newTree = project.currentModel().getValue().getMainProject();
+        NbGradleProjectTree newTree = getMainProject();
         NbGradleProjectTree prevTree = lastTree.getAndSet(newTree);
-        if (hasRelevantDifferences(prevTree, newTree)) {
+        if (prevTree == null
+                || !prevTree.getProjectFullName().equals(newTree.getProjectFullName())) {
             refresh(false);
+            return;
+        }
+
+        NbGradleProjectTreeDiff diff = NbGradleProjectTreeDiff.compute(prevTree, newTree);
+        for (NbGradleProjectTree changedParent: diff.getChangedParents()) {
+            String changedPath = getRelativePath(newTree, changedParent);
+            SubProjectsChildFactory factory = changedPath != null
+                    ? attachedFactories.get(changedPath)
+                    : null;
+            if (factory != null) {
+                factory.refresh(false);
+            }
         }
     }
 
     @Override
     protected void addNotify() {
+        attachedFactories.put(relativePath, this);
         if (root) {
+            lastTree.set(getMainProject());
             listenerRefs.add(project.currentModel().addChangeListener(new Runnable() {
                 @Override
                 public void run() {
@@ -147,48 +141,86 @@ extends
 
     @Override
     protected void removeNotify() {
+        attachedFactories.remove(relativePath, this);
         listenerRefs.unregisterAll();
     }
 
     @Override
-    protected Node createNodeForKey(SingleNodeFactory key) {
+    protected Node createNodeForKey(SubProjectKey key) {
         return key.createNode();
     }
 
     private List<NbGradleProjectTree> getSubProjects() {
-        if (subProjects != null) {
-            return subProjects;
+        NbGradleProjectTree parentProject = tryGetParentProject();
+        if (parentProject == null) {
+            return Collections.emptyList();
         }
 
-        List<NbGradleProjectTree> result = new ArrayList<>(
-                project.currentModel().getValue().getMainProject().getChildren());
+        List<NbGradleProjectTree> result = new ArrayList<>(parentProject.getChildren());
         sortModules(result);
         return result;
     }
 
     @Override
-    protected boolean createKeys(List<SingleNodeFactory> toPopulate) {
-        for (final NbGradleProjectTree subProject: getSubProjects()) {
-            toPopulate.add(new SingleNodeFactory() {
-                @Override
-                public Node createNode() {
-                    if (subProject.getChildren().isEmpty()) {
-                        return new SubModuleNode(project, subProject);
-                    }
-                    else {
-                        return new SubModuleWithChildren(project, subProject);
-                    }
-                }
-            });
+    protected boolean createKeys(List<SubProjectKey> toPopulate) {
+        for (NbGradleProjectTree subProject: getSubProjects()) {
+            String subProjectPath = relativePath + ":" + subProject.getProjectName();
+            toPopulate.add(new SubProjectKey(this, subProjectPath, subProject));
         }
         return true;
     }
 
-    private static Children createSubprojectsChild(
-            NbGradleProject project,
-            Collection<? extends NbGradleProjectTree> children) {
+    private SubProjectsChildFactory createChildFactory(String subProjectPath) {
+        return new SubProjectsChildFactory(project, subProjectPath, false, attachedFactories);
+    }
+
+    /**
+     * Identifies the node of a subproject. Keys are equal if their nodes look
+     * the same, so unchanged nodes (and their expanded children) are kept
+     * when the children of a project are refreshed.
+     */
+    static final class SubProjectKey {
+        private final SubProjectsChildFactory factory;
+        private final String relativePath;
+        private final NbGradleProjectTree module;
+        private final boolean hasChildren;
+
+        public SubProjectKey(SubProjectsChildFactory factory, String relativePath, NbGradleProjectTree module) {
+            this.factory = factory;
+            this.relativePath = relativePath;
+            this.module = module;
+            this.hasChildren = !module.getChildren().isEmpty();
+        }
+
+        public Node createNode() {
+            if (hasChildren) {
+                return new SubModuleWithChildren(factory.project, module, factory.createChildFactory(relativePath));
+            }
+            else {
+                return new SubModuleNode(module);
+            }
+        }
 
-        return Children.create(new SubProjectsChildFactory(project, children, false), true);
+        @Override
+        public int hashCode() {
+            int hash = 7;
+            hash = 37 * hash + relativePath.hashCode();
+            hash = 37 * hash + module.getProjectDir().hashCode();
+            hash = 37 * hash + (hasChildren ? 1 : 0);
+            return hash;
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            if (obj == null) return false;
+            if (getClass() != obj.getClass()) return false;
+
+            final SubProjectKey other = (SubProjectKey)obj;
+            return this.hasChildren == other.hasChildren
+                    && this.relativePath.equals(other.relativePath)
+                    && this.module.getProjectDir().equals(other.module.getProjectDir());
+        }
     }
 
     private static Node createSimpleNode(NbGradleProject project) {
@@ -238,24 +270,23 @@ extends
 
     private static class SubModuleWithChildren extends FilterNode {
         private final NbGradleProjectTree module;
-        private final List<NbGradleProjectTree> immediateChildren;
-        private final List<NbGradleProjectTree> children;
-
-        public SubModuleWithChildren(NbGradleProject project, NbGradleProjectTree module) {
-            this(project, module, module.getChildren());
-        }
+        private final SubProjectsChildFactory childFactory;
 
-        private SubModuleWithChildren(
+        public SubModuleWithChildren(
                 NbGradleProject project,
                 NbGradleProjectTree module,
-                Collection<? extends NbGradleProjectTree> children) {
+                SubProjectsChildFactory childFactory) {
 
             super(createSimpleNode(project),
-                    createSubprojectsChild(project, children),
+                    Children.create(childFactory, true),
                     getSubProjectLookup(module));
             this.module = module;
-            this.immediateChildren = Collections.unmodifiableList(GradleProjectChildFactory.getAllChildren(module));
-            this.children = Collections.unmodifiableList(new ArrayList<>(children));
+            this.childFactory = childFactory;
+        }
+
+        private NbGradleProjectTree getCurrentModule() {
+            NbGradleProjectTree result = childFactory.tryGetParentProject();
+            return result != null ? result : module;
         }
 
         @Override
@@ -265,10 +296,11 @@ extends
 
         @Override
         public Action[] getActions(boolean context) {
+            NbGradleProjectTree currentModule = getCurrentModule();
             return getSubProjectContextActions(module,
                     new OpenSubProjectAction(),
-                    createOpenAction(NbStrings.getOpenImmediateSubProjectsCaption(), immediateChildren),
-                    createOpenAction(NbStrings.getOpenSubProjectsCaption(), children));
+                    createOpenAction(NbStrings.getOpenImmediateSubProjectsCaption(), currentModule.getChildren()),
+                    createOpenAction(NbStrings.getOpenSubProjectsCaption(), GradleProjectChildFactory.getAllChildren(currentModule)));
         }
 
         @Override
@@ -300,7 +332,7 @@ extends
     private static class SubModuleNode extends FilterNode {
         private final NbGradleProjectTree module;
 
-        public SubModuleNode(NbGradleProject project, NbGradleProjectTree module) {
+        public SubModuleNode(NbGradleProjectTree module) {
             super(Node.EMPTY.cloneNode(), null, getSubProjectLookup(module));
             this.module = module;
         }
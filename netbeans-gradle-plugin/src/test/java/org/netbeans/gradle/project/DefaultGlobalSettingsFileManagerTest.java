@@ -0,0 +1,239 @@
+package org.netbeans.gradle.project;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Properties;
+import org.jtrim.concurrent.GenericUpdateTaskExecutor;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.GradleTaskID;
+import org.netbeans.gradle.project.model.NbGradleModel;
+import org.netbeans.gradle.project.model.NbGradleMultiProjectDef;
+import org.netbeans.gradle.project.model.NbGradleProjectTree;
+import org.netbeans.gradle.project.model.SettingsGradleDef;
+import org.netbeans.gradle.project.script.DefaultScriptFileProvider;
+import org.netbeans.gradle.project.util.NbSupplier;
+
+import static org.junit.Assert.*;
+
+public class DefaultGlobalSettingsFileManagerTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static DefaultGlobalSettingsFileManager createManager(final Path logFile) {
+        return new DefaultGlobalSettingsFileManager(
+                new RootProjectRegistry(),
+                new NbSupplier<Path>() {
+                    @Override
+                    public Path get() {
+                        return logFile;
+                    }
+                },
+                new GenericUpdateTaskExecutor(SyncTaskExecutor.getSimpleExecutor()));
+    }
+
+    private static NbGradleProjectTree createTree(File projectDir, String path, List<NbGradleProjectTree> children) {
+        GenericProjectProperties properties = new GenericProjectProperties(
+                projectDir.getName(),
+                path,
+                projectDir,
+                new File(projectDir, "build.gradle"));
+        return new NbGradleProjectTree(properties, Collections.<GradleTaskID>emptyList(), children);
+    }
+
+    private static NbGradleModel createModel(File rootDir, File... subDirs) {
+        List<NbGradleProjectTree> children = new ArrayList<>();
+        for (File subDir: subDirs) {
+            children.add(createTree(subDir, ":" + subDir.getName(), Collections.<NbGradleProjectTree>emptyList()));
+        }
+
+        NbGradleProjectTree root = createTree(rootDir, ":", children);
+        return new NbGradleModel(new NbGradleMultiProjectDef(root, root), new DefaultScriptFileProvider());
+    }
+
+    private Path createStoreDir() throws IOException {
+        return tmpFolder.newFolder("settings-gradle").toPath();
+    }
+
+    private File createRootProject() throws IOException {
+        File rootDir = tmpFolder.newFolder("root");
+        assertTrue(new File(rootDir, "sub").mkdir());
+        Files.createFile(rootDir.toPath().resolve("settings.gradle"));
+        return rootDir;
+    }
+
+    private static Map<File, String[]> readLog(Path logFile) throws IOException {
+        Map<File, String[]> result = new HashMap<>();
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+            assertEquals("version", DefaultGlobalSettingsFileManager.LOG_FORMAT_VERSION, input.readInt());
+
+            int marker = input.read();
+            while (marker >= 0) {
+                assertEquals("marker", DefaultGlobalSettingsFileManager.RECORD_MARKER, marker);
+
+                String projectDir = input.readUTF();
+                String rootProjectDir = input.readUTF();
+                boolean maySearchUpwards = input.readBoolean();
+                String settingsGradle = input.readUTF();
+                String stamp = input.readUTF();
+
+                result.put(new File(projectDir), new String[]{
+                    rootProjectDir,
+                    Boolean.toString(maySearchUpwards),
+                    settingsGradle,
+                    stamp
+                });
+
+                marker = input.read();
+            }
+        }
+        return result;
+    }
+
+    private static int countRecords(Path logFile) throws IOException {
+        int result = 0;
+        try (DataInputStream input = new DataInputStream(new BufferedInputStream(Files.newInputStream(logFile)))) {
+            input.readInt();
+            while (input.read() >= 0) {
+                input.readUTF();
+                input.readUTF();
+                input.readBoolean();
+                input.readUTF();
+                input.readUTF();
+                result++;
+            }
+        }
+        return result;
+    }
+
+    @Test
+    public void testLogFormat() throws IOException {
+        Path logFile = createStoreDir().resolve("locations.log");
+        File rootDir = createRootProject();
+        File subDir = new File(rootDir, "sub");
+        Path settingsFile = rootDir.toPath().resolve("settings.gradle");
+
+        createManager(logFile).updateSettingsFile(createModel(rootDir, subDir));
+
+        Map<File, String[]> records = readLog(logFile);
+        assertEquals(2, records.size());
+
+        String[] rootRecord = records.get(rootDir);
+        String[] subRecord = records.get(subDir);
+
+        assertArrayEquals(
+                new String[]{rootDir.toString(), "true", settingsFile.toString(), rootRecord[3]},
+                rootRecord);
+        assertArrayEquals(
+                new String[]{rootDir.toString(), "true", settingsFile.toString(), rootRecord[3]},
+                subRecord);
+        assertEquals("stamp length", 32, rootRecord[3].length());
+    }
+
+    @Test
+    public void testReloadFromLog() throws IOException {
+        Path logFile = createStoreDir().resolve("locations.log");
+        File rootDir = createRootProject();
+        File subDir = new File(rootDir, "sub");
+        SettingsGradleDef expected = new SettingsGradleDef(rootDir.toPath().resolve("settings.gradle"), true);
+
+        createManager(logFile).updateSettingsFile(createModel(rootDir, subDir));
+
+        DefaultGlobalSettingsFileManager manager = createManager(logFile);
+        assertEquals(expected, manager.tryGetSettingsFile(rootDir));
+        assertEquals(expected, manager.tryGetSettingsFile(subDir));
+        assertNull(manager.tryGetSettingsFile(tmpFolder.newFolder("unknown")));
+    }
+
+    @Test
+    public void testIncompleteRecordIsIgnored() throws IOException {
+        Path logFile = createStoreDir().resolve("locations.log");
+        File rootDir = createRootProject();
+        File subDir = new File(rootDir, "sub");
+        SettingsGradleDef expected = new SettingsGradleDef(rootDir.toPath().resolve("settings.gradle"), true);
+
+        createManager(logFile).updateSettingsFile(createModel(rootDir, subDir));
+
+        try (OutputStream output = Files.newOutputStream(logFile, StandardOpenOption.APPEND)) {
+            output.write(new byte[]{DefaultGlobalSettingsFileManager.RECORD_MARKER, 0, 10, 'a'});
+        }
+
+        DefaultGlobalSettingsFileManager manager = createManager(logFile);
+        assertEquals(expected, manager.tryGetSettingsFile(rootDir));
+        assertEquals(expected, manager.tryGetSettingsFile(subDir));
+
+        // The damaged log must be rewritten on the next update.
+        manager.updateSettingsFile(createModel(rootDir, subDir));
+        assertEquals(2, countRecords(logFile));
+    }
+
+    @Test
+    public void testCompaction() throws IOException {
+        Path logFile = createStoreDir().resolve("locations.log");
+        File rootDir = createRootProject();
+        File subDir = new File(rootDir, "sub");
+        SettingsGradleDef expected = new SettingsGradleDef(rootDir.toPath().resolve("settings.gradle"), true);
+
+        DefaultGlobalSettingsFileManager manager = createManager(logFile);
+        NbGradleModel model = createModel(rootDir, subDir);
+
+        int updateCount = DefaultGlobalSettingsFileManager.MIN_COMPACTION_RECORD_COUNT;
+        for (int i = 0; i < updateCount; i++) {
+            manager.updateSettingsFile(model);
+        }
+
+        int recordCount = countRecords(logFile);
+        assertTrue("Log must have been compacted: " + recordCount, recordCount < 2 * updateCount);
+        assertTrue("Log must contain the last records: " + recordCount, recordCount >= 2);
+
+        DefaultGlobalSettingsFileManager reloaded = createManager(logFile);
+        assertEquals(expected, reloaded.tryGetSettingsFile(rootDir));
+        assertEquals(expected, reloaded.tryGetSettingsFile(subDir));
+    }
+
+    @Test
+    public void testMigratesLegacyStore() throws IOException {
+        Path storeDir = createStoreDir();
+        Path logFile = storeDir.resolve("locations.log");
+        File rootDir = createRootProject();
+        Path settingsFile = rootDir.toPath().resolve("settings.gradle");
+
+        Properties legacySettings = new Properties();
+        legacySettings.put("projectDir", rootDir.toString());
+        legacySettings.put("rootProjectDir", rootDir.toString());
+        legacySettings.put("maySearchUpwards", "true");
+        legacySettings.put("settingsGradle", settingsFile.toString());
+        legacySettings.put("stamp", "0123456789abcdef0123456789abcdef");
+
+        Path legacySubDir = Files.createDirectories(storeDir.resolve("ab"));
+        Path legacyFile = legacySubDir.resolve("cdef.properties");
+        try (OutputStream output = Files.newOutputStream(legacyFile)) {
+            legacySettings.store(output, null);
+        }
+
+        DefaultGlobalSettingsFileManager manager = createManager(logFile);
+        assertEquals(new SettingsGradleDef(settingsFile, true), manager.tryGetSettingsFile(rootDir));
+
+        assertTrue("log", Files.isRegularFile(logFile));
+        assertEquals(Arrays.asList(rootDir), new ArrayList<>(readLog(logFile).keySet()));
+        assertFalse("legacyFile", Files.exists(legacyFile));
+        assertFalse("legacySubDir", Files.exists(legacySubDir));
+
+        assertEquals(new SettingsGradleDef(settingsFile, true), createManager(logFile).tryGetSettingsFile(rootDir));
+    }
+}
@@ -0,0 +1,127 @@
+package org.netbeans.gradle.project;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.FileSystems;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.TimeUnit;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.util.CloseableAction;
+import org.netbeans.gradle.project.util.FileSystemWatcher;
+
+import static org.junit.Assert.*;
+
+public class ProjectAutoReloaderTest {
+    private static final long TIMEOUT_MS = 10000;
+    private static final long DEBOUNCE_MS = 300;
+
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static void append(Path file, String content) throws IOException {
+        Files.write(file, content.getBytes("UTF-8"), StandardOpenOption.APPEND);
+    }
+
+    @Test(timeout = 30000)
+    public void testBurstOfChangesIsReloadedOnce() throws Exception {
+        File rootDir = tmpFolder.newFolder("root");
+        File subDir = new File(rootDir, "sub");
+        assertTrue(subDir.mkdir());
+
+        Path settingsFile = Files.createFile(rootDir.toPath().resolve("settings.gradle"));
+        Path rootBuildFile = Files.createFile(rootDir.toPath().resolve("build.gradle"));
+        Path subBuildFile = Files.createFile(subDir.toPath().resolve("build.gradle"));
+
+        RecordingReloader reloader = new RecordingReloader();
+        FileSystemWatcher watcher = new FileSystemWatcher(
+                FileSystems.getDefault(),
+                SyncTaskExecutor.getSimpleExecutor());
+        ProjectAutoReloader autoReloader = new ProjectAutoReloader(
+                watcher,
+                DEBOUNCE_MS,
+                TimeUnit.MILLISECONDS,
+                reloader);
+
+        CloseableAction.Ref rootRef = autoReloader.watchFiles(
+                rootDir,
+                rootDir,
+                Arrays.asList(rootBuildFile),
+                Arrays.asList(settingsFile));
+        CloseableAction.Ref subRef = autoReloader.watchFiles(
+                rootDir,
+                subDir,
+                Arrays.asList(subBuildFile),
+                Arrays.asList(settingsFile));
+        try {
+            for (int i = 0; i < 5; i++) {
+                append(subBuildFile, "// change " + i + "\n");
+            }
+
+            List<Reload> reloads = reloader.waitForReloads(1);
+            Reload reload = reloads.get(0);
+            assertEquals(rootDir, reload.rootProjectDir);
+            assertEquals(Collections.singleton(subDir), reload.affectedProjectDirs);
+            assertFalse(reload.allProjectsAffected);
+
+            Thread.sleep(3 * DEBOUNCE_MS);
+            assertEquals(1, reloader.getReloads().size());
+
+            append(settingsFile, "// change\n");
+
+            reload = reloader.waitForReloads(2).get(1);
+            assertTrue(reload.allProjectsAffected);
+        } finally {
+            rootRef.close();
+            subRef.close();
+        }
+    }
+
+    private static final class Reload {
+        private final File rootProjectDir;
+        private final Set<File> affectedProjectDirs;
+        private final boolean allProjectsAffected;
+
+        public Reload(File rootProjectDir, Set<File> affectedProjectDirs, boolean allProjectsAffected) {
+            this.rootProjectDir = rootProjectDir;
+            this.affectedProjectDirs = new HashSet<>(affectedProjectDirs);
+            this.allProjectsAffected = allProjectsAffected;
+        }
+    }
+
+    private static final class RecordingReloader implements ProjectAutoReloader.BuildReloader {
+        private final List<Reload> reloads = new ArrayList<>();
+
+        @Override
+        public synchronized void reloadBuild(File rootProjectDir, Set<File> affectedProjectDirs, boolean allProjectsAffected) {
+            reloads.add(new Reload(rootProjectDir, affectedProjectDirs, allProjectsAffected));
+            notifyAll();
+        }
+
+        public synchronized List<Reload> getReloads() {
+            return new ArrayList<>(reloads);
+        }
+
+        public synchronized List<Reload> waitForReloads(int count) throws InterruptedException {
+            long endTime = System.currentTimeMillis() + TIMEOUT_MS;
+            while (reloads.size() < count) {
+                long remaining = endTime - System.currentTimeMillis();
+                if (remaining <= 0) {
+                    throw new AssertionError("Timeout while waiting for reloads: " + reloads.size());
+                }
+                wait(remaining);
+            }
+            return new ArrayList<>(reloads);
+        }
+    }
+}
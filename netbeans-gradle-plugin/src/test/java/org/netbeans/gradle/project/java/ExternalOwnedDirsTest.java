@@ -0,0 +1,194 @@
+package org.netbeans.gradle.project.java;
+
+import java.io.File;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.project.java.model.NbCodeCoverage;
+import org.netbeans.gradle.project.java.model.NbJarOutput;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
+
+import static org.junit.Assert.*;
+
+public class ExternalOwnedDirsTest {
+    private static final File PROJECT_DIR = new File("project-root").getAbsoluteFile();
+    private static final File EXTERNAL_DIR = new File("external-root").getAbsoluteFile();
+
+    private static JavaSourceSet createSources(String name, File sourceRoot, File classesDir) {
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(
+                name,
+                new JavaOutputDirs(classesDir, new File(PROJECT_DIR, name + "-res"), Collections.<File>emptySet()));
+        result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.JAVA, Arrays.asList(sourceRoot)));
+        return result.create();
+    }
+
+    private static NbJavaModule createModule(JavaSourceSet... sources) {
+        GenericProjectProperties properties = NbGradleProjectTreeTest.createProperties("module", ":module");
+        return new NbJavaModule(
+                properties,
+                new JavaCompatibilityModel("1.7", "1.7"),
+                Arrays.asList(sources),
+                Collections.<NbListedDir>emptyList(),
+                Collections.<NbJarOutput>emptyList(),
+                JavaTestModel.getDefaulTestModel(properties.getProjectDir()),
+                NbCodeCoverage.NO_CODE_COVERAGE);
+    }
+
+    private static final class RecordingMarker implements ExternalOwnedDirs.OwnerMarker {
+        private final Map<File, Boolean> calls = new HashMap<>();
+
+        @Override
+        public void markOwned(File dir, boolean owned) {
+            assertNull("Duplicate call for " + dir, calls.put(dir, owned));
+        }
+
+        public Map<File, Boolean> getAndClearCalls() {
+            Map<File, Boolean> result = new HashMap<>(calls);
+            calls.clear();
+            return result;
+        }
+    }
+
+    @Test
+    public void testOnlyDifferencesAreRegistered() {
+        File externalSrc1 = new File(EXTERNAL_DIR, "src1");
+        File externalSrc2 = new File(EXTERNAL_DIR, "src2");
+        File internalClasses = new File(PROJECT_DIR, "classes");
+
+        RecordingMarker marker = new RecordingMarker();
+        ExternalOwnedDirs ownedDirs = new ExternalOwnedDirs(PROJECT_DIR, new ExternalOwnedDirs.OwnerRegistry(), marker);
+
+        ownedDirs.update(createModule(createSources("main", externalSrc1, internalClasses)));
+        assertEquals(Collections.singletonMap(externalSrc1, true), marker.getAndClearCalls());
+
+        ownedDirs.update(createModule(createSources("main", externalSrc1, internalClasses)));
+        assertTrue(marker.getAndClearCalls().isEmpty());
+
+        ownedDirs.update(createModule(createSources("main", externalSrc2, internalClasses)));
+        Map<File, Boolean> expected = new HashMap<>();
+        expected.put(externalSrc1, false);
+        expected.put(externalSrc2, true);
+        assertEquals(expected, marker.getAndClearCalls());
+        assertEquals(new HashSet<>(Arrays.asList(externalSrc2)), ownedDirs.getOwnedDirs());
+    }
+
+    @Test
+    public void testIsInOwnedDir() {
+        File externalSrc = new File(EXTERNAL_DIR, "src");
+        File externalClasses = new File(EXTERNAL_DIR, "classes");
+
+        ExternalOwnedDirs ownedDirs = new ExternalOwnedDirs(PROJECT_DIR, new ExternalOwnedDirs.OwnerRegistry(), new RecordingMarker());
+        ownedDirs.update(createModule(createSources("main", externalSrc, externalClasses)));
+
+        List<File> ownedFiles = Arrays.asList(
+                externalSrc,
+                new File(externalSrc, "pckg/MyClass.java"),
+                new File(externalClasses, "pckg/MyClass.class"));
+        for (File file: ownedFiles) {
+            assertTrue(file.getPath(), ownedDirs.isInOwnedDir(file));
+        }
+
+        assertFalse(ownedDirs.isInOwnedDir(EXTERNAL_DIR));
+        assertFalse(ownedDirs.isInOwnedDir(new File(EXTERNAL_DIR, "other/MyClass.java")));
+        assertFalse(ownedDirs.isInOwnedDir(new File(PROJECT_DIR, "src/MyClass.java")));
+    }
+
+    @Test
+    public void testSharedDirIsNotUnregisteredByOtherProject() {
+        File sharedSrc = new File(EXTERNAL_DIR, "shared-src");
+        File otherSrc = new File(EXTERNAL_DIR, "other-src");
+        File classes1 = new File(PROJECT_DIR, "classes1");
+        File classes2 = new File(PROJECT_DIR, "classes2");
+
+        ExternalOwnedDirs.OwnerRegistry registry = new ExternalOwnedDirs.OwnerRegistry();
+        RecordingMarker marker1 = new RecordingMarker();
+        RecordingMarker marker2 = new RecordingMarker();
+        ExternalOwnedDirs ownedDirs1 = new ExternalOwnedDirs(PROJECT_DIR, registry, marker1);
+        ExternalOwnedDirs ownedDirs2 = new ExternalOwnedDirs(PROJECT_DIR, registry, marker2);
+
+        ownedDirs1.update(createModule(createSources("main", sharedSrc, classes1)));
+        ownedDirs2.update(createModule(createSources("main", sharedSrc, classes2)));
+        assertEquals(Collections.singletonMap(sharedSrc, true), marker1.getAndClearCalls());
+        assertEquals(Collections.singletonMap(sharedSrc, true), marker2.getAndClearCalls());
+
+        // The first project is not the current owner: Nothing to change.
+        ownedDirs1.update(createModule(createSources("main", otherSrc, classes1)));
+        assertEquals(Collections.singletonMap(otherSrc, true), marker1.getAndClearCalls());
+        assertTrue(marker2.getAndClearCalls().isEmpty());
+
+        // The first project claims the directory again and becomes its owner.
+        ownedDirs1.update(createModule(createSources("main", sharedSrc, classes1)));
+        Map<File, Boolean> expected = new HashMap<>();
+        expected.put(otherSrc, false);
+        expected.put(sharedSrc, true);
+        assertEquals(expected, marker1.getAndClearCalls());
+
+        // The owner drops the directory: It must be passed back to the second project.
+        ownedDirs1.update(createModule(createSources("main", otherSrc, classes1)));
+        expected = new HashMap<>();
+        expected.put(otherSrc, true);
+        assertEquals(expected, marker1.getAndClearCalls());
+        assertEquals(Collections.singletonMap(sharedSrc, true), marker2.getAndClearCalls());
+
+        // The last project claiming the directory drops it: Now it can be unregistered.
+        ownedDirs2.update(createModule(createSources("main", otherSrc, classes2)));
+        expected = new HashMap<>();
+        expected.put(sharedSrc, false);
+        expected.put(otherSrc, true);
+        assertEquals(expected, marker2.getAndClearCalls());
+        assertTrue(marker1.getAndClearCalls().isEmpty());
+    }
+
+    @Test
+    public void testReleasedProjectDoesNotGetOwnershipBack() {
+        File sharedSrc = new File(EXTERNAL_DIR, "shared-src");
+        File otherSrc = new File(EXTERNAL_DIR, "other-src");
+        File classes = new File(PROJECT_DIR, "classes");
+
+        ExternalOwnedDirs.OwnerRegistry registry = new ExternalOwnedDirs.OwnerRegistry();
+        RecordingMarker marker1 = new RecordingMarker();
+        RecordingMarker marker2 = new RecordingMarker();
+        RecordingMarker marker3 = new RecordingMarker();
+        ExternalOwnedDirs ownedDirs1 = new ExternalOwnedDirs(PROJECT_DIR, registry, marker1);
+        ExternalOwnedDirs ownedDirs2 = new ExternalOwnedDirs(PROJECT_DIR, registry, marker2);
+        ExternalOwnedDirs ownedDirs3 = new ExternalOwnedDirs(PROJECT_DIR, registry, marker3);
+
+        ownedDirs1.update(createModule(createSources("main", sharedSrc, classes)));
+        ownedDirs2.update(createModule(createSources("main", sharedSrc, classes)));
+        ownedDirs3.update(createModule(createSources("main", sharedSrc, classes)));
+        marker1.getAndClearCalls();
+        marker2.getAndClearCalls();
+        marker3.getAndClearCalls();
+
+        // The first project is closed while not being the owner.
+        ownedDirs1.releaseAll();
+        assertTrue(ownedDirs1.getOwnedDirs().isEmpty());
+        assertTrue(marker1.getAndClearCalls().isEmpty());
+
+        // The owner is closed: The ownership goes to the second project only.
+        ownedDirs3.releaseAll();
+        assertTrue(marker3.getAndClearCalls().isEmpty());
+        assertEquals(Collections.singletonMap(sharedSrc, true), marker2.getAndClearCalls());
+
+        ownedDirs2.update(createModule(createSources("main", otherSrc, classes)));
+        Map<File, Boolean> expected = new HashMap<>();
+        expected.put(sharedSrc, false);
+        expected.put(otherSrc, true);
+        assertEquals(expected, marker2.getAndClearCalls());
+        assertTrue(marker1.getAndClearCalls().isEmpty());
+        assertTrue(marker3.getAndClearCalls().isEmpty());
+    }
+}
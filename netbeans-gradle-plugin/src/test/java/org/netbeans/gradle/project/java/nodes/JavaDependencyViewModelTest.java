@@ -0,0 +1,132 @@
+package org.netbeans.gradle.project.java.nodes;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaClassPaths;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.project.java.model.JavaProjectDependencyDef;
+import org.netbeans.gradle.project.java.model.NbCodeCoverage;
+import org.netbeans.gradle.project.java.model.NbJarOutput;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
+
+import static org.junit.Assert.*;
+
+public class JavaDependencyViewModelTest {
+    private static final Map<File, JavaProjectDependencyDef> NO_PROJECT_DEPENDENCIES
+            = Collections.emptyMap();
+
+    private static List<File> files(String... names) {
+        List<File> result = new ArrayList<>(names.length);
+        for (String name: names) {
+            result.add(new File(name));
+        }
+        return result;
+    }
+
+    private static JavaSourceSet createSources(String name, List<File> compile, List<File> runtime) {
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(
+                name,
+                new JavaOutputDirs(new File(name + "-out-classes"), new File(name + "-out-res"), Collections.<File>emptySet()));
+        result.setClasspaths(new JavaClassPaths(compile, runtime));
+        return result.create();
+    }
+
+    private static NbJavaModule createModule(JavaSourceSet... sources) {
+        GenericProjectProperties properties = NbGradleProjectTreeTest.createProperties("module", ":module");
+        JavaCompatibilityModel compatibility = new JavaCompatibilityModel("1.7", "1.7");
+        JavaTestModel testModel = JavaTestModel.getDefaulTestModel(properties.getProjectDir());
+
+        return new NbJavaModule(
+                properties,
+                compatibility,
+                Arrays.asList(sources),
+                Collections.<NbListedDir>emptyList(),
+                Collections.<NbJarOutput>emptyList(),
+                testModel,
+                NbCodeCoverage.NO_CODE_COVERAGE);
+    }
+
+    private static List<String> getFileNames(JavaDependencyViewModel.DependencyGroup group) {
+        List<String> result = new ArrayList<>();
+        for (JavaDependencyViewModel.Entry entry: group.getEntries()) {
+            result.add(entry.getFile().getName());
+        }
+        return result;
+    }
+
+    private static JavaDependencyViewModel.DependencyGroup getOnlyGroup(JavaDependencyViewModel model) {
+        assertEquals(1, model.getGroupNames().size());
+        return model.tryGetGroup(model.getGroupNames().iterator().next());
+    }
+
+    @Test
+    public void testEntriesAreSorted() {
+        List<File> classpath = files("z.jar", "a.jar", "m.jar");
+        NbJavaModule module = createModule(createSources("main", classpath, classpath));
+
+        JavaDependencyViewModel model = JavaDependencyViewModel.create(module, NO_PROJECT_DEPENDENCIES, null);
+        assertEquals(Arrays.asList("a.jar", "m.jar", "z.jar"), getFileNames(getOnlyGroup(model)));
+    }
+
+    @Test
+    public void testUnchangedModuleReusesViewModel() {
+        List<File> classpath = files("a.jar", "b.jar");
+        NbJavaModule module1 = createModule(createSources("main", classpath, classpath));
+        NbJavaModule module2 = createModule(createSources("main", classpath, classpath));
+
+        JavaDependencyViewModel model1 = JavaDependencyViewModel.create(module1, NO_PROJECT_DEPENDENCIES, null);
+        assertSame(model1, JavaDependencyViewModel.create(module1, NO_PROJECT_DEPENDENCIES, model1));
+        assertSame(model1, JavaDependencyViewModel.create(module2, NO_PROJECT_DEPENDENCIES, model1));
+    }
+
+    @Test
+    public void testOnlyChangedGroupIsReplaced() {
+        NbJavaModule module1 = createModule(createSources("main",
+                files("a.jar", "b.jar"),
+                files("a.jar", "b.jar", "x.jar", "c.jar")));
+        NbJavaModule module2 = createModule(createSources("main",
+                files("a.jar", "b.jar"),
+                files("a.jar", "b.jar", "x.jar", "d.jar", "c.jar")));
+
+        JavaDependencyViewModel model1 = JavaDependencyViewModel.create(module1, NO_PROJECT_DEPENDENCIES, null);
+        JavaDependencyViewModel model2 = JavaDependencyViewModel.create(module2, NO_PROJECT_DEPENDENCIES, model1);
+
+        assertNotSame(model1, model2);
+        assertTrue(model2.hasSameGroupNames(model1));
+        assertEquals(2, model2.getGroupNames().size());
+
+        List<String> groupNames = new ArrayList<>(model2.getGroupNames());
+        String compileGroup = groupNames.get(0);
+        String runtimeGroup = groupNames.get(1);
+
+        assertSame(model1.tryGetGroup(compileGroup), model2.tryGetGroup(compileGroup));
+        assertEquals(Collections.singleton(runtimeGroup), model2.getChangedGroupNames(model1));
+        assertEquals(Arrays.asList("c.jar", "d.jar", "x.jar"), getFileNames(model2.tryGetGroup(runtimeGroup)));
+    }
+
+    @Test
+    public void testInheritedDependenciesAreNotRepeated() {
+        JavaSourceSet main = createSources("main", files("a.jar"), files("a.jar"));
+        List<File> testClasspath = files("a.jar", "junit.jar", "main-out-classes");
+        JavaSourceSet test = createSources("test", testClasspath, testClasspath);
+
+        JavaDependencyViewModel model = JavaDependencyViewModel.create(
+                createModule(main, test), NO_PROJECT_DEPENDENCIES, null);
+
+        List<String> groupNames = new ArrayList<>(model.getGroupNames());
+        assertEquals(2, groupNames.size());
+        assertEquals(Arrays.asList("a.jar"), getFileNames(model.tryGetGroup(groupNames.get(0))));
+        assertEquals(Arrays.asList("junit.jar"), getFileNames(model.tryGetGroup(groupNames.get(1))));
+    }
+}
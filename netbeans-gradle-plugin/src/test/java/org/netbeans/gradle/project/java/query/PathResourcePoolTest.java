@@ -0,0 +1,95 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.nio.file.Path;
+import org.junit.Test;
+import org.netbeans.gradle.project.util.ExcludeIncludeRules;
+import org.netbeans.gradle.project.util.FileGroupFilter;
+import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.UrlFactory;
+import org.netbeans.spi.java.classpath.PathResourceImplementation;
+
+import static org.junit.Assert.*;
+
+public class PathResourcePoolTest {
+    private static UrlFactory testUrlFactory() {
+        return new UrlFactory(new NbFunction<File, URL>() {
+            @Override
+            public URL apply(File file) {
+                if (file.getName().startsWith("invalid")) {
+                    return null;
+                }
+
+                try {
+                    return new URL("file:/test/" + file.getName() + "/");
+                } catch (MalformedURLException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+    }
+
+    private static FileGroupFilter excludeAll() {
+        return new FileGroupFilter() {
+            @Override
+            public boolean isIncluded(Path rootPath, Path file) {
+                return false;
+            }
+
+            @Override
+            public boolean isAllowAll() {
+                return false;
+            }
+        };
+    }
+
+    @Test
+    public void testSameEntryIsShared() {
+        PathResourcePool pool = new PathResourcePool();
+
+        PathResourceImplementation resource1 = pool.tryGetResource(
+                new File("lib.jar"), ExcludeIncludeRules.ALLOW_ALL, testUrlFactory());
+        PathResourceImplementation resource2 = pool.tryGetResource(
+                new File("lib.jar"), ExcludeIncludeRules.ALLOW_ALL, testUrlFactory());
+
+        assertNotNull(resource1);
+        assertSame(resource1, resource2);
+        assertEquals(1, pool.getPoolSize());
+    }
+
+    @Test
+    public void testIncludeRulesAreDistinguished() {
+        PathResourcePool pool = new PathResourcePool();
+        FileGroupFilter excludeAll = excludeAll();
+
+        PathResourceImplementation allowAllResource = pool.tryGetResource(
+                new File("src"), ExcludeIncludeRules.ALLOW_ALL, testUrlFactory());
+        PathResourceImplementation filteredResource1 = pool.tryGetResource(
+                new File("src"), excludeAll, testUrlFactory());
+        PathResourceImplementation filteredResource2 = pool.tryGetResource(
+                new File("src"), excludeAll, testUrlFactory());
+
+        assertNotSame(allowAllResource, filteredResource1);
+        assertSame(filteredResource1, filteredResource2);
+        assertTrue(filteredResource1 instanceof ExcludeAwarePathResource);
+    }
+
+    @Test
+    public void testInvalidEntry() {
+        PathResourcePool pool = new PathResourcePool();
+        assertNull(pool.tryGetResource(new File("invalid.jar"), ExcludeIncludeRules.ALLOW_ALL, testUrlFactory()));
+        assertEquals(0, pool.getPoolSize());
+    }
+
+    @Test
+    public void testUrlEntryIsShared() throws MalformedURLException {
+        PathResourcePool pool = new PathResourcePool();
+        URL url = new URL("file:/test/lib.jar/");
+
+        PathResourceImplementation resource = pool.getResource(url);
+        assertSame(resource, pool.getResource(new URL(url.toExternalForm())));
+        assertSame(resource, pool.tryGetResource(new File("lib.jar"), ExcludeIncludeRules.ALLOW_ALL, testUrlFactory()));
+    }
+}
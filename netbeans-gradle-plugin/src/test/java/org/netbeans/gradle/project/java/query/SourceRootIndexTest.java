@@ -0,0 +1,123 @@
+package org.netbeans.gradle.project.java.query;
+
+import java.io.File;
+import java.net.MalformedURLException;
+import java.net.URL;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.concurrent.atomic.AtomicReference;
+import org.junit.Test;
+import org.netbeans.gradle.model.GenericProjectProperties;
+import org.netbeans.gradle.model.java.JavaCompatibilityModel;
+import org.netbeans.gradle.model.java.JavaOutputDirs;
+import org.netbeans.gradle.model.java.JavaSourceGroup;
+import org.netbeans.gradle.model.java.JavaSourceGroupName;
+import org.netbeans.gradle.model.java.JavaSourceSet;
+import org.netbeans.gradle.model.java.JavaTestModel;
+import org.netbeans.gradle.project.java.model.NbCodeCoverage;
+import org.netbeans.gradle.project.java.model.NbJarOutput;
+import org.netbeans.gradle.project.java.model.NbJavaModule;
+import org.netbeans.gradle.project.java.model.NbListedDir;
+import org.netbeans.gradle.project.model.NbGradleProjectTreeTest;
+import org.openide.util.Utilities;
+
+import static org.junit.Assert.*;
+
+public class SourceRootIndexTest {
+    private static final File PROJECT_DIR = new File("project-root").getAbsoluteFile();
+
+    private static File projectFile(String path) {
+        return new File(PROJECT_DIR, path);
+    }
+
+    private static JavaSourceSet createSources(String name, File... sourceRoots) {
+        JavaSourceSet.Builder result = new JavaSourceSet.Builder(
+                name,
+                new JavaOutputDirs(getClassesDir(name), projectFile(name + "-res"), Collections.<File>emptySet()));
+        result.addSourceGroup(new JavaSourceGroup(JavaSourceGroupName.JAVA, Arrays.asList(sourceRoots)));
+        return result.create();
+    }
+
+    private static File getClassesDir(String sourceSetName) {
+        return projectFile(sourceSetName + "-classes");
+    }
+
+    private static SourceRootIndex createIndex(JavaSourceSet... sources) {
+        GenericProjectProperties properties = NbGradleProjectTreeTest.createProperties("module", ":module");
+        NbJavaModule module = new NbJavaModule(
+                properties,
+                new JavaCompatibilityModel("1.7", "1.7"),
+                Arrays.asList(sources),
+                Collections.<NbListedDir>emptyList(),
+                Collections.<NbJarOutput>emptyList(),
+                JavaTestModel.getDefaulTestModel(properties.getProjectDir()),
+                NbCodeCoverage.NO_CODE_COVERAGE);
+        return SourceRootIndex.getIndex(module, new AtomicReference<SourceRootIndex>(null));
+    }
+
+    private static void assertBinaryRoot(String sourceSetName, SourceRootIndex index, File sourceRoot)
+            throws MalformedURLException {
+        URL expected = Utilities.toURI(getClassesDir(sourceSetName)).toURL();
+        assertArrayEquals(new URL[]{expected}, index.getBinaryRootUrls(sourceRoot));
+    }
+
+    @Test
+    public void testNestedRootsDeepestWins() throws MalformedURLException {
+        File outerRoot = projectFile("src/main/java");
+        File innerRoot = projectFile("src/main/java/generated");
+
+        // The outer root comes first so that a linear search would find it.
+        SourceRootIndex index = createIndex(
+                createSources(JavaSourceSet.NAME_MAIN, outerRoot),
+                createSources("generated", innerRoot));
+
+        assertEquals(innerRoot, index.tryGetSourceRoot(new File(innerRoot, "pckg/Gen.java")));
+        assertEquals(innerRoot, index.tryGetSourceRoot(innerRoot));
+        assertEquals(outerRoot, index.tryGetSourceRoot(new File(outerRoot, "pckg/MyClass.java")));
+
+        assertBinaryRoot("generated", index, innerRoot);
+        assertBinaryRoot(JavaSourceSet.NAME_MAIN, index, outerRoot);
+    }
+
+    @Test
+    public void testSiblingRootsWithSharedPrefix() throws MalformedURLException {
+        File mainRoot = projectFile("src/main");
+        File main2Root = projectFile("src/main2");
+        File testRoot = projectFile("src/main-test");
+
+        SourceRootIndex index = createIndex(
+                createSources(JavaSourceSet.NAME_MAIN, mainRoot),
+                createSources("main2", main2Root),
+                createSources(JavaSourceSet.NAME_TEST, testRoot));
+
+        assertEquals(mainRoot, index.tryGetSourceRoot(new File(mainRoot, "pckg/MyClass.java")));
+        assertEquals(main2Root, index.tryGetSourceRoot(new File(main2Root, "pckg/MyClass.java")));
+        assertEquals(testRoot, index.tryGetSourceRoot(new File(testRoot, "pckg/MyClassTest.java")));
+
+        assertBinaryRoot(JavaSourceSet.NAME_MAIN, index, mainRoot);
+        assertBinaryRoot("main2", index, main2Root);
+
+        assertTrue(index.isInNonTestRoot(new File(main2Root, "pckg/MyClass.java")));
+        assertFalse(index.isInNonTestRoot(new File(testRoot, "pckg/MyClassTest.java")));
+    }
+
+    @Test
+    public void testFilesOutsideOfRoots() {
+        File mainRoot = projectFile("src/main/java");
+        SourceRootIndex index = createIndex(createSources(JavaSourceSet.NAME_MAIN, mainRoot));
+
+        File[] outsideFiles = {
+            PROJECT_DIR,
+            projectFile("src/main"),
+            projectFile("src/main/javadoc/overview.html"),
+            projectFile("build.gradle"),
+            new File("other-root/src/main/java/pckg/MyClass.java").getAbsoluteFile()
+        };
+
+        for (File file: outsideFiles) {
+            assertNull(file.getPath(), index.tryGetSourceRoot(file));
+            assertFalse(file.getPath(), index.isInNonTestRoot(file));
+            assertEquals(file.getPath(), 0, index.getBinaryRootUrls(file).length);
+        }
+    }
+}
@@ -7,6 +7,8 @@ import java.util.Objects;
 import org.junit.ClassRule;
 import org.junit.Test;
 import org.netbeans.gradle.project.util.TemporaryFileRule;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
 
 import static org.junit.Assert.*;
 
@@ -67,6 +69,35 @@ public class DefaultLicenseStoreTest {
         assertFalse(store.containsLicense(licenseDef.getLicenseId()));
     }
 
+    @Test
+    public void testExternalChangesAreSeen() throws IOException {
+        DefaultLicenseStore store = new DefaultLicenseStore();
+        String licenseId = "TestExternalLicense3";
+
+        // The folder must exist before the first query, otherwise there is
+        // nothing to index and the store would list the folder again instead
+        // of relying on its listener.
+        FileObject licenseRoot = FileUtil.createFolder(FileUtil.getConfigRoot(), "Templates/Licenses");
+
+        // Makes sure that the licenses are indexed before the change.
+        assertFalse(store.containsLicense(licenseId));
+
+        FileObject licenseFile = licenseRoot.createData("license-" + licenseId + ".txt");
+        try {
+            licenseFile.setAttribute("displayName", "TestDisplayName3");
+
+            assertTrue(store.containsLicense(licenseId));
+
+            LicenseRef found = findById(store.getAllLicense(), licenseId);
+            assertNotNull("License", found);
+            assertEquals("DisplayName", "TestDisplayName3", found.getDisplayName());
+        } finally {
+            licenseFile.delete();
+        }
+
+        assertFalse(store.containsLicense(licenseId));
+    }
+
     private static void addAndRemove(
             LicenseStore<DefaultLicenseDef> store,
             DefaultLicenseDef licenseDef,
@@ -3,17 +3,26 @@ package org.netbeans.gradle.project.license;
 import java.io.IOException;
 import java.nio.file.Path;
 import java.nio.file.Paths;
+import java.util.ArrayList;
 import java.util.Collections;
+import java.util.List;
 import java.util.Map;
+import java.util.Queue;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicBoolean;
+import org.jtrim.cancel.Cancellation;
 import org.jtrim.concurrent.SyncTaskExecutor;
 import org.jtrim.concurrent.TaskExecutor;
+import org.jtrim.concurrent.TaskExecutorService;
 import org.jtrim.property.MutableProperty;
 import org.jtrim.property.PropertyFactory;
 import org.jtrim.property.PropertySource;
 import org.junit.Test;
 import org.netbeans.gradle.project.util.CloseableAction;
 import org.netbeans.gradle.project.util.NbFunction;
+import org.netbeans.gradle.project.util.NbTaskExecutors;
 
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
@@ -31,6 +40,12 @@ public class LicenseManagerTest {
     }
 
     private static LicenseManager<String> createTestManager(LicenseStore<DefaultLicenseDef> licenseStore) {
+        return createTestManager(licenseStore, SyncTaskExecutor.getSimpleExecutor());
+    }
+
+    private static LicenseManager<String> createTestManager(
+            LicenseStore<DefaultLicenseDef> licenseStore,
+            TaskExecutor executor) {
         NbFunction<String, Path> licenseRootProvider = new NbFunction<String, Path>() {
             @Override
             public Path apply(String ownerModel) {
@@ -45,8 +60,6 @@ public class LicenseManagerTest {
             }
         };
 
-        TaskExecutor executor = SyncTaskExecutor.getSimpleExecutor();
-
         return LicenseManagers.createLicenseManager(executor, licenseStore, licenseRootProvider, modelNameProvider);
     }
 
@@ -266,6 +279,103 @@ public class LicenseManagerTest {
         assertNull(manager.tryGetRegisteredLicenseName("TestModel", info));
     }
 
+    @Test(timeout = 60000)
+    public void testConcurrentRegisterAndLookup() throws Exception {
+        final int modelCount = 20;
+        final int registerThreadCount = 4;
+        final int lookupThreadCount = 4;
+        final int roundCount = 200;
+
+        MemLicenseStore licenseStore = new MemLicenseStore();
+        TaskExecutorService executor = NbTaskExecutors.newExecutor("LicenseManagerTest", 4);
+        try {
+            final LicenseManager<String> manager = createTestManager(licenseStore, executor);
+            final LicenseHeaderInfo info = testLicenseInfo("LicenseName", "LicenseFile");
+
+            final CountDownLatch startLatch = new CountDownLatch(1);
+            final AtomicBoolean registering = new AtomicBoolean(true);
+            final Queue<Throwable> errors = new ConcurrentLinkedQueue<>();
+
+            List<Thread> registerThreads = new ArrayList<>();
+            for (int i = 0; i < registerThreadCount; i++) {
+                registerThreads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            startLatch.await();
+                            for (int round = 0; round < roundCount; round++) {
+                                List<CloseableAction.Ref> refs = new ArrayList<>(modelCount);
+                                for (int model = 0; model < modelCount; model++) {
+                                    MutableProperty<String> modelRef = PropertyFactory.memProperty("Model" + model);
+                                    MutableProperty<LicenseHeaderInfo> infoRef = PropertyFactory.memProperty(info);
+                                    refs.add(manager.getRegisterListenerAction(modelRef, infoRef).getValue().open());
+                                }
+                                for (CloseableAction.Ref ref: refs) {
+                                    ref.close();
+                                }
+                            }
+                        } catch (Throwable ex) {
+                            errors.add(ex);
+                        }
+                    }
+                }));
+            }
+
+            List<Thread> lookupThreads = new ArrayList<>();
+            for (int i = 0; i < lookupThreadCount; i++) {
+                lookupThreads.add(new Thread(new Runnable() {
+                    @Override
+                    public void run() {
+                        try {
+                            startLatch.await();
+                            while (registering.get()) {
+                                for (int model = 0; model < modelCount; model++) {
+                                    String licenseId = manager.tryGetRegisteredLicenseName("Model" + model, info);
+                                    if (licenseId != null && !licenseId.contains("LicenseName")) {
+                                        throw new AssertionError("Unexpected license ID: " + licenseId);
+                                    }
+                                }
+                            }
+                        } catch (Throwable ex) {
+                            errors.add(ex);
+                        }
+                    }
+                }));
+            }
+
+            for (Thread thread: registerThreads) {
+                thread.start();
+            }
+            for (Thread thread: lookupThreads) {
+                thread.start();
+            }
+
+            startLatch.countDown();
+
+            for (Thread thread: registerThreads) {
+                thread.join();
+            }
+            registering.set(false);
+            for (Thread thread: lookupThreads) {
+                thread.join();
+            }
+
+            executor.shutdown();
+            executor.awaitTermination(Cancellation.UNCANCELABLE_TOKEN);
+
+            for (Throwable error: errors) {
+                throw new AssertionError("Unexpected failure", error);
+            }
+
+            for (int model = 0; model < modelCount; model++) {
+                assertNull(manager.tryGetRegisteredLicenseName("Model" + model, info));
+            }
+            licenseStore.assertEmpty();
+        } finally {
+            executor.shutdown();
+        }
+    }
+
     private static final class MemLicenseStore implements LicenseStore<DefaultLicenseDef> {
         private final Map<String, DefaultLicenseDef> licenses;
 
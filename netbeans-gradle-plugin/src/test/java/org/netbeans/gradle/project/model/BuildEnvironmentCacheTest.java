@@ -0,0 +1,113 @@
+package org.netbeans.gradle.project.model;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.attribute.FileTime;
+import java.util.concurrent.TimeUnit;
+import org.gradle.tooling.model.build.BuildEnvironment;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.netbeans.gradle.project.properties.GradleLocationDef;
+import org.netbeans.gradle.project.properties.GradleLocationDefault;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class BuildEnvironmentCacheTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    private static CachedBuildEnvironment createEnvironment(String gradleVersion) {
+        BuildEnvironment env = mock(BuildEnvironment.class, RETURNS_DEEP_STUBS);
+        when(env.getGradle().getGradleVersion()).thenReturn(gradleVersion);
+        return new CachedBuildEnvironment(env);
+    }
+
+    private static BuildEnvironmentCache.Key createKey(GradleLocationDef location, File javaHome, Path wrapperFile) {
+        return new BuildEnvironmentCache.Key(location, null, javaHome, wrapperFile);
+    }
+
+    @Test
+    public void testSameKeyIsCached() throws Exception {
+        File projectDir = tmpFolder.newFolder("project");
+        Path wrapperFile = projectDir.toPath().resolve("gradle-wrapper.properties");
+        File javaHome = new File("java-home");
+
+        BuildEnvironmentCache cache = new BuildEnvironmentCache();
+        assertNull(cache.tryGet(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile)));
+
+        CachedBuildEnvironment env = createEnvironment("2.14");
+        cache.put(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile), env);
+
+        CachedBuildEnvironment cached
+                = cache.tryGet(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile));
+        assertSame(env, cached);
+        assertEquals("2.14", cached.getGradleVersion().getVersion());
+
+        assertNull(cache.tryGet(new File(projectDir, "other"),
+                createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile)));
+    }
+
+    @Test
+    public void testChangedDistributionOrJavaHome() throws Exception {
+        File projectDir = tmpFolder.newFolder("project");
+        Path wrapperFile = projectDir.toPath().resolve("gradle-wrapper.properties");
+        File javaHome = new File("java-home");
+
+        BuildEnvironmentCache cache = new BuildEnvironmentCache();
+        cache.put(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile), createEnvironment("2.14"));
+
+        GradleLocationDef otherLocation = new GradleLocationDef(GradleLocationDefault.DEFAULT_REF, true);
+        assertNull(cache.tryGet(projectDir, createKey(otherLocation, javaHome, wrapperFile)));
+        assertNull(cache.tryGet(projectDir, createKey(GradleLocationDef.DEFAULT, new File("other-java"), wrapperFile)));
+    }
+
+    @Test
+    public void testChangedWrapperProperties() throws Exception {
+        File projectDir = tmpFolder.newFolder("project");
+        Path wrapperFile = projectDir.toPath().resolve("gradle-wrapper.properties");
+        File javaHome = new File("java-home");
+
+        BuildEnvironmentCache cache = new BuildEnvironmentCache();
+        cache.put(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile), createEnvironment("2.14"));
+
+        Files.write(wrapperFile, new byte[0]);
+        Files.setLastModifiedTime(wrapperFile, FileTime.from(1000, TimeUnit.SECONDS));
+        assertNull(cache.tryGet(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile)));
+
+        CachedBuildEnvironment env = createEnvironment("3.0");
+        cache.put(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile), env);
+        assertSame(env, cache.tryGet(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile)));
+
+        Files.setLastModifiedTime(wrapperFile, FileTime.from(2000, TimeUnit.SECONDS));
+        assertNull(cache.tryGet(projectDir, createKey(GradleLocationDef.DEFAULT, javaHome, wrapperFile)));
+    }
+
+    @Test
+    public void testLeastRecentlyUsedIsEvicted() throws Exception {
+        Path wrapperFile = tmpFolder.getRoot().toPath().resolve("gradle-wrapper.properties");
+        BuildEnvironmentCache.Key key = createKey(GradleLocationDef.DEFAULT, new File("java-home"), wrapperFile);
+
+        File projectDir1 = new File("project1");
+        File projectDir2 = new File("project2");
+        File projectDir3 = new File("project3");
+
+        CachedBuildEnvironment env1 = createEnvironment("2.14");
+        CachedBuildEnvironment env2 = createEnvironment("2.14");
+        CachedBuildEnvironment env3 = createEnvironment("2.14");
+
+        BuildEnvironmentCache cache = new BuildEnvironmentCache(2);
+        cache.put(projectDir1, key, env1);
+        cache.put(projectDir2, key, env2);
+
+        // Touch the first project, so that the second one is evicted.
+        assertSame(env1, cache.tryGet(projectDir1, key));
+        cache.put(projectDir3, key, env3);
+
+        assertSame(env1, cache.tryGet(projectDir1, key));
+        assertNull(cache.tryGet(projectDir2, key));
+        assertSame(env3, cache.tryGet(projectDir3, key));
+    }
+}
@@ -0,0 +1,85 @@
+package org.netbeans.gradle.project.model;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.netbeans.gradle.project.model.NbGradleProjectTreeTest.createTree;
+
+public class NbGradleProjectTreeDiffTest {
+    private static Set<String> getNames(Collection<NbGradleProjectTree> trees) {
+        Set<String> result = new HashSet<>();
+        for (NbGradleProjectTree tree: trees) {
+            result.add(tree.getProjectName());
+        }
+        return result;
+    }
+
+    private static Set<String> setOf(String... names) {
+        Set<String> result = new HashSet<>();
+        for (String name: names) {
+            result.add(name);
+        }
+        return result;
+    }
+
+    @Test
+    public void testSameStructure() {
+        NbGradleProjectTree tree1 = createTree("root", createTree("a", createTree("a1")), createTree("b"));
+        NbGradleProjectTree tree2 = createTree("root", createTree("b"), createTree("a", createTree("a1")));
+
+        assertEquals(tree1.getStructureHash(), tree2.getStructureHash());
+        assertTrue(NbGradleProjectTreeDiff.compute(tree1, tree2).isEmpty());
+    }
+
+    @Test
+    public void testAddedAndRemovedLeaves() {
+        NbGradleProjectTree tree1 = createTree("root",
+                createTree("a", createTree("a1"), createTree("a2")),
+                createTree("b", createTree("b1")));
+        NbGradleProjectTree tree2 = createTree("root",
+                createTree("a", createTree("a1"), createTree("a3")),
+                createTree("b", createTree("b1")));
+
+        NbGradleProjectTreeDiff diff = NbGradleProjectTreeDiff.compute(tree1, tree2);
+        assertEquals(setOf("a3"), getNames(diff.getAddedProjects()));
+        assertEquals(setOf("a2"), getNames(diff.getRemovedProjects()));
+        assertEquals(setOf("a"), getNames(diff.getChangedParents()));
+    }
+
+    @Test
+    public void testFirstChildChangesParentOfParent() {
+        NbGradleProjectTree tree1 = createTree("root", createTree("a"), createTree("b"));
+        NbGradleProjectTree tree2 = createTree("root", createTree("a", createTree("a1")), createTree("b"));
+
+        NbGradleProjectTreeDiff diff = NbGradleProjectTreeDiff.compute(tree1, tree2);
+        assertEquals(setOf("a1"), getNames(diff.getAddedProjects()));
+        assertTrue(diff.getRemovedProjects().isEmpty());
+        // "a" is displayed differently when it has children.
+        assertEquals(setOf("a", "root"), getNames(diff.getChangedParents()));
+    }
+
+    @Test
+    public void testManyProjects() {
+        List<NbGradleProjectTree> children1 = new ArrayList<>();
+        List<NbGradleProjectTree> children2 = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            children1.add(createTree("p" + i, createTree("p" + i + "-child")));
+            if (i != 500) {
+                children2.add(createTree("p" + i, createTree("p" + i + "-child")));
+            }
+        }
+
+        NbGradleProjectTree tree1 = createTree("root", children1.toArray(new NbGradleProjectTree[0]));
+        NbGradleProjectTree tree2 = createTree("root", children2.toArray(new NbGradleProjectTree[0]));
+
+        NbGradleProjectTreeDiff diff = NbGradleProjectTreeDiff.compute(tree1, tree2);
+        assertTrue(diff.getAddedProjects().isEmpty());
+        assertEquals(setOf("p500"), getNames(diff.getRemovedProjects()));
+        assertEquals(setOf("root"), getNames(diff.getChangedParents()));
+    }
+}
@@ -0,0 +1,149 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class AsyncLineHandlerTest {
+    private static List<String> expectedLines(int lineCount) {
+        List<String> result = new ArrayList<>(lineCount);
+        for (int i = 0; i < lineCount; i++) {
+            result.add("line" + i);
+        }
+        return result;
+    }
+
+    @Test(timeout = 30000)
+    public void testKeepsOrderWithSmallBuffer() throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+
+        int lineCount = 10000;
+        AsyncLineHandler asyncHandler = new AsyncLineHandler(handler, 16);
+        try (LineOutputWriter writer = new LineOutputWriter(asyncHandler)) {
+            for (int i = 0; i < lineCount; i++) {
+                writer.write("line" + i + "\n");
+            }
+        }
+        asyncHandler.close();
+
+        List<String> expected = expectedLines(lineCount);
+        // Closing the writer terminates the last (empty) line.
+        expected.add("");
+
+        assertEquals(expected, handler.getLines());
+        assertTrue(handler.isFlushed());
+    }
+
+    @Test(timeout = 30000)
+    public void testFullBufferStallsWriterAndDeliversEveryLine() throws Exception {
+        final int capacity = 16;
+        final CountDownLatch firstBatchStarted = new CountDownLatch(1);
+        final CountDownLatch releaseFirstBatch = new CountDownLatch(1);
+
+        CollectingHandler handler = new CollectingHandler() {
+            @Override
+            public void writeLines(List<String> lines) throws IOException {
+                if (firstBatchStarted.getCount() > 0) {
+                    firstBatchStarted.countDown();
+                    try {
+                        releaseFirstBatch.await();
+                    } catch (InterruptedException ex) {
+                        throw new IOException(ex);
+                    }
+                }
+                super.writeLines(lines);
+            }
+        };
+
+        final AsyncLineHandler asyncHandler = new AsyncLineHandler(handler, capacity);
+
+        asyncHandler.writeLine("line0");
+        firstBatchStarted.await();
+
+        for (int i = 1; i <= capacity; i++) {
+            asyncHandler.writeLine("line" + i);
+        }
+        assertEquals(0, asyncHandler.getStallCount());
+
+        Thread writerThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                try {
+                    asyncHandler.writeLine("line" + (capacity + 1));
+                } catch (IOException ex) {
+                    throw new RuntimeException(ex);
+                }
+            }
+        });
+        writerThread.start();
+
+        while (asyncHandler.getStallCount() == 0) {
+            Thread.sleep(1);
+        }
+
+        releaseFirstBatch.countDown();
+        writerThread.join();
+        asyncHandler.close();
+
+        assertEquals(1, asyncHandler.getStallCount());
+        assertEquals(expectedLines(capacity + 2), handler.getLines());
+
+        List<Integer> batchSizes = handler.getBatchSizes();
+        assertEquals(1, (int)batchSizes.get(0));
+        assertEquals(capacity, (int)batchSizes.get(1));
+        assertTrue(handler.isFlushed());
+    }
+
+    @Test(timeout = 30000)
+    public void testHandlerFailureDoesNotStopProcessing() throws IOException {
+        CollectingHandler handler = new CollectingHandler() {
+            @Override
+            public void writeLines(List<String> lines) throws IOException {
+                super.writeLines(lines);
+                throw new IOException("Test failure");
+            }
+        };
+
+        AsyncLineHandler asyncHandler = new AsyncLineHandler(handler, 4);
+        for (int i = 0; i < 100; i++) {
+            asyncHandler.writeLine("line" + i);
+        }
+        asyncHandler.close();
+
+        assertEquals(expectedLines(100), handler.getLines());
+        assertTrue(handler.isFlushed());
+    }
+
+    private static class CollectingHandler implements AsyncLineHandler.BatchHandler {
+        private final List<String> lines = new ArrayList<>();
+        private final List<Integer> batchSizes = new ArrayList<>();
+        private volatile boolean flushed = false;
+
+        @Override
+        public synchronized void writeLines(List<String> lines) throws IOException {
+            this.lines.addAll(lines);
+            this.batchSizes.add(lines.size());
+        }
+
+        @Override
+        public void flush() {
+            flushed = true;
+        }
+
+        public synchronized List<String> getLines() {
+            return new ArrayList<>(lines);
+        }
+
+        public synchronized List<Integer> getBatchSizes() {
+            return new ArrayList<>(batchSizes);
+        }
+
+        public boolean isFlushed() {
+            return flushed;
+        }
+    }
+}
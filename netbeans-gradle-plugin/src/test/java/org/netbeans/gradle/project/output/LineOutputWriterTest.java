@@ -0,0 +1,52 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class LineOutputWriterTest {
+    private static List<String> writeAll(String... chunks) throws IOException {
+        CollectingHandler handler = new CollectingHandler();
+        try (LineOutputWriter writer = new LineOutputWriter(handler)) {
+            for (String chunk: chunks) {
+                writer.write(chunk);
+            }
+        }
+        return handler.getLines();
+    }
+
+    @Test
+    public void testLineSeparators() throws IOException {
+        assertEquals(
+                Arrays.asList("line1", "line2", "line3", "", "line4"),
+                writeAll("line1\nline2\r\nline3\r\rline4"));
+    }
+
+    @Test
+    public void testLinesSplitAcrossChunks() throws IOException {
+        assertEquals(
+                Arrays.asList("line1", "line2", "line3"),
+                writeAll("li", "ne1\r", "\nline", "2\n", "line3"));
+    }
+
+    private static final class CollectingHandler implements LineOutputWriter.Handler {
+        private final List<String> lines = new ArrayList<>();
+
+        @Override
+        public synchronized void writeLine(String line) {
+            lines.add(line);
+        }
+
+        @Override
+        public void flush() {
+        }
+
+        public synchronized List<String> getLines() {
+            return new ArrayList<>(lines);
+        }
+    }
+}
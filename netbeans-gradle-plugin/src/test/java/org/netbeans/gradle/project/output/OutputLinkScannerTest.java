@@ -0,0 +1,48 @@
+package org.netbeans.gradle.project.output;
+
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+import static org.netbeans.gradle.project.output.OutputLinkScanner.*;
+
+public class OutputLinkScannerTest {
+    @Test
+    public void testPlainLine() {
+        assertEquals(NONE, findCandidates("BUILD SUCCESSFUL"));
+        assertEquals(NONE, findCandidates(""));
+    }
+
+    @Test
+    public void testStackTrace() {
+        int candidates = findCandidates("\tat org.example.MyClass.method(MyClass.java:34)");
+        assertEquals(STACK_TRACE | FILE_LINE, candidates);
+    }
+
+    @Test
+    public void testJavaWithoutLineNumber() {
+        assertEquals(NONE, findCandidates("MyClass.java compiled"));
+    }
+
+    @Test
+    public void testRepeatedDots() {
+        assertEquals(STACK_TRACE | FILE_LINE, findCandidates("x..java:1"));
+    }
+
+    @Test
+    public void testUrl() {
+        assertEquals(URL | FILE_PATH | FILE_LINE, findCandidates("See https://example.com"));
+    }
+
+    @Test
+    public void testFilePath() {
+        assertEquals(FILE_PATH, findCandidates("/home/user/project/build.gradle"));
+        assertEquals(FILE_PATH | FILE_LINE, findCandidates("C:\\project\\build.gradle"));
+    }
+
+    @Test
+    public void testRange() {
+        String line = "http://x MyClass.java:1";
+        assertEquals(URL | FILE_PATH | FILE_LINE, findCandidates(line, 0, 8));
+        assertEquals(STACK_TRACE | FILE_LINE, findCandidates(line, 8, line.length()));
+    }
+}
@@ -0,0 +1,121 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskOutputProcessor;
+import org.openide.windows.InputOutput;
+import org.openide.windows.OutputListener;
+import org.openide.windows.OutputWriter;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class SmartOutputHandlerTest {
+    private static SmartOutputHandler createHandler(
+            StringWriter output,
+            List<TaskOutputProcessor> visitors,
+            SmartOutputHandler.Consumer... consumers) {
+        return new SmartOutputHandler(
+                mock(InputOutput.class),
+                new TestOutputWriter(output),
+                visitors,
+                Arrays.asList(consumers));
+    }
+
+    @Test
+    public void testConsumedLinesKeepTheirPosition() throws IOException {
+        StringWriter output = new StringWriter();
+        LinkConsumer consumer = new LinkConsumer();
+        SmartOutputHandler handler = createHandler(
+                output, Collections.<TaskOutputProcessor>emptyList(), consumer);
+
+        handler.writeLines(Arrays.asList("a", "link1", "b", "c", "link2", "d"));
+
+        assertEquals("a\n<link1>\nb\nc\n<link2>\nd\n", output.toString());
+        assertEquals(Arrays.asList("link1", "link2"), consumer.getOfferedLines());
+    }
+
+    @Test
+    public void testSingleLineIsDetected() throws IOException {
+        StringWriter output = new StringWriter();
+        LinkConsumer consumer = new LinkConsumer();
+        SmartOutputHandler handler = createHandler(
+                output, Collections.<TaskOutputProcessor>emptyList(), consumer);
+
+        handler.writeLine("text");
+        handler.writeLine("link");
+
+        assertEquals("text\n<link>\n", output.toString());
+        assertEquals(Arrays.asList("link"), consumer.getOfferedLines());
+    }
+
+    @Test
+    public void testVisitorsSeeEveryLine() throws IOException {
+        final List<String> visited = new ArrayList<>();
+        TaskOutputProcessor visitor = new TaskOutputProcessor() {
+            @Override
+            public void processLine(String line) {
+                visited.add(line);
+            }
+        };
+
+        List<String> lines = Arrays.asList("a", "link", "b");
+        SmartOutputHandler handler = createHandler(
+                new StringWriter(), Collections.singletonList(visitor), new LinkConsumer());
+        handler.writeLines(lines);
+
+        assertEquals(lines, visited);
+    }
+
+    @Test
+    public void testBuildErrorConsumerHidesStackTrace() throws IOException {
+        StringWriter output = new StringWriter();
+        SmartOutputHandler handler = createHandler(
+                output, Collections.<TaskOutputProcessor>emptyList(), new BuildErrorConsumer());
+
+        handler.writeLines(Arrays.asList("FAILURE", "* Exception is:", "at Foo"));
+        handler.writeLine("at Bar");
+
+        assertEquals("FAILURE\n", output.toString());
+    }
+
+    private static final class LinkConsumer implements SmartOutputHandler.Consumer {
+        private final List<String> offeredLines = new ArrayList<>();
+
+        @Override
+        public boolean isCandidateLine(String line) {
+            return line.startsWith("link");
+        }
+
+        @Override
+        public boolean tryConsumeLine(String line, InputOutput ioParent, OutputWriter output) {
+            offeredLines.add(line);
+            output.print("<" + line + ">\n");
+            return true;
+        }
+
+        public List<String> getOfferedLines() {
+            return offeredLines;
+        }
+    }
+
+    private static final class TestOutputWriter extends OutputWriter {
+        public TestOutputWriter(StringWriter output) {
+            super(output);
+        }
+
+        @Override
+        public void println(String s, OutputListener l) throws IOException {
+            println(s);
+        }
+
+        @Override
+        public void reset() throws IOException {
+        }
+    }
+}
@@ -0,0 +1,163 @@
+package org.netbeans.gradle.project.output;
+
+import java.io.File;
+import java.io.IOException;
+import java.net.URL;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+import javax.swing.event.ChangeListener;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.netbeans.api.java.classpath.ClassPath;
+import org.netbeans.api.java.queries.SourceForBinaryQuery;
+import org.netbeans.api.project.Project;
+import org.netbeans.gradle.project.util.SafeTmpFolder;
+import org.netbeans.spi.java.classpath.support.ClassPathSupport;
+import org.netbeans.spi.java.queries.SourceForBinaryQueryImplementation;
+import org.openide.filesystems.FileObject;
+import org.openide.filesystems.FileUtil;
+import org.openide.util.lookup.Lookups;
+
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+
+public class StackTraceConsumerTest {
+    @Rule
+    public final SafeTmpFolder tmpDir = new SafeTmpFolder();
+
+    private FileObject binRoot1;
+    private FileObject binRoot2;
+    private FileObject srcRoot1;
+    private FileObject srcRoot2;
+    private TestSourceQuery sourceQuery;
+
+    @Before
+    public void setUp() throws IOException {
+        File root = tmpDir.newFolder();
+        binRoot1 = createDir(root, "bin1");
+        binRoot2 = createDir(root, "bin2");
+        srcRoot1 = createDir(root, "src1");
+        srcRoot2 = createDir(root, "src2");
+
+        for (int i = 0; i < 10; i++) {
+            createClass(binRoot1, srcRoot1, "org/a/A" + i);
+        }
+        createClass(binRoot2, srcRoot2, "org/b/B");
+        // Split package: org.a is also in the second root.
+        createClass(binRoot2, srcRoot2, "org/a/Split");
+        createClass(binRoot2, srcRoot2, "Default");
+
+        sourceQuery = new TestSourceQuery();
+        sourceQuery.addRoots(binRoot1, srcRoot1);
+        sourceQuery.addRoots(binRoot2, srcRoot2);
+    }
+
+    private static FileObject createDir(File parent, String name) throws IOException {
+        File dir = new File(parent, name);
+        if (!dir.mkdirs()) {
+            throw new IOException("Failed to create directory: " + dir);
+        }
+        return FileUtil.toFileObject(dir);
+    }
+
+    private static void createClass(FileObject binRoot, FileObject srcRoot, String className) throws IOException {
+        FileUtil.createData(binRoot, className + ".class");
+        FileUtil.createData(srcRoot, className + ".java");
+    }
+
+    private StackTraceConsumer createConsumer() {
+        Project project = mock(Project.class);
+        when(project.getLookup()).thenReturn(Lookups.fixed(sourceQuery));
+
+        ClassPath classPath = ClassPathSupport.createClassPath(binRoot1, binRoot2);
+        return new StackTraceConsumer(project, classPath);
+    }
+
+    private static void assertSource(FileObject srcRoot, String className, StackTraceConsumer consumer) {
+        assertEquals(className, srcRoot.getFileObject(className + ".java"), consumer.findSourceFile(className));
+    }
+
+    @Test
+    public void testSourceRootsAreQueriedOncePerBinaryRoot() {
+        StackTraceConsumer consumer = createConsumer();
+
+        for (int i = 0; i < 10; i++) {
+            assertSource(srcRoot1, "org/a/A" + i, consumer);
+        }
+        assertEquals(1, sourceQuery.getQueryCount());
+
+        assertSource(srcRoot2, "org/b/B", consumer);
+        assertSource(srcRoot2, "org/a/Split", consumer);
+        assertSource(srcRoot2, "Default", consumer);
+        assertEquals(2, sourceQuery.getQueryCount());
+    }
+
+    @Test
+    public void testResolution() {
+        StackTraceConsumer consumer = createConsumer();
+
+        assertSource(srcRoot2, "org/a/Split", consumer);
+        assertSource(srcRoot2, "org/b/B", consumer);
+        assertSource(srcRoot2, "Default", consumer);
+        assertSource(srcRoot1, "org/a/A0", consumer);
+        assertNull(consumer.findSourceFile("org/a/Missing"));
+        assertNull(consumer.findSourceFile("org/c/Missing"));
+        assertNull(consumer.findSourceFile("Missing"));
+    }
+
+    @Test
+    public void testResultsAreCached() {
+        StackTraceConsumer consumer = createConsumer();
+
+        assertSource(srcRoot1, "org/a/A0", consumer);
+        int queryCount = sourceQuery.getQueryCount();
+
+        assertSource(srcRoot1, "org/a/A0", consumer);
+        assertEquals(queryCount, sourceQuery.getQueryCount());
+    }
+
+    private static final class TestSourceQuery implements SourceForBinaryQueryImplementation {
+        private final Map<URL, FileObject> sourceRoots;
+        private final AtomicInteger queryCount;
+
+        public TestSourceQuery() {
+            this.sourceRoots = new HashMap<>();
+            this.queryCount = new AtomicInteger(0);
+        }
+
+        public void addRoots(FileObject binaryRoot, FileObject sourceRoot) {
+            sourceRoots.put(binaryRoot.toURL(), sourceRoot);
+        }
+
+        public int getQueryCount() {
+            return queryCount.get();
+        }
+
+        @Override
+        public SourceForBinaryQuery.Result findSourceRoots(URL binaryRoot) {
+            queryCount.incrementAndGet();
+
+            final FileObject sourceRoot = sourceRoots.get(binaryRoot);
+            if (sourceRoot == null) {
+                return null;
+            }
+
+            return new SourceForBinaryQuery.Result() {
+                @Override
+                public FileObject[] getRoots() {
+                    return new FileObject[]{sourceRoot};
+                }
+
+                @Override
+                public void addChangeListener(ChangeListener l) {
+                }
+
+                @Override
+                public void removeChangeListener(ChangeListener l) {
+                }
+            };
+        }
+    }
+}
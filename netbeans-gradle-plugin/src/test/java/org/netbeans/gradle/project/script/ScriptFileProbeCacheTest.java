@@ -0,0 +1,128 @@
+package org.netbeans.gradle.project.script;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import static org.junit.Assert.*;
+
+public class ScriptFileProbeCacheTest {
+    @Rule
+    public final TemporaryFolder tmpFolder = new TemporaryFolder();
+
+    @Test
+    public void testFindSettingsInParent() throws IOException {
+        Path rootDir = tmpFolder.getRoot().toPath();
+        Path settingsFile = Files.createFile(rootDir.resolve("settings.gradle"));
+        Path subDir = Files.createDirectories(rootDir.resolve("a").resolve("b"));
+
+        ScriptFileProbeCache cache = new ScriptFileProbeCache();
+        DefaultScriptFileProvider scriptProvider = new DefaultScriptFileProvider(cache);
+
+        assertEquals(settingsFile, scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+        assertEquals(settingsFile, scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+    }
+
+    @Test
+    public void testInvalidateAll() throws IOException {
+        Path rootDir = tmpFolder.getRoot().toPath();
+
+        ScriptFileProbeCache cache = new ScriptFileProbeCache();
+        DefaultScriptFileProvider scriptProvider = new DefaultScriptFileProvider(cache);
+
+        assertNull(scriptProvider.findScriptFile(rootDir, CommonScripts.BUILD_BASE_NAME));
+
+        Path buildFile = Files.createFile(rootDir.resolve("build.gradle.kts"));
+        cache.invalidateAll();
+
+        assertEquals(buildFile, scriptProvider.findScriptFile(rootDir, CommonScripts.BUILD_BASE_NAME));
+        assertTrue(cache.isRegularFile(buildFile));
+    }
+
+    @Test
+    public void testUnrelatedDirectoryKeepsCachedResults() throws IOException {
+        Path rootDir = tmpFolder.getRoot().toPath();
+        Path settingsFile = Files.createFile(rootDir.resolve("settings.gradle"));
+        Path subDir = Files.createDirectories(rootDir.resolve("a").resolve("b"));
+
+        ScriptFileProbeCache cache = new ScriptFileProbeCache();
+        DefaultScriptFileProvider scriptProvider = new DefaultScriptFileProvider(cache);
+
+        assertEquals(settingsFile, scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+        assertTrue(cache.isRegularFile(settingsFile));
+
+        // Deleted without notifying the cache: only the cached values can
+        // tell that the settings file exists.
+        Files.delete(settingsFile);
+
+        cache.invalidateDirectory(Files.createDirectories(rootDir.resolve("other")));
+        cache.invalidateDirectory(Files.createDirectories(rootDir.resolve("a").resolve("c")));
+        cache.invalidateScriptFile(rootDir.resolve("other").resolve("settings.gradle"));
+
+        assertEquals(settingsFile, scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+        assertTrue(cache.isRegularFile(settingsFile));
+
+        cache.invalidateScriptFile(settingsFile);
+
+        assertNull(scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+        assertFalse(cache.isRegularFile(settingsFile));
+    }
+
+    @Test
+    public void testScriptFileInParentInvalidatesSearch() throws IOException {
+        Path rootDir = tmpFolder.getRoot().toPath();
+        Path subDir = Files.createDirectories(rootDir.resolve("a").resolve("b"));
+
+        ScriptFileProbeCache cache = new ScriptFileProbeCache();
+        DefaultScriptFileProvider scriptProvider = new DefaultScriptFileProvider(cache);
+
+        assertNull(scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+
+        Path settingsFile = Files.createFile(rootDir.resolve("a").resolve("settings.gradle"));
+        cache.invalidateScriptFile(settingsFile);
+
+        assertEquals(settingsFile, scriptProvider.findScriptFileInDirOrParents(subDir, CommonScripts.SETTINGS_BASE_NAME));
+    }
+
+    @Test
+    public void testDirectoryInvalidatesPathsWithin() throws IOException {
+        Path rootDir = tmpFolder.getRoot().toPath();
+        Path subDir = Files.createDirectories(rootDir.resolve("a"));
+        Path buildFile = Files.createFile(subDir.resolve("build.gradle"));
+
+        ScriptFileProbeCache cache = new ScriptFileProbeCache();
+        DefaultScriptFileProvider scriptProvider = new DefaultScriptFileProvider(cache);
+
+        assertEquals(buildFile, scriptProvider.findScriptFile(subDir, CommonScripts.BUILD_BASE_NAME));
+
+        Files.delete(buildFile);
+        Files.delete(subDir);
+        cache.invalidateDirectory(subDir);
+
+        assertNull(scriptProvider.findScriptFile(subDir, CommonScripts.BUILD_BASE_NAME));
+        assertFalse(cache.isRegularFile(buildFile));
+    }
+
+    @Test
+    public void testDirectoryKeepsResultsOfSiblingWithSamePrefix() throws IOException {
+        Path rootDir = tmpFolder.getRoot().toPath();
+        Path dir = Files.createDirectories(rootDir.resolve("a"));
+        Path siblingDir = Files.createDirectories(rootDir.resolve("a-b"));
+        Path buildFile = Files.createFile(dir.resolve("build.gradle"));
+        Path siblingBuildFile = Files.createFile(siblingDir.resolve("build.gradle"));
+
+        ScriptFileProbeCache cache = new ScriptFileProbeCache();
+        assertTrue(cache.isRegularFile(buildFile));
+        assertTrue(cache.isRegularFile(siblingBuildFile));
+
+        Files.delete(buildFile);
+        Files.delete(siblingBuildFile);
+        cache.invalidateDirectory(dir);
+
+        assertFalse(cache.isRegularFile(buildFile));
+        assertTrue(cache.isRegularFile(siblingBuildFile));
+    }
+}
@@ -0,0 +1,89 @@
+package org.netbeans.gradle.project.tasks.vars;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+import org.netbeans.gradle.project.api.task.TaskVariable;
+import org.netbeans.gradle.project.api.task.TaskVariableMap;
+
+import static org.junit.Assert.*;
+
+public final class CompiledTemplateTest {
+    private static TaskVariableMap variableMap(String... namesAndValues) {
+        final Map<String, String> values = new HashMap<>();
+        for (int i = 0; i < namesAndValues.length; i += 2) {
+            values.put(namesAndValues[i], namesAndValues[i + 1]);
+        }
+
+        return new TaskVariableMap() {
+            @Override
+            public String tryGetValueForVariable(TaskVariable variable) {
+                return values.get(variable.getVariableName());
+            }
+        };
+    }
+
+    private static List<String> getNames(List<DisplayedTaskVariable> vars) {
+        List<String> result = new ArrayList<>(vars.size());
+        for (DisplayedTaskVariable var: vars) {
+            result.add(var.getVariable().getVariableName());
+        }
+        return result;
+    }
+
+    @Test
+    public void testWithoutVariables() {
+        String str = "no variables $ here {} $";
+        CompiledTemplate template = CompiledTemplate.compile(str);
+
+        assertFalse(template.hasVariables());
+        assertSame(str, template.replaceVars(variableMap(), new ArrayList<DisplayedTaskVariable>()));
+        assertSame(str, template.replaceVarsIfValid(variableMap()));
+    }
+
+    @Test
+    public void testReplaceVars() {
+        CompiledTemplate template = CompiledTemplate.compile("a${var1}b${var2:Display}c${var1}");
+
+        List<DisplayedTaskVariable> collected = new ArrayList<>();
+        String result = template.replaceVars(variableMap("var1", "X", "var2", "Y"), collected);
+
+        assertEquals("aXbYcX", result);
+        assertEquals(Arrays.asList("var1", "var2", "var1"), getNames(collected));
+    }
+
+    @Test
+    public void testMissingValuesAreKept() {
+        String str = "a${var1}b${var2}c";
+        CompiledTemplate template = CompiledTemplate.compile(str);
+
+        assertEquals("a${var1}bYc", template.replaceVars(variableMap("var2", "Y"), new ArrayList<DisplayedTaskVariable>()));
+        assertSame(str, template.replaceVars(variableMap(), new ArrayList<DisplayedTaskVariable>()));
+        assertNull(template.replaceVarsIfValid(variableMap("var2", "Y")));
+        assertEquals("aXbYc", template.replaceVarsIfValid(variableMap("var1", "X", "var2", "Y")));
+    }
+
+    @Test
+    public void testInvalidVariablesAreLiterals() {
+        CompiledTemplate template = CompiledTemplate.compile("${illegal-chars*-=\\}}${var1}${}");
+
+        List<DisplayedTaskVariable> collected = new ArrayList<>();
+        String result = template.replaceVars(variableMap("var1", "X"), collected);
+
+        assertEquals("${illegal-chars*-=\\}}X${}", result);
+        assertEquals(Arrays.asList("var1"), getNames(collected));
+    }
+
+    @Test
+    public void testLenientVariableStart() {
+        // The '{' character does not have to follow the '$' character immediately.
+        String str = "$${var1}}${var2[type:args]:Name} $ {var1}";
+        TaskVariableMap varMap = variableMap("var1", "X", "var2", "Y");
+
+        String result = CompiledTemplate.compile(str).replaceVars(varMap, new ArrayList<DisplayedTaskVariable>());
+        assertEquals("X}Y X", result);
+    }
+}
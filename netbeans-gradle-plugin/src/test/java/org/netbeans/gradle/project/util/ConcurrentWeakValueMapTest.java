@@ -0,0 +1,157 @@
+package org.netbeans.gradle.project.util;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.junit.Test;
+
+import static org.junit.Assert.*;
+
+public class ConcurrentWeakValueMapTest {
+    private static void runConcurrently(int threadCount, final Runnable task) throws InterruptedException {
+        final CountDownLatch startLatch = new CountDownLatch(1);
+        final List<Throwable> failures = new ArrayList<>();
+
+        List<Thread> threads = new ArrayList<>(threadCount);
+        for (int i = 0; i < threadCount; i++) {
+            Thread thread = new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    try {
+                        startLatch.await();
+                        task.run();
+                    } catch (Throwable ex) {
+                        synchronized (failures) {
+                            failures.add(ex);
+                        }
+                    }
+                }
+            });
+            thread.start();
+            threads.add(thread);
+        }
+
+        startLatch.countDown();
+        for (Thread thread: threads) {
+            thread.join();
+        }
+
+        if (!failures.isEmpty()) {
+            throw new AssertionError(failures.get(0));
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testConcurrentPuts() throws InterruptedException {
+        final int valueCount = 300;
+        final ConcurrentWeakValueMap<String, Object> map = new ConcurrentWeakValueMap<>();
+
+        final AtomicInteger addedCount = new AtomicInteger(0);
+        map.addEntryListener(new ConcurrentWeakValueMap.EntryListener<String, Object>() {
+            @Override
+            public void onAdded(String key, Object value) {
+                addedCount.incrementAndGet();
+            }
+
+            @Override
+            public void onRemoved(String key) {
+            }
+        });
+
+        final Object[] values = new Object[valueCount];
+        for (int i = 0; i < valueCount; i++) {
+            values[i] = "value" + i;
+        }
+
+        final AtomicInteger nextIndex = new AtomicInteger(0);
+        runConcurrently(8, new Runnable() {
+            @Override
+            public void run() {
+                int index = nextIndex.getAndIncrement();
+                while (index < valueCount) {
+                    String key = "key" + index;
+                    map.put(key, values[index]);
+                    assertSame(values[index], map.get(key));
+
+                    index = nextIndex.getAndIncrement();
+                }
+            }
+        });
+
+        assertEquals(valueCount, addedCount.get());
+        assertEquals(valueCount, map.size());
+
+        Set<Object> snapshot = new HashSet<>(map.valuesSnapshot());
+        assertEquals(valueCount, snapshot.size());
+        for (int i = 0; i < valueCount; i++) {
+            assertSame(values[i], map.get("key" + i));
+            assertTrue(snapshot.contains(values[i]));
+        }
+    }
+
+    @Test
+    public void testPutSameValueTwice() {
+        ConcurrentWeakValueMap<String, Object> map = new ConcurrentWeakValueMap<>();
+        Object value = new Object();
+
+        assertNull(map.put("key", value));
+        assertSame(value, map.put("key", value));
+        assertEquals(1, map.size());
+    }
+
+    @Test
+    public void testRemove() {
+        ConcurrentWeakValueMap<String, Object> map = new ConcurrentWeakValueMap<>();
+
+        final List<String> removedKeys = new ArrayList<>();
+        map.addEntryListener(new ConcurrentWeakValueMap.EntryListener<String, Object>() {
+            @Override
+            public void onAdded(String key, Object value) {
+            }
+
+            @Override
+            public void onRemoved(String key) {
+                removedKeys.add(key);
+            }
+        });
+
+        Object value = new Object();
+        map.put("key", value);
+
+        assertSame(value, map.remove("key"));
+        assertNull(map.get("key"));
+        assertTrue(map.isEmpty());
+        assertEquals(1, removedKeys.size());
+        assertEquals("key", removedKeys.get(0));
+    }
+
+    @Test(timeout = 30000)
+    public void testUnreferencedValueIsExpunged() throws InterruptedException {
+        ConcurrentWeakValueMap<String, Object> map = new ConcurrentWeakValueMap<>();
+
+        final CountDownLatch removedLatch = new CountDownLatch(1);
+        map.addEntryListener(new ConcurrentWeakValueMap.EntryListener<String, Object>() {
+            @Override
+            public void onAdded(String key, Object value) {
+            }
+
+            @Override
+            public void onRemoved(String key) {
+                removedLatch.countDown();
+            }
+        });
+
+        map.put("key", new Object());
+
+        while (!map.isEmpty()) {
+            System.gc();
+            Thread.sleep(10);
+        }
+
+        removedLatch.await();
+        assertNull(map.get("key"));
+    }
+}
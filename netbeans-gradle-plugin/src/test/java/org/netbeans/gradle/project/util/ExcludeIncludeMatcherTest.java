@@ -0,0 +1,133 @@
+package org.netbeans.gradle.project.util;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Set;
+import org.junit.Test;
+import org.netbeans.gradle.model.java.SourceIncludePatterns;
+
+import static org.junit.Assert.*;
+
+public class ExcludeIncludeMatcherTest {
+    private static final String[][] TESTED_PATHS = {
+        {},
+        {"gen"},
+        {"gen", "File.java"},
+        {"gen", "sub", "File.java"},
+        {"generated", "File.java"},
+        {"src", "gen", "File.java"},
+        {"other", "File.java"},
+        {"other", "sub", "Test.java"},
+        {"test", "File.java"},
+        {"root1", "test", "File.java"},
+    };
+
+    private static Set<String> asSet(String... values) {
+        return new LinkedHashSet<>(Arrays.asList(values));
+    }
+
+    private static Path subPath(Path rootDir, String... subPaths) {
+        Path result = rootDir;
+        for (String subPath: subPaths) {
+            result = result.resolve(subPath);
+        }
+        return result;
+    }
+
+    private static ExcludeIncludeMatcher testSameAsExcludeInclude(Set<String> excludes, Set<String> includes) {
+        SourceIncludePatterns patterns = SourceIncludePatterns.create(excludes, includes);
+        ExcludeIncludeMatcher matcher = ExcludeIncludeMatcher.create(patterns);
+
+        Path rootDir = Paths.get("root", "subDir").toAbsolutePath();
+        for (String[] testedPath: TESTED_PATHS) {
+            Path file = subPath(rootDir, testedPath);
+
+            boolean expected = ExcludeInclude.includeFile(file, rootDir, excludes, includes);
+            assertEquals("Included: " + file + " excludes: " + excludes + " includes: " + includes,
+                    expected,
+                    matcher.isIncluded(rootDir, file));
+        }
+
+        Path outsideFile = subPath(rootDir.getParent(), "other", "File.java");
+        assertFalse("Included: " + outsideFile, matcher.isIncluded(rootDir, outsideFile));
+
+        return matcher;
+    }
+
+    @Test
+    public void testAllowAll() {
+        Set<String> noPatterns = Collections.emptySet();
+        ExcludeIncludeMatcher matcher = testSameAsExcludeInclude(noPatterns, noPatterns);
+        assertEquals(ExcludeIncludeMatcher.Kind.ALLOW_ALL, matcher.getKind());
+        assertTrue(matcher.isAllowAll());
+    }
+
+    @Test
+    public void testPrefixExcludes() {
+        Set<String> noIncludes = Collections.emptySet();
+
+        String[][] prefixExcludes = {
+            {"gen"},
+            {"gen/"},
+            {"gen/**"},
+            {"/gen/"},
+            {"gen/sub"},
+            {"gen/File.java"},
+            {"gen/", "other/sub/"},
+        };
+
+        for (String[] excludes: prefixExcludes) {
+            ExcludeIncludeMatcher matcher = testSameAsExcludeInclude(asSet(excludes), noIncludes);
+            assertEquals("Kind for " + Arrays.toString(excludes),
+                    ExcludeIncludeMatcher.Kind.PREFIX_EXCLUDES,
+                    matcher.getKind());
+        }
+    }
+
+    @Test
+    public void testPrefixExcludesWithAlternatingRoots() {
+        SourceIncludePatterns patterns = SourceIncludePatterns.create(asSet("gen/"), Collections.<String>emptySet());
+        ExcludeIncludeMatcher matcher = ExcludeIncludeMatcher.create(patterns);
+
+        Path rootDir1 = Paths.get("root1").toAbsolutePath();
+        Path rootDir2 = Paths.get("root2").toAbsolutePath();
+        for (int i = 0; i < 2; i++) {
+            assertFalse(matcher.isIncluded(rootDir1, subPath(rootDir1, "gen", "File.java")));
+            assertTrue(matcher.isIncluded(rootDir1, subPath(rootDir1, "src", "File.java")));
+            assertFalse(matcher.isIncluded(rootDir1, subPath(rootDir2, "src", "File.java")));
+
+            assertFalse(matcher.isIncluded(rootDir2, subPath(rootDir2, "gen", "File.java")));
+            assertTrue(matcher.isIncluded(rootDir2, subPath(rootDir2, "src", "File.java")));
+            assertFalse(matcher.isIncluded(rootDir2, subPath(rootDir1, "src", "File.java")));
+        }
+    }
+
+    @Test
+    public void testGeneralPatterns() {
+        Set<String> noPatterns = Collections.emptySet();
+
+        Object[][] generalPatterns = {
+            {asSet("**/test/*"), noPatterns},
+            {asSet("gen*/"), noPatterns},
+            {asSet("**/*.java"), noPatterns},
+            {asSet("gen/", "**/Test.java"), noPatterns},
+            {noPatterns, asSet("gen/")},
+            {asSet("gen/sub/"), asSet("gen/**")},
+        };
+
+        for (Object[] patterns: generalPatterns) {
+            @SuppressWarnings("unchecked")
+            Set<String> excludes = (Set<String>)patterns[0];
+            @SuppressWarnings("unchecked")
+            Set<String> includes = (Set<String>)patterns[1];
+
+            ExcludeIncludeMatcher matcher = testSameAsExcludeInclude(excludes, includes);
+            assertEquals("Kind for " + excludes + ", " + includes,
+                    ExcludeIncludeMatcher.Kind.GENERAL,
+                    matcher.getKind());
+        }
+    }
+}
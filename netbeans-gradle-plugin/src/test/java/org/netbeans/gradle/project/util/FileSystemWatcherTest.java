@@ -4,6 +4,9 @@ import java.io.IOException;
 import java.nio.file.FileSystems;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.HashSet;
+import java.util.Set;
 import java.util.concurrent.TimeUnit;
 import org.jtrim.cancel.Cancellation;
 import org.jtrim.concurrent.SyncTaskExecutor;
@@ -14,6 +17,8 @@ import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
 
+import static org.junit.Assert.*;
+
 public class FileSystemWatcherTest {
     private static final long TIMEOUT_SEC = 5;
 
@@ -28,13 +33,22 @@ public class FileSystemWatcherTest {
     }
 
     private void testModifications(WatchSetup setup, Modification... modifications) throws IOException {
+        testModifications(false, setup, modifications);
+    }
+
+    private void testModifications(
+            boolean watchContent,
+            WatchSetup setup,
+            Modification... modifications) throws IOException {
         Path root = tmpFolder.newFolder("root").toPath();
 
         TestListener listener = new TestListener();
 
         Path watchedDir = setup.setupWatch(root);
 
-        ListenerRef listenerRef = watcher.watchPath(watchedDir, listener);
+        ListenerRef listenerRef = watchContent
+                ? watcher.watchFileContent(watchedDir, listener)
+                : watcher.watchPath(watchedDir, listener);
         try {
             for (Modification modification: modifications) {
                 listener.reset();
@@ -129,6 +143,141 @@ public class FileSystemWatcherTest {
         }, deleteDirAction());
     }
 
+    private static Modification appendToFileAction(final String content) {
+        return new Modification() {
+            @Override
+            public void doModification(Path watchedFile) throws IOException {
+                Files.write(watchedFile, content.getBytes("UTF-8"), StandardOpenOption.APPEND);
+            }
+        };
+    }
+
+    @Test
+    public void testFileContentChange() throws IOException {
+        testModifications(true, new WatchSetup() {
+            @Override
+            public Path setupWatch(Path root) throws IOException {
+                Path watchedFile = root.resolve("build.gradle");
+                Files.createFile(watchedFile);
+                return watchedFile;
+            }
+        }, appendToFileAction("// line1\n"), appendToFileAction("// line2\n"), deleteDirAction());
+    }
+
+    @Test
+    public void testContentListenerAddedToExistingWatch() throws IOException {
+        Path root = tmpFolder.newFolder("root").toPath();
+        Path watchedFile = root.resolve("build.gradle");
+        Files.createFile(watchedFile);
+
+        TestListener pathListener = new TestListener();
+        TestListener contentListener = new TestListener();
+
+        ListenerRef pathRef = watcher.watchPath(watchedFile, pathListener);
+        try {
+            ListenerRef contentRef = watcher.watchFileContent(watchedFile, contentListener);
+            try {
+                contentListener.reset();
+                appendToFileAction("// line1\n").doModification(watchedFile);
+                contentListener.assertCalled();
+            } finally {
+                contentRef.unregister();
+            }
+
+            pathListener.reset();
+            deleteDirAction().doModification(watchedFile);
+            pathListener.assertCalled();
+        } finally {
+            pathRef.unregister();
+        }
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testUnchangedExistenceIsNotReported() throws IOException {
+        Path root = tmpFolder.newFolder("root").toPath();
+        Path watchedFile = root.resolve("build.gradle");
+        Files.createFile(watchedFile);
+
+        TestListener pathListener = new TestListener();
+        TestListener contentListener = new TestListener();
+
+        ListenerRef pathRef = watcher.watchPath(watchedFile, pathListener);
+        try {
+            ListenerRef contentRef = watcher.watchFileContent(watchedFile, contentListener);
+            try {
+                appendToFileAction("// line1\n").doModification(watchedFile);
+                contentListener.assertCalled();
+                pathListener.assertNotCalled();
+            } finally {
+                contentRef.unregister();
+            }
+        } finally {
+            pathRef.unregister();
+        }
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+    }
+
+    @Test
+    public void testDirectoryTree() throws Exception {
+        Path root = tmpFolder.newFolder("root").toPath();
+        Files.createDirectory(root.resolve("existing"));
+
+        PathCollector collector = new PathCollector();
+        ListenerRef listenerRef = watcher.watchDirectoryTree(root, collector);
+        try {
+            assertEquals(1, watcher.getStatistics().getWatchedTreeCount());
+
+            Path newDir = root.resolve("newdir");
+            Files.createDirectory(newDir);
+            collector.waitFor(newDir);
+
+            Path nestedFile = newDir.resolve("nested.txt");
+            Files.createFile(nestedFile);
+            collector.waitFor(nestedFile);
+
+            Path fileInExisting = root.resolve("existing").resolve("file.txt");
+            Files.createFile(fileInExisting);
+            collector.waitFor(fileInExisting);
+
+            FileSystemWatcher.Statistics statistics = watcher.getStatistics();
+            assertTrue(statistics.getRegisteredKeyCount() >= 3);
+            assertTrue(statistics.getEventCount() > 0);
+        } finally {
+            listenerRef.unregister();
+        }
+
+        watcher.waitFor(TIMEOUT_SEC, TimeUnit.SECONDS);
+        assertEquals(0, watcher.getStatistics().getRegisteredKeyCount());
+    }
+
+    private static final class PathCollector implements NbConsumer<Path> {
+        private final Set<Path> paths;
+
+        public PathCollector() {
+            this.paths = new HashSet<>();
+        }
+
+        @Override
+        public synchronized void accept(Path path) {
+            paths.add(path);
+            notifyAll();
+        }
+
+        public synchronized void waitFor(Path path) throws InterruptedException {
+            long endTime = System.nanoTime() + TimeUnit.SECONDS.toNanos(TIMEOUT_SEC);
+            while (!paths.contains(path)) {
+                long remainingMs = TimeUnit.NANOSECONDS.toMillis(endTime - System.nanoTime());
+                if (remainingMs <= 0) {
+                    throw new AssertionError("Path was not reported: " + path);
+                }
+                wait(remainingMs);
+            }
+        }
+    }
+
     private static final class TestListener implements Runnable {
         private WaitableSignal signal;
 
@@ -150,6 +299,12 @@ public class FileSystemWatcherTest {
                 throw new AssertionError("waitCalled: Timeout");
             }
         }
+
+        public void assertNotCalled() {
+            if (signal.isSignaled()) {
+                throw new AssertionError("Unexpected notification.");
+            }
+        }
     }
 
     private interface WatchSetup {
@@ -0,0 +1,80 @@
+package org.netbeans.gradle.project.validate;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import org.jtrim.concurrent.SyncTaskExecutor;
+import org.jtrim.property.MutableProperty;
+import org.junit.Test;
+
+import static org.jtrim.property.PropertyFactory.*;
+import static org.junit.Assert.*;
+
+public class BackgroundValidatorTest {
+    private static final long TIMEOUT_MS = TimeUnit.SECONDS.toMillis(10);
+
+    private static Validator<String> warnWithInput(final AtomicInteger callCount) {
+        return new Validator<String>() {
+            @Override
+            public Problem validateInput(String inputType) {
+                callCount.incrementAndGet();
+                return Problem.warning(inputType);
+            }
+        };
+    }
+
+    private static void waitForProblem(BackgroundValidator validator, String expectedMessage) throws Exception {
+        long startTime = System.nanoTime();
+        while (true) {
+            Problem problem = validator.currentProblem().getValue();
+            if (problem != null && expectedMessage.equals(problem.getMessage())) {
+                return;
+            }
+
+            if (TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startTime) > TIMEOUT_MS) {
+                fail("Timeout while waiting for problem: " + expectedMessage);
+            }
+            Thread.sleep(10);
+        }
+    }
+
+    @Test(timeout = 30000)
+    public void testUnchangedInputIsNotValidatedAgain() throws Exception {
+        BackgroundValidator validator = new BackgroundValidator();
+
+        AtomicInteger constCallCount = new AtomicInteger(0);
+        validator.addValidator(
+                warnWithInput(constCallCount),
+                constSource("0"),
+                SyncTaskExecutor.getSimpleExecutor());
+
+        AtomicInteger changingCallCount = new AtomicInteger(0);
+        MutableProperty<String> changingInput = memProperty("1");
+        validator.addValidator(
+                warnWithInput(changingCallCount),
+                changingInput,
+                SyncTaskExecutor.getSimpleExecutor());
+
+        // Both validators report a warning, so the first one wins.
+        waitForProblem(validator, "0");
+
+        for (int i = 2; i < 10; i++) {
+            changingInput.setValue(Integer.toString(i));
+        }
+
+        waitForProblem(validator, "0");
+        validator.addValidator(
+                new Validator<String>() {
+                    @Override
+                    public Problem validateInput(String inputType) {
+                        return Problem.severe(inputType);
+                    }
+                },
+                changingInput,
+                SyncTaskExecutor.getSimpleExecutor());
+
+        waitForProblem(validator, "9");
+
+        assertEquals("Calls of the validator with unchanged input", 1, constCallCount.get());
+        assertTrue("Calls of the validator with changing input", changingCallCount.get() >= 1);
+    }
+}